@@ -41,6 +41,12 @@ export interface Match {
   state: State;
 }
 
+export interface Prediction {
+  matchQuality: number;
+  teamAWinProbability: number;
+  teamBWinProbability: number;
+}
+
 export interface Tournament {
   id: number;
   bestOfN: number;
@@ -54,4 +60,5 @@ export interface Tournament {
   teamBPlayer2SkillChange: number;
   teamASkillChange: number;
   teamBSkillChange: number;
+  prediction?: Prediction;
 }
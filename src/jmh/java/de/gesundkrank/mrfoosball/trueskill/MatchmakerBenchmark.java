@@ -0,0 +1,66 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Latency of picking the next lineup from queues of different sizes.
+ *
+ * <p>Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatchmakerBenchmark {
+
+    @Param({"4", "10", "16", "30"})
+    public int players;
+
+    private final Matchmaker matchmaker =
+            new Matchmaker(1.0, 0.02, TimeUnit.MINUTES.toMillis(30), 0.3, 2);
+    private double[] ratings;
+    private double[] bonus;
+
+    @Setup
+    public void setUp() {
+        final var random = new Random(42);
+        ratings = new double[players * 2];
+        bonus = new double[players];
+        for (int i = 0; i < players; i++) {
+            ratings[i * 2] = 10 + random.nextDouble() * 30;
+            ratings[i * 2 + 1] = 1 + random.nextDouble() * 7;
+            bonus[i] = random.nextDouble() * 0.6 - 0.3;
+        }
+    }
+
+    @Benchmark
+    public int[] bestMatch() {
+        return matchmaker.bestMatch(ratings, bonus);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Simulated seasons per second of a double round robin league, on one core and on all cores.
+ *
+ * <p>Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SeasonSimulatorBenchmark {
+
+    private static final int SEASONS = 10000;
+
+    @Param({"6", "12"})
+    public int teams;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private SeasonSimulator simulator;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        final var random = new Random(42);
+        final var ratings = new double[teams * 4];
+        final var teamPlayers = new int[teams * 2];
+        for (int i = 0; i < teams * 2; i++) {
+            ratings[i * 2] = 10 + random.nextDouble() * 30;
+            ratings[i * 2 + 1] = 1 + random.nextDouble() * 7;
+            teamPlayers[i] = i;
+        }
+        simulator = new SeasonSimulator(ratings, teamPlayers,
+                                        SeasonSimulator.roundRobin(teams, 2));
+        pool = new ForkJoinPool(parallelism == 0
+                                ? Runtime.getRuntime().availableProcessors() : parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEASONS)
+    public int[] simulate() {
+        return simulator.run(SEASONS, 42, pool);
+    }
+}
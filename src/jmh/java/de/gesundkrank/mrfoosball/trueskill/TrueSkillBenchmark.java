@@ -0,0 +1,112 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.gesundkrank.jskills.GameInfo;
+import de.gesundkrank.jskills.IPlayer;
+import de.gesundkrank.jskills.ITeam;
+import de.gesundkrank.jskills.Player;
+import de.gesundkrank.jskills.Rating;
+import de.gesundkrank.jskills.Team;
+import de.gesundkrank.jskills.trueskill.TwoTeamTrueSkillCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of 2v2 match quality and rating updates, through jskills and through
+ * {@link TwoTeamTrueSkill}.
+ *
+ * <p>Run with {@code ./gradlew jmh}, add {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TrueSkillBenchmark {
+
+    private final TwoTeamTrueSkillCalculator calculator = new TwoTeamTrueSkillCalculator();
+    private final GameInfo gameInfo = new GameInfo(
+            TrueSkillCalculator.DEFAULT_INITIAL_MEAN,
+            TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION,
+            TrueSkillCalculator.DEFAULT_BETA, TrueSkillCalculator.DEFAULT_DYNAMICS_FACTOR,
+            TrueSkillCalculator.DEFAULT_DRAW_PROBABILITY);
+
+    private final double[] initial = new double[8];
+    private final double[] ratings = new double[8];
+    private List<IPlayer> players;
+    private boolean teamAWins;
+
+    @Setup
+    public void setUp() {
+        final var random = new Random(42);
+        for (int i = 0; i < initial.length; i += 2) {
+            initial[i] = 5 + random.nextDouble() * 40;
+            initial[i + 1] = 0.5 + random.nextDouble() * 8;
+        }
+        players = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++) {
+            players.add(new Player<>(i));
+        }
+    }
+
+    @Benchmark
+    public double jskillsQuality() {
+        return calculator.calculateMatchQuality(gameInfo, teams());
+    }
+
+    @Benchmark
+    public double primitiveQuality() {
+        return TwoTeamTrueSkill.matchQuality(initial[0], initial[1], initial[2], initial[3],
+                                             initial[4], initial[5], initial[6], initial[7]);
+    }
+
+    @Benchmark
+    public Map<IPlayer, Rating> jskillsUpdate() {
+        teamAWins = !teamAWins;
+        return calculator.calculateNewRatings(gameInfo, teams(), teamAWins ? 1 : 2,
+                                              teamAWins ? 2 : 1);
+    }
+
+    @Benchmark
+    public double[] primitiveUpdate() {
+        teamAWins = !teamAWins;
+        System.arraycopy(initial, 0, ratings, 0, initial.length);
+        TwoTeamTrueSkill.update2v2(ratings, 0, teamAWins);
+        return ratings;
+    }
+
+    private List<ITeam> teams() {
+        final var teamA = new Team();
+        teamA.addPlayer(players.get(0), new Rating(initial[0], initial[1]));
+        teamA.addPlayer(players.get(1), new Rating(initial[2], initial[3]));
+        final var teamB = new Team();
+        teamB.addPlayer(players.get(2), new Rating(initial[4], initial[5]));
+        teamB.addPlayer(players.get(3), new Rating(initial[6], initial[7]));
+        return List.of(teamA, teamB);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.utils;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.google.zxing.WriterException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of rendering the channel QR codes, uncached and through {@link QRCodeCache}.
+ *
+ * <p>Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class QRCodeBenchmark {
+
+    @Param({"200", "400", "1000"})
+    public int size;
+
+    private String channelId;
+    private QRCodeGenerator qrCodeGenerator;
+    private QRCodeCache qrCodeCache;
+
+    @Setup
+    public void setUp() {
+        channelId = UUID.randomUUID().toString();
+        qrCodeGenerator = new QRCodeGenerator();
+        qrCodeCache = new QRCodeCache();
+    }
+
+    @Benchmark
+    public byte[] renderPng() throws IOException, WriterException {
+        return qrCodeGenerator.generatePng(channelId, size);
+    }
+
+    @Benchmark
+    public byte[] renderSvg() throws WriterException {
+        return qrCodeGenerator.generateSvg(channelId, size);
+    }
+
+    @Benchmark
+    public byte[] cachedPng() throws IOException, WriterException {
+        return qrCodeCache.get(channelId, size, QRCodeCache.PNG).content;
+    }
+}
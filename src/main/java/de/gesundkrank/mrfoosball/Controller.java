@@ -18,40 +18,74 @@
 package de.gesundkrank.mrfoosball;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import javax.persistence.NoResultException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.gesundkrank.mrfoosball.metrics.JvmMetrics;
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.models.Achievement;
 import de.gesundkrank.mrfoosball.models.Channel;
 import de.gesundkrank.mrfoosball.models.Crawl;
+import de.gesundkrank.mrfoosball.models.Lineup;
 import de.gesundkrank.mrfoosball.models.Match;
+import de.gesundkrank.mrfoosball.models.PairStats;
+import de.gesundkrank.mrfoosball.models.PeriodStats;
 import de.gesundkrank.mrfoosball.models.Player;
 import de.gesundkrank.mrfoosball.models.PlayerQueue;
 import de.gesundkrank.mrfoosball.models.PlayerSkill;
+import de.gesundkrank.mrfoosball.models.Prediction;
+import de.gesundkrank.mrfoosball.models.RatingHistory;
+import de.gesundkrank.mrfoosball.models.Records;
+import de.gesundkrank.mrfoosball.models.SeasonProjection;
+import de.gesundkrank.mrfoosball.models.SeasonSpec;
 import de.gesundkrank.mrfoosball.models.SlackWorkspace;
 import de.gesundkrank.mrfoosball.models.State;
 import de.gesundkrank.mrfoosball.models.Team;
+import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.TeamStatCounters;
 import de.gesundkrank.mrfoosball.models.Tournament;
-import de.gesundkrank.mrfoosball.slack.MessageWriter;
+import de.gesundkrank.mrfoosball.models.WorkspaceLeaderboard;
+import de.gesundkrank.mrfoosball.slack.Scoreboard;
 import de.gesundkrank.mrfoosball.slack.UserFetcher;
+import de.gesundkrank.mrfoosball.store.Directory;
 import de.gesundkrank.mrfoosball.store.hibernate.Store;
+import de.gesundkrank.mrfoosball.store.zookeeper.ChannelChanges;
 import de.gesundkrank.mrfoosball.store.zookeeper.LastCrawl;
 import de.gesundkrank.mrfoosball.store.zookeeper.PlayerQueues;
 import de.gesundkrank.mrfoosball.store.zookeeper.RunningTournaments;
+import de.gesundkrank.mrfoosball.trueskill.Matchmaker;
 import de.gesundkrank.mrfoosball.trueskill.PlayerTrueSkillCalculator;
+import de.gesundkrank.mrfoosball.trueskill.Predictor;
+import de.gesundkrank.mrfoosball.trueskill.RatingRecomputation;
+import de.gesundkrank.mrfoosball.trueskill.RatingReplay;
+import de.gesundkrank.mrfoosball.trueskill.SeasonSimulator;
 import de.gesundkrank.mrfoosball.trueskill.TeamTrueSkillCalculator;
 import de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator;
 import de.gesundkrank.mrfoosball.utils.Properties;
+import de.gesundkrank.mrfoosball.utils.StatsCache;
 
 public class Controller {
 
     public static final int DEFAULT_BEST_OF_N = 3;
 
+    private static final int MAX_SEASON_TEAMS = 64;
+    private static final int MAX_SEASONS = 100000;
+    private static final long MAX_SIMULATED_GAMES = 50_000_000;
+    private static final int WORKSPACE_ACTIVE_DAYS = 60;
+
     private static volatile Controller INSTANCE;
 
     private final Logger logger;
@@ -62,6 +96,15 @@ public class Controller {
     private final LastCrawl lastCrawl;
     private final String baseUrl;
     private final UserFetcher userFetcher;
+    private final Scoreboard scoreboard;
+    private final Directory directory;
+    private final Matchmaker matchmaker;
+    private final Predictor predictor;
+    private final StatsCache statsCache;
+    private final WorkspaceLeaderboards workspaceLeaderboards;
+    private final ChannelChanges channelChanges;
+    private final ForkJoinPool simulationPool;
+    private final AtomicReference<RatingRecomputation> recomputation;
 
     public static Controller getInstance() throws IOException {
         if (INSTANCE == null) {
@@ -83,6 +126,21 @@ public class Controller {
         this.lastCrawl = new LastCrawl(zookeeperHosts);
         this.baseUrl = properties.getAppUrl();
         this.userFetcher = new UserFetcher();
+        this.scoreboard = Scoreboard.getInstance();
+        this.directory = Directory.getInstance();
+        this.matchmaker = new Matchmaker();
+        this.predictor = new Predictor();
+        this.statsCache = new StatsCache();
+        final var workspacePool = new ForkJoinPool(properties.getWorkspaceParallelism());
+        this.workspaceLeaderboards = new WorkspaceLeaderboards(
+                this::getWorkspaceChannelIds, this::getStandings, workspacePool);
+        this.simulationPool = new ForkJoinPool(properties.getSimulationParallelism());
+        final var metrics = Metrics.getInstance();
+        JvmMetrics.register(metrics, "workspace", workspacePool);
+        JvmMetrics.register(metrics, "simulation", simulationPool);
+        this.recomputation = new AtomicReference<>();
+        this.channelChanges = new ChannelChanges(zookeeperHosts);
+        channelChanges.watch(this::dropCaches);
     }
 
     public String joinChannel(final String slackId, final SlackWorkspace slackWorkspace) {
@@ -95,6 +153,7 @@ public class Controller {
         try (final var store = new Store()) {
             store.saveChannel(channel);
         }
+        directory.put(channel);
 
         return id;
     }
@@ -104,12 +163,30 @@ public class Controller {
         startTournament(channelId, true, DEFAULT_BEST_OF_N);
     }
 
-    public void startTournament(final String channelId, final boolean shuffle,
-                                final int bestOfN)
+    /**
+     * Starts a tournament with four players from the queue. With {@code shuffle} the matchmaker
+     * picks the players and teams, otherwise the first four players play in queue order.
+     */
+    public synchronized void startTournament(final String channelId, final boolean shuffle,
+                                             final int bestOfN)
             throws IOException, TournamentRunningException {
-        var playerList = queues.get(channelId).queue;
-        queues.clear(channelId);
-        startTournament(channelId, shuffle, bestOfN, playerList);
+        final var queue = queues.get(channelId);
+        final List<Player> playerList;
+        if (shuffle) {
+            final List<Tournament> recent;
+            try (final var store = new Store()) {
+                recent = store.getLastTournaments(channelId, matchmaker.getRecentTournaments());
+                store.loadRatings(channelId, queue.queue);
+            }
+            playerList = matchmaker.bestMatch(queue.queue, queue.joined, recent,
+                                              System.currentTimeMillis());
+        } else {
+            playerList = new ArrayList<>(
+                    queue.queue.subList(0, PlayerQueue.PLAYERS_PER_TOURNAMENT));
+        }
+
+        startTournament(channelId, false, bestOfN, playerList);
+        queues.remove(channelId, playerList);
     }
 
     private void startTournament(final String channelId, final int bestOfN, final Team teamA,
@@ -125,28 +202,25 @@ public class Controller {
             throw new TournamentRunningException();
         }
 
-        if (shuffle) {
-            Collections.shuffle(playerList);
-            playerList = TrueSkillCalculator.getBestMatch(playerList);
-        }
-
         try (final var store = new Store()) {
+            if (shuffle) {
+                store.loadRatings(channelId, playerList);
+                playerList = matchmaker.bestMatch(playerList, List.of(), List.of(),
+                                                  System.currentTimeMillis());
+            }
+
             final var teamA = store.getTeam(playerList.get(0), playerList.get(1));
             final var teamB = store.getTeam(playerList.get(2), playerList.get(3));
+            store.loadRatings(channelId, List.of(teamA.player1, teamA.player2,
+                                                 teamB.player1, teamB.player2));
+            store.loadRating(channelId, teamA);
+            store.loadRating(channelId, teamB);
             final var channel = store.getChannel(channelId);
             final var tournament = new Tournament(bestOfN, teamA, teamB, channel);
+            tournament.prediction = Predictor.predict(teamA, teamB);
             runningTournaments.save(tournament);
-
-            final var message = String.format("A new game started:%n <@%s> <@%s> vs. <@%s> <@%s>",
-                                              tournament.teamA.player1.id,
-                                              tournament.teamA.player2.id,
-                                              tournament.teamB.player1.id,
-                                              tournament.teamB.player2.id);
-            final var messageWriter = new MessageWriter(channel.slackWorkspace.accessToken);
-            messageWriter.postMessage(channel.slackId, message, channel.slackWorkspace.botUserId);
+            scoreboard.start(tournament);
         }
-
-
     }
 
     public synchronized void finishTournament(final String channelId, final boolean rematch)
@@ -161,29 +235,24 @@ public class Controller {
 
         runningTournament.state = State.FINISHED;
 
+        final List<Achievement> achievements;
         try (final var store = new Store()) {
-            var updatedTournament =
-                    playerTrueSkillCalculator.updateRatings(runningTournament);
-            updatedTournament =
-                    teamTrueSkillCalculator.updateRatings(updatedTournament);
-            store.saveTournament(updatedTournament);
+            achievements = store.saveTournament(runningTournament, this::updateRatings);
         }
+        channelChanged(channelId);
 
         checkCrawl(runningTournament, channelId);
         this.runningTournaments.clear(channelId);
 
-        final var winner = runningTournament.winner();
-        final var message = String.format("The game is over. Congratulations to <@%s> and <@%s>!",
-                                          winner.player1.id,
-                                          winner.player2.id);
-        final var channel = runningTournament.channel;
-        final var messageWriter = new MessageWriter(channel.slackWorkspace.accessToken);
-        messageWriter.postMessage(channel.slackId, message, channel.slackWorkspace.botUserId);
+        scoreboard.finish(runningTournament);
+        if (Properties.getInstance().getSlackAnnounceRecords()) {
+            scoreboard.announce(runningTournament, achievements);
+        }
 
         try {
             if (rematch) {
                 startRematch(runningTournament);
-            } else if (queues.get(channelId).isFull()) {
+            } else if (queues.get(channelId).isReady()) {
                 startTournament(channelId);
             }
         } catch (TournamentRunningException e) {
@@ -207,6 +276,457 @@ public class Controller {
         startTournament(tournament.channel.id, tournament.bestOfN, teamA, teamB);
     }
 
+    /**
+     * Starts replaying all finished tournaments in the background to recompute every rating.
+     * Tournaments finished in the meantime are replayed on top before the ratings are written,
+     * and editing or deleting a tournament starts the replay over.
+     */
+    public RatingRecomputation.Progress recomputeRatings() throws RecomputationRunningException {
+        final var current = recomputation.get();
+        if (current != null && current.isRunning()) {
+            throw new RecomputationRunningException();
+        }
+
+        final var next = new RatingRecomputation();
+        if (!recomputation.compareAndSet(current, next)) {
+            throw new RecomputationRunningException();
+        }
+
+        final var thread = new Thread(() -> runRecomputation(next), "rating-recomputation");
+        thread.setDaemon(true);
+        thread.start();
+        return next.getProgress();
+    }
+
+    /**
+     * Derives the channel ratings from the tournament history if there are none yet, as after
+     * migrating from global ratings.
+     */
+    public void recomputeMissingRatings() {
+        try (final var store = new Store()) {
+            if (!store.ratingsMissing()) {
+                return;
+            }
+        }
+
+        logger.info("No channel ratings found, recomputing them from all tournaments");
+        try {
+            recomputeRatings();
+        } catch (RecomputationRunningException e) {
+            logger.debug("Recomputation is already running.");
+        }
+    }
+
+    /**
+     * Builds the team stats, daily rollups, player pair records and records from the tournament
+     * history if there are none yet, as after adding their tables.
+     */
+    public void rebuildMissingStats() throws IOException {
+        try (final var store = new Store()) {
+            if (store.statsMissing()) {
+                logger.info("No stats found, building them from all tournaments");
+                store.rebuildStats();
+                channelChanged(null);
+            }
+        }
+    }
+
+    private Tournament updateRatings(final Tournament tournament) {
+        return teamTrueSkillCalculator.updateRatings(
+                playerTrueSkillCalculator.updateRatings(tournament));
+    }
+
+    private void runRecomputation(final RatingRecomputation first) {
+        final var properties = Properties.getInstance();
+        final var batchSize = properties.getRecomputeBatchSize();
+        final var pool = new ForkJoinPool(properties.getRecomputeParallelism());
+        var current = first;
+        try (final var store = new Store()) {
+            while (current != null) {
+                store.loadFinishedTournaments(current, batchSize);
+                current.run(pool);
+                current = writeRecomputation(store, current, batchSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to recompute ratings", e);
+            recomputation.get().setPhase(RatingRecomputation.Phase.FAILED);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes the recomputed ratings channel by channel unless a loaded tournament changed in the
+     * meantime, in which case the next recomputation to run is returned.
+     */
+    private RatingRecomputation writeRecomputation(final Store store,
+                                                   final RatingRecomputation current,
+                                                   final int batchSize) throws IOException {
+        current.setPhase(RatingRecomputation.Phase.WRITING);
+        final var loaded = current.getLastTournamentId();
+        for (int channel = 0; channel < current.getChannelCount(); channel++) {
+            if (current.isStale()) {
+                return restartRecomputation(current);
+            }
+            store.saveRecomputedRatings(current, channel, loaded, batchSize);
+        }
+        channelChanged(null);
+        // an edit that raced the last channels may have replayed on top of outdated ratings
+        if (current.isStale()) {
+            return restartRecomputation(current);
+        }
+        current.setPhase(RatingRecomputation.Phase.DONE);
+        logger.info("Recomputed ratings from {} tournaments", current.getTournamentCount());
+        return null;
+    }
+
+    private RatingRecomputation restartRecomputation(final RatingRecomputation current) {
+        logger.info("Tournaments changed during the recomputation, starting over");
+        current.setPhase(RatingRecomputation.Phase.FAILED);
+        final var next = new RatingRecomputation();
+        recomputation.set(next);
+        return next;
+    }
+
+    /**
+     * Drops the cached stats, predictions and leaderboards of a changed channel, or of all
+     * channels if {@code channelId} is {@code null}, on this and all other nodes.
+     */
+    private void channelChanged(final String channelId) {
+        dropCaches(channelId);
+        try {
+            if (channelId == null) {
+                channelChanges.publishAll();
+            } else {
+                channelChanges.publish(channelId);
+            }
+        } catch (final IOException e) {
+            logger.error("Failed to publish change of channel " + channelId, e);
+        }
+    }
+
+    private void dropCaches(final String channelId) {
+        if (channelId == null) {
+            predictor.invalidateAll();
+            statsCache.invalidateAll();
+            workspaceLeaderboards.invalidateAll();
+        } else {
+            predictor.invalidate(channelId);
+            statsCache.invalidate(channelId);
+            workspaceLeaderboards.invalidate(channelId);
+        }
+    }
+
+    private void markRecomputationStale() {
+        final var current = recomputation.get();
+        if (current != null && current.isRunning()) {
+            current.markStale();
+        }
+    }
+
+    /**
+     * Progress of the last recomputation or {@code null} if none was started.
+     */
+    public RatingRecomputation.Progress getRecomputationProgress() {
+        final var current = recomputation.get();
+        return current == null ? null : current.getProgress();
+    }
+
+    /**
+     * Corrects the match results of a finished tournament. If that changes the winner, the
+     * ratings are replayed from this tournament on.
+     */
+    public synchronized void editTournament(final String channelId, final int tournamentId,
+                                            final List<Match> matches)
+            throws TournamentNotFoundException, InvalidTournamentStateException,
+                   RatingReplay.MissingSnapshotException, IOException {
+        try (final var store = new Store()) {
+            final var tournament = getFinishedTournament(store, channelId, tournamentId);
+            checkResults(matches, tournament.bestOfN);
+            final var teamAWon = TrueSkillCalculator.teamAWins(tournament);
+            final var previousStats = TeamStat.of(tournament);
+
+            while (tournament.matches.size() > matches.size()) {
+                tournament.matches.remove(tournament.matches.size() - 1);
+            }
+            for (int i = 0; i < matches.size(); i++) {
+                if (i == tournament.matches.size()) {
+                    tournament.matches.add(new Match());
+                }
+                final var match = tournament.matches.get(i);
+                match.teamA = matches.get(i).teamA;
+                match.teamB = matches.get(i).teamB;
+                match.state = State.FINISHED;
+            }
+
+            markRecomputationStale();
+            if (teamAWon == TrueSkillCalculator.teamAWins(tournament)) {
+                store.updateFinishedTournament(tournament, previousStats);
+            } else if (tournament.ratingsBefore == null) {
+                store.updateFinishedTournament(tournament, previousStats);
+                recomputeWithoutSnapshot(tournament);
+            } else {
+                store.updateFinishedTournament(
+                        tournament, previousStats, ratingReplay(tournament),
+                        Properties.getInstance().getRecomputeBatchSize());
+            }
+            channelChanged(channelId);
+        }
+    }
+
+    /**
+     * Deletes a finished tournament and replays the ratings from it on.
+     */
+    public synchronized void deleteTournament(final String channelId, final int tournamentId)
+            throws TournamentNotFoundException, RatingReplay.MissingSnapshotException,
+                   IOException {
+        try (final var store = new Store()) {
+            final var tournament = getFinishedTournament(store, channelId, tournamentId);
+            markRecomputationStale();
+            if (tournament.ratingsBefore == null) {
+                store.deleteFinishedTournament(tournament);
+                recomputeWithoutSnapshot(tournament);
+            } else {
+                store.deleteFinishedTournament(
+                        tournament, ratingReplay(tournament),
+                        Properties.getInstance().getRecomputeBatchSize());
+            }
+            channelChanged(channelId);
+        }
+    }
+
+    /**
+     * Checks that the results are a complete best of {@code bestOfN}: every match has a winner,
+     * and one team reaches the wins it needs with the last match.
+     */
+    static void checkResults(final List<Match> matches, final int bestOfN)
+            throws InvalidTournamentStateException {
+        if (matches == null || matches.isEmpty()) {
+            throw new InvalidTournamentStateException("A tournament needs at least one match!");
+        }
+
+        final var neededWins = bestOfN / 2 + 1;
+        int winsTeamA = 0;
+        int winsTeamB = 0;
+        for (final Match match : matches) {
+            if (winsTeamA == neededWins || winsTeamB == neededWins) {
+                throw new InvalidTournamentStateException(
+                        String.format("A best of %d is over after %d wins!", bestOfN,
+                                      neededWins));
+            }
+            if (match == null || match.teamA < 0 || match.teamB < 0) {
+                throw new InvalidTournamentStateException("Goals can't be negative!");
+            }
+            if (match.teamA == match.teamB) {
+                throw new InvalidTournamentStateException("Every match needs a winner!");
+            }
+
+            if (match.teamA > match.teamB) {
+                winsTeamA++;
+            } else {
+                winsTeamB++;
+            }
+        }
+
+        if (winsTeamA < neededWins && winsTeamB < neededWins) {
+            throw new InvalidTournamentStateException(
+                    String.format("A best of %d needs a team with %d wins!", bestOfN,
+                                  neededWins));
+        }
+    }
+
+    private static Tournament getFinishedTournament(final Store store, final String channelId,
+                                                    final int tournamentId)
+            throws TournamentNotFoundException {
+        final var tournament = store.getTournament(tournamentId);
+        if (tournament == null || tournament.state != State.FINISHED
+            || !tournament.channel.id.equals(channelId)) {
+            throw new TournamentNotFoundException(tournamentId);
+        }
+        return tournament;
+    }
+
+    private static RatingReplay ratingReplay(final Tournament tournament)
+            throws RatingReplay.MissingSnapshotException {
+        final String[] playerIds = {
+            tournament.teamA.player1.id, tournament.teamA.player2.id,
+            tournament.teamB.player1.id, tournament.teamB.player2.id
+        };
+        return new RatingReplay(playerIds, tournament.ratingsBefore.toArray());
+    }
+
+    private void recomputeWithoutSnapshot(final Tournament tournament) {
+        // tournaments rated before snapshots were stored can only be fixed by a full replay
+        logger.info("Tournament {} has no rating snapshot, recomputing all ratings",
+                    tournament.id);
+        try {
+            recomputeRatings();
+        } catch (RecomputationRunningException e) {
+            // it was marked stale and starts over with this change
+            logger.debug("Recomputation is already running.");
+        }
+    }
+
+    /**
+     * Predicts match quality and win probabilities of hypothetical lineups in the channel.
+     */
+    public List<Prediction> predict(final String channelId, final List<Lineup> lineups) {
+        try (final var store = new Store()) {
+            return predictor.predict(channelId, lineups, store::loadRatings);
+        }
+    }
+
+    /**
+     * Simulates the given league with the current ratings of its players in the channel and
+     * returns the projected standings in the order of the teams.
+     */
+    public SeasonProjection simulateSeason(final String channelId, final SeasonSpec spec)
+            throws InvalidSeasonException {
+        if (spec.teams.size() < 2 || spec.teams.size() > MAX_SEASON_TEAMS) {
+            throw new InvalidSeasonException(
+                    String.format("A season needs 2 to %d teams", MAX_SEASON_TEAMS));
+        }
+
+        final Map<String, Integer> playerIndex = new HashMap<>();
+        final List<Player> players = new ArrayList<>();
+        final var teamPlayers = new int[spec.teams.size() * 2];
+        for (int t = 0; t < spec.teams.size(); t++) {
+            final var team = spec.teams.get(t);
+            if (team.player1 == null || team.player2 == null
+                || team.player1.equals(team.player2)) {
+                throw new InvalidSeasonException("Every team needs two different players");
+            }
+            teamPlayers[t * 2] = playerIndex(playerIndex, players, team.player1);
+            teamPlayers[t * 2 + 1] = playerIndex(playerIndex, players, team.player2);
+        }
+
+        final int[] fixtures;
+        if (spec.fixtures.isEmpty()) {
+            if (spec.rounds < 1) {
+                throw new InvalidSeasonException("A round robin needs at least one round");
+            }
+            fixtures = SeasonSimulator.roundRobin(spec.teams.size(), spec.rounds);
+        } else {
+            fixtures = new int[spec.fixtures.size() * 2];
+            for (int f = 0; f < spec.fixtures.size(); f++) {
+                final var fixture = spec.fixtures.get(f);
+                if (fixture.teamA == fixture.teamB || fixture.teamA < 0 || fixture.teamB < 0
+                    || fixture.teamA >= spec.teams.size() || fixture.teamB >= spec.teams.size()) {
+                    throw new InvalidSeasonException("Invalid fixture " + f);
+                }
+                fixtures[f * 2] = fixture.teamA;
+                fixtures[f * 2 + 1] = fixture.teamB;
+            }
+        }
+
+        if (spec.seasons < 1 || spec.seasons > MAX_SEASONS
+            || (long) spec.seasons * fixtures.length / 2 > MAX_SIMULATED_GAMES) {
+            throw new InvalidSeasonException(String.format(
+                    "Up to %d seasons and %d games in total can be simulated", MAX_SEASONS,
+                    MAX_SIMULATED_GAMES));
+        }
+
+        try (final var store = new Store()) {
+            store.loadRatings(channelId, players);
+        }
+        final var ratings = new double[players.size() * 2];
+        for (int p = 0; p < players.size(); p++) {
+            ratings[p * 2] = players.get(p).trueSkillMean;
+            ratings[p * 2 + 1] = players.get(p).trueSkillStandardDeviation;
+        }
+
+        final var simulator = new SeasonSimulator(ratings, teamPlayers, fixtures);
+        final var seed = spec.seed == null ? System.nanoTime() : spec.seed;
+        final var positions = simulator.run(spec.seasons, seed, simulationPool);
+
+        final var teams = spec.teams.size();
+        final var projection = new SeasonProjection();
+        projection.seasons = spec.seasons;
+        for (int t = 0; t < teams; t++) {
+            final var team = new SeasonProjection.TeamProjection();
+            team.player1 = spec.teams.get(t).player1;
+            team.player2 = spec.teams.get(t).player2;
+            for (int p = 0; p < teams; p++) {
+                final var probability = (double) positions[t * teams + p] / spec.seasons;
+                team.positions.add(probability);
+                team.expectedPosition += probability * (p + 1);
+            }
+            projection.teams.add(team);
+        }
+        return projection;
+    }
+
+    private static int playerIndex(final Map<String, Integer> playerIndex,
+                                   final List<Player> players, final String playerId) {
+        return playerIndex.computeIfAbsent(playerId, id -> {
+            players.add(new Player(id));
+            return players.size() - 1;
+        });
+    }
+
+    public RatingHistory getRatingHistory(final String channelId, final String playerId,
+                                          final Date from, final Date to, final int points) {
+        try (final var store = new Store()) {
+            return store.getRatingHistory(channelId, playerId, from, to, points);
+        }
+    }
+
+    public List<TeamStat> getTeamStats(final String channelId,
+                                       final TeamStatCounters.Order order, final Integer limit) {
+        return statsCache.get(channelId, "teams/" + order + "/" + limit, () -> {
+            try (final var store = new Store()) {
+                return store.getTeamStats(channelId, order, limit);
+            }
+        });
+    }
+
+    public PeriodStats getPeriodStats(final String channelId, final LocalDate from,
+                                      final LocalDate to) {
+        return statsCache.get(channelId, "period/" + from + "/" + to, () -> {
+            try (final var store = new Store()) {
+                return store.getPeriodStats(channelId, from, to);
+            }
+        });
+    }
+
+    public PairStats getPairStats(final String channelId, final int minGames) {
+        return statsCache.get(channelId, "pairs/" + minGames, () -> {
+            try (final var store = new Store()) {
+                return store.getPairStats(channelId, minGames);
+            }
+        });
+    }
+
+    public Records getRecords(final String channelId) {
+        return statsCache.get(channelId, "records", () -> {
+            try (final var store = new Store()) {
+                return store.getRecords(channelId);
+            }
+        });
+    }
+
+    /**
+     * Leaderboard of the Slack workspace of a channel, or {@code null} if the channel does not
+     * belong to one.
+     */
+    public WorkspaceLeaderboard getWorkspaceLeaderboard(final String channelId,
+                                                        final Integer limit) {
+        final var workspace = directory.getChannel(channelId).slackWorkspace;
+        return workspace == null ? null : workspaceLeaderboards.get(workspace.teamId, limit);
+    }
+
+    private List<String> getWorkspaceChannelIds(final String workspaceId) {
+        try (final var store = new Store()) {
+            return store.getWorkspaceChannelIds(workspaceId);
+        }
+    }
+
+    private WorkspaceLeaderboards.Standings getStandings(final String channelId) {
+        return new WorkspaceLeaderboards.Standings(
+                playerSkills(channelId, WORKSPACE_ACTIVE_DAYS),
+                getTeamStats(channelId, TeamStatCounters.Order.WIN_RATE, null));
+    }
+
     public List<Tournament> getTournaments(final String channelId) {
         try (final var store = new Store()) {
             return store.getTournaments(channelId);
@@ -246,14 +766,19 @@ public class Controller {
         storedTournament.matches = tournament.matches;
 
         runningTournaments.save(storedTournament);
+        scoreboard.update(storedTournament);
     }
 
     public boolean cancelRunningTournament(final String channelId) throws IOException {
-        if (!hasRunningTournament(channelId)) {
+        final Tournament tournament;
+        try {
+            tournament = runningTournaments.get(channelId);
+        } catch (final TournamentNotRunningException e) {
             return false;
         }
 
         runningTournaments.clear(channelId);
+        scoreboard.cancel(tournament);
         return true;
     }
 
@@ -287,6 +812,7 @@ public class Controller {
         checkCrawl(tournament, channelId);
         tournament.matches.add(new Match());
         runningTournaments.save(tournament);
+        scoreboard.update(tournament);
     }
 
     public String getPlayersString(final String channelId) throws IOException {
@@ -297,30 +823,28 @@ public class Controller {
     public void addPlayer(final String channelId, final String playerId)
             throws UserFetcher.FetchUserFailedException, IOException,
                    PlayerQueue.TooManyUsersException, PlayerQueue.PlayerAlreadyInQueueException {
-        try (final var store = new Store()) {
-            final var workspace = store.getChannel(channelId).slackWorkspace;
-            final var fetchedPlayer = userFetcher.getUser(playerId, workspace);
-            final var storedPlayer = store.getPlayer(playerId);
-
-            if (storedPlayer != null) {
-                storedPlayer.avatarImage = fetchedPlayer.avatarImage;
-                storedPlayer.name = fetchedPlayer.name;
-                store.savePlayer(storedPlayer);
-            } else {
-                store.savePlayer(fetchedPlayer);
-            }
-
-            addPlayer(channelId, fetchedPlayer);
-        }
+        addPlayer(channelId, getPlayers(channelId, List.of(playerId)).get(0));
     }
 
     public void addPlayer(final String channelId, final Player player)
             throws IOException, PlayerQueue.TooManyUsersException,
                    PlayerQueue.PlayerAlreadyInQueueException {
+        queuePlayer(channelId, player);
+        startTournamentIfReady(channelId);
+    }
 
+    /**
+     * Adds a player to the queue without starting a tournament, so the matchmaker can choose
+     * among everyone added at once.
+     */
+    public void queuePlayer(final String channelId, final Player player)
+            throws IOException, PlayerQueue.TooManyUsersException,
+                   PlayerQueue.PlayerAlreadyInQueueException {
         queues.add(channelId, player);
+    }
 
-        if (queues.get(channelId).isFull() && !hasRunningTournament(channelId)) {
+    public void startTournamentIfReady(final String channelId) throws IOException {
+        if (queues.get(channelId).isReady() && !hasRunningTournament(channelId)) {
             try {
                 startTournament(channelId);
             } catch (TournamentRunningException e) {
@@ -329,6 +853,45 @@ public class Controller {
         }
     }
 
+    /**
+     * Fetches the Slack profiles of the given users concurrently and returns the stored players in
+     * the same order without duplicates. Players are only written if they are new or their name or
+     * avatar changed.
+     */
+    public List<Player> getPlayers(final String channelId, final List<String> playerIds)
+            throws UserFetcher.FetchUserFailedException {
+        try (final var store = new Store()) {
+            final var workspace = directory.getChannel(channelId).slackWorkspace;
+            final var fetchedPlayers = userFetcher.getUsers(playerIds, workspace);
+
+            final Map<String, Player> players = new LinkedHashMap<>();
+            final List<Player> changedPlayers = new ArrayList<>();
+            for (final var fetchedPlayer : fetchedPlayers) {
+                if (players.containsKey(fetchedPlayer.id)) {
+                    continue;
+                }
+
+                final var storedPlayer = store.getPlayer(fetchedPlayer.id);
+                if (storedPlayer == null) {
+                    changedPlayers.add(fetchedPlayer);
+                    players.put(fetchedPlayer.id, fetchedPlayer);
+                    continue;
+                }
+
+                if (!Objects.equals(storedPlayer.name, fetchedPlayer.name)
+                    || !Objects.equals(storedPlayer.avatarImage, fetchedPlayer.avatarImage)) {
+                    storedPlayer.name = fetchedPlayer.name;
+                    storedPlayer.avatarImage = fetchedPlayer.avatarImage;
+                    changedPlayers.add(storedPlayer);
+                }
+                players.put(storedPlayer.id, storedPlayer);
+            }
+
+            store.savePlayers(changedPlayers);
+            return new ArrayList<>(players.values());
+        }
+    }
+
     public void resetPlayers(final String channelId) throws IOException {
         queues.clear(channelId);
     }
@@ -347,18 +910,20 @@ public class Controller {
         return queues.get(channelId).queue;
     }
 
-    public List<PlayerSkill> playerSkills(final String channelId) {
-        try (final var store = new Store()) {
-            return store.playerSkills(channelId);
-        }
+    public List<PlayerSkill> playerSkills(final String channelId, final int activeDays) {
+        return statsCache.get(channelId, "skills/" + activeDays, () -> {
+            try (final var store = new Store()) {
+                return store.playerSkills(channelId, activeDays);
+            }
+        });
     }
 
     public String getChannelId(final String slackChannelId) throws ChannelNotFoundException {
-        try (final var store = new Store()) {
-            return store.getChannelBySlackId(slackChannelId).id;
-        } catch (final NoResultException e) {
-            throw new ChannelNotFoundException(slackChannelId, e);
+        final var channel = directory.getChannelBySlackId(slackChannelId);
+        if (channel == null) {
+            throw new ChannelNotFoundException(slackChannelId);
         }
+        return channel.id;
     }
 
     public String getChannelQRCodeUrl(final String channelId) {
@@ -371,15 +936,11 @@ public class Controller {
 
     public SlackWorkspace getSlackWorkspace(final String id)
             throws SlackWorkspaceNotFoundException {
-        try (final var store = new Store()) {
-            final var workspace = store.getSlackWorkSpace(id);
-            if (workspace == null) {
-                throw new SlackWorkspaceNotFoundException(id);
-            }
-            return workspace;
-        } catch (final NoResultException e) {
-            throw new SlackWorkspaceNotFoundException(id, e);
+        final var workspace = directory.getWorkspace(id);
+        if (workspace == null) {
+            throw new SlackWorkspaceNotFoundException(id);
         }
+        return workspace;
     }
 
     public Crawl getLastCrawl(String channelId)
@@ -393,7 +954,6 @@ public class Controller {
             return;
         }
 
-        final var channel = tournament.channel;
         final var lastMatch = tournament.matches.get(tournament.matches.size() - 1);
 
         final Team losers;
@@ -408,14 +968,9 @@ public class Controller {
             return;
         }
 
+        // the scoreboard shows the crawl with the match
         final Crawl crawl = new Crawl(channelId, winners, losers);
         lastCrawl.save(crawl);
-
-        var message = String.format("<@%s> and <@%s> have to crawl. How embarrassing!!",
-                                    losers.player1.id, losers.player2.id);
-
-        final var messageWriter = new MessageWriter(channel.slackWorkspace.accessToken);
-        messageWriter.postMessage(channel.slackId, message, channel.slackWorkspace.botUserId);
     }
 
     public static class NoLastCrawlException extends Exception {
@@ -454,10 +1009,31 @@ public class Controller {
         }
     }
 
+    public static class TournamentNotFoundException extends Exception {
+
+        TournamentNotFoundException(final int tournamentId) {
+            super("Could not find finished tournament " + tournamentId);
+        }
+    }
+
+    public static class RecomputationRunningException extends Exception {
+
+        RecomputationRunningException() {
+            super("A rating recomputation is already running!");
+        }
+    }
+
+    public static class InvalidSeasonException extends Exception {
+
+        InvalidSeasonException(final String message) {
+            super(message);
+        }
+    }
+
     public static class ChannelNotFoundException extends Exception {
 
-        ChannelNotFoundException(final String slackChannelId, final Throwable throwable) {
-            super("Could not find Channel workspace with slack id " + slackChannelId, throwable);
+        ChannelNotFoundException(final String slackChannelId) {
+            super("Could not find Channel workspace with slack id " + slackChannelId);
         }
     }
 
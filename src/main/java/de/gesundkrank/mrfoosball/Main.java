@@ -17,6 +17,7 @@
 
 package de.gesundkrank.mrfoosball;
 
+import java.io.IOException;
 import java.net.URI;
 
 import org.apache.logging.log4j.LogManager;
@@ -27,6 +28,9 @@ import org.glassfish.grizzly.http.server.HttpServer;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 import org.glassfish.jersey.server.ResourceConfig;
 
+import de.gesundkrank.mrfoosball.metrics.JvmMetrics;
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.slack.MessageQueue;
 import de.gesundkrank.mrfoosball.utils.Properties;
 
 /**
@@ -62,14 +66,38 @@ public class Main {
         return httpServer;
     }
 
+    private static void recomputeMissingRatings() {
+        try {
+            Controller.getInstance().recomputeMissingRatings();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to check for missing ratings.", e);
+        }
+    }
+
+    private static void rebuildMissingStats() {
+        try {
+            Controller.getInstance().rebuildMissingStats();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to check for missing stats.", e);
+        }
+    }
+
     /**
      * Main method.
      */
     public static void main(String[] args) throws InterruptedException {
         LOGGER.info("Starting MrFoosball app.");
         try {
+            JvmMetrics.register(Metrics.getInstance());
             final int port = Properties.getInstance().getPort();
-            startServer(port);
+            final HttpServer httpServer = startServer(port);
+            recomputeMissingRatings();
+            rebuildMissingStats();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                LOGGER.info("Stopping web server.");
+                httpServer.shutdownNow();
+                MessageQueue.getInstance().close();
+            }, "shutdown"));
 
             //Keeps process running
             Thread.currentThread().join();
@@ -0,0 +1,155 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import de.gesundkrank.mrfoosball.models.Achievement;
+import de.gesundkrank.mrfoosball.models.PlayerRecord;
+import de.gesundkrank.mrfoosball.models.RecordColumns;
+import de.gesundkrank.mrfoosball.models.TeamRecord;
+import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.Tournament;
+
+/**
+ * Keeps the records of the players and teams of one channel, fed one finished tournament at a
+ * time in the order they were played. Each tournament touches four player and two team records,
+ * so the history never has to be read again.
+ *
+ * <p>Records that have not been seen yet are requested from the loaders, which may return
+ * {@code null} for players and teams without records. Teams are looked up by the ids of their
+ * two players.
+ */
+public class RecordProcessor {
+
+    private final String channelId;
+    private final Function<String, PlayerRecord> playerLoader;
+    private final Function<List<String>, TeamRecord> teamLoader;
+    private final Map<String, PlayerRecord> players;
+    private final Map<List<String>, TeamRecord> teams;
+
+    public RecordProcessor(final String channelId,
+                           final Function<String, PlayerRecord> playerLoader,
+                           final Function<List<String>, TeamRecord> teamLoader) {
+        this.channelId = channelId;
+        this.playerLoader = playerLoader;
+        this.teamLoader = teamLoader;
+        this.players = new HashMap<>();
+        this.teams = new HashMap<>();
+    }
+
+    /**
+     * Creates a processor for a channel whose records are built from scratch.
+     */
+    public RecordProcessor(final String channelId) {
+        this(channelId, playerId -> null, playerIds -> null);
+    }
+
+    public List<Achievement> process(final Tournament tournament) {
+        final var stats = TeamStat.of(tournament);
+        final String[] playerIds = {
+            tournament.teamA.player1.id, tournament.teamA.player2.id,
+            tournament.teamB.player1.id, tournament.teamB.player2.id
+        };
+        final double[] skillChanges = {
+            skillChange(tournament.teamAPlayer1SkillChange),
+            skillChange(tournament.teamAPlayer2SkillChange),
+            skillChange(tournament.teamBPlayer1SkillChange),
+            skillChange(tournament.teamBPlayer2SkillChange),
+            skillChange(tournament.teamASkillChange),
+            skillChange(tournament.teamBSkillChange)
+        };
+        return process(tournament.id, playerIds,
+                       Integer.signum(stats[0].tournamentsWon - stats[1].tournamentsWon),
+                       skillChanges);
+    }
+
+    /**
+     * Adds a finished tournament to the records of its players and teams and returns the records
+     * it set.
+     *
+     * @param playerIds    team A's players followed by team B's, each team ordered by id
+     * @param result       1 if team A won, -1 if team B won and 0 for a draw
+     * @param skillChanges skill changes of the four players followed by those of both teams
+     */
+    public List<Achievement> process(final int tournamentId, final String[] playerIds,
+                                      final int result, final double[] skillChanges) {
+        final List<Achievement> achievements = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final var playerId = playerIds[i];
+            final var record = players.computeIfAbsent(playerId, this::loadPlayer);
+            final var teamResult = i < 2 ? result : -result;
+            add(record, teamResult, skillChanges[i], tournamentId, List.of(playerId),
+                achievements);
+        }
+        for (int team = 0; team < 2; team++) {
+            final var ids = List.of(playerIds[team * 2], playerIds[team * 2 + 1]);
+            final var record = teams.computeIfAbsent(ids, this::loadTeam);
+            final var teamResult = team == 0 ? result : -result;
+            add(record, teamResult, skillChanges[4 + team], tournamentId, ids, achievements);
+        }
+        return achievements;
+    }
+
+    public Collection<PlayerRecord> getPlayerRecords() {
+        return players.values();
+    }
+
+    public Collection<TeamRecord> getTeamRecords() {
+        return teams.values();
+    }
+
+    private PlayerRecord loadPlayer(final String playerId) {
+        final var record = playerLoader.apply(playerId);
+        return record == null ? new PlayerRecord(channelId, playerId) : record;
+    }
+
+    private TeamRecord loadTeam(final List<String> playerIds) {
+        final var record = teamLoader.apply(playerIds);
+        return record == null ? new TeamRecord(channelId, playerIds.get(0), playerIds.get(1))
+                              : record;
+    }
+
+    private static void add(final RecordColumns record, final int result,
+                            final double skillChange, final int tournamentId,
+                            final List<String> playerIds, final List<Achievement> achievements) {
+        for (final Achievement.Kind kind : record.add(result, skillChange, tournamentId)) {
+            final double value;
+            switch (kind) {
+                case WIN_STREAK:
+                    value = record.currentStreak;
+                    break;
+                case UPSET:
+                    value = record.biggestSkillGain;
+                    break;
+                default:
+                    value = record.games;
+            }
+            achievements.add(new Achievement(kind, playerIds, value));
+        }
+    }
+
+    private static double skillChange(final Double skillChange) {
+        return skillChange == null ? 0 : skillChange;
+    }
+}
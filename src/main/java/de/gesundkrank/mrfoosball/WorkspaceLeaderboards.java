@@ -0,0 +1,228 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import de.gesundkrank.mrfoosball.models.PlayerSkill;
+import de.gesundkrank.mrfoosball.models.Team;
+import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.WorkspaceLeaderboard;
+
+/**
+ * Leaderboards of whole Slack workspaces, merged from the standings of their channels.
+ *
+ * <p>The standings of the channels are requested in parallel on the given executor, so a
+ * workspace with hundreds of channels costs about as long as its slowest few. The merged
+ * leaderboard is kept until one of its channels is invalidated; the standings loader is expected
+ * to cache the standings of the other channels, so only the changed channel is read again.
+ * Concurrent misses for the same workspace share one merge, like in
+ * {@link de.gesundkrank.mrfoosball.utils.StatsCache}.
+ */
+public class WorkspaceLeaderboards {
+
+    private static final Comparator<WorkspaceLeaderboard.PlayerEntry> PLAYER_ORDER =
+            Comparator.<WorkspaceLeaderboard.PlayerEntry>comparingDouble(entry -> entry.skill)
+                    .thenComparingInt(entry -> entry.games)
+                    .reversed();
+
+    private final Function<String, List<String>> channelLoader;
+    private final Function<String, Standings> standingsLoader;
+    private final Executor executor;
+    private final Map<String, WorkspaceLeaderboard> leaderboards;
+    private final Map<String, CompletableFuture<WorkspaceLeaderboard>> inFlight;
+    private final Map<String, String> channelWorkspaces;
+    private final Map<String, AtomicLong> generations;
+
+    /**
+     * Creates leaderboards that read workspaces through the given loaders.
+     *
+     * @param channelLoader   ids of the channels of a workspace
+     * @param standingsLoader standings of a channel
+     * @param executor        runs the standings loader
+     */
+    public WorkspaceLeaderboards(final Function<String, List<String>> channelLoader,
+                                 final Function<String, Standings> standingsLoader,
+                                 final Executor executor) {
+        this.channelLoader = channelLoader;
+        this.standingsLoader = standingsLoader;
+        this.executor = executor;
+        this.leaderboards = new ConcurrentHashMap<>();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.channelWorkspaces = new ConcurrentHashMap<>();
+        this.generations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the leaderboard of a workspace with at most {@code limit} players and teams, or all
+     * of them if {@code limit} is {@code null}.
+     */
+    public WorkspaceLeaderboard get(final String workspaceId, final Integer limit) {
+        var leaderboard = leaderboards.get(workspaceId);
+        if (leaderboard == null) {
+            leaderboard = compute(workspaceId);
+        }
+        return limit == null ? leaderboard : leaderboard.limit(limit);
+    }
+
+    private WorkspaceLeaderboard compute(final String workspaceId) {
+        final var future = new CompletableFuture<WorkspaceLeaderboard>();
+        final var running = inFlight.putIfAbsent(workspaceId, future);
+        if (running != null) {
+            return join(running);
+        }
+
+        final var generation = generation(workspaceId).get();
+        try {
+            final var leaderboard = merge(workspaceId, load(workspaceId));
+            if (generation == generation(workspaceId).get()) {
+                leaderboards.put(workspaceId, leaderboard);
+            }
+            future.complete(leaderboard);
+            return leaderboard;
+        } catch (final RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(workspaceId, future);
+        }
+    }
+
+    /**
+     * Drops the leaderboard of the workspace of a channel. Channels that have not been loaded
+     * yet, like channels that just joined, drop all leaderboards.
+     */
+    public void invalidate(final String channelId) {
+        final var workspaceId = channelWorkspaces.get(channelId);
+        if (workspaceId == null) {
+            invalidateAll();
+            return;
+        }
+        generation(workspaceId).incrementAndGet();
+        inFlight.remove(workspaceId);
+        leaderboards.remove(workspaceId);
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        inFlight.clear();
+        leaderboards.clear();
+    }
+
+    private List<Standings> load(final String workspaceId) {
+        final var channelIds = channelLoader.apply(workspaceId);
+        final List<CompletableFuture<Standings>> futures = new ArrayList<>(channelIds.size());
+        for (final String channelId : channelIds) {
+            channelWorkspaces.put(channelId, workspaceId);
+            futures.add(CompletableFuture.supplyAsync(() -> standingsLoader.apply(channelId),
+                                                      executor));
+        }
+
+        final List<Standings> standings = new ArrayList<>(futures.size());
+        for (final CompletableFuture<Standings> future : futures) {
+            standings.add(join(future));
+        }
+        return standings;
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    static WorkspaceLeaderboard merge(final String workspaceId, final List<Standings> standings) {
+        final Map<String, WorkspaceLeaderboard.PlayerEntry> players = new LinkedHashMap<>();
+        final Map<Team, TeamStat> teams = new LinkedHashMap<>();
+        for (final Standings channel : standings) {
+            for (final PlayerSkill playerSkill : channel.players) {
+                final var entry = players.computeIfAbsent(
+                        playerSkill.id, id -> new WorkspaceLeaderboard.PlayerEntry(playerSkill));
+                entry.games += playerSkill.games;
+                entry.wins += playerSkill.wins;
+                entry.skill = Math.max(entry.skill, playerSkill.skill);
+                entry.channels++;
+            }
+            for (final TeamStat teamStat : channel.teams) {
+                add(teams.computeIfAbsent(teamStat.team, TeamStat::new), teamStat);
+            }
+        }
+
+        final var leaderboard = new WorkspaceLeaderboard();
+        leaderboard.workspaceId = workspaceId;
+        leaderboard.channels = standings.size();
+        leaderboard.players.addAll(players.values());
+        leaderboard.players.sort(PLAYER_ORDER);
+        leaderboard.teams.addAll(teams.values());
+        Collections.sort(leaderboard.teams);
+        return leaderboard;
+    }
+
+    private static void add(final TeamStat total, final TeamStat teamStat) {
+        total.tournamentsWon += teamStat.tournamentsWon;
+        total.tournamentsLost += teamStat.tournamentsLost;
+        total.tournamentsPlayed += teamStat.tournamentsPlayed;
+        total.matchesWon += teamStat.matchesWon;
+        total.matchesLost += teamStat.matchesLost;
+        total.matchesPlayed += teamStat.matchesPlayed;
+        total.goalsScored += teamStat.goalsScored;
+        total.goalsReceived += teamStat.goalsReceived;
+    }
+
+    private AtomicLong generation(final String workspaceId) {
+        return generations.computeIfAbsent(workspaceId, id -> new AtomicLong());
+    }
+
+    /**
+     * Active players and teams of one channel.
+     */
+    public static class Standings {
+
+        private final List<PlayerSkill> players;
+        private final List<TeamStat> teams;
+
+        public Standings(final List<PlayerSkill> players, final List<TeamStat> teams) {
+            this.players = players;
+            this.teams = teams;
+        }
+
+        public List<PlayerSkill> getPlayers() {
+            return players;
+        }
+
+        public List<TeamStat> getTeams() {
+            return teams;
+        }
+    }
+}
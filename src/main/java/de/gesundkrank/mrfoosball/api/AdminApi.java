@@ -0,0 +1,80 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.api;
+
+import java.io.IOException;
+import java.util.List;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import de.gesundkrank.mrfoosball.Controller;
+import de.gesundkrank.mrfoosball.api.annotations.RequireAdminToken;
+import de.gesundkrank.mrfoosball.models.Trace;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
+
+@Path("api/admin")
+@RequireAdminToken
+public class AdminApi {
+
+    private final Controller controller;
+
+    public AdminApi() throws IOException {
+        this.controller = Controller.getInstance();
+    }
+
+    @POST
+    @Path("ratings/recompute")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response recomputeRatings() {
+        try {
+            return Response.accepted(controller.recomputeRatings()).build();
+        } catch (Controller.RecomputationRunningException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(controller.getRecomputationProgress())
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("ratings/recompute")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRecomputationProgress() {
+        final var progress = controller.getRecomputationProgress();
+        if (progress == null) {
+            return Response.noContent().build();
+        }
+        return Response.ok(progress).build();
+    }
+
+    /**
+     * Recently kept traces that took at least {@code minMillis} milliseconds, newest first.
+     */
+    @GET
+    @Path("traces")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<Trace> getTraces(@QueryParam("minMillis") @DefaultValue("0") final double minMillis,
+                                 @QueryParam("limit") @DefaultValue("50") final int limit) {
+        return Tracer.getInstance().getTraces(minMillis, limit);
+    }
+}
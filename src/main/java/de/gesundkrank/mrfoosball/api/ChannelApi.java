@@ -18,11 +18,16 @@
 package de.gesundkrank.mrfoosball.api;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import com.google.zxing.WriterException;
@@ -30,32 +35,69 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import de.gesundkrank.mrfoosball.api.annotations.CheckChannelId;
-import de.gesundkrank.mrfoosball.utils.QRCodeGenerator;
+import de.gesundkrank.mrfoosball.utils.QRCodeCache;
 
 @Path("api/channel")
 public class ChannelApi {
 
+    private static final int ONE_YEAR_IN_SECONDS = (int) TimeUnit.DAYS.toSeconds(365);
+
     private final Logger logger;
-    private final QRCodeGenerator qrCodeGenerator;
+    private final QRCodeCache qrCodeCache;
 
 
     public ChannelApi() {
         this.logger = LogManager.getLogger();
-        this.qrCodeGenerator = new QRCodeGenerator();
+        this.qrCodeCache = QRCodeCache.getInstance();
     }
 
 
     @GET
     @Path("{channelId: [0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}}/qrcode")
-    @Produces("image/png")
+    @Produces(QRCodeCache.PNG)
+    @CheckChannelId
+    public Response getQRCode(@PathParam("channelId") final String channelId,
+                              @QueryParam("size") final Integer size,
+                              @Context final Request request) {
+        return qrCodeResponse(channelId, size, QRCodeCache.PNG, request);
+    }
+
+    @GET
+    @Path("{channelId: [0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}}/qrcode.svg")
+    @Produces(QRCodeCache.SVG)
     @CheckChannelId
+    public Response getQRCodeSvg(@PathParam("channelId") final String channelId,
+                                 @QueryParam("size") final Integer size,
+                                 @Context final Request request) {
+        return qrCodeResponse(channelId, size, QRCodeCache.SVG, request);
+    }
 
-    public byte[] getQRCode(@PathParam("channelId") final String channelId) {
+    private Response qrCodeResponse(final String channelId, final Integer size,
+                                    final String mediaType, final Request request) {
+        final QRCodeCache.QRCode qrCode;
         try {
-            return qrCodeGenerator.generateChannelId(channelId);
+            qrCode = qrCodeCache.get(channelId, size == null ? qrCodeCache.getDefaultSize() : size,
+                                     mediaType);
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
         } catch (IOException | WriterException e) {
             logger.error(String.format("Failed to generate QrCode for channel %s", channelId), e);
             throw new WebApplicationException(Response.Status.INTERNAL_SERVER_ERROR);
         }
+
+        // The code only depends on the channel id and the size, so clients may keep it forever.
+        final var cacheControl = new CacheControl();
+        cacheControl.setMaxAge(ONE_YEAR_IN_SECONDS);
+        cacheControl.getCacheExtension().put("immutable", null);
+
+        var responseBuilder = request.evaluatePreconditions(qrCode.entityTag);
+        if (responseBuilder == null) {
+            responseBuilder = Response.ok(qrCode.content, qrCode.mediaType);
+        }
+
+        return responseBuilder
+                .tag(qrCode.entityTag)
+                .cacheControl(cacheControl)
+                .build();
     }
 }
@@ -18,9 +18,12 @@
 package de.gesundkrank.mrfoosball.api;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.QueryParam;
@@ -33,9 +36,13 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.glassfish.jersey.server.ManagedAsync;
 
+import de.gesundkrank.mrfoosball.Controller;
 import de.gesundkrank.mrfoosball.api.annotations.VerifySlackRequest;
 import de.gesundkrank.mrfoosball.slack.Bot;
+import de.gesundkrank.mrfoosball.slack.EventDeduplicator;
 import de.gesundkrank.mrfoosball.slack.Registrar;
+import de.gesundkrank.mrfoosball.slack.SlackClient;
+import de.gesundkrank.mrfoosball.slack.models.CommandResponse;
 import de.gesundkrank.mrfoosball.slack.models.EventWrapper;
 import de.gesundkrank.mrfoosball.slack.models.UrlVerification;
 import de.gesundkrank.mrfoosball.utils.JsonConverter;
@@ -44,6 +51,7 @@ import de.gesundkrank.mrfoosball.utils.JsonConverter;
 public class SlackApi {
 
     private static final Logger logger = LogManager.getLogger();
+    private static final long COMMAND_TIMEOUT_IN_MILLIS = 2500;
 
     private final JsonConverter jsonConverter;
 
@@ -59,6 +67,8 @@ public class SlackApi {
     @VerifySlackRequest
     @Consumes(MediaType.APPLICATION_JSON)
     public void eventApiEndPoint(final String content,
+                                 @HeaderParam("X-Slack-Retry-Num") final Integer retryNum,
+                                 @HeaderParam("X-Slack-Retry-Reason") final String retryReason,
                                  @Suspended final AsyncResponse asyncResponse) {
         try {
             if (content.contains("url_verification")) {
@@ -71,6 +81,12 @@ public class SlackApi {
             asyncResponse.resume(Response.ok().build());
 
             final var wrappedEvent = jsonConverter.fromString(content, EventWrapper.class);
+            if (!EventDeduplicator.getInstance().firstDelivery(wrappedEvent.eventId)) {
+                logger.info("Dropped retry {} ({}) of event {}", retryNum, retryReason,
+                            wrappedEvent.eventId);
+                return;
+            }
+
             logger.info("Received event:\n{}", wrappedEvent);
 
             switch (wrappedEvent.event.type) {
@@ -90,6 +106,49 @@ public class SlackApi {
         }
     }
 
+    @POST
+    @Path("command")
+    @ManagedAsync
+    @VerifySlackRequest
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public void commandEndPoint(@FormParam("team_id") final String teamId,
+                                @FormParam("channel_id") final String slackChannelId,
+                                @FormParam("user_id") final String userId,
+                                @FormParam("command") final String command,
+                                @FormParam("text") final String text,
+                                @FormParam("response_url") final String responseUrl,
+                                @Suspended final AsyncResponse asyncResponse) {
+        // Slack gives up after three seconds, slower answers go to the response_url
+        asyncResponse.setTimeout(COMMAND_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(response -> response.resume(Response.ok().build()));
+
+        CommandResponse commandResponse;
+        try {
+            commandResponse = slackBot.onSlashCommand(teamId, slackChannelId, userId, command,
+                                                      text);
+        } catch (final Controller.SlackWorkspaceNotFoundException e) {
+            logger.warn(e, e);
+            commandResponse = new CommandResponse();
+            commandResponse.text = "This workspace is not registered. Please install the app "
+                                   + "again.";
+        } catch (final Exception e) {
+            logger.error(e, e);
+            commandResponse = new CommandResponse();
+            commandResponse.text = "Something went wrong :(";
+        }
+
+        final var answered = asyncResponse.resume(
+                Response.ok(commandResponse, MediaType.APPLICATION_JSON_TYPE).build());
+        if (!answered && responseUrl != null) {
+            try {
+                SlackClient.getInstance().respond(responseUrl, commandResponse);
+            } catch (final SlackClient.SlackApiException e) {
+                logger.error(String.format("Failed to send %s to response_url", commandResponse),
+                             e);
+            }
+        }
+    }
+
     @GET
     @Path("authorize")
     public Response authorize(@QueryParam("code") final String code) {
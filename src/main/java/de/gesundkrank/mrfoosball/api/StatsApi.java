@@ -18,42 +18,66 @@
 package de.gesundkrank.mrfoosball.api;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import de.gesundkrank.mrfoosball.Controller;
-import de.gesundkrank.mrfoosball.Stats;
 import de.gesundkrank.mrfoosball.api.annotations.CheckChannelId;
+import de.gesundkrank.mrfoosball.models.PairStats;
+import de.gesundkrank.mrfoosball.models.PeriodStats;
 import de.gesundkrank.mrfoosball.models.PlayerSkill;
+import de.gesundkrank.mrfoosball.models.RatingHistory;
+import de.gesundkrank.mrfoosball.models.Records;
+import de.gesundkrank.mrfoosball.models.SeasonProjection;
+import de.gesundkrank.mrfoosball.models.SeasonSpec;
 import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.TeamStatCounters;
+import de.gesundkrank.mrfoosball.models.WorkspaceLeaderboard;
 
 @Path("api/stats/{channelId: [0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}}")
 @CheckChannelId
 public class StatsApi {
 
+    private static final int MAX_HISTORY_POINTS = 5000;
+    private static final int DEFAULT_PERIOD_DAYS = 30;
+
     private final Logger logger;
-    private final Stats stats;
     private final Controller controller;
 
     public StatsApi() throws IOException {
         this.logger = LogManager.getLogger();
-        this.stats = new Stats();
         this.controller = Controller.getInstance();
     }
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public List<PlayerSkill> getStats(@PathParam("channelId") final String channelId) {
+    public List<PlayerSkill> getStats(@PathParam("channelId") final String channelId,
+                                      @QueryParam("activeDays") @DefaultValue("60")
+                                      final int activeDays) {
+        if (activeDays < 1) {
+            throw new WebApplicationException("activeDays has to be at least 1",
+                                              Response.Status.BAD_REQUEST);
+        }
+
         try {
-            return controller.playerSkills(channelId);
+            return controller.playerSkills(channelId, activeDays);
         } catch (Exception e) {
             logger.error("Failed to get skills", e);
             throw new WebApplicationException(e.getMessage());
@@ -63,14 +87,152 @@ public class StatsApi {
     @GET
     @Path("teams")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<TeamStat> getTeamStats(@PathParam("channelId") final String channelId) {
+    public List<TeamStat> getTeamStats(@PathParam("channelId") final String channelId,
+                                       @QueryParam("sort") @DefaultValue("winRate")
+                                       final String sort,
+                                       @QueryParam("limit") final Integer limit) {
+        final var order = TeamStatCounters.Order.fromName(sort);
+        if (order == null || limit != null && limit < 1) {
+            throw new WebApplicationException("Unknown sort order or limit below 1",
+                                              Response.Status.BAD_REQUEST);
+        }
 
         try {
-            return stats.calcTeamStats(channelId);
+            return controller.getTeamStats(channelId, order, limit);
         } catch (Exception e) {
-            logger.error("Failed to calculate team stats", e);
+            logger.error("Failed to get team stats", e);
             throw new WebApplicationException(e.getMessage());
         }
     }
 
+    /**
+     * Players and teams of all channels of the Slack workspace of this channel, limited to the
+     * first {@code limit} of each.
+     */
+    @GET
+    @Path("workspace")
+    @Produces(MediaType.APPLICATION_JSON)
+    public WorkspaceLeaderboard getWorkspaceLeaderboard(
+            @PathParam("channelId") final String channelId,
+            @QueryParam("limit") final Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new WebApplicationException("limit has to be at least 1",
+                                              Response.Status.BAD_REQUEST);
+        }
+
+        final var leaderboard = controller.getWorkspaceLeaderboard(channelId, limit);
+        if (leaderboard == null) {
+            throw new WebApplicationException("Channel does not belong to a Slack workspace",
+                                              Response.Status.NOT_FOUND);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Win and losing streaks, biggest skill gains and game counts of the players and teams.
+     */
+    @GET
+    @Path("records")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Records getRecords(@PathParam("channelId") final String channelId) {
+        return controller.getRecords(channelId);
+    }
+
+    /**
+     * Head-to-head and partner records of the players, limited to pairs with at least
+     * {@code minGames} games together or against each other.
+     */
+    @GET
+    @Path("pairs")
+    @Produces(MediaType.APPLICATION_JSON)
+    public PairStats getPairStats(@PathParam("channelId") final String channelId,
+                                  @QueryParam("minGames") @DefaultValue("1") final int minGames) {
+        if (minGames < 1) {
+            throw new WebApplicationException("minGames has to be at least 1",
+                                              Response.Status.BAD_REQUEST);
+        }
+
+        return controller.getPairStats(channelId, minGames);
+    }
+
+    /**
+     * Games, wins and goals of the channel, its players and its teams between the days
+     * {@code from} and {@code to}, both inclusive and formatted like 2020-01-31. The range
+     * defaults to the last 30 days.
+     */
+    @GET
+    @Path("period")
+    @Produces(MediaType.APPLICATION_JSON)
+    public PeriodStats getPeriodStats(@PathParam("channelId") final String channelId,
+                                      @QueryParam("from") final String from,
+                                      @QueryParam("to") final String to) {
+        final LocalDate end;
+        final LocalDate start;
+        try {
+            end = to == null ? LocalDate.now() : LocalDate.parse(to);
+            start = from == null ? end.minusDays(DEFAULT_PERIOD_DAYS - 1) : LocalDate.parse(from);
+        } catch (DateTimeParseException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
+        }
+        if (start.isAfter(end)) {
+            throw new WebApplicationException("from has to be before to",
+                                              Response.Status.BAD_REQUEST);
+        }
+
+        return controller.getPeriodStats(channelId, start, end);
+    }
+
+    /**
+     * Rating of a player over time, from the start of {@code from} until the end of {@code to}
+     * given as ISO dates like 2020-01-31, and downsampled to at most {@code points} points. The
+     * history starts with the first tournament and ends today if they are left out.
+     */
+    @GET
+    @Path("player/{playerId}/history")
+    @Produces(MediaType.APPLICATION_JSON)
+    public RatingHistory getRatingHistory(@PathParam("channelId") final String channelId,
+                                          @PathParam("playerId") final String playerId,
+                                          @QueryParam("from") final String from,
+                                          @QueryParam("to") final String to,
+                                          @QueryParam("points") @DefaultValue("500")
+                                          final int points) {
+        final Date start;
+        final Date end;
+        try {
+            final var endDay = to == null ? LocalDate.now() : LocalDate.parse(to);
+            start = from == null ? new Date(0) : startOf(LocalDate.parse(from));
+            end = startOf(endDay.plusDays(1));
+        } catch (DateTimeParseException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
+        }
+        if (!start.before(end) || points < 1 || points > MAX_HISTORY_POINTS) {
+            throw new WebApplicationException(
+                    String.format("from has to be before to and points between 1 and %d",
+                                  MAX_HISTORY_POINTS),
+                    Response.Status.BAD_REQUEST);
+        }
+
+        return controller.getRatingHistory(channelId, playerId, start, end, points);
+    }
+
+    private static Date startOf(final LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Projects the final standings of a league from the current ratings by simulating it many
+     * times.
+     */
+    @POST
+    @Path("season")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public SeasonProjection simulateSeason(@PathParam("channelId") final String channelId,
+                                           final SeasonSpec spec) {
+        try {
+            return controller.simulateSeason(channelId, spec);
+        } catch (Controller.InvalidSeasonException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
+        }
+    }
 }
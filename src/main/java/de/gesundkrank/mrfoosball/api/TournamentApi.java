@@ -41,15 +41,21 @@ import org.apache.logging.log4j.Logger;
 
 import de.gesundkrank.mrfoosball.Controller;
 import de.gesundkrank.mrfoosball.api.annotations.CheckChannelId;
+import de.gesundkrank.mrfoosball.api.annotations.RequireAdminToken;
 import de.gesundkrank.mrfoosball.models.Crawl;
+import de.gesundkrank.mrfoosball.models.Lineup;
 import de.gesundkrank.mrfoosball.models.Player;
 import de.gesundkrank.mrfoosball.models.PlayerQueue;
+import de.gesundkrank.mrfoosball.models.Prediction;
 import de.gesundkrank.mrfoosball.models.Tournament;
+import de.gesundkrank.mrfoosball.trueskill.RatingReplay;
 
 @Path("/api/tournament/{channelId: [0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}}")
 @CheckChannelId
 public class TournamentApi {
 
+    private static final int MAX_LINEUPS = 1024;
+
     private final Logger logger;
     private final Controller controller;
 
@@ -91,6 +97,47 @@ public class TournamentApi {
         }
     }
 
+    @PUT
+    @Path("{tournamentId: [0-9]+}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @RequireAdminToken
+    public void editTournament(@PathParam("tournamentId") final int tournamentId,
+                               final Tournament tournament) {
+        if (tournament == null) {
+            throw new WebApplicationException("The edited tournament is missing",
+                                              Response.Status.BAD_REQUEST);
+        }
+
+        try {
+            controller.editTournament(channelId, tournamentId, tournament.matches);
+        } catch (Controller.TournamentNotFoundException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.NOT_FOUND);
+        } catch (Controller.InvalidTournamentStateException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
+        } catch (RatingReplay.MissingSnapshotException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.CONFLICT);
+        } catch (IOException e) {
+            logger.error("Failed to edit tournament", e);
+            throw new WebApplicationException(Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @DELETE
+    @Path("{tournamentId: [0-9]+}")
+    @RequireAdminToken
+    public void deleteTournament(@PathParam("tournamentId") final int tournamentId) {
+        try {
+            controller.deleteTournament(channelId, tournamentId);
+        } catch (Controller.TournamentNotFoundException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.NOT_FOUND);
+        } catch (RatingReplay.MissingSnapshotException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.CONFLICT);
+        } catch (IOException e) {
+            logger.error("Failed to delete tournament", e);
+            throw new WebApplicationException(Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GET
     @Path("running")
     @Produces(MediaType.APPLICATION_JSON)
@@ -108,6 +155,30 @@ public class TournamentApi {
         return Response.noContent().build();
     }
 
+    /**
+     * Predicts match quality and win probabilities of up to {@value #MAX_LINEUPS} lineups, in the
+     * order they were given.
+     */
+    @POST
+    @Path("predictions")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<Prediction> predict(final List<Lineup> lineups) {
+        if (lineups == null || lineups.size() > MAX_LINEUPS) {
+            throw new WebApplicationException(
+                    String.format("Between 0 and %d lineups are allowed", MAX_LINEUPS),
+                    Response.Status.BAD_REQUEST);
+        }
+        for (final var lineup : lineups) {
+            if (!lineup.isValid()) {
+                throw new WebApplicationException("Lineups need two teams of two other players",
+                                                  Response.Status.BAD_REQUEST);
+            }
+        }
+
+        return controller.predict(channelId, lineups);
+    }
+
     @POST
     @Path("match")
     public void newMatch() {
@@ -0,0 +1,60 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.api.binders;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.ext.Provider;
+
+import org.glassfish.jersey.server.ManagedAsyncExecutor;
+import org.glassfish.jersey.spi.ThreadPoolExecutorProvider;
+
+import de.gesundkrank.mrfoosball.tracing.Tracer;
+
+/**
+ * Runs {@code @ManagedAsync} resource methods within the trace of their request, which was
+ * started on the thread that handed them over.
+ */
+@Provider
+@ManagedAsyncExecutor
+public class TracingAsyncExecutorProvider extends ThreadPoolExecutorProvider {
+
+    public TracingAsyncExecutorProvider() {
+        super("mrfoosball-managed-async");
+    }
+
+    @Override
+    protected ThreadPoolExecutor createExecutor(final int corePoolSize, final int maxPoolSize,
+                                                final long keepAliveTime,
+                                                final BlockingQueue<Runnable> workQueue,
+                                                final ThreadFactory threadFactory,
+                                                final RejectedExecutionHandler handler) {
+        final var tracer = Tracer.getInstance();
+        return new ThreadPoolExecutor(corePoolSize, maxPoolSize, keepAliveTime,
+                                      TimeUnit.SECONDS, workQueue, threadFactory, handler) {
+            @Override
+            public void execute(final Runnable command) {
+                super.execute(tracer.wrap(command));
+                tracer.detach();
+            }
+        };
+    }
+}
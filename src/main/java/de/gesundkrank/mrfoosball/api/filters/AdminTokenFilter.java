@@ -0,0 +1,71 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.api.filters;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import javax.inject.Singleton;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.gesundkrank.mrfoosball.api.annotations.RequireAdminToken;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * Only lets requests through that carry the configured {@code adminToken} as bearer token. Without
+ * a configured token all admin requests are rejected.
+ */
+@Singleton
+@Provider
+@RequireAdminToken
+public class AdminTokenFilter implements ContainerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final Logger logger;
+    private final byte[] adminToken;
+
+    public AdminTokenFilter() {
+        this.logger = LogManager.getLogger();
+        final var token = Properties.getInstance().getAdminToken();
+        this.adminToken = token == null || token.isEmpty()
+                          ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (adminToken == null) {
+            requestContext.abortWith(Response.status(Response.Status.FORBIDDEN).build());
+            return;
+        }
+
+        final var header = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)
+            || !MessageDigest.isEqual(adminToken, header.substring(BEARER.length())
+                    .getBytes(StandardCharsets.UTF_8))) {
+            logger.info("Rejected admin request to {}", requestContext.getUriInfo().getPath());
+            requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
+        }
+    }
+}
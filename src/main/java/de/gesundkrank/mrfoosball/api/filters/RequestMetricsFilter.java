@@ -0,0 +1,74 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.api.filters;
+
+import javax.inject.Singleton;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+
+/**
+ * Times every request by the resource method that answered it. Requests that match no resource
+ * method are counted as {@code unmatched}.
+ */
+@Singleton
+@Provider
+@PreMatching
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String START_PROPERTY = RequestMetricsFilter.class.getName() + ".start";
+
+    private final Metrics metrics;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    public RequestMetricsFilter() {
+        this.metrics = Metrics.getInstance();
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext,
+                       final ContainerResponseContext responseContext) {
+        final var start = requestContext.getProperty(START_PROPERTY);
+        if (!(start instanceof Long)) {
+            return;
+        }
+
+        final var method = resourceInfo.getResourceMethod();
+        final var resource = method == null
+                             ? "unmatched"
+                             : resourceInfo.getResourceClass().getSimpleName() + "."
+                               + method.getName();
+        final var status = responseContext.getStatus() / 100 + "xx";
+        metrics.timer("http_request_seconds", "resource", resource, "status", status)
+                .recordSince((Long) start);
+    }
+}
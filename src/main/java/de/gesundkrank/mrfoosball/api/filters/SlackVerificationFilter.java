@@ -18,7 +18,6 @@
 package de.gesundkrank.mrfoosball.api.filters;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
@@ -30,10 +29,10 @@ import javax.ws.rs.ext.Provider;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.glassfish.jersey.message.internal.ReaderWriter;
 
 import de.gesundkrank.mrfoosball.api.annotations.VerifySlackRequest;
 import de.gesundkrank.mrfoosball.slack.RequestVerifier;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
 import de.gesundkrank.mrfoosball.utils.Properties;
 
 @Singleton
@@ -53,6 +52,10 @@ public class SlackVerificationFilter implements ContainerRequestFilter {
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
+        Tracer.getInstance().run("slack.verify", () -> verify(requestContext));
+    }
+
+    private void verify(ContainerRequestContext requestContext) throws IOException {
 
         final var requestBody = getEntityBody(requestContext);
         final var timestampHeader = requestContext.getHeaderString("X-Slack-Request-Timestamp");
@@ -61,21 +64,17 @@ public class SlackVerificationFilter implements ContainerRequestFilter {
             final var response = Response.status(Response.Status.BAD_REQUEST).build();
             requestContext.abortWith(response);
             logger.info("Request Aborted. Details:timestamp: \"{}\"body:\"{}\"signature:\"{}\"",
-                        timestampHeader, requestBody, headerSignature);
+                        timestampHeader, new String(requestBody, StandardCharsets.UTF_8),
+                        headerSignature);
             return;
         }
 
         logger.debug("Successfully verified request.");
     }
 
-    private String getEntityBody(ContainerRequestContext requestContext) throws IOException {
-        final var out = new ByteArrayOutputStream();
-        final var in = requestContext.getEntityStream();
-
-        ReaderWriter.writeTo(in, out);
-
-        final var requestEntity = out.toByteArray();
+    private byte[] getEntityBody(ContainerRequestContext requestContext) throws IOException {
+        final var requestEntity = requestContext.getEntityStream().readAllBytes();
         requestContext.setEntityStream(new ByteArrayInputStream(requestEntity));
-        return new String(requestEntity, StandardCharsets.UTF_8);
+        return requestEntity;
     }
 }
@@ -0,0 +1,63 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.api.filters;
+
+import javax.inject.Singleton;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.Provider;
+
+import de.gesundkrank.mrfoosball.tracing.Span;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
+
+/**
+ * Starts a trace for every request, spanning the time until its response is sent. Work of
+ * asynchronous resources that continues after the response belongs to the same trace.
+ */
+@Singleton
+@Provider
+@PreMatching
+public class TracingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String SPAN_PROPERTY = TracingFilter.class.getName() + ".span";
+
+    private final Tracer tracer;
+
+    public TracingFilter() {
+        this.tracer = Tracer.getInstance();
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        final var name = String.format("%s /%s", requestContext.getMethod(),
+                                       requestContext.getUriInfo().getPath());
+        requestContext.setProperty(SPAN_PROPERTY, tracer.startTrace(name));
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext,
+                       final ContainerResponseContext responseContext) {
+        final var span = requestContext.getProperty(SPAN_PROPERTY);
+        if (span instanceof Span) {
+            ((Span) span).close();
+        }
+    }
+}
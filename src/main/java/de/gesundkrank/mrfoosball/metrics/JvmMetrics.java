@@ -0,0 +1,71 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Gauges for the memory, threads and garbage collection of the JVM and for thread pools.
+ */
+public final class JvmMetrics {
+
+    private JvmMetrics() {
+    }
+
+    public static void register(final Metrics metrics) {
+        final var memory = ManagementFactory.getMemoryMXBean();
+        final DoubleSupplier heapUsed = () -> memory.getHeapMemoryUsage().getUsed();
+        final DoubleSupplier heapCommitted = () -> memory.getHeapMemoryUsage().getCommitted();
+        final DoubleSupplier heapMax = () -> memory.getHeapMemoryUsage().getMax();
+        final DoubleSupplier nonHeapUsed = () -> memory.getNonHeapMemoryUsage().getUsed();
+        metrics.gauge("jvm_memory_used_bytes", heapUsed, "area", "heap");
+        metrics.gauge("jvm_memory_used_bytes", nonHeapUsed, "area", "nonheap");
+        metrics.gauge("jvm_memory_committed_bytes", heapCommitted, "area", "heap");
+        metrics.gauge("jvm_memory_max_bytes", heapMax, "area", "heap");
+
+        final var threads = ManagementFactory.getThreadMXBean();
+        metrics.gauge("jvm_threads", threads::getThreadCount, "state", "live");
+        metrics.gauge("jvm_threads", threads::getDaemonThreadCount, "state", "daemon");
+        metrics.gauge("jvm_threads", threads::getPeakThreadCount, "state", "peak");
+
+        for (final GarbageCollectorMXBean collector
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final var name = collector.getName();
+            metrics.gauge("jvm_gc_collections", collector::getCollectionCount, "gc", name);
+            final DoubleSupplier seconds = () -> collector.getCollectionTime() / 1e3;
+            metrics.gauge("jvm_gc_collection_seconds", seconds, "gc", name);
+        }
+
+        final var runtime = ManagementFactory.getRuntimeMXBean();
+        metrics.gauge("jvm_uptime_seconds", () -> runtime.getUptime() / 1e3);
+        final var os = ManagementFactory.getOperatingSystemMXBean();
+        metrics.gauge("system_load_average", os::getSystemLoadAverage);
+    }
+
+    public static void register(final Metrics metrics, final String pool,
+                                final ForkJoinPool forkJoinPool) {
+        metrics.gauge("pool_threads", forkJoinPool::getPoolSize, "pool", pool);
+        metrics.gauge("pool_active_threads", forkJoinPool::getActiveThreadCount, "pool", pool);
+        metrics.gauge("pool_queued_submissions", forkJoinPool::getQueuedSubmissionCount,
+                      "pool", pool);
+        metrics.gauge("pool_queued_tasks", forkJoinPool::getQueuedTaskCount, "pool", pool);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Process wide registry of counters, gauges and timers. Metrics are identified by a name and an
+ * optional list of label key/value pairs and are rendered in the Prometheus text format.
+ *
+ * <p>Timers are rendered as histograms with fixed buckets, so latency quantiles can be computed
+ * over any time window on the Prometheus side. Their quantiles since the start of the process are
+ * added as a separate gauge.
+ */
+public class Metrics {
+
+    private static final double[] BUCKET_SECONDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    private final Map<String, Family<Counter>> counters;
+    private final Map<String, Family<DoubleSupplier>> gauges;
+    private final Map<String, Family<Timer>> timers;
+
+    Metrics() {
+        this.counters = new ConcurrentSkipListMap<>();
+        this.gauges = new ConcurrentSkipListMap<>();
+        this.timers = new ConcurrentSkipListMap<>();
+    }
+
+    public Counter counter(final String name, final String... labels) {
+        return counters.computeIfAbsent(name, n -> new Family<>()).get(labels, Counter::new);
+    }
+
+    /**
+     * Registers a gauge that is sampled on every scrape. The first registration of a name and
+     * label combination wins.
+     */
+    public void gauge(final String name, final DoubleSupplier value, final String... labels) {
+        gauges.computeIfAbsent(name, n -> new Family<>()).get(labels, () -> value);
+    }
+
+    public Timer timer(final String name, final String... labels) {
+        return timers.computeIfAbsent(name, n -> new Family<>()).get(labels, Timer::new);
+    }
+
+    public String scrape() {
+        final var out = new StringBuilder(4096);
+
+        counters.forEach((name, family) -> {
+            out.append("# TYPE ").append(name).append(" counter\n");
+            family.metrics.forEach((labels, counter) -> sample(out, name, "", labels,
+                                                               counter.getCount()));
+        });
+
+        gauges.forEach((name, family) -> {
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            family.metrics.forEach((labels, gauge) -> sample(out, name, "", labels,
+                                                             gauge.getAsDouble()));
+        });
+
+        timers.forEach((name, family) -> {
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            family.metrics.forEach((labels, timer) -> histogram(out, name, labels, timer));
+            out.append("# TYPE ").append(name).append("_max gauge\n");
+            family.metrics.forEach((labels, timer) -> sample(out, name, "_max", labels,
+                                                             timer.getMaxNanos() / 1e9));
+            out.append("# TYPE ").append(name).append("_quantile gauge\n");
+            family.metrics.forEach((labels, timer) -> {
+                for (final double quantile : QUANTILES) {
+                    sample(out, name, "_quantile",
+                           withLabel(labels, "quantile", String.valueOf(quantile)),
+                           timer.getValueAtQuantile(quantile) / 1e9);
+                }
+            });
+        });
+
+        return out.toString();
+    }
+
+    private static void histogram(final StringBuilder out, final String name,
+                                  final String labels, final Timer timer) {
+        for (final double bound : BUCKET_SECONDS) {
+            sample(out, name, "_bucket", withLabel(labels, "le", String.valueOf(bound)),
+                   timer.getCountAtOrBelow((long) (bound * 1e9)));
+        }
+        final var count = timer.getCount();
+        sample(out, name, "_bucket", withLabel(labels, "le", "+Inf"), count);
+        sample(out, name, "_count", labels, count);
+        sample(out, name, "_sum", labels, timer.getTotalNanos() / 1e9);
+    }
+
+    private static String withLabel(final String labels, final String key, final String value) {
+        final var label = labelString(key, value);
+        return labels.isEmpty() ? label : labels + ',' + label;
+    }
+
+    private static void sample(final StringBuilder out, final String name, final String suffix,
+                               final String labels, final Object value) {
+        out.append(name).append(suffix);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String labelString(final String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be key value pairs");
+        }
+
+        final var out = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append('"');
+        }
+        return out.toString();
+    }
+
+    private static class Family<T> {
+
+        private final Map<String, T> metrics = new ConcurrentHashMap<>();
+
+        T get(final String[] labels, final Supplier<T> factory) {
+            return metrics.computeIfAbsent(labelString(labels), l -> factory.get());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.List;
+
+/**
+ * A record a player or team set with a tournament.
+ */
+public class Achievement {
+
+    public enum Kind {
+        // a new longest win streak
+        WIN_STREAK,
+        // a new biggest skill gain
+        UPSET,
+        // a multiple of RecordColumns.MILESTONE_INTERVAL games
+        MILESTONE
+    }
+
+    public Kind kind;
+    // one player id, or both for a team
+    public List<String> playerIds;
+    // streak length, skill gain or number of games
+    public double value;
+
+    public Achievement() {
+    }
+
+    public Achievement(final Kind kind, final List<String> playerIds, final double value) {
+        this.kind = kind;
+        this.playerIds = playerIds;
+        this.value = value;
+    }
+}
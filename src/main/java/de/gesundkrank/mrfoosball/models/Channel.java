@@ -32,6 +32,10 @@ import javax.persistence.Table;
         @NamedQuery(
                 name = "get_channel_by_slack_id",
                 query = "FROM Channel WHERE slackId = :slackId"
+        ),
+        @NamedQuery(
+                name = "get_workspace_channel_ids",
+                query = "SELECT id FROM Channel WHERE slackWorkspace.teamId = :teamId"
         )
 })
 @Entity
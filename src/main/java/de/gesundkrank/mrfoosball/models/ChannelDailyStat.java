@@ -0,0 +1,79 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Tournaments, matches and goals played in a channel on one day.
+ */
+@NamedQueries({
+        @NamedQuery(
+                name = "get_channel_period_stats",
+                query = "SELECT SUM(games), SUM(matches), SUM(goals) FROM ChannelDailyStat "
+                        + "WHERE channelId = :channelId AND day >= :from AND day <= :to"
+        )
+})
+@Entity
+@Table(name = "channel_daily_stat")
+@IdClass(ChannelDailyStat.Key.class)
+public class ChannelDailyStat implements Serializable {
+
+    @Id
+    @Column(name = "channel_id")
+    public String channelId;
+
+    @Id
+    @Temporal(TemporalType.DATE)
+    public Date day;
+
+    public int games;
+    public int matches;
+    public int goals;
+
+    public static class Key implements Serializable {
+
+        public String channelId;
+        public Date day;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.day.equals(day);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, day);
+        }
+    }
+}
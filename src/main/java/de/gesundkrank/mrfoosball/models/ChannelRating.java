@@ -0,0 +1,45 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator;
+
+/**
+ * Rating of a player or team in the channel it is currently playing in. It is not stored with the
+ * player or team but loaded from {@link PlayerRating} and {@link TeamRating}.
+ */
+public class ChannelRating {
+
+    public Double trueSkillMean = TrueSkillCalculator.DEFAULT_INITIAL_MEAN;
+    public Double trueSkillStandardDeviation =
+            TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION;
+
+    public void updateRating(final double mean, final double standardDeviation) {
+        trueSkillMean = mean;
+        trueSkillStandardDeviation = standardDeviation;
+    }
+
+    public void updateRating(final TrueSkillColumns rating) {
+        if (rating == null) {
+            updateRating(TrueSkillCalculator.DEFAULT_INITIAL_MEAN,
+                         TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION);
+        } else {
+            updateRating(rating.trueSkillMean, rating.trueSkillStandardDeviation);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A hypothetical pairing of two teams, given by the ids of their players.
+ */
+public class Lineup {
+
+    public List<String> teamA;
+    public List<String> teamB;
+
+    public Lineup() {
+    }
+
+    public Lineup(final List<String> teamA, final List<String> teamB) {
+        this.teamA = teamA;
+        this.teamB = teamB;
+    }
+
+    /**
+     * Whether both teams consist of two players and nobody plays in both.
+     */
+    public boolean isValid() {
+        if (teamA == null || teamB == null || teamA.size() != 2 || teamB.size() != 2
+            || teamA.contains(null) || teamB.contains(null)) {
+            return false;
+        }
+
+        final var players = new HashSet<>(teamA);
+        players.addAll(teamB);
+        return players.size() == 4;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Head-to-head records and partner records of the players of a channel. Only pairs that played
+ * together or against each other are listed, and they refer to players by their index in
+ * {@link #players}.
+ */
+public class PairStats {
+
+    public List<Player> players = new ArrayList<>();
+    public List<Pair> pairs = new ArrayList<>();
+
+    public static class Pair {
+
+        public int player1;
+        public int player2;
+        public int gamesTogether;
+        public int winsTogether;
+        public int gamesAgainst;
+        public int player1Wins;
+        public int player2Wins;
+
+        public Pair() {
+        }
+
+        public Pair(final int player1, final int player2, final PlayerPairStat stat) {
+            this.player1 = player1;
+            this.player2 = player2;
+            this.gamesTogether = stat.gamesTogether;
+            this.winsTogether = stat.winsTogether;
+            this.gamesAgainst = stat.gamesAgainst;
+            this.player1Wins = stat.player1Wins;
+            this.player2Wins = stat.player2Wins;
+        }
+    }
+}
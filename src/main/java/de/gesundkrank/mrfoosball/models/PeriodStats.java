@@ -0,0 +1,74 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stats of a channel, its players and its teams between two days, both inclusive.
+ */
+public class PeriodStats {
+
+    public String from;
+    public String to;
+    public long games;
+    public long matches;
+    public long goals;
+    public List<PlayerEntry> players = new ArrayList<>();
+    public List<TeamEntry> teams = new ArrayList<>();
+
+    public PeriodStats() {
+    }
+
+    public PeriodStats(final String from, final String to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public static class Counters {
+
+        public long games;
+        public long wins;
+        public long losses;
+        public long goalsScored;
+        public long goalsReceived;
+
+        /**
+         * Reads the sums of games, wins, losses, goals scored and goals received from a query row,
+         * starting at {@code offset}.
+         */
+        public void set(final Object[] row, final int offset) {
+            games = ((Number) row[offset]).longValue();
+            wins = ((Number) row[offset + 1]).longValue();
+            losses = ((Number) row[offset + 2]).longValue();
+            goalsScored = ((Number) row[offset + 3]).longValue();
+            goalsReceived = ((Number) row[offset + 4]).longValue();
+        }
+    }
+
+    public static class PlayerEntry extends Counters {
+
+        public Player player;
+    }
+
+    public static class TeamEntry extends Counters {
+
+        public Team team;
+    }
+}
@@ -20,19 +20,11 @@ package de.gesundkrank.mrfoosball.models;
 import java.io.Serializable;
 import javax.persistence.Entity;
 import javax.persistence.Id;
-import javax.persistence.NamedQueries;
-import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
-@NamedQueries({
-        @NamedQuery(
-                name = "get_players_ordered_by_skill",
-                query = "from Player order by (trueSkillMean - 3 * trueSkillStandardDeviation) desc"
-        )
-})
 @Entity
 @Table
-public class Player extends TrueSkillColumns implements Comparable<Player>, Serializable {
+public class Player extends ChannelRating implements Comparable<Player>, Serializable {
 
     @Id
     public String id;
@@ -0,0 +1,130 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Record of two players of a channel as partners and as opponents. Each pair is stored once with
+ * the smaller player id first.
+ */
+@NamedQueries({
+        @NamedQuery(
+                name = "get_player_pair_stats",
+                query = "FROM PlayerPairStat WHERE channelId = :channelId "
+                        + "AND (gamesTogether >= :minGames OR gamesAgainst >= :minGames)"
+        )
+})
+@Entity
+@Table(name = "player_pair_stat")
+@IdClass(PlayerPairStat.Key.class)
+public class PlayerPairStat implements Serializable {
+
+    @Id
+    @Column(name = "channel_id")
+    public String channelId;
+
+    @Id
+    @Column(name = "player1_id")
+    public String player1Id;
+
+    @Id
+    @Column(name = "player2_id")
+    public String player2Id;
+
+    public int gamesTogether;
+    public int winsTogether;
+    public int gamesAgainst;
+    public int player1Wins;
+    public int player2Wins;
+
+    public PlayerPairStat() {
+    }
+
+    private PlayerPairStat(final String channelId, final Player player1, final Player player2) {
+        this.channelId = channelId;
+        if (player1.compareTo(player2) > 0) {
+            this.player1Id = player2.id;
+            this.player2Id = player1.id;
+        } else {
+            this.player1Id = player1.id;
+            this.player2Id = player2.id;
+        }
+    }
+
+    /**
+     * What a single tournament adds to the records of its player pairs: the two partner pairs
+     * followed by the four opponent pairs.
+     */
+    public static PlayerPairStat[] of(final Tournament tournament, final TeamStat[] stats) {
+        final var channelId = tournament.channel.id;
+        final var teamA = tournament.teamA;
+        final var teamB = tournament.teamB;
+
+        final var pairs = new PlayerPairStat[6];
+        pairs[0] = new PlayerPairStat(channelId, teamA.player1, teamA.player2);
+        pairs[0].gamesTogether = 1;
+        pairs[0].winsTogether = stats[0].tournamentsWon;
+        pairs[1] = new PlayerPairStat(channelId, teamB.player1, teamB.player2);
+        pairs[1].gamesTogether = 1;
+        pairs[1].winsTogether = stats[1].tournamentsWon;
+
+        int index = 2;
+        for (final Player playerA : new Player[]{teamA.player1, teamA.player2}) {
+            for (final Player playerB : new Player[]{teamB.player1, teamB.player2}) {
+                final var pair = new PlayerPairStat(channelId, playerA, playerB);
+                pair.gamesAgainst = 1;
+                final var playerAFirst = pair.player1Id.equals(playerA.id);
+                pair.player1Wins = stats[playerAFirst ? 0 : 1].tournamentsWon;
+                pair.player2Wins = stats[playerAFirst ? 1 : 0].tournamentsWon;
+                pairs[index++] = pair;
+            }
+        }
+        return pairs;
+    }
+
+    public static class Key implements Serializable {
+
+        public String channelId;
+        public String player1Id;
+        public String player2Id;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.player1Id.equals(player1Id)
+                       && oKey.player2Id.equals(player2Id);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, player1Id, player2Id);
+        }
+    }
+}
@@ -22,31 +22,51 @@ import java.util.List;
 
 public class PlayerQueue {
 
+    public static final int PLAYERS_PER_TOURNAMENT = 4;
+
     public List<Player> queue;
+    public List<Long> joined;
 
     public PlayerQueue() {
         this.queue = new ArrayList<>();
+        this.joined = new ArrayList<>();
     }
 
-    public void addPlayer(final Player player) throws PlayerAlreadyInQueueException,
-                                                      TooManyUsersException {
+    public void addPlayer(final Player player, final int maxSize)
+            throws PlayerAlreadyInQueueException, TooManyUsersException {
         if (queue.contains(player)) {
             throw new PlayerAlreadyInQueueException(player);
         }
 
-        if (isFull()) {
+        if (queue.size() >= maxSize) {
             throw new TooManyUsersException(player);
         }
 
+        // queues written before the join time was stored count as joined now
+        while (joined.size() < queue.size()) {
+            joined.add(System.currentTimeMillis());
+        }
         queue.add(player);
+        joined.add(System.currentTimeMillis());
     }
 
     public void remove(final Player player) {
-        queue.remove(player);
+        final var index = queue.indexOf(player);
+        if (index < 0) {
+            return;
+        }
+
+        queue.remove(index);
+        if (index < joined.size()) {
+            joined.remove(index);
+        }
     }
 
-    public boolean isFull() {
-        return queue.size() == 4;
+    /**
+     * Whether enough players are waiting to start a tournament.
+     */
+    public boolean isReady() {
+        return queue.size() >= PLAYERS_PER_TOURNAMENT;
     }
 
     public static class PlayerAlreadyInQueueException extends Exception {
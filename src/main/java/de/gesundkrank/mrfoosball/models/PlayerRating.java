@@ -0,0 +1,78 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+@NamedQueries({
+        @NamedQuery(
+                name = "get_player_ratings",
+                query = "FROM PlayerRating WHERE channelId = :channelId "
+                        + "AND playerId IN (:playerIds)"
+        )
+})
+@Entity
+@Table(name = "player_rating")
+@IdClass(PlayerRating.Key.class)
+public class PlayerRating extends TrueSkillColumns implements Serializable {
+
+    @Id
+    @Column(name = "channel_id")
+    public String channelId;
+
+    @Id
+    @Column(name = "player_id")
+    public String playerId;
+
+    public PlayerRating() {
+    }
+
+    public PlayerRating(final String channelId, final Player player) {
+        this.channelId = channelId;
+        this.playerId = player.id;
+        updateRating(player.trueSkillMean, player.trueSkillStandardDeviation);
+    }
+
+    public static class Key implements Serializable {
+
+        public String channelId;
+        public String playerId;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.playerId.equals(playerId);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, playerId);
+        }
+    }
+}
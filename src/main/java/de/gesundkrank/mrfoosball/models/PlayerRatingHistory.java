@@ -0,0 +1,95 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Rating of a player in a channel right after a tournament. Finishing a tournament only appends
+ * rows; edits, deletions and recomputations rewrite the rows of the tournaments they rate again.
+ */
+@NamedQueries({
+        @NamedQuery(
+                name = "get_player_rating_history",
+                query = "SELECT date, trueSkillMean, trueSkillStandardDeviation "
+                        + "FROM PlayerRatingHistory "
+                        + "WHERE channelId = :channelId AND playerId = :playerId "
+                        + "AND date >= :from AND date < :to ORDER BY date"
+        )
+})
+@Entity
+@Table(name = "player_rating_history")
+@IdClass(PlayerRatingHistory.Key.class)
+public class PlayerRatingHistory extends TrueSkillColumns implements Serializable {
+
+    @Id
+    @Column(name = "channel_id")
+    public String channelId;
+
+    @Id
+    @Column(name = "player_id")
+    public String playerId;
+
+    @Id
+    @Column(name = "tournament_id")
+    public int tournamentId;
+
+    public Date date;
+
+    public PlayerRatingHistory() {
+    }
+
+    public PlayerRatingHistory(final Tournament tournament, final Player player) {
+        this.channelId = tournament.channel.id;
+        this.playerId = player.id;
+        this.tournamentId = tournament.id;
+        this.date = tournament.date;
+        updateRating(player.trueSkillMean, player.trueSkillStandardDeviation);
+    }
+
+    public static class Key implements Serializable {
+
+        public String channelId;
+        public String playerId;
+        public int tournamentId;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.playerId.equals(playerId)
+                       && oKey.tournamentId == tournamentId;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, playerId, tournamentId);
+        }
+    }
+}
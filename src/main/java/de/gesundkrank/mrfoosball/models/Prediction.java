@@ -0,0 +1,45 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+/**
+ * Predicted outcome of a tournament between two teams, computed from the players' ratings before
+ * it is played.
+ */
+public class Prediction {
+
+    public double matchQuality;
+    public double teamAWinProbability;
+    public double teamBWinProbability;
+
+    public Prediction() {
+    }
+
+    public Prediction(final double matchQuality, final double teamAWinProbability) {
+        this.matchQuality = matchQuality;
+        this.teamAWinProbability = teamAWinProbability;
+        this.teamBWinProbability = 1 - teamAWinProbability;
+    }
+
+    /**
+     * The same prediction with team A and team B swapped.
+     */
+    public Prediction swapTeams() {
+        return new Prediction(matchQuality, teamBWinProbability);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import de.gesundkrank.mrfoosball.trueskill.TwoTeamTrueSkill;
+
+/**
+ * Rating of a player over time as parallel lists, one entry per point.
+ *
+ * <p>Long ranges are downsampled while the rows are read: the range is split into {@code points}
+ * buckets of equal length and only the rating after the last tournament of each bucket is kept.
+ */
+public class RatingHistory {
+
+    public String playerId;
+    public Date from;
+    public Date to;
+    public List<Long> dates = new ArrayList<>();
+    public List<Double> means = new ArrayList<>();
+    public List<Double> standardDeviations = new ArrayList<>();
+    public List<Double> skills = new ArrayList<>();
+
+    private double bucketLength;
+    private long lastBucket = -1;
+
+    public RatingHistory() {
+    }
+
+    public RatingHistory(final String playerId, final Date from, final Date to, final int points) {
+        this.playerId = playerId;
+        this.from = from;
+        this.to = to;
+        this.bucketLength = Math.max(1.0, (double) (to.getTime() - from.getTime()) / points);
+    }
+
+    /**
+     * Adds the rating after a tournament. Ratings have to be added in chronological order.
+     */
+    public void add(final Date date, final double mean, final double standardDeviation) {
+        final var bucket = (long) ((date.getTime() - from.getTime()) / bucketLength);
+        if (bucket == lastBucket) {
+            final var last = dates.size() - 1;
+            dates.remove(last);
+            means.remove(last);
+            standardDeviations.remove(last);
+            skills.remove(last);
+        }
+        lastBucket = bucket;
+
+        dates.add(date.getTime());
+        means.add(mean);
+        standardDeviations.add(standardDeviation);
+        skills.add(TwoTeamTrueSkill.conservativeRating(mean, standardDeviation));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import javax.persistence.Embeddable;
+
+/**
+ * Ratings of the four players and both teams right before a tournament was rated, so the ratings
+ * can be replayed from this tournament on after it was edited or deleted.
+ */
+@Embeddable
+public class RatingSnapshot {
+
+    public static final int SLOTS = 6;
+
+    public Double teamAPlayer1Mean;
+    public Double teamAPlayer1StandardDeviation;
+    public Double teamAPlayer2Mean;
+    public Double teamAPlayer2StandardDeviation;
+    public Double teamBPlayer1Mean;
+    public Double teamBPlayer1StandardDeviation;
+    public Double teamBPlayer2Mean;
+    public Double teamBPlayer2StandardDeviation;
+    public Double teamAMean;
+    public Double teamAStandardDeviation;
+    public Double teamBMean;
+    public Double teamBStandardDeviation;
+
+    /**
+     * Takes the player ratings in the order of {@link
+     * de.gesundkrank.mrfoosball.trueskill.TwoTeamTrueSkill#update2v2}.
+     */
+    public void setPlayers(final double[] ratings) {
+        teamAPlayer1Mean = ratings[0];
+        teamAPlayer1StandardDeviation = ratings[1];
+        teamAPlayer2Mean = ratings[2];
+        teamAPlayer2StandardDeviation = ratings[3];
+        teamBPlayer1Mean = ratings[4];
+        teamBPlayer1StandardDeviation = ratings[5];
+        teamBPlayer2Mean = ratings[6];
+        teamBPlayer2StandardDeviation = ratings[7];
+    }
+
+    /**
+     * Takes the team ratings in the order of {@link
+     * de.gesundkrank.mrfoosball.trueskill.TwoTeamTrueSkill#update1v1}.
+     */
+    public void setTeams(final double[] ratings) {
+        teamAMean = ratings[0];
+        teamAStandardDeviation = ratings[1];
+        teamBMean = ratings[2];
+        teamBStandardDeviation = ratings[3];
+    }
+
+    /**
+     * Returns the players followed by the teams as (mean, standard deviation) pairs, with missing
+     * ratings as {@link Double#NaN}.
+     */
+    public double[] toArray() {
+        return new double[]{
+            value(teamAPlayer1Mean), value(teamAPlayer1StandardDeviation),
+            value(teamAPlayer2Mean), value(teamAPlayer2StandardDeviation),
+            value(teamBPlayer1Mean), value(teamBPlayer1StandardDeviation),
+            value(teamBPlayer2Mean), value(teamBPlayer2StandardDeviation),
+            value(teamAMean), value(teamAStandardDeviation),
+            value(teamBMean), value(teamBStandardDeviation)
+        };
+    }
+
+    private static double value(final Double value) {
+        return value == null ? Double.NaN : value;
+    }
+}
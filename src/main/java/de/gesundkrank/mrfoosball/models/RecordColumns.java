@@ -0,0 +1,80 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.EnumSet;
+import javax.persistence.MappedSuperclass;
+
+/**
+ * Streaks, biggest skill gain and number of games of a player or team, updated one tournament at
+ * a time.
+ */
+@MappedSuperclass
+public class RecordColumns {
+
+    public static final int MILESTONE_INTERVAL = 100;
+    public static final int MIN_ANNOUNCED_STREAK = 3;
+    public static final int MIN_GAMES_FOR_UPSETS = 10;
+
+    public int games;
+    // positive while winning, negative while losing, 0 after a draw
+    public int currentStreak;
+    public int longestWinStreak;
+    public int longestLosingStreak;
+    public double biggestSkillGain;
+    public Integer biggestSkillGainTournamentId;
+
+    /**
+     * Adds the next tournament and returns which records it set.
+     *
+     * @param result 1 if the tournament was won, -1 if it was lost and 0 for a draw
+     */
+    public EnumSet<Achievement.Kind> add(final int result, final double skillChange,
+                                         final int tournamentId) {
+        final var achievements = EnumSet.noneOf(Achievement.Kind.class);
+        games++;
+
+        if (result > 0) {
+            currentStreak = currentStreak > 0 ? currentStreak + 1 : 1;
+            if (currentStreak > longestWinStreak) {
+                longestWinStreak = currentStreak;
+                if (currentStreak >= MIN_ANNOUNCED_STREAK) {
+                    achievements.add(Achievement.Kind.WIN_STREAK);
+                }
+            }
+        } else if (result < 0) {
+            currentStreak = currentStreak < 0 ? currentStreak - 1 : -1;
+            longestLosingStreak = Math.max(longestLosingStreak, -currentStreak);
+        } else {
+            currentStreak = 0;
+        }
+
+        if (skillChange > biggestSkillGain) {
+            biggestSkillGain = skillChange;
+            biggestSkillGainTournamentId = tournamentId;
+            if (result > 0 && games > MIN_GAMES_FOR_UPSETS) {
+                achievements.add(Achievement.Kind.UPSET);
+            }
+        }
+
+        if (games % MILESTONE_INTERVAL == 0) {
+            achievements.add(Achievement.Kind.MILESTONE);
+        }
+        return achievements;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records of the players and teams of a channel, longest win streak first, together with the
+ * players they refer to.
+ */
+public class Records {
+
+    public List<Player> players = new ArrayList<>();
+    public List<PlayerRecord> playerRecords = new ArrayList<>();
+    public List<TeamRecord> teamRecords = new ArrayList<>();
+}
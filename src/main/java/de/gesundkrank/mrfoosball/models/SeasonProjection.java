@@ -0,0 +1,39 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Projected final standings of a simulated league.
+ */
+public class SeasonProjection {
+
+    public int seasons;
+    public List<TeamProjection> teams = new ArrayList<>();
+
+    public static class TeamProjection {
+
+        public String player1;
+        public String player2;
+        // probability to finish in each position, first place first
+        public List<Double> positions = new ArrayList<>();
+        public double expectedPosition;
+    }
+}
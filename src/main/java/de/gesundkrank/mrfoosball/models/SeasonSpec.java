@@ -0,0 +1,67 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A league to simulate: its teams and either explicit fixtures or a round robin in which every
+ * team plays every other team {@code rounds} times.
+ */
+public class SeasonSpec {
+
+    public static final int DEFAULT_SEASONS = 10000;
+
+    public List<SeasonTeam> teams = new ArrayList<>();
+    public List<Fixture> fixtures = new ArrayList<>();
+    public int rounds = 1;
+    public int seasons = DEFAULT_SEASONS;
+    public Long seed;
+
+    public static class SeasonTeam {
+
+        public String player1;
+        public String player2;
+
+        public SeasonTeam() {
+        }
+
+        public SeasonTeam(final String player1, final String player2) {
+            this.player1 = player1;
+            this.player2 = player2;
+        }
+    }
+
+    /**
+     * A game between two teams, given by their index in {@link #teams}.
+     */
+    public static class Fixture {
+
+        public int teamA;
+        public int teamB;
+
+        public Fixture() {
+        }
+
+        public Fixture(final int teamA, final int teamB) {
+            this.teamA = teamA;
+            this.teamB = teamB;
+        }
+    }
+}
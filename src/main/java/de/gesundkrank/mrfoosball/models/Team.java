@@ -29,7 +29,7 @@ import javax.persistence.Table;
 @Entity
 @Table
 @IdClass(Team.Key.class)
-public class Team extends TrueSkillColumns implements Serializable {
+public class Team extends ChannelRating implements Serializable {
 
     @Id
     @ManyToOne(cascade = CascadeType.PERSIST)
@@ -0,0 +1,88 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Tournaments, wins and goals of a team in a channel on one day.
+ */
+@NamedQueries({
+        @NamedQuery(
+                name = "get_team_period_stats",
+                query = "SELECT player1Id, player2Id, SUM(games), SUM(wins), SUM(losses), "
+                        + "SUM(goalsScored), SUM(goalsReceived) FROM TeamDailyStat "
+                        + "WHERE channelId = :channelId AND day >= :from AND day <= :to "
+                        + "GROUP BY player1Id, player2Id ORDER BY SUM(wins) DESC, SUM(games) DESC"
+        )
+})
+@Entity
+@Table(name = "team_daily_stat")
+@IdClass(TeamDailyStat.Key.class)
+public class TeamDailyStat extends DailyStatColumns implements Serializable {
+
+    @Id
+    @Column(name = "channel_id")
+    public String channelId;
+
+    @Id
+    @Column(name = "player1_id")
+    public String player1Id;
+
+    @Id
+    @Column(name = "player2_id")
+    public String player2Id;
+
+    @Id
+    @Temporal(TemporalType.DATE)
+    public Date day;
+
+    public static class Key implements Serializable {
+
+        public String channelId;
+        public String player1Id;
+        public String player2Id;
+        public Date day;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.player1Id.equals(player1Id)
+                       && oKey.player2Id.equals(player2Id) && oKey.day.equals(day);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, player1Id, player2Id, day);
+        }
+    }
+}
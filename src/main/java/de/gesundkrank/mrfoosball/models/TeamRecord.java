@@ -0,0 +1,93 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+@NamedQueries({
+        @NamedQuery(
+                name = "get_team_records",
+                query = "FROM TeamRecord WHERE channelId = :channelId "
+                        + "ORDER BY longestWinStreak DESC, games DESC"
+        )
+})
+@Entity
+@Table(name = "team_record")
+@IdClass(TeamRecord.Key.class)
+public class TeamRecord extends RecordColumns implements Serializable {
+
+    @Id
+    @Column(name = "channel_id")
+    public String channelId;
+
+    @Id
+    @Column(name = "player1_id")
+    public String player1Id;
+
+    @Id
+    @Column(name = "player2_id")
+    public String player2Id;
+
+    public TeamRecord() {
+    }
+
+    public TeamRecord(final String channelId, final String player1Id, final String player2Id) {
+        this.channelId = channelId;
+        this.player1Id = player1Id;
+        this.player2Id = player2Id;
+    }
+
+    public static class Key implements Serializable {
+
+        public String channelId;
+        public String player1Id;
+        public String player2Id;
+
+        public Key() {
+        }
+
+        public Key(final String channelId, final String player1Id, final String player2Id) {
+            this.channelId = channelId;
+            this.player1Id = player1Id;
+            this.player2Id = player2Id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.player1Id.equals(player1Id)
+                       && oKey.player2Id.equals(player2Id);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, player1Id, player2Id);
+        }
+    }
+}
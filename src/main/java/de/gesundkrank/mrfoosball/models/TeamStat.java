@@ -40,6 +40,49 @@ public class TeamStat implements Comparable<TeamStat> {
         this.team = team;
     }
 
+    /**
+     * What a single tournament adds to the stats of its two teams, team A first.
+     */
+    public static TeamStat[] of(final Tournament tournament) {
+        final TeamStat teamStatA = new TeamStat(tournament.teamA);
+        final TeamStat teamStatB = new TeamStat(tournament.teamB);
+
+        int matchesWon = 0;
+        for (final Match match : tournament.matches) {
+            final int goalsTeamA = match.teamA;
+            final int goalsTeamB = match.teamB;
+            teamStatA.goalsScored += goalsTeamA;
+            teamStatA.goalsReceived += goalsTeamB;
+            teamStatB.goalsScored += goalsTeamB;
+            teamStatB.goalsReceived += goalsTeamA;
+
+            teamStatA.matchesPlayed++;
+            teamStatB.matchesPlayed++;
+
+            if (goalsTeamA > goalsTeamB) {
+                teamStatA.matchesWon++;
+                teamStatB.matchesLost++;
+                matchesWon++;
+            } else if (goalsTeamB > goalsTeamA) {
+                teamStatB.matchesWon++;
+                teamStatA.matchesLost++;
+                matchesWon--;
+            }
+        }
+
+        teamStatA.tournamentsPlayed++;
+        teamStatB.tournamentsPlayed++;
+        if (matchesWon > 0) {
+            teamStatA.tournamentsWon++;
+            teamStatB.tournamentsLost++;
+        } else if (matchesWon < 0) {
+            teamStatB.tournamentsWon++;
+            teamStatA.tournamentsLost++;
+        }
+
+        return new TeamStat[]{teamStatA, teamStatB};
+    }
+
     @XmlAttribute(name = "winRate")
     public float getWinRate() {
         return (float) this.tournamentsWon / this.tournamentsPlayed;
@@ -0,0 +1,129 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+/**
+ * Running totals of a team in a channel, updated whenever a tournament of the team is saved,
+ * edited or deleted.
+ */
+@Entity
+@Table(name = "team_stat")
+@IdClass(TeamStatCounters.Key.class)
+public class TeamStatCounters implements Serializable {
+
+    @Id
+    @Column(name = "channel_id")
+    public String channelId;
+
+    @Id
+    @Column(name = "player1_id")
+    public String player1Id;
+
+    @Id
+    @Column(name = "player2_id")
+    public String player2Id;
+
+    public int tournamentsWon;
+    public int tournamentsLost;
+    public int tournamentsPlayed;
+    public int matchesWon;
+    public int matchesLost;
+    public int matchesPlayed;
+    public int goalsScored;
+    public int goalsReceived;
+
+    public TeamStat toTeamStat(final Team team) {
+        final var stat = new TeamStat(team);
+        stat.tournamentsWon = tournamentsWon;
+        stat.tournamentsLost = tournamentsLost;
+        stat.tournamentsPlayed = tournamentsPlayed;
+        stat.matchesWon = matchesWon;
+        stat.matchesLost = matchesLost;
+        stat.matchesPlayed = matchesPlayed;
+        stat.goalsScored = goalsScored;
+        stat.goalsReceived = goalsReceived;
+        return stat;
+    }
+
+    /**
+     * Orders in which the team stats can be listed, best team first.
+     */
+    public enum Order {
+        WIN_RATE("winRate",
+                 "tournamentsWon * 1.0 / tournamentsPlayed DESC, tournamentsPlayed DESC"),
+        TOURNAMENTS_WON("tournamentsWon", "tournamentsWon DESC, tournamentsPlayed ASC"),
+        TOURNAMENTS_PLAYED("tournamentsPlayed", "tournamentsPlayed DESC"),
+        MATCHES_WON("matchesWon", "matchesWon DESC, matchesPlayed ASC"),
+        GOALS_SCORED("goalsScored", "goalsScored DESC"),
+        GOAL_DIFFERENCE("goalDifference", "goalsScored - goalsReceived DESC");
+
+        private final String name;
+        private final String orderBy;
+
+        Order(final String name, final String orderBy) {
+            this.name = name;
+            this.orderBy = orderBy;
+        }
+
+        public String getOrderBy() {
+            return orderBy;
+        }
+
+        /**
+         * Order with the given name as used in the api, or {@code null} if there is none.
+         */
+        public static Order fromName(final String name) {
+            for (final Order order : values()) {
+                if (order.name.equals(name)) {
+                    return order;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static class Key implements Serializable {
+
+        public String channelId;
+        public String player1Id;
+        public String player2Id;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.player1Id.equals(player1Id)
+                       && oKey.player2Id.equals(player2Id);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, player1Id, player2Id);
+        }
+    }
+}
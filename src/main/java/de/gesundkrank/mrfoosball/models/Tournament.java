@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import javax.persistence.CascadeType;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
@@ -32,6 +33,8 @@ import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.xml.bind.annotation.XmlTransient;
 
 @NamedQueries({
         @NamedQuery(
@@ -90,9 +93,17 @@ public class Tournament {
     public Double teamASkillChange;
     public Double teamBSkillChange;
 
+    @Embedded
+    @XmlTransient
+    public RatingSnapshot ratingsBefore;
+
     @ManyToOne
     public Channel channel;
 
+    // only kept with the running tournament
+    @Transient
+    public Prediction prediction;
+
     @Override
     public String toString() {
         return String.format("id=%d, teamA=%s, teamB=%s, state=%s, matches=%s", id, teamA,
@@ -0,0 +1,47 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A finished trace: everything that happened on behalf of one request or event, across threads.
+ * Spans refer to their parent by id, the root span has no parent.
+ */
+public class Trace {
+
+    public String id;
+    public String name;
+    public Date start;
+    public double durationMillis;
+    public boolean sampled;
+    public int droppedSpans;
+    public List<Span> spans = new ArrayList<>();
+
+    public static class Span {
+
+        public int id;
+        public Integer parentId;
+        public String name;
+        public String thread;
+        public double offsetMillis;
+        public double durationMillis;
+    }
+}
@@ -19,8 +19,6 @@ package de.gesundkrank.mrfoosball.models;
 
 import javax.persistence.MappedSuperclass;
 
-import de.gesundkrank.jskills.Rating;
-
 import de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator;
 
 @MappedSuperclass
@@ -30,8 +28,8 @@ public class TrueSkillColumns {
     public Double trueSkillStandardDeviation =
             TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION;
 
-    public void updateRating(final Rating newRating) {
-        trueSkillMean = newRating.getMean();
-        trueSkillStandardDeviation = newRating.getStandardDeviation();
+    public void updateRating(final double mean, final double standardDeviation) {
+        trueSkillMean = mean;
+        trueSkillStandardDeviation = standardDeviation;
     }
 }
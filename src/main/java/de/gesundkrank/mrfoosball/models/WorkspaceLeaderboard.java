@@ -0,0 +1,66 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Players and teams of all channels of a Slack workspace. Players are ranked by their best skill
+ * in any of the channels, teams by their win rate over all channels.
+ */
+public class WorkspaceLeaderboard {
+
+    public String workspaceId;
+    public int channels;
+    public List<PlayerEntry> players = new ArrayList<>();
+    public List<TeamStat> teams = new ArrayList<>();
+
+    /**
+     * Copy that lists only the first {@code limit} players and teams.
+     */
+    public WorkspaceLeaderboard limit(final int limit) {
+        final var leaderboard = new WorkspaceLeaderboard();
+        leaderboard.workspaceId = workspaceId;
+        leaderboard.channels = channels;
+        leaderboard.players = new ArrayList<>(players.subList(0, Math.min(limit, players.size())));
+        leaderboard.teams = new ArrayList<>(teams.subList(0, Math.min(limit, teams.size())));
+        return leaderboard;
+    }
+
+    public static class PlayerEntry {
+
+        public String id;
+        public String name;
+        public String avatarImage;
+        public int games;
+        public int wins;
+        public double skill;
+        public int channels;
+
+        public PlayerEntry() {
+        }
+
+        public PlayerEntry(final PlayerSkill playerSkill) {
+            this.id = playerSkill.id;
+            this.name = playerSkill.name;
+            this.avatarImage = playerSkill.avatarImage;
+            this.skill = playerSkill.skill;
+        }
+    }
+}
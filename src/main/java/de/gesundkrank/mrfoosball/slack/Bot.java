@@ -19,7 +19,9 @@ package de.gesundkrank.mrfoosball.slack;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -27,24 +29,37 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import de.gesundkrank.mrfoosball.Controller;
+import de.gesundkrank.mrfoosball.metrics.Metrics;
 import de.gesundkrank.mrfoosball.models.Player;
 import de.gesundkrank.mrfoosball.models.PlayerQueue;
+import de.gesundkrank.mrfoosball.models.SlackWorkspace;
+import de.gesundkrank.mrfoosball.slack.models.CommandResponse;
 import de.gesundkrank.mrfoosball.slack.models.EventWrapper;
 import de.gesundkrank.mrfoosball.slack.models.Message;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
 
 public class Bot {
 
     private static final Pattern COMMAND_PATTERN = Pattern.compile("\\w+");
-    private static final Pattern USER_PATTERN = Pattern.compile("<@([^>]*)>");
+    private static final Pattern USER_PATTERN = Pattern.compile("<@([^>|]*)(?:\\|[^>]*)?>");
+    private static final Set<String> COMMANDS = Set.of("add", "play", "reset", "remove", "queue",
+                                                       "cancel", "fixedMatch", "url", "help");
 
     private final Logger logger;
     private final Controller controller;
-
+    private final Metrics metrics;
+    private final Tracer tracer;
 
     public Bot() throws IOException {
+        this(Controller.getInstance());
+    }
+
+    public Bot(final Controller controller) {
         this.logger = LogManager.getLogger();
 
-        this.controller = Controller.getInstance();
+        this.controller = controller;
+        this.metrics = Metrics.getInstance();
+        this.tracer = Tracer.getInstance();
     }
 
     public void onAppMention(final EventWrapper wrappedEvent)
@@ -53,7 +68,6 @@ public class Bot {
         final var sender = wrappedEvent.event.user;
         final var slackChannelId = wrappedEvent.event.channel;
         final var workspace = controller.getSlackWorkspace(wrappedEvent.teamId);
-        final var accessToken = workspace.accessToken;
 
         final var botUserId = wrappedEvent.authedUsers.get(0);
         final var matcher = USER_PATTERN.matcher(text);
@@ -64,6 +78,43 @@ public class Bot {
         }
 
         final var message = text.substring(matcher.end()).trim();
+        final var responder = new MessageResponder(workspace, slackChannelId, botUserId, sender);
+        handleCommand(message, sender, slackChannelId, String.format("<@%s>", botUserId),
+                      responder);
+    }
+
+    /**
+     * Handles a slash command like {@code /kicker add} and returns the answer that is sent back in
+     * the HTTP response.
+     */
+    public CommandResponse onSlashCommand(final String teamId, final String slackChannelId,
+                                          final String sender, final String command,
+                                          final String text)
+            throws IOException, Controller.SlackWorkspaceNotFoundException {
+        // make sure the command comes from a registered workspace
+        controller.getSlackWorkspace(teamId);
+
+        final var responder = new CommandResponder();
+        handleCommand(text == null ? "" : text.trim(), sender, slackChannelId, command,
+                      responder);
+        return responder.getResponse();
+    }
+
+    private void handleCommand(final String message, final String sender,
+                               final String slackChannelId, final String commandPrefix,
+                               final Responder responder) throws IOException {
+        final var commandMatcher = COMMAND_PATTERN.matcher(message);
+        final var command = commandMatcher.find() && COMMANDS.contains(commandMatcher.group())
+                            ? commandMatcher.group() : "unknown";
+        final var timer = metrics.timer("bot_command_seconds", "command", command);
+        tracer.run("bot " + command, timer, () -> {
+            runCommand(message, sender, slackChannelId, commandPrefix, responder);
+        });
+    }
+
+    private void runCommand(final String message, final String sender,
+                            final String slackChannelId, final String commandPrefix,
+                            final Responder responder) throws IOException {
         final var commandMatcher = COMMAND_PATTERN.matcher(message);
 
         if (commandMatcher.find()) {
@@ -75,9 +126,8 @@ public class Bot {
                 channelId = controller.getChannelId(slackChannelId);
             } catch (Controller.ChannelNotFoundException e) {
                 logger.warn(e, e);
-                sendMessage("I didn't know that I'm part of this channel. Please remove me "
-                            + "from this channel and invite me again!",
-                            slackChannelId, botUserId, accessToken);
+                responder.inChannel("I didn't know that I'm part of this channel. Please remove "
+                                    + "me from this channel and invite me again!");
                 return;
             }
 
@@ -95,33 +145,33 @@ public class Bot {
                 switch (action) {
                     case "add":
                     case "play":
-                        for (final String userId : userIds) {
+                        for (final var player : controller.getPlayers(channelId, userIds)) {
                             try {
-                                controller.addPlayer(channelId, userId);
+                                controller.queuePlayer(channelId, player);
                             } catch (PlayerQueue.PlayerAlreadyInQueueException e) {
-                                sendMessage(e.getMessage(), slackChannelId, botUserId, accessToken);
+                                responder.inChannel(e.getMessage());
                             } catch (final PlayerQueue.TooManyUsersException e) {
-                                sendMessage(e.getMessage(), slackChannelId, botUserId, accessToken);
+                                responder.inChannel(e.getMessage());
                                 break;
                             }
                         }
+                        controller.startTournamentIfReady(channelId);
 
                         final var playersInQueue = controller.getPlayersString(channelId);
                         if (!playersInQueue.isEmpty()) {
-                            sendMessage(String.format("Current queue: %s", playersInQueue),
-                                        slackChannelId, botUserId, accessToken);
+                            responder.inChannel(String.format("Current queue: %s",
+                                                              playersInQueue));
                         }
                         break;
                     case "reset":
                         controller.resetPlayers(channelId);
-                        sendMessage("Cleared queue.", slackChannelId, botUserId, accessToken);
+                        responder.inChannel("Cleared queue.");
                         break;
                     case "remove":
                         for (final var userId : userIds) {
                             controller.removePlayer(channelId, userId);
-                            sendMessage(String.format("Removed <@%s> from the queue",
-                                                      userId),
-                                        slackChannelId, botUserId, accessToken);
+                            responder.inChannel(String.format("Removed <@%s> from the queue",
+                                                              userId));
                         }
                         break;
                     case "queue":
@@ -133,21 +183,18 @@ public class Bot {
                                            + controller.getPlayersString(channelId);
                         }
 
-                        sendMessage(queueMessage, slackChannelId, botUserId, accessToken);
+                        responder.inChannel(queueMessage);
                         break;
                     case "cancel":
                         if (controller.cancelRunningTournament(channelId)) {
-                            sendMessage("Canceled the running match!", slackChannelId, botUserId,
-                                        accessToken);
+                            responder.inChannel("Canceled the running match!");
                         } else {
-                            sendMessage("No match running!", slackChannelId, botUserId,
-                                        accessToken);
+                            responder.inChannel("No match running!");
                         }
                         break;
                     case "fixedMatch":
                         if (userIds.size() != 4) {
-                            sendMessage("To start a game I need 4 players :(", slackChannelId,
-                                        botUserId, accessToken);
+                            responder.inChannel("To start a game I need 4 players :(");
                             break;
                         }
 
@@ -158,27 +205,27 @@ public class Bot {
                                     .startTournament(channelId, false, Controller.DEFAULT_BEST_OF_N,
                                                      players);
                         } catch (Controller.TournamentRunningException e) {
-                            sendMessage(e.getMessage(), slackChannelId, botUserId, accessToken);
+                            responder.inChannel(e.getMessage());
                         }
 
                         break;
                     case "url":
-                        sendChannelUrlMessage(channelId, slackChannelId, sender, accessToken);
+                        responder.ephemeral(controller.getChannelUrl(channelId),
+                                            getQRCodeAttachment(channelId));
                         break;
                     case "help":
-                        sendHelpMessage(slackChannelId, sender, botUserId, accessToken);
+                        sendHelpMessage(commandPrefix, responder);
                         break;
                     default:
-                        sendMessage(String.format("I'm sorry <@%s>, I didn't understand that. "
-                                                  + "If you need help just ask for it.", sender),
-                                    slackChannelId, botUserId, accessToken);
+                        responder.inChannel(String.format("I'm sorry <@%s>, I didn't understand "
+                                                          + "that. If you need help just ask for "
+                                                          + "it.", sender));
                 }
             } catch (final UserFetcher.FetchUserFailedException e) {
-                sendMessage(e.getMessage(), sender, botUserId, accessToken);
+                responder.ephemeral(e.getMessage());
             }
         } else {
-            sendMessage("That doesn't make any sense at all.", slackChannelId, botUserId,
-                        accessToken);
+            responder.inChannel("That doesn't make any sense at all.");
         }
     }
 
@@ -190,21 +237,11 @@ public class Bot {
         return attachment;
     }
 
-    private void sendChannelUrlMessage(final String channel, final String id, final String userId,
-                                       final String accessToken) {
-        final var messageWriter = new MessageWriter(accessToken);
-        final var url = controller.getChannelUrl(channel);
-        final var message = new Message(id, url, userId);
-        message.attachments.add(getQRCodeAttachment(channel));
-        messageWriter.postEphemeral(message);
-    }
-
     public void onChannelJoined(final EventWrapper eventWrapper)
             throws Controller.SlackWorkspaceNotFoundException {
         final var teamId = eventWrapper.teamId;
         final var slackWorkspace = controller.getSlackWorkspace(teamId);
         final var botUserId = slackWorkspace.botUserId;
-        final var accessToken = slackWorkspace.accessToken;
         final var joinedUserId = eventWrapper.event.user;
 
         if (botUserId.equals(joinedUserId)) {
@@ -216,68 +253,55 @@ public class Bot {
             } catch (Controller.ChannelNotFoundException e) {
                 newChannel = controller.joinChannel(channelId, slackWorkspace);
             }
-            sendChannelJoinedMessage(channelId, newChannel, botUserId, accessToken);
+            sendChannelJoinedMessage(channelId, newChannel, botUserId, slackWorkspace);
             logger.info("Joined channel \"{}\" in workspace \"{}\"", channelId, teamId);
         }
     }
 
-    private void sendMessage(final String text, final String channel, final String botUserId,
-                             final String accessToken) {
-        final var message = new Message(channel, text, botUserId);
-        sendMessage(message, accessToken);
-    }
-
-    private void sendMessage(final Message message, final String accessToken) {
-        final var messageWriter = new MessageWriter(accessToken);
-        messageWriter.postMessage(message);
-    }
-
     private void sendChannelJoinedMessage(final String slackId, final String id,
-                                          final String botUserId, final String accessToken) {
+                                          final String botUserId, final SlackWorkspace workspace) {
         final var url = controller.getChannelUrl(id);
         final var messageText =
                 String.format("Nice to meet you! I'm your new favourite kicker-bot. Go to %s to "
                               + "find your team stats and to enter your results.", url);
         final var message = new Message(slackId, messageText, botUserId);
         message.attachments.add(getQRCodeAttachment(slackId));
-        final var messageWriter = new MessageWriter(accessToken);
+        final var messageWriter = new MessageWriter(workspace);
         messageWriter.postMessage(message);
     }
 
-    private void sendHelpMessage(final String channel, final String sender,
-                                 final String botUserId, final String accessToken) {
-        final var text = "Supported slack commands:";
-        final var message = new Message(channel, text, sender);
+    private void sendHelpMessage(final String commandPrefix, final Responder responder) {
+        final List<Message.Attachment> attachments = new ArrayList<>();
 
         final var addCommand = new Message.Attachment("add", "_Adds new player(s) to the queue._");
         final List<Message.Attachment.Field> addFields = new ArrayList<>();
         addFields.add(new Message.Attachment.Field("Add yourself",
-                                                   String.format("<@%s> add", botUserId)));
+                                                   String.format("%s add", commandPrefix)));
         addFields.add(new Message.Attachment.Field(
                 "Add others",
-                String.format("<@%s> add <@U12G6EUSZ> <@U12RUGB7E>", botUserId)));
+                String.format("%s add <@U12G6EUSZ> <@U12RUGB7E>", commandPrefix)));
         addCommand.fields = addFields;
 
-        message.attachments.add(addCommand);
+        attachments.add(addCommand);
 
         final var removeCommand =
                 new Message.Attachment("remove", "_Removes player(s) from the queue._");
         final List<Message.Attachment.Field> removeFields = new ArrayList<>();
         removeFields.add(new Message.Attachment.Field("Remove yourself",
-                                                      String.format("<@%s> remove", botUserId)));
+                                                      String.format("%s remove", commandPrefix)));
         removeFields.add(new Message.Attachment.Field(
                 "Remove others",
-                String.format("<@%s> remove <@U12GTAA49> <@U5GEP6RMM>", botUserId)));
+                String.format("%s remove <@U12GTAA49> <@U5GEP6RMM>", commandPrefix)));
         removeCommand.fields = removeFields;
 
-        message.attachments.add(removeCommand);
+        attachments.add(removeCommand);
 
         final var queueCommand = new Message.Attachment("queue", "_Shows the current queue._");
         final List<Message.Attachment.Field> queueFields = new ArrayList<>();
-        queueFields.add(new Message.Attachment.Field(String.format("<@%s> queue", botUserId)));
+        queueFields.add(new Message.Attachment.Field(String.format("%s queue", commandPrefix)));
         queueCommand.fields = queueFields;
 
-        message.attachments.add(queueCommand);
+        attachments.add(queueCommand);
 
         final var fixedMatchCommand =
                 new Message.Attachment("fixedMatch",
@@ -285,26 +309,57 @@ public class Bot {
                                        + "First and last two players will play together._");
         final List<Message.Attachment.Field> fixedMatchFields = new ArrayList<>();
         fixedMatchFields.add(new Message.Attachment.Field(
-                String.format("<@%s> fixedMatch <@U6WRKPL6P> <@U12G6EUSZ> <@U3ZCMB9SR> "
-                              + "<@U2D3PT6JK>", botUserId)));
+                String.format("%s fixedMatch <@U6WRKPL6P> <@U12G6EUSZ> <@U3ZCMB9SR> "
+                              + "<@U2D3PT6JK>", commandPrefix)));
         fixedMatchCommand.fields = fixedMatchFields;
 
-        message.attachments.add(fixedMatchCommand);
+        attachments.add(fixedMatchCommand);
 
         final var resetCommand = new Message.Attachment("reset", "_Reset the queue._");
         final List<Message.Attachment.Field> resetFields = new ArrayList<>();
-        resetFields.add(new Message.Attachment.Field(String.format("<@%s> reset", botUserId)));
+        resetFields.add(new Message.Attachment.Field(String.format("%s reset", commandPrefix)));
         resetCommand.fields = resetFields;
 
-        message.attachments.add(resetCommand);
+        attachments.add(resetCommand);
 
         final var cancelCommand = new Message.Attachment("cancel", "_Cancel a running match._");
         final List<Message.Attachment.Field> cancelFields = new ArrayList<>();
-        cancelFields.add(new Message.Attachment.Field(String.format("<@%s> cancel", botUserId)));
+        cancelFields.add(new Message.Attachment.Field(String.format("%s cancel", commandPrefix)));
         cancelCommand.fields = cancelFields;
 
-        message.attachments.add(cancelCommand);
-        final var messageWriter = new MessageWriter(accessToken);
-        messageWriter.postEphemeral(message);
+        attachments.add(cancelCommand);
+        responder.ephemeral("Supported slack commands:",
+                            attachments.toArray(new Message.Attachment[0]));
+    }
+
+    /**
+     * Posts the answers to a mention of the bot through the Slack Web API.
+     */
+    private static class MessageResponder implements Responder {
+
+        private final MessageWriter messageWriter;
+        private final String slackChannelId;
+        private final String botUserId;
+        private final String sender;
+
+        MessageResponder(final SlackWorkspace workspace, final String slackChannelId,
+                         final String botUserId, final String sender) {
+            this.messageWriter = new MessageWriter(workspace);
+            this.slackChannelId = slackChannelId;
+            this.botUserId = botUserId;
+            this.sender = sender;
+        }
+
+        @Override
+        public void inChannel(final String text) {
+            messageWriter.postMessage(slackChannelId, text, botUserId);
+        }
+
+        @Override
+        public void ephemeral(final String text, final Message.Attachment... attachments) {
+            final var message = new Message(slackChannelId, text, sender);
+            message.attachments.addAll(Arrays.asList(attachments));
+            messageWriter.postEphemeral(message);
+        }
     }
 }
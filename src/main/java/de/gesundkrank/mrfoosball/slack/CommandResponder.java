@@ -0,0 +1,53 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.gesundkrank.mrfoosball.slack.models.CommandResponse;
+import de.gesundkrank.mrfoosball.slack.models.Message;
+
+/**
+ * Collects all answers to a slash command into a single response. The response is shown to the
+ * whole channel as soon as one of the answers is meant for it.
+ */
+public class CommandResponder implements Responder {
+
+    private final List<String> texts = new ArrayList<>();
+    private final CommandResponse response = new CommandResponse();
+
+    @Override
+    public synchronized void inChannel(final String text) {
+        response.responseType = CommandResponse.IN_CHANNEL;
+        texts.add(text);
+    }
+
+    @Override
+    public synchronized void ephemeral(final String text,
+                                       final Message.Attachment... attachments) {
+        texts.add(text);
+        response.attachments.addAll(Arrays.asList(attachments));
+    }
+
+    public synchronized CommandResponse getResponse() {
+        response.text = String.join("\n", texts);
+        return response;
+    }
+}
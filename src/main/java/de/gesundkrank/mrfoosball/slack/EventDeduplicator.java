@@ -0,0 +1,145 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.gesundkrank.mrfoosball.metrics.Counter;
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.store.zookeeper.ProcessedEvents;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * Drops Slack events that were already handled. Slack redelivers an event with the same event_id
+ * if it did not get an answer in time.
+ *
+ * <p>Event ids are kept in memory for a configurable window, bounded by a maximum number of ids. If
+ * enabled, the ids are also marked in ZooKeeper so an event is only handled once across all nodes.
+ */
+public class EventDeduplicator {
+
+    private static volatile EventDeduplicator INSTANCE;
+
+    public static EventDeduplicator getInstance() throws IOException {
+        if (INSTANCE == null) {
+            synchronized (EventDeduplicator.class) {
+                if (INSTANCE == null) {
+                    final var properties = Properties.getInstance();
+                    final var processedEvents = properties.getSlackEventDedupZookeeper()
+                                                ? new ProcessedEvents(properties.zookeeperHosts())
+                                                : null;
+                    INSTANCE = new EventDeduplicator(
+                            TimeUnit.SECONDS.toMillis(properties.getSlackEventDedupWindow()),
+                            properties.getSlackEventDedupMaxSize(), processedEvents,
+                            System::currentTimeMillis);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final Logger logger;
+    private final long windowInMillis;
+    private final int maxSize;
+    private final ProcessedEvents processedEvents;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Long> seenEvents;
+    private final Counter duplicates;
+
+    EventDeduplicator(final long windowInMillis, final int maxSize,
+                      final ProcessedEvents processedEvents, final LongSupplier clock) {
+        this.logger = LogManager.getLogger();
+        this.windowInMillis = windowInMillis;
+        this.maxSize = maxSize;
+        this.processedEvents = processedEvents;
+        this.clock = clock;
+        this.seenEvents = new LinkedHashMap<>();
+        this.duplicates = Metrics.getInstance().counter("slack_event_duplicates_total");
+
+        if (processedEvents != null) {
+            final ScheduledExecutorService pruner =
+                    Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        final var thread = new Thread(runnable, "event-dedup-pruner");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pruner.scheduleWithFixedDelay(this::pruneProcessedEvents, windowInMillis,
+                                          windowInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns {@code true} the first time an event id is seen within the window and {@code false}
+     * for every redelivery.
+     */
+    public boolean firstDelivery(final String eventId) {
+        if (eventId == null) {
+            return true;
+        }
+
+        final var now = clock.getAsLong();
+        synchronized (seenEvents) {
+            evict(now);
+            if (seenEvents.containsKey(eventId)) {
+                duplicates.increment();
+                return false;
+            }
+            seenEvents.put(eventId, now);
+        }
+
+        if (processedEvents != null) {
+            try {
+                if (!processedEvents.mark(eventId)) {
+                    duplicates.increment();
+                    return false;
+                }
+            } catch (final IOException e) {
+                logger.warn(String.format("Failed to mark event %s in ZooKeeper", eventId), e);
+            }
+        }
+
+        return true;
+    }
+
+    private void evict(final long now) {
+        final var iterator = seenEvents.values().iterator();
+        while (iterator.hasNext()) {
+            final var seenAt = iterator.next();
+            if (seenEvents.size() <= maxSize && now - seenAt < windowInMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private void pruneProcessedEvents() {
+        try {
+            processedEvents.prune(clock.getAsLong() - windowInMillis);
+        } catch (final IOException | RuntimeException e) {
+            logger.warn("Failed to prune processed events", e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.ws.rs.client.Entity;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.models.SlackWorkspace;
+import de.gesundkrank.mrfoosball.slack.models.Message;
+import de.gesundkrank.mrfoosball.slack.models.MessageResponse;
+import de.gesundkrank.mrfoosball.tracing.Span;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * Sends outbound Slack messages asynchronously.
+ *
+ * <p>Messages to the same channel of a workspace are delivered in the order they were enqueued,
+ * different channels are sent concurrently up to a fixed number of in-flight requests. Failed
+ * requests are retried with exponential backoff. A 429 response pauses the whole workspace for
+ * the time given in its Retry-After header. Network errors are only retried for methods that can
+ * safely be sent twice, or if the request did not reach Slack, so a message is never posted
+ * twice.
+ */
+public class MessageQueue implements Closeable {
+
+    public static final long DEFAULT_DRAIN_TIMEOUT_IN_MILLIS = 30000;
+
+    private static final long BASE_BACKOFF_IN_MILLIS = 1000;
+    private static final long MAX_BACKOFF_IN_MILLIS = 60000;
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("chat.update");
+
+    private static volatile MessageQueue INSTANCE;
+
+    public static MessageQueue getInstance() {
+        if (INSTANCE == null) {
+            synchronized (MessageQueue.class) {
+                if (INSTANCE == null) {
+                    final var properties = Properties.getInstance();
+                    INSTANCE = new MessageQueue(SlackClient.getInstance(),
+                                                properties.getSlackMaxInFlight(),
+                                                properties.getSlackMaxAttempts());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final Logger logger;
+    private final Sender sender;
+    private final int maxAttempts;
+    private final long baseBackoffInMillis;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<MessageResponse>> channelTails;
+    private final Map<String, AtomicLong> pausedUntil;
+    private final AtomicInteger depth;
+    private final Metrics metrics;
+    private final Tracer tracer;
+    // enqueues hold the read lock from checking closed until their message is registered
+    private final ReadWriteLock closing;
+    private boolean closed;
+
+    public MessageQueue(final SlackClient slackClient, final int maxInFlight,
+                        final int maxAttempts) {
+        this((workspace, method, message) -> slackClient
+                     .post(method, SlackClient.bearer(workspace.accessToken),
+                           Entity.json(message), MessageResponse.class),
+             maxInFlight, maxAttempts, BASE_BACKOFF_IN_MILLIS);
+    }
+
+    MessageQueue(final Sender sender, final int maxInFlight, final int maxAttempts,
+                 final long baseBackoffInMillis) {
+        this.logger = LogManager.getLogger();
+        this.sender = sender;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffInMillis = baseBackoffInMillis;
+        this.channelTails = new ConcurrentHashMap<>();
+        this.pausedUntil = new ConcurrentHashMap<>();
+        this.depth = new AtomicInteger();
+        this.closing = new ReentrantReadWriteLock();
+
+        final var threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(maxInFlight, runnable -> {
+            final var thread = new Thread(runnable,
+                                          "slack-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.metrics = Metrics.getInstance();
+        metrics.gauge("slack_queue_depth", depth::get);
+        this.tracer = Tracer.getInstance();
+    }
+
+    public CompletableFuture<MessageResponse> enqueue(final SlackWorkspace workspace,
+                                                  final String method, final Message message) {
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("Message queue is shut down"));
+            }
+            return register(workspace, method, message);
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    private CompletableFuture<MessageResponse> register(final SlackWorkspace workspace,
+                                                        final String method,
+                                                        final Message message) {
+        final var enqueuedAt = System.nanoTime();
+        final var channelKey = workspace.teamId + "/" + message.channel;
+        final var result = new CompletableFuture<MessageResponse>();
+        final var parent = tracer.current();
+        tracer.retain(parent);
+        depth.incrementAndGet();
+
+        channelTails.compute(channelKey, (key, tail) -> {
+            if (tail == null) {
+                attempt(workspace, method, message, 1, result, parent);
+            } else {
+                tail.whenComplete((r, e) -> attempt(workspace, method, message, 1, result,
+                                                    parent));
+            }
+            return result;
+        });
+
+        return result.whenComplete((apiResponse, e) -> {
+            depth.decrementAndGet();
+            channelTails.remove(channelKey, result);
+            tracer.release(parent);
+            metrics.timer("slack_queue_latency_seconds", "method", method)
+                    .recordSince(enqueuedAt);
+            if (e != null) {
+                metrics.counter("slack_queue_failures_total", "method", method).increment();
+            }
+        });
+    }
+
+    private void attempt(final SlackWorkspace workspace, final String method,
+                         final Message message, final int attempt,
+                         final CompletableFuture<MessageResponse> result, final Span parent) {
+        final var until = pausedUntil.get(workspace.teamId);
+        final var pause = until == null ? 0 : until.get() - System.currentTimeMillis();
+        if (pause > 0) {
+            executor.schedule(() -> attempt(workspace, method, message, attempt, result, parent),
+                              pause, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                result.complete(send(workspace, method, message, parent));
+            } catch (final SlackClient.SlackApiException e) {
+                if (!e.isRetryable(IDEMPOTENT_METHODS.contains(method))
+                    || attempt >= maxAttempts) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+
+                final long backoff;
+                if (e.retryAfterSeconds != null) {
+                    backoff = TimeUnit.SECONDS.toMillis(e.retryAfterSeconds);
+                } else {
+                    backoff = backoff(attempt);
+                }
+
+                if (e.status == 429) {
+                    pause(workspace, backoff);
+                }
+
+                logger.warn("Sending {} to {} failed with status {}. Retrying in {} ms.",
+                            method, message.channel, e.status, backoff);
+                metrics.counter("slack_queue_retries_total", "method", method).increment();
+                executor.schedule(() -> attempt(workspace, method, message, attempt + 1, result,
+                                                parent),
+                                  backoff, TimeUnit.MILLISECONDS);
+            } catch (final RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private MessageResponse send(final SlackWorkspace workspace, final String method,
+                                 final Message message, final Span parent)
+            throws SlackClient.SlackApiException {
+        return tracer.call("send " + method, parent, () -> sender.send(workspace, method, message));
+    }
+
+    private long backoff(final int attempt) {
+        final var backoff = Math.min(MAX_BACKOFF_IN_MILLIS,
+                                     baseBackoffInMillis << Math.min(attempt - 1, 16));
+        return backoff + ThreadLocalRandom.current().nextLong(baseBackoffInMillis / 2 + 1);
+    }
+
+    private void pause(final SlackWorkspace workspace, final long millis) {
+        final var until = System.currentTimeMillis() + millis;
+        pausedUntil.computeIfAbsent(workspace.teamId, id -> new AtomicLong())
+                .accumulateAndGet(until, Math::max);
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Stops accepting new messages and waits for the pending ones to be sent.
+     */
+    public void drain(final long timeoutInMillis) {
+        closing.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        final var pending = channelTails.values().toArray(new CompletableFuture<?>[0]);
+        logger.info("Draining {} pending Slack messages.", depth.get());
+        try {
+            CompletableFuture.allOf(pending).get(timeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            logger.debug("Some messages failed while draining.", e);
+        } catch (final TimeoutException e) {
+            logger.warn("Dropping {} Slack messages that could not be sent in time.",
+                        depth.get());
+        }
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void close() {
+        drain(DEFAULT_DRAIN_TIMEOUT_IN_MILLIS);
+    }
+
+    interface Sender {
+
+        MessageResponse send(SlackWorkspace workspace, String method, Message message)
+                throws SlackClient.SlackApiException;
+    }
+}
@@ -17,55 +17,63 @@
 
 package de.gesundkrank.mrfoosball.slack;
 
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.core.MediaType;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.glassfish.jersey.client.ClientProperties;
 
-import de.gesundkrank.mrfoosball.slack.models.ApiResponse;
+import de.gesundkrank.mrfoosball.models.SlackWorkspace;
 import de.gesundkrank.mrfoosball.slack.models.Message;
+import de.gesundkrank.mrfoosball.slack.models.MessageResponse;
 
 public class MessageWriter {
 
     private final Logger logger;
-    private final String token;
-    private final Client client;
+    private final SlackWorkspace workspace;
+    private final MessageQueue messageQueue;
 
-    public MessageWriter(final String token) {
+    public MessageWriter(final SlackWorkspace workspace) {
+        this(workspace, MessageQueue.getInstance());
+    }
+
+    public MessageWriter(final SlackWorkspace workspace, final MessageQueue messageQueue) {
         this.logger = LogManager.getLogger();
-        this.token = token;
-        this.client = ClientBuilder.newClient();
-        client.property(ClientProperties.CONNECT_TIMEOUT, 30000);
-        client.property(ClientProperties.READ_TIMEOUT, 30000);
+        this.workspace = workspace;
+        this.messageQueue = messageQueue;
     }
 
-    public void postEphemeral(final Message message) {
-        sendMessageToApi(message, "chat.postEphemeral");
+    public CompletableFuture<MessageResponse> postEphemeral(final Message message) {
+        return sendMessageToApi(message, "chat.postEphemeral");
     }
 
-    public void postMessage(final String channelId, final String messageString,
-                            final String botId) {
+    public CompletableFuture<MessageResponse> postMessage(final String channelId,
+                                                      final String messageString,
+                                                      final String botId) {
         final var message = new Message(channelId, messageString, botId);
-        postMessage(message);
+        return postMessage(message);
+    }
+
+    public CompletableFuture<MessageResponse> postMessage(final Message message) {
+        return sendMessageToApi(message, "chat.postMessage");
     }
 
-    public void postMessage(final Message message) {
-        sendMessageToApi(message, "chat.postMessage");
+    /**
+     * Replaces the message identified by its channel and ts.
+     */
+    public CompletableFuture<MessageResponse> updateMessage(final Message message) {
+        return sendMessageToApi(message, "chat.update");
     }
 
-    private void sendMessageToApi(final Message message, final String method) {
-        final ApiResponse apiResponse = client.target("https://slack.com")
-                .path("/api/" + method)
-                .request(MediaType.APPLICATION_JSON_TYPE)
-                .header("Authorization", "Bearer " + token)
-                .post(Entity.json(message))
-                .readEntity(ApiResponse.class);
-        if (!apiResponse.ok) {
-            logger.error("Sending message {} failed. Error: {}", message, apiResponse.error);
-        }
+    private CompletableFuture<MessageResponse> sendMessageToApi(final Message message,
+                                                            final String method) {
+        return messageQueue.enqueue(workspace, method, message)
+                .whenComplete((apiResponse, e) -> {
+                    if (e != null) {
+                        logger.error(String.format("Sending message %s failed.", message), e);
+                    } else if (!apiResponse.ok) {
+                        logger.error("Sending message {} failed. Error: {}", message,
+                                     apiResponse.error);
+                    }
+                });
     }
 }
@@ -17,21 +17,18 @@
 
 package de.gesundkrank.mrfoosball.slack;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Form;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.glassfish.jersey.client.ClientProperties;
 
 import de.gesundkrank.mrfoosball.models.SlackWorkspace;
 import de.gesundkrank.mrfoosball.slack.models.AccessResponse;
+import de.gesundkrank.mrfoosball.store.Directory;
 import de.gesundkrank.mrfoosball.store.hibernate.Store;
 import de.gesundkrank.mrfoosball.utils.Properties;
 
@@ -39,14 +36,12 @@ import de.gesundkrank.mrfoosball.utils.Properties;
 public class Registrar {
 
     private final Logger logger;
-    private final Client client;
+    private final SlackClient slackClient;
     private final String authHeader;
 
     public Registrar() {
         this.logger = LogManager.getLogger();
-        this.client = ClientBuilder.newClient();
-        client.property(ClientProperties.CONNECT_TIMEOUT, 30000);
-        client.property(ClientProperties.READ_TIMEOUT, 30000);
+        this.slackClient = SlackClient.getInstance();
 
         final var properties = Properties.getInstance();
 
@@ -65,21 +60,15 @@ public class Registrar {
         final var form = new Form();
         form.param("code", code);
 
-        final var response = client.target("https://slack.com")
-                .path("/api/oauth.v2.access")
-                .request()
-                .accept(MediaType.APPLICATION_JSON)
-                .property(ClientProperties.FOLLOW_REDIRECTS, Boolean.TRUE)
-                .header("Authorization", authHeader)
-                .post(Entity.entity(form, MediaType.APPLICATION_FORM_URLENCODED_TYPE));
-
-        if (!response.getStatusInfo().equals(Response.Status.OK)) {
-            logger.error("Call to access resource failed. StatusCode: {} Headers: {}.",
-                         response.getStatus(), response.getStringHeaders());
+        final AccessResponse accessResponse;
+        try {
+            accessResponse = slackClient.post("oauth.v2.access", authHeader, Entity.form(form),
+                                              AccessResponse.class);
+        } catch (final SlackClient.SlackApiException e) {
+            logger.error("Call to access resource failed.", e);
             return;
         }
 
-        final var accessResponse = response.readEntity(AccessResponse.class);
         logger.debug("Access response: {}", accessResponse);
 
         if (!accessResponse.ok) {
@@ -97,6 +86,12 @@ public class Registrar {
             store.saveSlackWorkSpace(workspace);
         }
 
+        try {
+            Directory.getInstance().put(workspace);
+        } catch (final IOException e) {
+            logger.error("Failed to update the workspace directory", e);
+        }
+
         logger.info("Successfully installed app to new workspace \"{}\" with ID \"{}\"",
                     workspace.teamName, workspace.teamId);
     }
@@ -19,19 +19,28 @@ package de.gesundkrank.mrfoosball.slack;
 
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Verifies the signature Slack sends with every request. {@link Mac} is not thread-safe, so every
+ * thread gets its own instance.
+ */
 public class RequestVerifier {
 
     public static final int DEFAULT_TIMESTAMP_EXPIRATION_TIME_IN_MILLIS = 60 * 5 * 1000;
 
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String VERSION_PREFIX = "v0=";
+
     private final Logger logger;
-    private final Mac sha256;
+    private final ThreadLocal<Mac> sha256;
     private final long expirationInMillis;
 
     public RequestVerifier(final String signingSecret) throws GeneralSecurityException {
@@ -48,15 +57,44 @@ public class RequestVerifier {
             throw new RuntimeException("Empty signing secret");
         }
 
-        this.sha256 = Mac.getInstance("HmacSHA256");
         final var key = new SecretKeySpec(signingSecret.getBytes(StandardCharsets.UTF_8),
-                                          sha256.getAlgorithm());
-        sha256.init(key);
+                                          ALGORITHM);
+        // fail early if the algorithm or key is not supported
+        createMac(key);
+        this.sha256 = ThreadLocal.withInitial(() -> {
+            try {
+                return createMac(key);
+            } catch (final GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static Mac createMac(final SecretKeySpec key) throws GeneralSecurityException {
+        final var mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac;
     }
 
     public boolean verify(final String expectedSignature, final String body,
                           final String timestamp) {
-        final var timestampLong = Long.parseLong(timestamp) * 1000;
+        return verify(expectedSignature, body.getBytes(StandardCharsets.UTF_8), timestamp);
+    }
+
+    public boolean verify(final String expectedSignature, final byte[] body,
+                          final String timestamp) {
+        if (expectedSignature == null || timestamp == null) {
+            logger.warn("Could not verify request. Signature or timestamp missing.");
+            return false;
+        }
+
+        final long timestampLong;
+        try {
+            timestampLong = Long.parseLong(timestamp) * 1000;
+        } catch (final NumberFormatException e) {
+            logger.warn("Could not verify request. Invalid timestamp {}.", timestamp);
+            return false;
+        }
 
         if ((System.currentTimeMillis() - timestampLong) > expirationInMillis) {
             logger.warn("Could not verify request. Too old.");
@@ -65,20 +103,48 @@ public class RequestVerifier {
 
         final var requestSignature = calcRequestSignature(body, timestamp);
 
-        if (!requestSignature.equals(expectedSignature)) {
+        if (!MessageDigest.isEqual(requestSignature, decodeSignature(expectedSignature))) {
             logger.warn("Could not verify request signature. Expected {}. Calculated {}",
-                        expectedSignature, requestSignature);
+                        expectedSignature, VERSION_PREFIX + Hex.encodeHexString(requestSignature));
             return false;
         }
 
         return true;
     }
 
-    private String calcRequestSignature(final String requestBody, final String timestamp) {
+    private static byte[] decodeSignature(final String signature) {
+        if (!signature.startsWith(VERSION_PREFIX)) {
+            return new byte[0];
+        }
+
+        try {
+            return Hex.decodeHex(signature.substring(VERSION_PREFIX.length()));
+        } catch (final DecoderException e) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Calculates the HMAC of {@code v0:timestamp:body} directly over the request bytes, ignoring
+     * leading and trailing whitespace of the body.
+     */
+    private byte[] calcRequestSignature(final byte[] requestBody, final String timestamp) {
+        var start = 0;
+        var end = requestBody.length;
+        while (start < end && isWhitespace(requestBody[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(requestBody[end - 1])) {
+            end--;
+        }
 
-        String baseString = "v0:" + timestamp + ":" + requestBody.strip();
+        final var mac = sha256.get();
+        mac.update(("v0:" + timestamp + ":").getBytes(StandardCharsets.UTF_8));
+        mac.update(requestBody, start, end - start);
+        return mac.doFinal();
+    }
 
-        final var macBytes = sha256.doFinal(baseString.getBytes(StandardCharsets.UTF_8));
-        return "v0=" + Hex.encodeHexString(macBytes);
+    private static boolean isWhitespace(final byte b) {
+        return b >= 0 && Character.isWhitespace(b);
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import de.gesundkrank.mrfoosball.slack.models.Message;
+
+/**
+ * Receives the answers of a bot command.
+ */
+public interface Responder {
+
+    /**
+     * Answers visible to everyone in the channel.
+     */
+    void inChannel(String text);
+
+    /**
+     * Answers only visible to the user who sent the command.
+     */
+    void ephemeral(String text, Message.Attachment... attachments);
+}
@@ -0,0 +1,371 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.gesundkrank.mrfoosball.models.Achievement;
+import de.gesundkrank.mrfoosball.models.State;
+import de.gesundkrank.mrfoosball.models.Tournament;
+import de.gesundkrank.mrfoosball.slack.models.Message;
+import de.gesundkrank.mrfoosball.store.zookeeper.Scoreboards;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * Posts one message per tournament and keeps it up to date with chat.update.
+ *
+ * <p>Changes are not sent right away. The first change schedules an update after a short delay and
+ * every change until then only replaces the tournament that will be rendered, so a rally of goals
+ * ends up as a single API call.
+ */
+public class Scoreboard {
+
+    private static volatile Scoreboard INSTANCE;
+
+    public static Scoreboard getInstance() throws IOException {
+        if (INSTANCE == null) {
+            synchronized (Scoreboard.class) {
+                if (INSTANCE == null) {
+                    final var properties = Properties.getInstance();
+                    INSTANCE = new Scoreboard(new Scoreboards(properties.zookeeperHosts()),
+                                              MessageQueue.getInstance(),
+                                              properties.getScoreboardUpdateDelay());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final Logger logger;
+    private final Scoreboards scoreboards;
+    private final MessageQueue messageQueue;
+    private final long updateDelayInMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Board> boards;
+
+    /**
+     * Creates a scoreboard that sends its messages through the given queue.
+     *
+     * @param scoreboards where to share the message ts with other nodes, may be {@code null} to
+     *                    only keep it in memory
+     */
+    Scoreboard(final Scoreboards scoreboards, final MessageQueue messageQueue,
+               final long updateDelayInMillis) {
+        this.logger = LogManager.getLogger();
+        this.scoreboards = scoreboards;
+        this.messageQueue = messageQueue;
+        this.updateDelayInMillis = updateDelayInMillis;
+        this.boards = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "scoreboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Posts the scoreboard of a new tournament.
+     */
+    public void start(final Tournament tournament) {
+        final var channelId = tournament.channel.id;
+        final var message = render(tournament, null);
+        final var ts = writer(tournament).postMessage(message).thenApply(response -> {
+            if (!response.ok || response.ts == null) {
+                throw new CompletionException(new IllegalStateException(
+                        "Posting the scoreboard failed: " + response.error));
+            }
+
+            if (scoreboards != null) {
+                try {
+                    scoreboards.save(channelId, tournament.date, response.ts);
+                } catch (final IOException e) {
+                    logger.warn("Failed to share scoreboard of channel " + channelId, e);
+                }
+            }
+            return response.ts;
+        });
+
+        final var board = new Board(ts, tournament.date.getTime());
+        board.tournament = tournament;
+        boards.put(channelId, board);
+    }
+
+    /**
+     * Schedules an update of the scoreboard, unless one is already pending.
+     */
+    public void update(final Tournament tournament) {
+        final var board = board(tournament);
+        if (board == null) {
+            return;
+        }
+
+        synchronized (board) {
+            board.tournament = tournament;
+            if (board.pending == null) {
+                board.pending = scheduler.schedule(() -> flush(board), updateDelayInMillis,
+                                                   TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Shows the result of a finished tournament.
+     */
+    public void finish(final Tournament tournament) {
+        final var winner = tournament.winner();
+        close(tournament, String.format("The game is over. Congratulations to <@%s> and <@%s>!",
+                                        winner.player1.id, winner.player2.id));
+    }
+
+    /**
+     * Posts the records a finished tournament set, if any.
+     */
+    public void announce(final Tournament tournament, final List<Achievement> achievements) {
+        if (achievements.isEmpty()) {
+            return;
+        }
+
+        final var channel = tournament.channel;
+        writer(tournament).postMessage(new Message(channel.slackId, render(achievements),
+                                                   channel.slackWorkspace.botUserId));
+    }
+
+    /**
+     * Marks the scoreboard of a canceled tournament.
+     */
+    public void cancel(final Tournament tournament) {
+        close(tournament, "The game was canceled.");
+    }
+
+    private void close(final Tournament tournament, final String headline) {
+        final var channelId = tournament.channel.id;
+        final var board = board(tournament);
+        boards.remove(channelId);
+
+        if (scoreboards != null) {
+            try {
+                scoreboards.clear(channelId);
+            } catch (final IOException e) {
+                logger.warn("Failed to clear scoreboard of channel " + channelId, e);
+            }
+        }
+
+        if (board == null) {
+            writer(tournament).postMessage(render(tournament, headline));
+            return;
+        }
+
+        synchronized (board) {
+            board.tournament = tournament;
+            board.headline = headline;
+            if (board.pending != null) {
+                board.pending.cancel(false);
+            }
+            board.pending = scheduler.schedule(() -> flush(board), 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the board of the given tournament. A cached board of an earlier tournament, which
+     * another node finished, is replaced by the one stored in ZooKeeper.
+     */
+    private Board board(final Tournament tournament) {
+        final var channelId = tournament.channel.id;
+        final var started = tournament.date.getTime();
+        final var cached = boards.get(channelId);
+        if (cached != null && cached.started == started) {
+            return cached;
+        }
+
+        // read ZooKeeper outside the map, which must not block other channels
+        final var board = load(tournament);
+        if (board == null) {
+            if (cached != null) {
+                boards.remove(channelId, cached);
+            }
+            return null;
+        }
+
+        final var installed = cached == null ? boards.putIfAbsent(channelId, board) == null
+                                             : boards.replace(channelId, cached, board);
+        if (installed) {
+            return board;
+        }
+        // another thread installed a board in the meantime
+        final var current = boards.get(channelId);
+        return current != null && current.started == started ? current : board;
+    }
+
+    private Board load(final Tournament tournament) {
+        if (scoreboards == null) {
+            return null;
+        }
+
+        final var channelId = tournament.channel.id;
+        try {
+            final var ts = scoreboards.get(channelId, tournament.date);
+            return ts == null ? null : new Board(CompletableFuture.completedFuture(ts),
+                                                 tournament.date.getTime());
+        } catch (final IOException e) {
+            logger.warn("Failed to read scoreboard of channel " + channelId, e);
+            return null;
+        }
+    }
+
+    private void flush(final Board board) {
+        if (!board.ts.isDone()) {
+            // the scoreboard itself has not been posted yet
+            synchronized (board) {
+                board.pending = scheduler.schedule(() -> flush(board), updateDelayInMillis,
+                                                   TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
+        final Tournament tournament;
+        final String headline;
+        synchronized (board) {
+            tournament = board.tournament;
+            headline = board.headline;
+            board.pending = null;
+        }
+
+        if (board.ts.isCompletedExceptionally()) {
+            logger.warn("Dropping scoreboard update of channel {}", tournament.channel.id);
+            return;
+        }
+
+        final var message = render(tournament, headline);
+        message.ts = board.ts.join();
+        writer(tournament).updateMessage(message);
+    }
+
+    private MessageWriter writer(final Tournament tournament) {
+        return new MessageWriter(tournament.channel.slackWorkspace, messageQueue);
+    }
+
+    static Message render(final Tournament tournament, final String headline) {
+        final var teams = String.format("<@%s> <@%s> vs. <@%s> <@%s>",
+                                        tournament.teamA.player1.id,
+                                        tournament.teamA.player2.id,
+                                        tournament.teamB.player1.id,
+                                        tournament.teamB.player2.id);
+        final var text = String.format("%s%n %s", headline == null ? "A new game started:"
+                                                                   : headline, teams);
+        final var channel = tournament.channel;
+        final var message = new Message(channel.slackId, text, channel.slackWorkspace.botUserId);
+
+        int teamAWins = 0;
+        int teamBWins = 0;
+        final var crawls = new StringBuilder();
+        final var attachment = new Message.Attachment();
+        attachment.title = String.format("Best of %d", tournament.bestOfN);
+        for (int i = 0; i < tournament.matches.size(); i++) {
+            final var match = tournament.matches.get(i);
+            final var score = String.format("%d : %d", match.teamA, match.teamB);
+            final Message.Attachment.Field field;
+            if (match.state == State.RUNNING) {
+                field = new Message.Attachment.Field(String.format("Match %d (running)", i + 1),
+                                                     score);
+            } else {
+                final var losers = match.teamA == 0 ? tournament.teamA
+                                                    : match.teamB == 0 ? tournament.teamB : null;
+                if (losers == null) {
+                    field = new Message.Attachment.Field(String.format("Match %d", i + 1), score);
+                } else {
+                    field = new Message.Attachment.Field(String.format("Match %d (crawl)", i + 1),
+                                                         score);
+                    crawls.append(String.format("%n<@%s> and <@%s> had to crawl in match %d. How "
+                                             + "embarrassing!!", losers.player1.id,
+                                             losers.player2.id, i + 1));
+                }
+                if (match.teamA > match.teamB) {
+                    teamAWins++;
+                } else {
+                    teamBWins++;
+                }
+            }
+            field.isShort = true;
+            attachment.fields.add(field);
+        }
+        attachment.text = String.format("Matches won: %d : %d", teamAWins, teamBWins);
+        final var prediction = tournament.prediction;
+        if (prediction != null) {
+            attachment.text += String.format("%nWin probability: %.0f%% : %.0f%% (match quality "
+                                             + "%.0f%%)",
+                                             prediction.teamAWinProbability * 100,
+                                             prediction.teamBWinProbability * 100,
+                                             prediction.matchQuality * 100);
+        }
+        attachment.text += crawls;
+        message.attachments.add(attachment);
+        return message;
+    }
+
+    static String render(final List<Achievement> achievements) {
+        final var lines = new StringJoiner(String.format("%n"));
+        for (final Achievement achievement : achievements) {
+            final var who = achievement.playerIds.stream()
+                    .map(playerId -> String.format("<@%s>", playerId))
+                    .collect(Collectors.joining(" and "));
+            switch (achievement.kind) {
+                case WIN_STREAK:
+                    lines.add(String.format("%s won %d games in a row, longer than ever before!",
+                                            who, (int) achievement.value));
+                    break;
+                case UPSET:
+                    lines.add(String.format("%s gained %.1f skill, more than in any game before!",
+                                            who, achievement.value));
+                    break;
+                default:
+                    lines.add(String.format("%s just played game number %d!", who,
+                                            (int) achievement.value));
+            }
+        }
+        return lines.toString();
+    }
+
+    private static class Board {
+
+        private final CompletableFuture<String> ts;
+        // start date of the tournament the message belongs to
+        private final long started;
+        private Tournament tournament;
+        private String headline;
+        private ScheduledFuture<?> pending;
+
+        Board(final CompletableFuture<String> ts, final long started) {
+            this.ts = ts;
+            this.started = started;
+        }
+    }
+}
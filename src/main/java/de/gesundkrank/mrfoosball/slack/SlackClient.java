@@ -0,0 +1,274 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.io.Closeable;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.slack.models.ApiResponse;
+import de.gesundkrank.mrfoosball.slack.models.CommandResponse;
+import de.gesundkrank.mrfoosball.tracing.Span;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * Long-lived client for the Slack Web API. All outbound Slack calls share its pool of keep-alive
+ * connections and report their latency and errors per API method.
+ */
+public class SlackClient implements Closeable {
+
+    private static final int TIMEOUT_IN_MILLIS = 30000;
+
+    private static volatile SlackClient INSTANCE;
+
+    public static SlackClient getInstance() {
+        if (INSTANCE == null) {
+            synchronized (SlackClient.class) {
+                if (INSTANCE == null) {
+                    final var properties = Properties.getInstance();
+                    INSTANCE = new SlackClient(properties.getSlackApiUrl(),
+                                               properties.getSlackMaxConnections());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final Client client;
+    private final WebTarget apiTarget;
+    private final Metrics metrics;
+    private final Tracer tracer;
+
+    public SlackClient(final String baseUrl, final int maxConnections) {
+        final var connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        final var config = new ClientConfig()
+                .connectorProvider(new ApacheConnectorProvider())
+                .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+                .property(ClientProperties.CONNECT_TIMEOUT, TIMEOUT_IN_MILLIS)
+                .property(ClientProperties.READ_TIMEOUT, TIMEOUT_IN_MILLIS)
+                .property(ClientProperties.REQUEST_ENTITY_PROCESSING,
+                          RequestEntityProcessing.BUFFERED);
+
+        this.client = ClientBuilder.newClient(config);
+        this.apiTarget = client.target(baseUrl).path("api");
+        this.metrics = Metrics.getInstance();
+        this.tracer = Tracer.getInstance();
+        metrics.gauge("slack_connections", () -> connectionManager.getTotalStats().getLeased(),
+                      "state", "leased");
+        metrics.gauge("slack_connections", () -> connectionManager.getTotalStats().getAvailable(),
+                      "state", "available");
+        metrics.gauge("slack_connections", () -> connectionManager.getTotalStats().getPending(),
+                      "state", "pending");
+    }
+
+    public <T extends ApiResponse> T post(final String method, final String authorization,
+                                          final Entity<?> entity, final Class<T> responseType)
+            throws SlackApiException {
+        final var request = request(apiTarget.path(method), authorization);
+        return call(method, () -> request.post(entity), responseType);
+    }
+
+    public <T extends ApiResponse> T get(final String method, final String authorization,
+                                         final Class<T> responseType)
+            throws SlackApiException {
+        return get(method, authorization, Collections.emptyMap(), responseType);
+    }
+
+    public <T extends ApiResponse> T get(final String method, final String authorization,
+                                         final Map<String, String> queryParams,
+                                         final Class<T> responseType)
+            throws SlackApiException {
+        var target = apiTarget.path(method);
+        for (final var param : queryParams.entrySet()) {
+            target = target.queryParam(param.getKey(), param.getValue());
+        }
+        final var request = request(target, authorization);
+        return call(method, request::get, responseType);
+    }
+
+    /**
+     * Sends a delayed answer to the response_url of a slash command.
+     */
+    public void respond(final String responseUrl, final CommandResponse commandResponse)
+            throws SlackApiException {
+        final var method = "response_url";
+        final var span = start(method);
+        try {
+            final var response = client.target(responseUrl).request()
+                    .post(Entity.json(commandResponse));
+            try {
+                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                    throw new SlackApiException(method, response);
+                }
+            } finally {
+                response.close();
+            }
+        } catch (final SlackApiException e) {
+            metrics.counter("slack_api_errors_total", "method", method, "error",
+                            "http_" + e.status).increment();
+            throw e;
+        } catch (final ProcessingException e) {
+            metrics.counter("slack_api_errors_total", "method", method, "error",
+                            e.getClass().getSimpleName()).increment();
+            throw new SlackApiException(method, e);
+        } finally {
+            span.close();
+        }
+    }
+
+    public static String bearer(final String token) {
+        return "Bearer " + token;
+    }
+
+    private static Invocation.Builder request(final WebTarget target,
+                                              final String authorization) {
+        return target.request(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.AUTHORIZATION, authorization);
+    }
+
+    private <T extends ApiResponse> T call(final String method,
+                                           final Supplier<Response> responseSupplier,
+                                           final Class<T> responseType)
+            throws SlackApiException {
+        final var span = start(method);
+        try {
+            final var response = responseSupplier.get();
+            try {
+                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                    throw new SlackApiException(method, response);
+                }
+
+                final var apiResponse = response.readEntity(responseType);
+                if (!apiResponse.ok) {
+                    metrics.counter("slack_api_errors_total", "method", method, "error",
+                                    String.valueOf(apiResponse.error)).increment();
+                }
+                return apiResponse;
+            } finally {
+                response.close();
+            }
+        } catch (final SlackApiException e) {
+            metrics.counter("slack_api_errors_total", "method", method, "error",
+                            "http_" + e.status).increment();
+            throw e;
+        } catch (final ProcessingException e) {
+            metrics.counter("slack_api_errors_total", "method", method, "error",
+                            e.getClass().getSimpleName()).increment();
+            throw new SlackApiException(method, e);
+        } finally {
+            span.close();
+        }
+    }
+
+    private Span start(final String method) {
+        return tracer.start("slack " + method,
+                            metrics.timer("slack_api_request_seconds", "method", method));
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    public static class SlackApiException extends Exception {
+
+        public final int status;
+        public final Long retryAfterSeconds;
+        // no connection to Slack could be established, so the request was not sent
+        public final boolean notSent;
+
+        /**
+         * Whether the call can be sent again. A network error might hit after Slack already
+         * handled the request, so it is only retried for idempotent methods or if the request
+         * was not sent at all.
+         */
+        public boolean isRetryable(final boolean idempotent) {
+            if (status == 0) {
+                return idempotent || notSent;
+            }
+            return status == 429 || status >= 500;
+        }
+
+        SlackApiException(final String method, final Response response) {
+            this(method, response.getStatus(),
+                 parseRetryAfter(response.getHeaderString("Retry-After")));
+        }
+
+        SlackApiException(final String method, final int status, final Long retryAfterSeconds) {
+            super(String.format("Call to Slack API method %s failed with status %d", method,
+                                status));
+            this.status = status;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.notSent = false;
+        }
+
+        SlackApiException(final String method, final Throwable cause) {
+            super(String.format("Call to Slack API method %s failed", method), cause);
+            this.status = 0;
+            this.retryAfterSeconds = null;
+            this.notSent = isConnectFailure(cause);
+        }
+
+        private static boolean isConnectFailure(final Throwable cause) {
+            for (var e = cause; e != null; e = e.getCause()) {
+                if (e instanceof ConnectException || e instanceof ConnectTimeoutException
+                    || e instanceof UnknownHostException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Long parseRetryAfter(final String retryAfter) {
+            if (retryAfter == null) {
+                return null;
+            }
+
+            try {
+                return Long.parseLong(retryAfter.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -17,57 +17,263 @@
 
 package de.gesundkrank.mrfoosball.slack;
 
-import java.io.IOException;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.ResponseProcessingException;
-import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.ProcessingException;
 
-import org.glassfish.jersey.client.ClientProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import de.gesundkrank.mrfoosball.metrics.Metrics;
 import de.gesundkrank.mrfoosball.models.Player;
 import de.gesundkrank.mrfoosball.models.SlackWorkspace;
 import de.gesundkrank.mrfoosball.slack.models.SlackUser;
-import de.gesundkrank.mrfoosball.utils.JsonConverter;
+import de.gesundkrank.mrfoosball.slack.models.SlackUserList;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
+import de.gesundkrank.mrfoosball.utils.Properties;
 
+/**
+ * Fetches user profiles from Slack and caches them per workspace.
+ *
+ * <p>Profiles younger than half of the TTL are served from the cache. Older ones are still served
+ * but refreshed in the background, expired ones are fetched again. Concurrent requests for the same
+ * user share one call to users.info.
+ */
 public class UserFetcher {
 
-    private final Client client;
-    private final JsonConverter jsonConverter;
+    private static final int USERS_LIST_PAGE_SIZE = 200;
+    private static final int FETCH_THREADS = 4;
 
-    public UserFetcher() throws IOException {
-        this.client = ClientBuilder.newClient();
-        client.property(ClientProperties.CONNECT_TIMEOUT, 30000);
-        client.property(ClientProperties.READ_TIMEOUT, 30000);
+    private final Logger logger;
+    private final SlackClient slackClient;
+    private final ExecutorService executor;
+    private final long ttlInMillis;
+    private final boolean prefetch;
+    private final Map<String, Map<String, CachedUser>> workspaces;
+    private final Map<String, CompletableFuture<Player>> inFlight;
+    private final Metrics metrics;
 
-        this.jsonConverter = new JsonConverter(SlackUser.class);
+    public UserFetcher() {
+        this(SlackClient.getInstance(),
+             TimeUnit.SECONDS.toMillis(Properties.getInstance().getSlackUserCacheTtl()),
+             Properties.getInstance().getSlackPrefetchUsers());
+    }
+
+    public UserFetcher(final SlackClient slackClient, final long ttlInMillis,
+                       final boolean prefetch) {
+        this.logger = LogManager.getLogger();
+        this.slackClient = slackClient;
+        this.ttlInMillis = ttlInMillis;
+        this.prefetch = prefetch;
+        this.workspaces = new ConcurrentHashMap<>();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.metrics = Metrics.getInstance();
+
+        final var threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(FETCH_THREADS, runnable -> {
+            final var thread = new Thread(runnable,
+                                          "user-fetcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public Player getUser(final String userId, final SlackWorkspace workspace)
             throws FetchUserFailedException {
-        final var target = client.target("https://slack.com")
-                .path("/api/users.info")
-                .queryParam("token", workspace.accessToken)
-                .queryParam("user", userId);
+        return getUsers(List.of(userId), workspace).get(0);
+    }
+
+    /**
+     * Returns the profiles of the given users in the same order. Users that are not cached are
+     * fetched concurrently.
+     */
+    public List<Player> getUsers(final List<String> userIds, final SlackWorkspace workspace)
+            throws FetchUserFailedException {
+        final List<CompletableFuture<Player>> futures = new ArrayList<>(userIds.size());
+        for (final var userId : userIds) {
+            futures.add(getUserAsync(userId, workspace));
+        }
+
+        final List<Player> players = new ArrayList<>(userIds.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                players.add(futures.get(i).get());
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof FetchUserFailedException) {
+                    throw (FetchUserFailedException) e.getCause();
+                }
+                throw new FetchUserFailedException(userIds.get(i), e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FetchUserFailedException(userIds.get(i), e);
+            }
+        }
+        return players;
+    }
+
+    private CompletableFuture<Player> getUserAsync(final String userId,
+                                                   final SlackWorkspace workspace) {
+        final var cachedUser = users(workspace).get(userId);
+
+        if (cachedUser != null) {
+            final var age = System.currentTimeMillis() - cachedUser.fetchedAt;
+            if (age < ttlInMillis / 2) {
+                metrics.counter("slack_user_cache_requests_total", "result", "hit").increment();
+                return CompletableFuture.completedFuture(cachedUser.copyPlayer());
+            }
+
+            if (age < ttlInMillis) {
+                metrics.counter("slack_user_cache_requests_total", "result", "stale").increment();
+                fetch(userId, workspace);
+                return CompletableFuture.completedFuture(cachedUser.copyPlayer());
+            }
+        }
+
+        metrics.counter("slack_user_cache_requests_total", "result", "miss").increment();
+        return fetch(userId, workspace).thenApply(CachedUser::copyPlayer);
+    }
+
+    private CompletableFuture<CachedUser> fetch(final String userId,
+                                                final SlackWorkspace workspace) {
+        final var key = workspace.teamId + "/" + userId;
+        final var future = new CompletableFuture<Player>();
+        final var running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            return running.thenApply(CachedUser::new);
+        }
+
+        final Runnable task = () -> {
+            try {
+                final var player = fetchUser(userId, workspace);
+                users(workspace).put(userId, new CachedUser(player));
+                future.complete(player);
+            } catch (final FetchUserFailedException | RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, future);
+            }
+        };
+        // the fetch belongs to the trace of the command that needs the user
+        executor.execute(Tracer.getInstance().wrap(task));
+
+        return future.thenApply(CachedUser::new);
+    }
+
+    private Player fetchUser(final String userId, final SlackWorkspace workspace)
+            throws FetchUserFailedException {
         try {
-            final var userString = target.request(MediaType.APPLICATION_JSON).get(String.class);
-            final var slackUser = jsonConverter.fromString(userString, SlackUser.class);
+            final var slackUser = slackClient.get("users.info",
+                                                  SlackClient.bearer(workspace.accessToken),
+                                                  Map.of("user", userId), SlackUser.class);
 
-            if (slackUser.user.id == null || slackUser.user.name == null
-                || slackUser.user.profile.image192 == null) {
+            final var player = toPlayer(slackUser.user);
+            if (player == null) {
                 throw new FetchUserFailedException(userId);
             }
-
-            final var player = new Player();
-            player.id = slackUser.user.id;
-            player.name = slackUser.user.name;
-            player.avatarImage = slackUser.user.profile.image192;
             return player;
-        } catch (final ResponseProcessingException | IOException e) {
+        } catch (final SlackClient.SlackApiException | ProcessingException e) {
             throw new FetchUserFailedException(userId, e);
         }
     }
 
+    private Map<String, CachedUser> users(final SlackWorkspace workspace) {
+        return workspaces.computeIfAbsent(workspace.teamId, teamId -> {
+            if (prefetch) {
+                executor.execute(() -> prefetch(workspace));
+            }
+            return new ConcurrentHashMap<>();
+        });
+    }
+
+    /**
+     * Loads all users of the workspace page by page through users.list.
+     */
+    public void prefetch(final SlackWorkspace workspace) {
+        final var users = users(workspace);
+        String cursor = "";
+        int count = 0;
+
+        try {
+            do {
+                final Map<String, String> params = new HashMap<>();
+                params.put("limit", String.valueOf(USERS_LIST_PAGE_SIZE));
+                if (!cursor.isEmpty()) {
+                    params.put("cursor", cursor);
+                }
+
+                final var userList = slackClient.get("users.list",
+                                                     SlackClient.bearer(workspace.accessToken),
+                                                     params, SlackUserList.class);
+                if (!userList.ok) {
+                    logger.warn("Failed to list users of workspace {}: {}", workspace.teamId,
+                                userList.error);
+                    return;
+                }
+
+                for (final var user : userList.members) {
+                    final var player = toPlayer(user);
+                    if (player != null) {
+                        users.put(player.id, new CachedUser(player));
+                        count++;
+                    }
+                }
+
+                cursor = userList.responseMetadata == null
+                                 || userList.responseMetadata.nextCursor == null
+                         ? "" : userList.responseMetadata.nextCursor;
+            } while (!cursor.isEmpty());
+
+            logger.info("Prefetched {} users of workspace {}", count, workspace.teamId);
+        } catch (final SlackClient.SlackApiException | ProcessingException e) {
+            logger.warn(String.format("Failed to prefetch users of workspace %s",
+                                      workspace.teamId), e);
+        }
+    }
+
+    private static Player toPlayer(final SlackUser.User user) {
+        if (user == null || user.id == null || user.name == null || user.profile == null
+            || user.profile.image192 == null) {
+            return null;
+        }
+
+        final var player = new Player();
+        player.id = user.id;
+        player.name = user.name;
+        player.avatarImage = user.profile.image192;
+        return player;
+    }
+
+    private static class CachedUser {
+
+        private final String id;
+        private final String name;
+        private final String avatarImage;
+        private final long fetchedAt;
+
+        CachedUser(final Player player) {
+            this.id = player.id;
+            this.name = player.name;
+            this.avatarImage = player.avatarImage;
+            this.fetchedAt = System.currentTimeMillis();
+        }
+
+        Player copyPlayer() {
+            final var player = new Player(id);
+            player.name = name;
+            player.avatarImage = avatarImage;
+            return player;
+        }
+    }
+
     public static class FetchUserFailedException extends Exception {
         FetchUserFailedException(final String userId) {
             this(userId, null);
@@ -19,10 +19,7 @@ package de.gesundkrank.mrfoosball.slack.models;
 
 import javax.xml.bind.annotation.XmlAttribute;
 
-public class AccessResponse {
-
-    public boolean ok;
-    public String error;
+public class AccessResponse extends ApiResponse {
 
     @XmlAttribute(name = "access_token")
     public String accessToken;
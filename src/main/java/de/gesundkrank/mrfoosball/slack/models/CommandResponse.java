@@ -0,0 +1,45 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * Answer to a slash command, sent in the body of the HTTP response or to its response_url.
+ */
+public class CommandResponse {
+
+    public static final String EPHEMERAL = "ephemeral";
+    public static final String IN_CHANNEL = "in_channel";
+
+    @XmlAttribute(name = "response_type")
+    public String responseType = EPHEMERAL;
+    public String text;
+    public List<Message.Attachment> attachments = new ArrayList<>();
+
+    @Override
+    public String toString() {
+        return "CommandResponse{"
+               + "responseType='" + responseType + '\''
+               + ", text='" + text + '\''
+               + ", attachments=" + attachments
+               + '}';
+    }
+}
@@ -27,6 +27,7 @@ public class Message {
     public String type;
     public String text;
     public String user;
+    public String ts;
     @XmlAttribute(name = "as_user")
     public boolean asUser = true;
     public List<Attachment> attachments = new ArrayList<>();
@@ -48,6 +49,7 @@ public class Message {
                + ", type='" + type + '\''
                + ", text='" + text + '\''
                + ", user='" + user + '\''
+               + ", ts='" + ts + '\''
                + ", asUser=" + asUser
                + ", attachments=" + attachments
                + '}';
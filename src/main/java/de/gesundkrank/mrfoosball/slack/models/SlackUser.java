@@ -20,10 +20,8 @@ package de.gesundkrank.mrfoosball.slack.models;
 import java.util.Objects;
 import javax.xml.bind.annotation.XmlAttribute;
 
-public class SlackUser {
+public class SlackUser extends ApiResponse {
 
-    public boolean ok;
-    public String error;
     public String warning;
 
     public User user;
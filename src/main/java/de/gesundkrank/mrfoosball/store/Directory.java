@@ -0,0 +1,168 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.persistence.NoResultException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.gesundkrank.mrfoosball.models.Channel;
+import de.gesundkrank.mrfoosball.models.SlackWorkspace;
+import de.gesundkrank.mrfoosball.store.hibernate.Store;
+import de.gesundkrank.mrfoosball.store.zookeeper.DirectoryVersion;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * In-memory directory of the registered Slack workspaces and joined channels, so handling a Slack
+ * event does not need a database session to find its workspace and channel.
+ *
+ * <p>Entries are loaded on first access. Registering a workspace or joining a channel bumps a
+ * version node in ZooKeeper, which makes every node drop its cached entries.
+ */
+public class Directory {
+
+    private static volatile Directory INSTANCE;
+
+    public static Directory getInstance() throws IOException {
+        if (INSTANCE == null) {
+            synchronized (Directory.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new Directory(
+                            new DirectoryVersion(Properties.getInstance().zookeeperHosts()),
+                            fromStore(Store::getSlackWorkSpace), fromStore(Store::getChannel),
+                            fromStore(Store::getChannelBySlackId));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final Logger logger;
+    private final DirectoryVersion version;
+    private final Function<String, SlackWorkspace> loadWorkspace;
+    private final Function<String, Channel> loadChannel;
+    private final Function<String, Channel> loadChannelBySlackId;
+    private final Map<String, SlackWorkspace> workspaces;
+    private final Map<String, Channel> channels;
+    private final Map<String, Channel> channelsBySlackId;
+    private final AtomicLong generation;
+
+    Directory(final DirectoryVersion version, final Function<String, SlackWorkspace> loadWorkspace,
+              final Function<String, Channel> loadChannel,
+              final Function<String, Channel> loadChannelBySlackId) throws IOException {
+        this.logger = LogManager.getLogger();
+        this.version = version;
+        this.loadWorkspace = loadWorkspace;
+        this.loadChannel = loadChannel;
+        this.loadChannelBySlackId = loadChannelBySlackId;
+        this.workspaces = new ConcurrentHashMap<>();
+        this.channels = new ConcurrentHashMap<>();
+        this.channelsBySlackId = new ConcurrentHashMap<>();
+        this.generation = new AtomicLong();
+
+        version.watch(this::invalidate);
+    }
+
+    /**
+     * Returns the workspace or {@code null} if it is not registered.
+     */
+    public SlackWorkspace getWorkspace(final String teamId) {
+        return get(workspaces, teamId, loadWorkspace);
+    }
+
+    /**
+     * Returns the channel or {@code null} if it does not exist.
+     */
+    public Channel getChannel(final String channelId) {
+        return get(channels, channelId, loadChannel);
+    }
+
+    /**
+     * Returns the channel joined in the given Slack channel or {@code null} if there is none.
+     */
+    public Channel getChannelBySlackId(final String slackChannelId) {
+        return get(channelsBySlackId, slackChannelId, loadChannelBySlackId);
+    }
+
+    public void put(final SlackWorkspace workspace) {
+        // cached channels still reference the old credentials
+        invalidate();
+        workspaces.put(workspace.teamId, workspace);
+        publish();
+    }
+
+    public void put(final Channel channel) {
+        channels.put(channel.id, channel);
+        channelsBySlackId.put(channel.slackId, channel);
+        publish();
+    }
+
+    private <T> T get(final Map<String, T> cache, final String key,
+                      final Function<String, T> load) {
+        final var cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final var loadedGeneration = generation.get();
+        final var value = load.apply(key);
+
+        // drop values loaded before an invalidation, they might already be outdated
+        if (value != null && generation.get() == loadedGeneration) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        workspaces.clear();
+        channels.clear();
+        channelsBySlackId.clear();
+        logger.debug("Invalidated directory");
+    }
+
+    private void publish() {
+        try {
+            version.increment();
+        } catch (final IOException e) {
+            logger.error("Failed to publish directory change", e);
+        }
+    }
+
+    private static <T> Function<String, T> fromStore(final StoreFunction<T> function) {
+        return key -> {
+            try (final var store = new Store()) {
+                return function.apply(store, key);
+            } catch (final NoResultException e) {
+                return null;
+            }
+        };
+    }
+
+    private interface StoreFunction<T> {
+
+        T apply(Store store, String key);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.hibernate;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.Tournament;
+
+/**
+ * Writes to the daily rollups of channels, players and teams, one row per day.
+ */
+final class DailyStats {
+
+    private static final String UPSERT_CHANNEL_DAILY_STAT =
+            "INSERT INTO channel_daily_stat (channel_id, day, games, matches, goals) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (channel_id, day) DO UPDATE "
+            + "SET games = channel_daily_stat.games + EXCLUDED.games, "
+            + "matches = channel_daily_stat.matches + EXCLUDED.matches, "
+            + "goals = channel_daily_stat.goals + EXCLUDED.goals";
+    private static final String UPSERT_PLAYER_DAILY_STAT =
+            "INSERT INTO player_daily_stat (channel_id, player_id, day, games, wins, losses, "
+            + "goalsScored, goalsReceived) VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (channel_id, player_id, day) DO UPDATE "
+            + "SET games = player_daily_stat.games + EXCLUDED.games, "
+            + "wins = player_daily_stat.wins + EXCLUDED.wins, "
+            + "losses = player_daily_stat.losses + EXCLUDED.losses, "
+            + "goalsScored = player_daily_stat.goalsScored + EXCLUDED.goalsScored, "
+            + "goalsReceived = player_daily_stat.goalsReceived + EXCLUDED.goalsReceived";
+    private static final String UPSERT_TEAM_DAILY_STAT =
+            "INSERT INTO team_daily_stat (channel_id, player1_id, player2_id, day, games, wins, "
+            + "losses, goalsScored, goalsReceived) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (channel_id, player1_id, player2_id, day) DO UPDATE "
+            + "SET games = team_daily_stat.games + EXCLUDED.games, "
+            + "wins = team_daily_stat.wins + EXCLUDED.wins, "
+            + "losses = team_daily_stat.losses + EXCLUDED.losses, "
+            + "goalsScored = team_daily_stat.goalsScored + EXCLUDED.goalsScored, "
+            + "goalsReceived = team_daily_stat.goalsReceived + EXCLUDED.goalsReceived";
+    private static final String[] DELETE_EMPTY_DAILY_STATS = {
+        "DELETE FROM channel_daily_stat WHERE channel_id = ? AND day = ? AND games <= 0",
+        "DELETE FROM player_daily_stat WHERE channel_id = ? AND day = ? AND games <= 0",
+        "DELETE FROM team_daily_stat WHERE channel_id = ? AND day = ? AND games <= 0"
+    };
+
+    private DailyStats() {
+    }
+
+    /**
+     * Adds the given stats of a tournament's teams to the daily rollups of the tournament's day,
+     * or takes them off with a {@code sign} of -1. Days left without tournaments are dropped.
+     */
+    static void add(final Connection connection, final Tournament tournament,
+                    final TeamStat[] stats, final int sign) throws SQLException {
+        final var channelId = tournament.channel.id;
+        final var day = Date.valueOf(
+                tournament.date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+        try (final var statement = connection.prepareStatement(UPSERT_CHANNEL_DAILY_STAT)) {
+            statement.setString(1, channelId);
+            statement.setDate(2, day);
+            statement.setInt(3, sign);
+            statement.setInt(4, sign * stats[0].matchesPlayed);
+            statement.setInt(5, sign * (stats[0].goalsScored + stats[0].goalsReceived));
+            statement.executeUpdate();
+        }
+
+        try (final var statement = connection.prepareStatement(UPSERT_PLAYER_DAILY_STAT)) {
+            for (final TeamStat stat : stats) {
+                for (final Player player : List.of(stat.team.player1, stat.team.player2)) {
+                    statement.setString(1, channelId);
+                    statement.setString(2, player.id);
+                    statement.setDate(3, day);
+                    setDailyStatCounters(statement, 4, stat, sign);
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+
+        try (final var statement = connection.prepareStatement(UPSERT_TEAM_DAILY_STAT)) {
+            for (final TeamStat stat : stats) {
+                statement.setString(1, channelId);
+                statement.setString(2, stat.team.player1.id);
+                statement.setString(3, stat.team.player2.id);
+                statement.setDate(4, day);
+                setDailyStatCounters(statement, 5, stat, sign);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        if (sign < 0) {
+            for (final String delete : DELETE_EMPTY_DAILY_STATS) {
+                try (final var statement = connection.prepareStatement(delete)) {
+                    statement.setString(1, channelId);
+                    statement.setDate(2, day);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Day after which a player must have played to count as active within the last
+     * {@code activeDays} days, including today.
+     */
+    static Date activeSince(final LocalDate today, final int activeDays) {
+        return Date.valueOf(today.minusDays(activeDays));
+    }
+
+    private static void setDailyStatCounters(final PreparedStatement statement, final int index,
+                                             final TeamStat stat, final int sign)
+            throws SQLException {
+        statement.setInt(index, sign * stat.tournamentsPlayed);
+        statement.setInt(index + 1, sign * stat.tournamentsWon);
+        statement.setInt(index + 2, sign * stat.tournamentsLost);
+        statement.setInt(index + 3, sign * stat.goalsScored);
+        statement.setInt(index + 4, sign * stat.goalsReceived);
+    }
+}
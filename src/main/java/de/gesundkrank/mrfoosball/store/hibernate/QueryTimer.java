@@ -0,0 +1,131 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.hibernate;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.jdbc.Work;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.tracing.Span;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
+
+/**
+ * Times every JDBC statement of a session, labeled by the name of its query, like
+ * {@code get_channel}. Named queries carry their name as a leading SQL comment and so do the
+ * queries {@link Store} loads from resources. Statements Hibernate generates are labeled by
+ * their verb and the first table they name instead, like {@code select tournament}. Hibernate
+ * passes each statement to {@link #inspect(String)} when it is prepared and reports the start
+ * and end of its execution to this listener.
+ *
+ * <p>Plain JDBC work bypasses Hibernate, so it is timed as a whole by {@link #time(String, Work)}.
+ */
+class QueryTimer extends BaseSessionEventListener implements StatementInspector {
+
+    private static final Pattern NAME = Pattern.compile("\\s*/\\*\\s*([\\w.]+)\\s*\\*/");
+    private static final Pattern COMMENTS = Pattern.compile("^(\\s*/\\*.*?\\*/)+",
+                                                            Pattern.DOTALL);
+
+    private final Metrics metrics;
+    private final Tracer tracer;
+    private String statement;
+    private Span span;
+
+    QueryTimer() {
+        this.metrics = Metrics.getInstance();
+        this.tracer = Tracer.getInstance();
+    }
+
+    @Override
+    public String inspect(final String sql) {
+        statement = statement(sql);
+        return sql;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        startStatement();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        endStatement();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        startStatement();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        endStatement();
+    }
+
+    private void startStatement() {
+        final var name = statement == null ? "unknown" : statement;
+        span = tracer.start("db " + name, metrics.timer("db_query_seconds", "statement", name));
+    }
+
+    private void endStatement() {
+        if (span != null) {
+            span.close();
+            span = null;
+        }
+    }
+
+    /**
+     * Wraps plain JDBC work to time it as a whole.
+     */
+    Work time(final String name, final Work work) {
+        return connection -> {
+            final var workSpan = tracer.start("db " + name,
+                                              metrics.timer("db_work_seconds", "work", name));
+            try {
+                work.execute(connection);
+            } finally {
+                workSpan.close();
+            }
+        };
+    }
+
+    /**
+     * Name of the query of a statement, or its verb and first table if it has none, which keeps
+     * the number of distinct labels as small as the queries and the schema.
+     */
+    static String statement(final String sql) {
+        final var name = NAME.matcher(sql);
+        if (name.lookingAt()) {
+            return name.group(1);
+        }
+        final var words = COMMENTS.matcher(sql).replaceFirst("").trim().toLowerCase(Locale.ROOT)
+                .split("[\\s(),]+");
+        final var verb = words[0];
+        final var tableAfter = "update".equals(verb) ? verb : "insert".equals(verb) ? "into"
+                                                                                      : "from";
+        for (int i = 0; i < words.length - 1; i++) {
+            if (words[i].equals(tableAfter) && !"select".equals(words[i + 1])) {
+                return verb + " " + words[i + 1];
+            }
+        }
+        return verb;
+    }
+}
@@ -21,8 +21,20 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 
@@ -30,24 +42,133 @@ import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.type.StringType;
 
+import de.gesundkrank.mrfoosball.RecordProcessor;
+import de.gesundkrank.mrfoosball.models.Achievement;
 import de.gesundkrank.mrfoosball.models.Channel;
+import de.gesundkrank.mrfoosball.models.PairStats;
+import de.gesundkrank.mrfoosball.models.PeriodStats;
 import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.PlayerPairStat;
+import de.gesundkrank.mrfoosball.models.PlayerRating;
+import de.gesundkrank.mrfoosball.models.PlayerRatingHistory;
+import de.gesundkrank.mrfoosball.models.PlayerRecord;
 import de.gesundkrank.mrfoosball.models.PlayerSkill;
+import de.gesundkrank.mrfoosball.models.RatingHistory;
+import de.gesundkrank.mrfoosball.models.Records;
 import de.gesundkrank.mrfoosball.models.SlackWorkspace;
 import de.gesundkrank.mrfoosball.models.State;
 import de.gesundkrank.mrfoosball.models.Team;
 import de.gesundkrank.mrfoosball.models.Team.Key;
+import de.gesundkrank.mrfoosball.models.TeamRating;
+import de.gesundkrank.mrfoosball.models.TeamRecord;
+import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.TeamStatCounters;
 import de.gesundkrank.mrfoosball.models.Tournament;
+import de.gesundkrank.mrfoosball.trueskill.RatingRecomputation;
+import de.gesundkrank.mrfoosball.trueskill.RatingReplay;
 import de.gesundkrank.mrfoosball.utils.Properties;
 
 
 public class Store implements Closeable {
 
+    private static final String UPSERT_PLAYER_RATING =
+            "INSERT INTO player_rating "
+            + "(channel_id, player_id, trueSkillMean, trueSkillStandardDeviation) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT (channel_id, player_id) DO UPDATE "
+            + "SET trueSkillMean = EXCLUDED.trueSkillMean, "
+            + "trueSkillStandardDeviation = EXCLUDED.trueSkillStandardDeviation";
+    private static final String UPSERT_TEAM_RATING =
+            "INSERT INTO team_rating "
+            + "(channel_id, player1_id, player2_id, trueSkillMean, trueSkillStandardDeviation) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (channel_id, player1_id, player2_id) DO UPDATE "
+            + "SET trueSkillMean = EXCLUDED.trueSkillMean, "
+            + "trueSkillStandardDeviation = EXCLUDED.trueSkillStandardDeviation";
+    private static final String UPSERT_RATING_HISTORY =
+            "INSERT INTO player_rating_history (channel_id, player_id, tournament_id, date, "
+            + "trueSkillMean, trueSkillStandardDeviation) "
+            + "SELECT channel_id, ?, id, date, ?, ? FROM tournament WHERE id = ? "
+            + "ON CONFLICT (channel_id, player_id, tournament_id) DO UPDATE "
+            + "SET trueSkillMean = EXCLUDED.trueSkillMean, "
+            + "trueSkillStandardDeviation = EXCLUDED.trueSkillStandardDeviation";
+    private static final String DELETE_RATING_HISTORY =
+            "DELETE FROM player_rating_history WHERE channel_id = ?";
+    private static final String LOCK_CHANNEL = "SELECT pg_advisory_xact_lock(hashtext(?))";
+    private static final String RATINGS_MISSING =
+            "/* ratings_missing */ SELECT (NOT EXISTS (SELECT 1 FROM player_rating) "
+            + "OR NOT EXISTS (SELECT 1 FROM player_rating_history)) "
+            + "AND EXISTS (SELECT 1 FROM tournament WHERE state = 'FINISHED')";
+    private static final String UPSERT_TEAM_STAT =
+            "INSERT INTO team_stat (channel_id, player1_id, player2_id, tournamentsWon, "
+            + "tournamentsLost, tournamentsPlayed, matchesWon, matchesLost, matchesPlayed, "
+            + "goalsScored, goalsReceived) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (channel_id, player1_id, player2_id) DO UPDATE "
+            + "SET tournamentsWon = team_stat.tournamentsWon + EXCLUDED.tournamentsWon, "
+            + "tournamentsLost = team_stat.tournamentsLost + EXCLUDED.tournamentsLost, "
+            + "tournamentsPlayed = team_stat.tournamentsPlayed + EXCLUDED.tournamentsPlayed, "
+            + "matchesWon = team_stat.matchesWon + EXCLUDED.matchesWon, "
+            + "matchesLost = team_stat.matchesLost + EXCLUDED.matchesLost, "
+            + "matchesPlayed = team_stat.matchesPlayed + EXCLUDED.matchesPlayed, "
+            + "goalsScored = team_stat.goalsScored + EXCLUDED.goalsScored, "
+            + "goalsReceived = team_stat.goalsReceived + EXCLUDED.goalsReceived";
+    private static final String SUBTRACT_TEAM_STAT =
+            "UPDATE team_stat SET tournamentsWon = tournamentsWon - ?, "
+            + "tournamentsLost = tournamentsLost - ?, tournamentsPlayed = tournamentsPlayed - ?, "
+            + "matchesWon = matchesWon - ?, matchesLost = matchesLost - ?, "
+            + "matchesPlayed = matchesPlayed - ?, goalsScored = goalsScored - ?, "
+            + "goalsReceived = goalsReceived - ? "
+            + "WHERE channel_id = ? AND player1_id = ? AND player2_id = ?";
+    private static final String DELETE_EMPTY_TEAM_STATS =
+            "DELETE FROM team_stat WHERE channel_id = ? AND tournamentsPlayed <= 0";
+    private static final String UPSERT_PLAYER_PAIR_STAT =
+            "INSERT INTO player_pair_stat (channel_id, player1_id, player2_id, gamesTogether, "
+            + "winsTogether, gamesAgainst, player1Wins, player2Wins) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (channel_id, player1_id, player2_id) DO UPDATE "
+            + "SET gamesTogether = player_pair_stat.gamesTogether + EXCLUDED.gamesTogether, "
+            + "winsTogether = player_pair_stat.winsTogether + EXCLUDED.winsTogether, "
+            + "gamesAgainst = player_pair_stat.gamesAgainst + EXCLUDED.gamesAgainst, "
+            + "player1Wins = player_pair_stat.player1Wins + EXCLUDED.player1Wins, "
+            + "player2Wins = player_pair_stat.player2Wins + EXCLUDED.player2Wins";
+    private static final String DELETE_EMPTY_PAIR_STATS =
+            "DELETE FROM player_pair_stat WHERE channel_id = ? "
+            + "AND gamesTogether <= 0 AND gamesAgainst <= 0";
+    private static final String[] DELETE_STATS = {
+        "DELETE FROM team_stat",
+        "DELETE FROM player_pair_stat",
+        "DELETE FROM player_record",
+        "DELETE FROM team_record",
+        "DELETE FROM channel_daily_stat",
+        "DELETE FROM player_daily_stat",
+        "DELETE FROM team_daily_stat"
+    };
+    private static final String STATS_MISSING =
+            "/* stats_missing */ SELECT (NOT EXISTS (SELECT 1 FROM team_stat) "
+            + "OR NOT EXISTS (SELECT 1 FROM channel_daily_stat) "
+            + "OR NOT EXISTS (SELECT 1 FROM player_pair_stat) "
+            + "OR NOT EXISTS (SELECT 1 FROM player_record)) "
+            + "AND EXISTS (SELECT 1 FROM tournament WHERE state = 'FINISHED')";
+    private static final String RECORD_CHANNELS =
+            "/* record_channels */ "
+            + "SELECT DISTINCT channel_id FROM tournament WHERE state = 'FINISHED'";
+    private static final String UPDATE_TOURNAMENT_RATINGS =
+            "UPDATE tournament SET teamAPlayer1Mean = ?, teamAPlayer1StandardDeviation = ?, "
+            + "teamAPlayer2Mean = ?, teamAPlayer2StandardDeviation = ?, "
+            + "teamBPlayer1Mean = ?, teamBPlayer1StandardDeviation = ?, "
+            + "teamBPlayer2Mean = ?, teamBPlayer2StandardDeviation = ?, "
+            + "teamAMean = ?, teamAStandardDeviation = ?, "
+            + "teamBMean = ?, teamBStandardDeviation = ?, "
+            + "teamAPlayer1SkillChange = ?, teamAPlayer2SkillChange = ?, "
+            + "teamBPlayer1SkillChange = ?, teamBPlayer2SkillChange = ?, "
+            + "teamASkillChange = ?, teamBSkillChange = ? "
+            + "WHERE id = ?";
+
     private static final SessionFactory sessionFactory;
 
     static {
@@ -70,13 +191,16 @@ public class Store implements Closeable {
     }
 
     private final Logger logger;
+    private final QueryTimer queryTimer;
     private final Session session;
 
     public Store() throws HibernateException {
         logger = LogManager.getLogger();
+        queryTimer = new QueryTimer();
 
         try {
-            this.session = sessionFactory.openSession();
+            this.session = sessionFactory.withOptions().statementInspector(queryTimer)
+                    .eventListeners(queryTimer).openSession();
         } catch (Exception e) {
             logger.error(e);
             throw e;
@@ -121,6 +245,12 @@ public class Store implements Closeable {
         return query.getSingleResult();
     }
 
+    public List<String> getWorkspaceChannelIds(final String teamId) {
+        return session.createNamedQuery("get_workspace_channel_ids", String.class)
+                .setParameter("teamId", teamId)
+                .getResultList();
+    }
+
     public void saveChannel(final Channel channel) {
         final Transaction tx = session.beginTransaction();
         session.saveOrUpdate(channel);
@@ -141,6 +271,16 @@ public class Store implements Closeable {
         tx.commit();
     }
 
+    public void savePlayers(final Collection<Player> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+
+        final Transaction tx = session.beginTransaction();
+        players.forEach(session::saveOrUpdate);
+        tx.commit();
+    }
+
     public Team getTeam(final Player player1, final Player player2) {
         Transaction tx = session.beginTransaction();
 
@@ -169,6 +309,42 @@ public class Store implements Closeable {
         return team;
     }
 
+    /**
+     * Sets the ratings the given players have in the channel, or the default rating if they have
+     * not played there yet.
+     */
+    public void loadRatings(final String channelId, final Collection<Player> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+
+        final List<String> playerIds = new ArrayList<>(players.size());
+        players.forEach(player -> playerIds.add(player.id));
+        final Map<String, PlayerRating> ratings = new HashMap<>();
+        session.createNamedQuery("get_player_ratings", PlayerRating.class)
+                .setParameter("channelId", channelId)
+                .setParameter("playerIds", playerIds)
+                .getResultList()
+                .forEach(rating -> ratings.put(rating.playerId, rating));
+        players.forEach(player -> player.updateRating(ratings.get(player.id)));
+    }
+
+    /**
+     * Sets the rating the given team has in the channel, or the default rating if it has not
+     * played there yet.
+     */
+    public void loadRating(final String channelId, final Team team) {
+        team.updateRating(session.get(TeamRating.class, new TeamRating.Key(channelId, team)));
+    }
+
+    /**
+     * Whether there are finished tournaments but no channel ratings yet, as right after migrating
+     * from global ratings.
+     */
+    public boolean ratingsMissing() {
+        return (Boolean) session.createNativeQuery(RATINGS_MISSING).getSingleResult();
+    }
+
     public List<Tournament> getTournaments(final String channelId) {
         final Channel channel = new Channel();
         channel.id = channelId;
@@ -190,13 +366,18 @@ public class Store implements Closeable {
         return query.getResultList();
     }
 
-    public List<PlayerSkill> playerSkills(final String channelId) {
-        final var queryFile = getClass().getResourceAsStream("player_skill.sql");
+    /**
+     * Skills of the players of a channel who played there within the last {@code activeDays}
+     * days.
+     */
+    public List<PlayerSkill> playerSkills(final String channelId, final int activeDays) {
         try {
-            final var query = IOUtils.toString(queryFile, StandardCharsets.UTF_8);
+            final var query = loadQuery("player_skill");
             return session
                     .createNativeQuery(query, PlayerSkill.class)
                     .setParameter("channelId", channelId)
+                    .setParameter("activeSince",
+                                  DailyStats.activeSince(LocalDate.now(), activeDays))
                     .list();
         } catch (IOException e) {
             logger.error("Failed to load query", e);
@@ -204,18 +385,812 @@ public class Store implements Closeable {
         }
     }
 
-    public void saveTournament(final Tournament tournament) {
+    /**
+     * Streams the finished tournaments after the last one already added, oldest first, into the
+     * given recomputation.
+     */
+    public void loadFinishedTournaments(final RatingRecomputation recomputation,
+                                        final int fetchSize) throws IOException {
+        // PostgreSQL only uses a cursor for the fetch size inside a transaction
         final var tx = session.beginTransaction();
-        session.update(tournament.teamA);
-        session.update(tournament.teamA.player1);
-        session.update(tournament.teamA.player2);
-        session.update(tournament.teamB);
-        session.update(tournament.teamB.player1);
-        session.update(tournament.teamB.player2);
-        session.save(tournament);
+        try {
+            addFinishedTournaments(recomputation, null, recomputation.getLastTournamentId(),
+                                   fetchSize);
+        } finally {
+            tx.rollback();
+        }
+    }
+
+    private void addFinishedTournaments(final RatingRecomputation recomputation,
+                                        final String channelId, final int afterId,
+                                        final int fetchSize) throws IOException {
+        final var query = loadQuery("finished_tournaments");
+
+        try (final var results = session.createNativeQuery(query)
+                .setParameter("channelId", channelId, StringType.INSTANCE)
+                .setParameter("afterId", afterId)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                final var row = results.get();
+                recomputation.add(((Number) row[0]).intValue(), (String) row[1],
+                                  (String) row[2], (String) row[3],
+                                  (String) row[4], (String) row[5], (Boolean) row[6]);
+            }
+        }
+    }
+
+    /**
+     * Writes the recomputed ratings, skill changes and records of one channel in one
+     * transaction, sending the updates in JDBC batches of the given size. The channel is locked
+     * first, and the tournaments it finished after {@code afterId} are replayed on top, so none
+     * finished on any node while the recomputation ran is overwritten.
+     */
+    public void saveRecomputedRatings(final RatingRecomputation recomputation, final int channel,
+                                      final int afterId, final int batchSize)
+            throws IOException {
+        final var channelId = recomputation.getChannelId(channel);
+        final var tx = session.beginTransaction();
+        try {
+            lockChannel(channelId);
+            addFinishedTournaments(recomputation, channelId, afterId, batchSize);
+            recomputation.replayAdded();
+            session.doWork(queryTimer.time("saveRecomputedRatings", connection ->
+                    writeRecomputedRatings(connection, recomputation, channel, batchSize)));
+            rebuildChannelRecords(channelId);
+            tx.commit();
+        } catch (IOException | RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    private static void writeRecomputedRatings(final Connection connection,
+                                               final RatingRecomputation recomputation,
+                                               final int channel, final int batchSize)
+            throws SQLException {
+        final var players = recomputation.getChannelPlayers(channel);
+        try (final var statement = connection.prepareStatement(UPSERT_PLAYER_RATING)) {
+            for (int i = 0; i < players.length; i++) {
+                statement.setString(1, recomputation.getPlayerChannelId(players[i]));
+                statement.setString(2, recomputation.getPlayerId(players[i]));
+                statement.setDouble(3, recomputation.getPlayerMean(players[i]));
+                statement.setDouble(4, recomputation.getPlayerStandardDeviation(players[i]));
+                addBatch(statement, i, batchSize);
+            }
+            statement.executeBatch();
+        }
+
+        final var teams = recomputation.getChannelTeams(channel);
+        try (final var statement = connection.prepareStatement(UPSERT_TEAM_RATING)) {
+            for (int i = 0; i < teams.length; i++) {
+                statement.setString(1, recomputation.getTeamChannelId(teams[i]));
+                statement.setString(2, recomputation.getTeamPlayer1Id(teams[i]));
+                statement.setString(3, recomputation.getTeamPlayer2Id(teams[i]));
+                statement.setDouble(4, recomputation.getTeamMean(teams[i]));
+                statement.setDouble(5, recomputation.getTeamStandardDeviation(teams[i]));
+                addBatch(statement, i, batchSize);
+            }
+            statement.executeBatch();
+        }
+
+        final var tournaments = recomputation.getChannelTournaments(channel);
+        try (final var statement = connection.prepareStatement(UPDATE_TOURNAMENT_RATINGS)) {
+            for (int i = 0; i < tournaments.length; i++) {
+                for (int index = 0; index < 12; index++) {
+                    statement.setDouble(index + 1,
+                                        recomputation.getSnapshot(tournaments[i], index));
+                }
+                for (int slot = 0; slot < 6; slot++) {
+                    statement.setDouble(slot + 13,
+                                        recomputation.getSkillChange(tournaments[i], slot));
+                }
+                statement.setInt(19, recomputation.getTournamentId(tournaments[i]));
+                addBatch(statement, i, batchSize);
+            }
+            statement.executeBatch();
+        }
+
+        try (final var statement = connection.prepareStatement(DELETE_RATING_HISTORY)) {
+            statement.setString(1, recomputation.getChannelId(channel));
+            statement.executeUpdate();
+        }
+        try (final var statement = connection.prepareStatement(UPSERT_RATING_HISTORY)) {
+            for (int i = 0; i < tournaments.length; i++) {
+                final var tournament = tournaments[i];
+                for (int p = 0; p < 4; p++) {
+                    statement.setString(1, recomputation.getTournamentPlayerId(tournament, p));
+                    statement.setDouble(2,
+                                        recomputation.getPlayerRatingAfter(tournament, p * 2));
+                    statement.setDouble(3, recomputation.getPlayerRatingAfter(tournament,
+                                                                              p * 2 + 1));
+                    statement.setInt(4, recomputation.getTournamentId(tournament));
+                    addBatch(statement, i * 4 + p, batchSize);
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Takes the channel's advisory lock until the end of the current transaction, so rating
+     * writes to the channel are serialized across all nodes.
+     */
+    private void lockChannel(final String channelId) {
+        session.doWork(connection -> {
+            try (final var statement = connection.prepareStatement(LOCK_CHANNEL)) {
+                statement.setString(1, channelId);
+                statement.execute();
+            }
+        });
+    }
+
+    public Tournament getTournament(final int id) {
+        return session.get(Tournament.class, id);
+    }
+
+    /**
+     * Saves an edited finished tournament, replacing what it added to the team stats before the
+     * edit with what it adds now, and rebuilds the records of its channel.
+     */
+    public void updateFinishedTournament(final Tournament tournament,
+                                         final TeamStat[] previousStats) throws IOException {
+        final var tx = session.beginTransaction();
+        try {
+            lockChannel(tournament.channel.id);
+            session.update(tournament);
+            replaceTeamStats(tournament, previousStats);
+            session.flush();
+            rebuildChannelRecords(tournament.channel.id);
+            tx.commit();
+        } catch (IOException | RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves an edited finished tournament and replays the ratings from it on. Nothing is saved if
+     * the replay runs into a tournament without snapshot.
+     */
+    public void updateFinishedTournament(final Tournament tournament,
+                                         final TeamStat[] previousStats,
+                                         final RatingReplay replay, final int batchSize)
+            throws IOException, RatingReplay.MissingSnapshotException {
+        final var tx = session.beginTransaction();
+        try {
+            lockChannel(tournament.channel.id);
+            session.update(tournament);
+            replaceTeamStats(tournament, previousStats);
+            session.flush();
+            replayRatings(tournament, replay, batchSize);
+            rebuildChannelRecords(tournament.channel.id);
+            tx.commit();
+        } catch (IOException | RatingReplay.MissingSnapshotException | RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    public void deleteFinishedTournament(final Tournament tournament) throws IOException {
+        final var tx = session.beginTransaction();
+        try {
+            lockChannel(tournament.channel.id);
+            deleteRatingHistory(tournament);
+            removeStats(tournament);
+            session.delete(tournament);
+            session.flush();
+            rebuildChannelRecords(tournament.channel.id);
+            tx.commit();
+        } catch (IOException | RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a finished tournament and replays the ratings from it on. Nothing is deleted if the
+     * replay runs into a tournament without snapshot.
+     */
+    public void deleteFinishedTournament(final Tournament tournament, final RatingReplay replay,
+                                         final int batchSize)
+            throws IOException, RatingReplay.MissingSnapshotException {
+        final var tx = session.beginTransaction();
+        try {
+            lockChannel(tournament.channel.id);
+            deleteRatingHistory(tournament);
+            removeStats(tournament);
+            session.delete(tournament);
+            session.flush();
+            replayRatings(tournament, replay, batchSize);
+            rebuildChannelRecords(tournament.channel.id);
+            tx.commit();
+        } catch (IOException | RatingReplay.MissingSnapshotException | RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    private void deleteRatingHistory(final Tournament tournament) {
+        session.createQuery("DELETE FROM PlayerRatingHistory WHERE tournamentId = :id")
+                .setParameter("id", tournament.id)
+                .executeUpdate();
+    }
+
+    private void replaceTeamStats(final Tournament tournament, final TeamStat[] previousStats) {
+        final var stats = TeamStat.of(tournament);
+        subtractTeamStats(tournament.channel.id, previousStats);
+        addTeamStats(tournament.channel.id, stats);
+        addDailyStats(tournament, previousStats, -1);
+        addDailyStats(tournament, stats, 1);
+        addPairStats(tournament, previousStats, -1);
+        addPairStats(tournament, stats, 1);
+    }
+
+    /**
+     * Adds a tournament's result to the partner and head-to-head records of its players, or
+     * takes it off with a {@code sign} of -1. Pairs left without games are dropped.
+     */
+    private void addPairStats(final Tournament tournament, final TeamStat[] stats,
+                              final int sign) {
+        session.doWork(queryTimer.time("addPairStats", connection -> {
+            try (final var statement = connection.prepareStatement(UPSERT_PLAYER_PAIR_STAT)) {
+                for (final PlayerPairStat pair : PlayerPairStat.of(tournament, stats)) {
+                    statement.setString(1, pair.channelId);
+                    statement.setString(2, pair.player1Id);
+                    statement.setString(3, pair.player2Id);
+                    statement.setInt(4, sign * pair.gamesTogether);
+                    statement.setInt(5, sign * pair.winsTogether);
+                    statement.setInt(6, sign * pair.gamesAgainst);
+                    statement.setInt(7, sign * pair.player1Wins);
+                    statement.setInt(8, sign * pair.player2Wins);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            if (sign < 0) {
+                try (final var statement = connection.prepareStatement(DELETE_EMPTY_PAIR_STATS)) {
+                    statement.setString(1, tournament.channel.id);
+                    statement.executeUpdate();
+                }
+            }
+        }));
+    }
+
+    /**
+     * Adds the given stats of a tournament's teams to the daily rollups of the tournament's day,
+     * or takes them off with a {@code sign} of -1.
+     */
+    private void addDailyStats(final Tournament tournament, final TeamStat[] stats,
+                               final int sign) {
+        session.doWork(queryTimer.time("addDailyStats", connection -> {
+            DailyStats.add(connection, tournament, stats, sign);
+        }));
+    }
+
+    private void removeStats(final Tournament tournament) {
+        final var stats = TeamStat.of(tournament);
+        subtractTeamStats(tournament.channel.id, stats);
+        addDailyStats(tournament, stats, -1);
+        addPairStats(tournament, stats, -1);
+    }
+
+    private void addTeamStats(final String channelId, final TeamStat[] stats) {
+        session.doWork(queryTimer.time("addTeamStats", connection -> {
+            try (final var statement = connection.prepareStatement(UPSERT_TEAM_STAT)) {
+                for (final TeamStat stat : stats) {
+                    statement.setString(1, channelId);
+                    statement.setString(2, stat.team.player1.id);
+                    statement.setString(3, stat.team.player2.id);
+                    setTeamStatCounters(statement, 4, stat);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }));
+    }
+
+    /**
+     * Takes the given stats off the teams' totals and drops the teams that have no tournaments
+     * left.
+     */
+    private void subtractTeamStats(final String channelId, final TeamStat[] stats) {
+        session.doWork(queryTimer.time("subtractTeamStats", connection -> {
+            try (final var statement = connection.prepareStatement(SUBTRACT_TEAM_STAT)) {
+                for (final TeamStat stat : stats) {
+                    setTeamStatCounters(statement, 1, stat);
+                    statement.setString(9, channelId);
+                    statement.setString(10, stat.team.player1.id);
+                    statement.setString(11, stat.team.player2.id);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            try (final var statement = connection.prepareStatement(DELETE_EMPTY_TEAM_STATS)) {
+                statement.setString(1, channelId);
+                statement.executeUpdate();
+            }
+        }));
+    }
+
+    private static void setTeamStatCounters(final PreparedStatement statement, final int index,
+                                            final TeamStat stat) throws SQLException {
+        statement.setInt(index, stat.tournamentsWon);
+        statement.setInt(index + 1, stat.tournamentsLost);
+        statement.setInt(index + 2, stat.tournamentsPlayed);
+        statement.setInt(index + 3, stat.matchesWon);
+        statement.setInt(index + 4, stat.matchesLost);
+        statement.setInt(index + 5, stat.matchesPlayed);
+        statement.setInt(index + 6, stat.goalsScored);
+        statement.setInt(index + 7, stat.goalsReceived);
+    }
+
+    /**
+     * Whether there are finished tournaments but no team stats, daily rollups, player pair
+     * records or records yet, as right after adding their tables.
+     */
+    public boolean statsMissing() {
+        return (Boolean) session.createNativeQuery(STATS_MISSING).getSingleResult();
+    }
+
+    /**
+     * Rebuilds the team stats, daily rollups, player pair records and records of all channels
+     * from the finished tournaments.
+     */
+    public void rebuildStats() throws IOException {
+        final var teamStats = loadQuery("team_stats");
+        final var dailyStats = loadQuery("daily_stats");
+        final var pairStats = loadQuery("pair_stats");
+
+        final var tx = session.beginTransaction();
+        session.doWork(queryTimer.time("rebuildStats", connection -> {
+            try (final var statement = connection.createStatement()) {
+                for (final String delete : DELETE_STATS) {
+                    statement.executeUpdate(delete);
+                }
+                statement.executeUpdate(teamStats);
+                statement.executeUpdate(dailyStats);
+                statement.executeUpdate(pairStats);
+            }
+        }));
+        rebuildAllRecords();
         tx.commit();
     }
 
+    private void rebuildAllRecords() throws IOException {
+        @SuppressWarnings("unchecked")
+        final List<String> channelIds = session.createNativeQuery(RECORD_CHANNELS).getResultList();
+        for (final String channelId : channelIds) {
+            rebuildChannelRecords(channelId);
+        }
+    }
+
+    /**
+     * Replays the finished tournaments of a channel into new records. Only used when the history
+     * changed, finishing a tournament updates the records in place.
+     */
+    private void rebuildChannelRecords(final String channelId) throws IOException {
+        final var query = loadQuery("tournament_results");
+
+        session.createQuery("DELETE FROM PlayerRecord WHERE channelId = :channelId")
+                .setParameter("channelId", channelId)
+                .executeUpdate();
+        session.createQuery("DELETE FROM TeamRecord WHERE channelId = :channelId")
+                .setParameter("channelId", channelId)
+                .executeUpdate();
+
+        final var records = new RecordProcessor(channelId);
+        final var playerIds = new String[4];
+        final var skillChanges = new double[6];
+        try (final var results = session.createNativeQuery(query)
+                .setParameter("channelId", channelId)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                final var row = results.get();
+                for (int i = 0; i < 4; i++) {
+                    playerIds[i] = (String) row[i + 1];
+                }
+                for (int i = 0; i < 6; i++) {
+                    skillChanges[i] = row[i + 6] == null ? 0 : ((Number) row[i + 6])
+                            .doubleValue();
+                }
+                records.process(((Number) row[0]).intValue(), playerIds,
+                                Integer.signum(((Number) row[5]).intValue()), skillChanges);
+            }
+        }
+
+        records.getPlayerRecords().forEach(session::save);
+        records.getTeamRecords().forEach(session::save);
+        session.flush();
+    }
+
+    /**
+     * Reads the records of the players and teams of a channel.
+     */
+    public Records getRecords(final String channelId) {
+        final var records = new Records();
+        records.playerRecords = session.createNamedQuery("get_player_records", PlayerRecord.class)
+                .setParameter("channelId", channelId)
+                .getResultList();
+        records.teamRecords = session.createNamedQuery("get_team_records", TeamRecord.class)
+                .setParameter("channelId", channelId)
+                .getResultList();
+
+        final List<String> playerIds = new ArrayList<>(records.playerRecords.size());
+        records.playerRecords.forEach(record -> playerIds.add(record.playerId));
+        records.players.addAll(getPlayers(playerIds).values());
+        return records;
+    }
+
+    /**
+     * Sums the daily rollups of a channel, its players and its teams between two days, both
+     * inclusive. Players and teams are ordered by wins.
+     */
+    public PeriodStats getPeriodStats(final String channelId, final LocalDate from,
+                                      final LocalDate to) {
+        final var stats = new PeriodStats(from.toString(), to.toString());
+        final var fromDay = java.sql.Date.valueOf(from);
+        final var toDay = java.sql.Date.valueOf(to);
+
+        final var channel = (Object[]) session.createNamedQuery("get_channel_period_stats")
+                .setParameter("channelId", channelId)
+                .setParameter("from", fromDay)
+                .setParameter("to", toDay)
+                .getSingleResult();
+        if (channel[0] == null) {
+            return stats;
+        }
+        stats.games = ((Number) channel[0]).longValue();
+        stats.matches = ((Number) channel[1]).longValue();
+        stats.goals = ((Number) channel[2]).longValue();
+
+        final List<Object[]> playerRows = periodRows("get_player_period_stats", channelId,
+                                                     fromDay, toDay);
+        final List<Object[]> teamRows = periodRows("get_team_period_stats", channelId, fromDay,
+                                                   toDay);
+        final List<String> playerIds = new ArrayList<>(playerRows.size());
+        playerRows.forEach(row -> playerIds.add((String) row[0]));
+        final var players = getPlayers(playerIds);
+
+        for (final Object[] row : playerRows) {
+            final var entry = new PeriodStats.PlayerEntry();
+            entry.player = players.get((String) row[0]);
+            entry.set(row, 1);
+            stats.players.add(entry);
+        }
+        for (final Object[] row : teamRows) {
+            final var entry = new PeriodStats.TeamEntry();
+            entry.team = new Team();
+            entry.team.player1 = players.get((String) row[0]);
+            entry.team.player2 = players.get((String) row[1]);
+            entry.set(row, 2);
+            stats.teams.add(entry);
+        }
+        return stats;
+    }
+
+    /**
+     * Reads the partner and head-to-head records of a channel, leaving out pairs with fewer than
+     * {@code minGames} games together and fewer than {@code minGames} games against each other.
+     */
+    public PairStats getPairStats(final String channelId, final int minGames) {
+        final var pairs = session.createNamedQuery("get_player_pair_stats", PlayerPairStat.class)
+                .setParameter("channelId", channelId)
+                .setParameter("minGames", minGames)
+                .getResultList();
+
+        final Map<String, Integer> playerIndex = new HashMap<>();
+        final List<String> playerIds = new ArrayList<>();
+        final var stats = new PairStats();
+        for (final PlayerPairStat pair : pairs) {
+            stats.pairs.add(new PairStats.Pair(playerIndex(playerIndex, playerIds, pair.player1Id),
+                                               playerIndex(playerIndex, playerIds, pair.player2Id),
+                                               pair));
+        }
+
+        final var players = getPlayers(playerIds);
+        playerIds.forEach(id -> stats.players.add(players.get(id)));
+        return stats;
+    }
+
+    private static int playerIndex(final Map<String, Integer> playerIndex,
+                                   final List<String> playerIds, final String playerId) {
+        return playerIndex.computeIfAbsent(playerId, id -> {
+            playerIds.add(id);
+            return playerIds.size() - 1;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> periodRows(final String queryName, final String channelId,
+                                      final Date from, final Date to) {
+        return session.createNamedQuery(queryName)
+                .setParameter("channelId", channelId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    private Map<String, Player> getPlayers(final Collection<String> ids) {
+        final Map<String, Player> players = new HashMap<>();
+        if (!ids.isEmpty()) {
+            session.createQuery("FROM Player WHERE id IN (:ids)", Player.class)
+                    .setParameter("ids", ids)
+                    .getResultList()
+                    .forEach(player -> players.put(player.id, player));
+        }
+        return players;
+    }
+
+    /**
+     * Reads the team stats of a channel in the given order, limited to the best {@code limit}
+     * teams if a limit is given.
+     */
+    public List<TeamStat> getTeamStats(final String channelId, final TeamStatCounters.Order order,
+                                       final Integer limit) {
+        final var query = session
+                .createQuery("FROM TeamStatCounters WHERE channelId = :channelId ORDER BY "
+                             + order.getOrderBy(), TeamStatCounters.class)
+                .setParameter("channelId", channelId);
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        final var counters = query.getResultList();
+        if (counters.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<String> playerIds = new ArrayList<>(counters.size() * 2);
+        counters.forEach(counter -> {
+            playerIds.add(counter.player1Id);
+            playerIds.add(counter.player2Id);
+        });
+        final var players = getPlayers(playerIds);
+
+        final List<TeamStat> stats = new ArrayList<>(counters.size());
+        for (final TeamStatCounters counter : counters) {
+            final var team = new Team();
+            team.player1 = players.get(counter.player1Id);
+            team.player2 = players.get(counter.player2Id);
+            stats.add(counter.toTeamStat(team));
+        }
+        return stats;
+    }
+
+    private void replayRatings(final Tournament tournament, final RatingReplay replay,
+                               final int batchSize)
+            throws IOException, RatingReplay.MissingSnapshotException {
+        final var query = loadQuery("tournaments_from");
+
+        final var playerIds = new String[4];
+        final var snapshot = new double[12];
+        final var skillChanges = new double[6];
+        final List<Integer> ids = new ArrayList<>();
+        final List<double[]> ratings = new ArrayList<>();
+        final List<String[]> players = new ArrayList<>();
+        final List<double[]> playerRatings = new ArrayList<>();
+        try (final var results = session.createNativeQuery(query)
+                .setParameter("id", tournament.id)
+                .setParameter("channelId", tournament.channel.id)
+                .setFetchSize(batchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                final var row = results.get();
+                for (int i = 0; i < 4; i++) {
+                    playerIds[i] = (String) row[i + 1];
+                }
+                for (int i = 0; i < 12; i++) {
+                    snapshot[i] = row[i + 6] == null ? Double.NaN : ((Number) row[i + 6])
+                            .doubleValue();
+                }
+                for (int i = 0; i < 6; i++) {
+                    skillChanges[i] = row[i + 18] == null ? 0 : ((Number) row[i + 18])
+                            .doubleValue();
+                }
+
+                if (replay.replay(playerIds, (Boolean) row[5], snapshot, skillChanges)) {
+                    final var values = Arrays.copyOf(snapshot, 18);
+                    System.arraycopy(skillChanges, 0, values, 12, 6);
+                    ids.add(((Number) row[0]).intValue());
+                    ratings.add(values);
+                    players.add(playerIds.clone());
+                    playerRatings.add(playerRatingsAfter(replay, playerIds));
+                    if (ids.size() == batchSize) {
+                        updateTournamentRatings(ids, ratings, players, playerRatings);
+                        ids.clear();
+                        ratings.clear();
+                        players.clear();
+                        playerRatings.clear();
+                    }
+                }
+            }
+        }
+        updateTournamentRatings(ids, ratings, players, playerRatings);
+
+        session.doWork(queryTimer.time("replayRatings", connection -> {
+            try (final var statement = connection.prepareStatement(UPSERT_PLAYER_RATING)) {
+                for (final var player : replay.getPlayers().entrySet()) {
+                    statement.setString(1, tournament.channel.id);
+                    statement.setString(2, player.getKey());
+                    statement.setDouble(3, player.getValue()[0]);
+                    statement.setDouble(4, player.getValue()[1]);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            try (final var statement = connection.prepareStatement(UPSERT_TEAM_RATING)) {
+                for (final var team : replay.getTeams().entrySet()) {
+                    statement.setString(1, tournament.channel.id);
+                    statement.setString(2, team.getKey().get(0));
+                    statement.setString(3, team.getKey().get(1));
+                    statement.setDouble(4, team.getValue()[0]);
+                    statement.setDouble(5, team.getValue()[1]);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }));
+    }
+
+    /**
+     * Ratings of the four players after a replayed tournament, or {@code null} if only its teams
+     * were affected and the player ratings did not change.
+     */
+    private static double[] playerRatingsAfter(final RatingReplay replay,
+                                               final String[] playerIds) {
+        if (!replay.getPlayers().containsKey(playerIds[0])) {
+            return null;
+        }
+
+        final var ratings = new double[8];
+        for (int i = 0; i < 4; i++) {
+            final var rating = replay.getPlayers().get(playerIds[i]);
+            ratings[i * 2] = rating[0];
+            ratings[i * 2 + 1] = rating[1];
+        }
+        return ratings;
+    }
+
+    private void updateTournamentRatings(final List<Integer> ids, final List<double[]> ratings,
+                                         final List<String[]> players,
+                                         final List<double[]> playerRatings) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        session.doWork(queryTimer.time("updateTournamentRatings", connection -> {
+            try (final var statement = connection.prepareStatement(UPDATE_TOURNAMENT_RATINGS)) {
+                for (int i = 0; i < ids.size(); i++) {
+                    final var values = ratings.get(i);
+                    for (int index = 0; index < values.length; index++) {
+                        statement.setDouble(index + 1, values[index]);
+                    }
+                    statement.setInt(19, ids.get(i));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            try (final var statement = connection.prepareStatement(UPSERT_RATING_HISTORY)) {
+                for (int i = 0; i < ids.size(); i++) {
+                    final var values = playerRatings.get(i);
+                    if (values == null) {
+                        continue;
+                    }
+                    for (int p = 0; p < 4; p++) {
+                        statement.setString(1, players.get(i)[p]);
+                        statement.setDouble(2, values[p * 2]);
+                        statement.setDouble(3, values[p * 2 + 1]);
+                        statement.setInt(4, ids.get(i));
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        }));
+    }
+
+    /**
+     * Loads a query from the resources, prefixed with its name as a comment so
+     * {@link QueryTimer} labels its statements by the name.
+     */
+    private String loadQuery(final String name) throws IOException {
+        final var queryFile = getClass().getResourceAsStream(name + ".sql");
+        return "/* " + name + " */ " + IOUtils.toString(queryFile, StandardCharsets.UTF_8);
+    }
+
+    private static void addBatch(final PreparedStatement statement, final int index,
+                                 final int batchSize) throws SQLException {
+        statement.addBatch();
+        if ((index + 1) % batchSize == 0) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Saves a finished tournament together with the new ratings of its players and teams in the
+     * tournament's channel, appends the player ratings to their history and adds the result to
+     * the team stats, daily rollups, player pair records and records. The ratings are computed by
+     * {@code rate} while the channel is locked, so they build on the latest ratings written by
+     * any node.
+     *
+     * @return the records the tournament set
+     */
+    public List<Achievement> saveTournament(final Tournament unrated,
+                                            final UnaryOperator<Tournament> rate) {
+        final var channelId = unrated.channel.id;
+        final var tx = session.beginTransaction();
+        try {
+            lockChannel(channelId);
+            final var tournament = rate.apply(unrated);
+            session.merge(new TeamRating(channelId, tournament.teamA));
+            session.merge(new PlayerRating(channelId, tournament.teamA.player1));
+            session.merge(new PlayerRating(channelId, tournament.teamA.player2));
+            session.merge(new TeamRating(channelId, tournament.teamB));
+            session.merge(new PlayerRating(channelId, tournament.teamB.player1));
+            session.merge(new PlayerRating(channelId, tournament.teamB.player2));
+            session.save(tournament);
+            session.save(new PlayerRatingHistory(tournament, tournament.teamA.player1));
+            session.save(new PlayerRatingHistory(tournament, tournament.teamA.player2));
+            session.save(new PlayerRatingHistory(tournament, tournament.teamB.player1));
+            session.save(new PlayerRatingHistory(tournament, tournament.teamB.player2));
+            final var stats = TeamStat.of(tournament);
+            addTeamStats(channelId, stats);
+            addDailyStats(tournament, stats, 1);
+            addPairStats(tournament, stats, 1);
+            final var achievements = updateRecords(tournament);
+            tx.commit();
+            return achievements;
+        } catch (RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    private List<Achievement> updateRecords(final Tournament tournament) {
+        final var channelId = tournament.channel.id;
+        final Function<String, PlayerRecord> playerRecords = id -> getPlayerRecord(channelId, id);
+        final Function<List<String>, TeamRecord> teamRecords = ids -> getTeamRecord(channelId, ids);
+        final var records = new RecordProcessor(channelId, playerRecords, teamRecords);
+        final var achievements = records.process(tournament);
+        records.getPlayerRecords().forEach(session::merge);
+        records.getTeamRecords().forEach(session::merge);
+        return achievements;
+    }
+
+    private PlayerRecord getPlayerRecord(final String channelId, final String playerId) {
+        return session.get(PlayerRecord.class, new PlayerRecord.Key(channelId, playerId));
+    }
+
+    private TeamRecord getTeamRecord(final String channelId, final List<String> playerIds) {
+        return session.get(TeamRecord.class,
+                           new TeamRecord.Key(channelId, playerIds.get(0), playerIds.get(1)));
+    }
+
+    /**
+     * Reads the rating history of a player in a channel between {@code from} (inclusive) and
+     * {@code to} (exclusive), downsampled to at most {@code points} points.
+     */
+    public RatingHistory getRatingHistory(final String channelId, final String playerId,
+                                          final Date from, final Date to, final int points) {
+        final var history = new RatingHistory(playerId, from, to, points);
+        try (final var results = session.createNamedQuery("get_player_rating_history")
+                .setParameter("channelId", channelId)
+                .setParameter("playerId", playerId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                final var row = results.get();
+                history.add((Date) row[0], (Double) row[1], (Double) row[2]);
+            }
+        }
+        return history;
+    }
+
     @Override
     public void close() {
         session.close();
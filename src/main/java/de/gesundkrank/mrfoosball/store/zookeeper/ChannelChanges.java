@@ -0,0 +1,123 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.zookeeper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * Announces changed channels to all nodes, so they drop their cached stats, predictions and
+ * leaderboards of the channel.
+ *
+ * <p>The id of the last changed channel is written to one node that every node watches. Watches
+ * only fire once per change they saw, so a node that missed a version in between drops the caches
+ * of all channels.
+ */
+public class ChannelChanges extends ZookeeperClient {
+
+    static final String ALL_CHANNELS = "*";
+
+    private final String path;
+    private volatile int lastVersion;
+
+    public ChannelChanges(final String zookeeperHosts) throws IOException {
+        super(zookeeperHosts, "channels");
+        this.path = String.format("%s/changed", subDir);
+        this.lastVersion = -1;
+    }
+
+    public void publish(final String channelId) throws IOException {
+        final var value = channelId.getBytes(StandardCharsets.UTF_8);
+        timeWrite(() -> {
+            try {
+                return zooKeeper.setData(path, value, -1);
+            } catch (final KeeperException.NoNodeException e) {
+                try {
+                    zooKeeper.create(path, value, ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                                     CreateMode.PERSISTENT);
+                    return null;
+                } catch (final KeeperException.NodeExistsException exists) {
+                    return zooKeeper.setData(path, value, -1);
+                }
+            }
+        });
+    }
+
+    public void publishAll() throws IOException {
+        publish(ALL_CHANNELS);
+    }
+
+    /**
+     * Calls {@code onChange} with the id of every changed channel, or with {@code null} if all
+     * channels changed or changes might have been missed.
+     */
+    public void watch(final Consumer<String> onChange) throws IOException {
+        read(onChange, false);
+    }
+
+    private void read(final Consumer<String> onChange, final boolean changed) throws IOException {
+        final Watcher watcher = event -> {
+            if (event.getType() == Watcher.Event.EventType.None) {
+                return;
+            }
+
+            try {
+                read(onChange, true);
+            } catch (final IOException e) {
+                logger.error("Failed to watch the changed channels", e);
+            }
+        };
+
+        try {
+            final var stat = new Stat();
+            byte[] value = null;
+            while (value == null) {
+                try {
+                    value = zooKeeper.getData(path, watcher, stat);
+                } catch (final KeeperException.NoNodeException e) {
+                    // the same watcher is notified once the node is created
+                    if (zooKeeper.exists(path, watcher) == null) {
+                        return;
+                    }
+                }
+            }
+
+            final var previousVersion = lastVersion;
+            lastVersion = stat.getVersion();
+            if (!changed) {
+                return;
+            }
+
+            final var channelId = new String(value, StandardCharsets.UTF_8);
+            if (stat.getVersion() != previousVersion + 1 || ALL_CHANNELS.equals(channelId)) {
+                onChange.accept(null);
+            } else {
+                onChange.accept(channelId);
+            }
+        } catch (final InterruptedException | KeeperException e) {
+            throw new IOException(e);
+        }
+    }
+}
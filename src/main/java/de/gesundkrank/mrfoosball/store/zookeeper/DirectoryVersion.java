@@ -0,0 +1,65 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.zookeeper;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+
+/**
+ * Version of the workspace and channel directory. Every node watches it and drops its cached
+ * entries as soon as another node registers a workspace or joins a channel.
+ */
+public class DirectoryVersion extends ZookeeperClient {
+
+    private final String path;
+
+    public DirectoryVersion(final String zookeeperHosts) throws IOException {
+        super(zookeeperHosts, "directory");
+        this.path = String.format("%s/version", subDir);
+    }
+
+    public void increment() throws IOException {
+        writeNode(path, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Calls {@code onChange} every time the version changes.
+     */
+    public void watch(final Runnable onChange) throws IOException {
+        try {
+            zooKeeper.exists(path, event -> {
+                if (event.getType() == Watcher.Event.EventType.None) {
+                    return;
+                }
+
+                // watch again first, so a change while handling this one is not missed
+                try {
+                    watch(onChange);
+                } catch (final IOException e) {
+                    logger.error("Failed to watch the directory version", e);
+                }
+                onChange.run();
+            });
+        } catch (InterruptedException | KeeperException e) {
+            throw new IOException(e);
+        }
+    }
+}
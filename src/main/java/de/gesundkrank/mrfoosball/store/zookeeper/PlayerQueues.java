@@ -18,18 +18,22 @@
 package de.gesundkrank.mrfoosball.store.zookeeper;
 
 import java.io.IOException;
+import java.util.List;
 
 import de.gesundkrank.mrfoosball.models.Player;
 import de.gesundkrank.mrfoosball.models.PlayerQueue;
 import de.gesundkrank.mrfoosball.utils.JsonConverter;
+import de.gesundkrank.mrfoosball.utils.Properties;
 
 public class PlayerQueues extends ZookeeperClient {
 
     private final JsonConverter jsonConverter;
+    private final int maxSize;
 
     public PlayerQueues(final String zookeeperHosts) throws IOException {
         super(zookeeperHosts, "queue");
         this.jsonConverter = new JsonConverter(PlayerQueue.class, Player.class);
+        this.maxSize = Properties.getInstance().getMaxQueueSize();
     }
 
     private String path(final String channelId) {
@@ -55,14 +59,18 @@ public class PlayerQueues extends ZookeeperClient {
                    PlayerQueue.TooManyUsersException {
         final var queue = get(channelId);
 
-        queue.addPlayer(player);
+        queue.addPlayer(player, maxSize);
         save(channelId, queue);
     }
 
     public void remove(final String channelId, final Player player) throws IOException {
-        final var players = get(channelId);
-        players.remove(player);
-        save(channelId, players);
+        remove(channelId, List.of(player));
+    }
+
+    public void remove(final String channelId, final List<Player> players) throws IOException {
+        final var queue = get(channelId);
+        players.forEach(queue::remove);
+        save(channelId, queue);
     }
 
     private void save(final String channelId, final PlayerQueue players) throws IOException {
@@ -0,0 +1,74 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.zookeeper;
+
+import java.io.IOException;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+
+/**
+ * Remembers the ids of handled Slack events across all nodes. Creating a node is atomic, so exactly
+ * one node gets to handle an event.
+ */
+public class ProcessedEvents extends ZookeeperClient {
+
+    public ProcessedEvents(final String zookeeperHosts) throws IOException {
+        super(zookeeperHosts, "processedEvents");
+    }
+
+    private String path(final String eventId) {
+        return String.format("%s/%s", subDir, eventId);
+    }
+
+    /**
+     * Returns {@code false} if the event was already marked by this or another node.
+     */
+    public boolean mark(final String eventId) throws IOException {
+        return timeWrite(() -> {
+            try {
+                zooKeeper.create(path(eventId), null, ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                                 CreateMode.PERSISTENT);
+                return true;
+            } catch (final KeeperException.NodeExistsException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Deletes the marks created before the given time.
+     */
+    public void prune(final long createdBeforeMillis) throws IOException {
+        timeDelete(() -> {
+            for (final var eventId : zooKeeper.getChildren(subDir, false)) {
+                final var path = path(eventId);
+                final var stat = zooKeeper.exists(path, false);
+                if (stat != null && stat.getCtime() < createdBeforeMillis) {
+                    try {
+                        zooKeeper.delete(path, stat.getVersion());
+                    } catch (final KeeperException.NoNodeException e) {
+                        logger.debug("{} was already pruned by another node", eventId);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.zookeeper;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Stores the ts of the scoreboard message of the running tournament of each channel, so any node
+ * can update it. The ts is stored with the start date of its tournament, so a node can tell when
+ * the ts belongs to a tournament that already finished.
+ */
+public class Scoreboards extends ZookeeperClient {
+
+    public Scoreboards(final String zookeeperHosts) throws IOException {
+        super(zookeeperHosts, "scoreboard");
+    }
+
+    private String path(final String channelId) {
+        return String.format("%s/%s", subDir, channelId);
+    }
+
+    /**
+     * Returns the ts of the scoreboard of the given tournament or {@code null} if the channel has
+     * none or it belongs to another tournament.
+     */
+    public String get(final String channelId, final Date tournamentDate) throws IOException {
+        final String value = readNode(path(channelId));
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        final var separator = value.indexOf(' ');
+        if (separator < 0
+            || Long.parseLong(value.substring(0, separator)) != tournamentDate.getTime()) {
+            return null;
+        }
+        return value.substring(separator + 1);
+    }
+
+    public void save(final String channelId, final Date tournamentDate, final String ts)
+            throws IOException {
+        writeNode(path(channelId), tournamentDate.getTime() + " " + ts);
+    }
+
+    public void clear(final String channelId) throws IOException {
+        deleteNode(path(channelId));
+    }
+}
@@ -33,16 +33,31 @@ import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.data.Stat;
 
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.metrics.Timer;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
 import de.gesundkrank.mrfoosball.utils.Properties;
 
-public class ZookeeperClient {
+public class ZookeeperClient implements AutoCloseable {
 
     protected final Logger logger;
     protected final ZooKeeper zooKeeper;
     protected final String subDir;
+    private final Tracer tracer;
+    private final Timer readTimer;
+    private final Timer writeTimer;
+    private final Timer deleteTimer;
 
     protected ZookeeperClient(final String zookeeperHosts, final String subDir) throws IOException {
         this.logger = LogManager.getLogger();
+        this.tracer = Tracer.getInstance();
+        final var metrics = Metrics.getInstance();
+        this.readTimer = metrics.timer("zookeeper_request_seconds", "node", subDir,
+                                       "operation", "read");
+        this.writeTimer = metrics.timer("zookeeper_request_seconds", "node", subDir,
+                                        "operation", "write");
+        this.deleteTimer = metrics.timer("zookeeper_request_seconds", "node", subDir,
+                                         "operation", "delete");
         final var watcher = new StubWatcher();
         this.zooKeeper = new ZooKeeper(zookeeperHosts, 30000, watcher);
         final var rootPath = Properties.getInstance().getZookeeperRootPath();
@@ -74,7 +89,7 @@ public class ZookeeperClient {
     }
 
     protected void writeNode(final String path, final String value) throws IOException {
-        try {
+        timeWrite(() -> {
             final Stat stat = zooKeeper.exists(path, false);
 
             if (stat == null) {
@@ -83,34 +98,68 @@ public class ZookeeperClient {
             } else {
                 zooKeeper.setData(path, value.getBytes(StandardCharsets.UTF_8), stat.getVersion());
             }
-        } catch (InterruptedException | KeeperException e) {
-            throw new IOException(e);
-        }
+            return null;
+        });
     }
 
     protected void deleteNode(final String path) throws IOException {
-        try {
+        timeDelete(() -> {
             final Stat stat = zooKeeper.exists(path, false);
             if (stat != null) {
                 zooKeeper.delete(path, stat.getVersion());
             }
-        } catch (InterruptedException | KeeperException e) {
-            throw new IOException(e);
-        }
+            return null;
+        });
     }
 
     protected String readNode(final String path) throws IOException {
-        try {
+        return time("read", readTimer, () -> {
             if (zooKeeper.exists(path, false) == null) {
                 return null;
             }
 
             return new String(zooKeeper.getData(path, null, null), StandardCharsets.UTF_8);
+        });
+    }
+
+    protected <T> T timeWrite(final Operation<T> operation) throws IOException {
+        return time("write", writeTimer, operation);
+    }
+
+    protected <T> T timeDelete(final Operation<T> operation) throws IOException {
+        return time("delete", deleteTimer, operation);
+    }
+
+    private <T> T time(final String name, final Timer timer, final Operation<T> operation)
+            throws IOException {
+        final var span = tracer.start(String.format("zookeeper %s %s", name, subDir), timer);
+        try {
+            return operation.run();
         } catch (InterruptedException | KeeperException e) {
             throw new IOException(e);
+        } finally {
+            span.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            zooKeeper.close();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
         }
     }
 
+    /**
+     * Request to ZooKeeper that is timed and traced as one operation.
+     */
+    protected interface Operation<T> {
+
+        T run() throws InterruptedException, KeeperException;
+    }
+
     public static class StubWatcher implements Watcher {
 
         private final Logger logger;
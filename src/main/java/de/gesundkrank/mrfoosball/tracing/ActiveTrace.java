@@ -0,0 +1,125 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.tracing;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.gesundkrank.mrfoosball.models.Trace;
+
+/**
+ * Collects the finished spans of a trace until neither open spans nor pending asynchronous work
+ * refer to it anymore.
+ */
+class ActiveTrace {
+
+    static final int MAX_SPANS = 512;
+
+    private final Tracer tracer;
+    private final String id;
+    private final boolean sampled;
+    private final long startNanos;
+    private final long startMillis;
+    private final List<Span> spans;
+    private final AtomicInteger spanIds;
+    private final AtomicInteger references;
+    private final AtomicBoolean completed;
+    private int droppedSpans;
+
+    ActiveTrace(final Tracer tracer, final String id, final boolean sampled) {
+        this.tracer = tracer;
+        this.id = id;
+        this.sampled = sampled;
+        this.startNanos = System.nanoTime();
+        this.startMillis = System.currentTimeMillis();
+        this.spans = new ArrayList<>();
+        this.spanIds = new AtomicInteger();
+        this.references = new AtomicInteger();
+        this.completed = new AtomicBoolean();
+    }
+
+    int nextSpanId() {
+        references.incrementAndGet();
+        return spanIds.incrementAndGet();
+    }
+
+    boolean isSampled() {
+        return sampled;
+    }
+
+    void retain() {
+        references.incrementAndGet();
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0 && completed.compareAndSet(false, true)) {
+            tracer.completed(this);
+        }
+    }
+
+    void finished(final Span span) {
+        synchronized (spans) {
+            if (spans.size() < MAX_SPANS) {
+                spans.add(span);
+            } else {
+                droppedSpans++;
+            }
+        }
+        release();
+    }
+
+    long getDurationNanos() {
+        long end = startNanos;
+        synchronized (spans) {
+            for (final Span span : spans) {
+                end = Math.max(end, span.startNanos + span.getDurationNanos());
+            }
+        }
+        return end - startNanos;
+    }
+
+    Trace toTrace() {
+        final var trace = new Trace();
+        trace.id = id;
+        trace.start = new Date(startMillis);
+        trace.durationMillis = getDurationNanos() / 1e6;
+        trace.sampled = sampled;
+        synchronized (spans) {
+            trace.droppedSpans = droppedSpans;
+            for (final Span span : spans) {
+                final var record = new Trace.Span();
+                record.id = span.id;
+                record.parentId = span.parent == null || span.parent.trace != this
+                                  ? null : span.parent.id;
+                record.name = span.name;
+                record.thread = span.thread;
+                record.offsetMillis = (span.startNanos - startNanos) / 1e6;
+                record.durationMillis = span.getDurationNanos() / 1e6;
+                trace.spans.add(record);
+                if (record.parentId == null && trace.name == null) {
+                    trace.name = span.name;
+                }
+            }
+        }
+        trace.spans.sort((a, b) -> Double.compare(a.offsetMillis, b.offsetMillis));
+        return trace;
+    }
+}
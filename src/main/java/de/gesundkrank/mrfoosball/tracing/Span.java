@@ -0,0 +1,80 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.tracing;
+
+import de.gesundkrank.mrfoosball.metrics.Timer;
+
+/**
+ * A timed step of a trace, opened with {@link Tracer#start(String)} and finished by closing it.
+ * While open it is the parent of the spans started on the same thread.
+ */
+public class Span implements AutoCloseable {
+
+    final Tracer tracer;
+    final ActiveTrace trace;
+    final Span parent;
+    final int id;
+    final String name;
+    final String thread;
+    final long startNanos;
+    private final Timer timer;
+    private final Thread owner;
+    private final Span previous;
+    private volatile long durationNanos = -1;
+
+    Span(final Tracer tracer, final ActiveTrace trace, final Span parent, final String name,
+         final Timer timer, final Span previous) {
+        this.tracer = tracer;
+        this.trace = trace;
+        this.parent = parent;
+        this.id = trace == null ? 0 : trace.nextSpanId();
+        this.name = name;
+        this.timer = timer;
+        this.owner = Thread.currentThread();
+        this.thread = owner.getName();
+        this.previous = previous;
+        this.startNanos = System.nanoTime();
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Finishes the span. Spans that are closed on another thread than the one that started them,
+     * like the root span of an asynchronously answered request, stay the current span of their
+     * thread.
+     */
+    @Override
+    public void close() {
+        if (durationNanos >= 0) {
+            return;
+        }
+        durationNanos = System.nanoTime() - startNanos;
+        if (timer != null) {
+            timer.record(durationNanos);
+        }
+        if (trace == null) {
+            return;
+        }
+        if (Thread.currentThread() == owner && tracer.current() == this) {
+            tracer.setCurrent(previous);
+        }
+        trace.finished(this);
+    }
+}
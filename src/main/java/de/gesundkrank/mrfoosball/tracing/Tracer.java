@@ -0,0 +1,270 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import de.gesundkrank.mrfoosball.metrics.Timer;
+import de.gesundkrank.mrfoosball.models.Trace;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * Span based tracing of requests and events through the layers of the app.
+ *
+ * <p>The current span is kept per thread, so spans started while another one is open become its
+ * children. Work that is handed to another thread carries the current span along with
+ * {@link #wrap(Runnable)}, or by passing it to {@link #start(String, Span)}, and keeps the trace
+ * open until it is done.
+ *
+ * <p>Every trace is recorded, but only a share of them, given by {@code traceSampleRate}, and
+ * all traces that took at least {@code traceSlowThreshold} milliseconds are kept once finished.
+ * The last {@code traceBufferSize} kept traces are held in memory.
+ */
+public class Tracer {
+
+    private static volatile Tracer INSTANCE;
+
+    public static Tracer getInstance() {
+        if (INSTANCE == null) {
+            synchronized (Tracer.class) {
+                if (INSTANCE == null) {
+                    final var properties = Properties.getInstance();
+                    INSTANCE = new Tracer(properties.getTracing(),
+                                          properties.getTraceSampleRate(),
+                                          properties.getTraceSlowThreshold(),
+                                          properties.getTraceBufferSize());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowNanos;
+    private final ThreadLocal<Span> current;
+    private final Trace[] traces;
+    private int next;
+
+    Tracer(final boolean enabled, final double sampleRate, final long slowThresholdInMillis,
+           final int bufferSize) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdInMillis);
+        this.current = new ThreadLocal<>();
+        this.traces = new Trace[bufferSize];
+    }
+
+    /**
+     * Starts a span as child of the current span of this thread, or a new trace if there is none.
+     */
+    public Span start(final String name) {
+        return start(name, current(), null);
+    }
+
+    public Span start(final String name, final Span parent) {
+        return start(name, parent, null);
+    }
+
+    /**
+     * Starts a span that also records its duration with the given timer.
+     */
+    public Span start(final String name, final Timer timer) {
+        return start(name, current(), timer);
+    }
+
+    private Span start(final String name, final Span parent, final Timer timer) {
+        if (!enabled) {
+            return new Span(this, null, null, name, timer, null);
+        }
+
+        final ActiveTrace trace;
+        if (parent == null || parent.trace == null) {
+            trace = new ActiveTrace(this, Long.toHexString(ThreadLocalRandom.current().nextLong()),
+                                    ThreadLocalRandom.current().nextDouble() < sampleRate);
+        } else {
+            trace = parent.trace;
+        }
+        final var span = new Span(this, trace, parent, name, timer, current());
+        setCurrent(span);
+        return span;
+    }
+
+    /**
+     * Runs the body in a span as child of the current span of this thread and returns its
+     * result.
+     */
+    public <T, E extends Exception> T call(final String name, final Call<T, E> body) throws E {
+        return call(name, current(), null, body);
+    }
+
+    public <T, E extends Exception> T call(final String name, final Span parent,
+                                           final Call<T, E> body) throws E {
+        return call(name, parent, null, body);
+    }
+
+    /**
+     * Runs the body in a span that also records its duration with the given timer.
+     */
+    public <T, E extends Exception> T call(final String name, final Timer timer,
+                                           final Call<T, E> body) throws E {
+        return call(name, current(), timer, body);
+    }
+
+    private <T, E extends Exception> T call(final String name, final Span parent,
+                                            final Timer timer, final Call<T, E> body) throws E {
+        final var span = start(name, parent, timer);
+        try {
+            return body.call();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Runs the body in a span as child of the current span of this thread.
+     */
+    public <E extends Exception> void run(final String name, final Task<E> body) throws E {
+        run(name, null, body);
+    }
+
+    /**
+     * Runs the body in a span that also records its duration with the given timer, which may be
+     * {@code null}.
+     */
+    public <E extends Exception> void run(final String name, final Timer timer,
+                                          final Task<E> body) throws E {
+        final var span = start(name, current(), timer);
+        try {
+            body.run();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Starts a new trace, regardless of the current span of this thread.
+     */
+    public Span startTrace(final String name) {
+        return start(name, null, null);
+    }
+
+    public Span current() {
+        return current.get();
+    }
+
+    void setCurrent(final Span span) {
+        if (span == null) {
+            current.remove();
+        } else {
+            current.set(span);
+        }
+    }
+
+    /**
+     * Forgets the current span of this thread, for threads that handed their work to another one.
+     */
+    public void detach() {
+        current.remove();
+    }
+
+    /**
+     * Runs the given task with the current span of this thread as its current span.
+     */
+    public Runnable wrap(final Runnable runnable) {
+        final var parent = current();
+        if (parent == null || parent.trace == null) {
+            return runnable;
+        }
+
+        parent.trace.retain();
+        return () -> {
+            final var previous = current();
+            setCurrent(parent);
+            try {
+                runnable.run();
+            } finally {
+                setCurrent(previous);
+                parent.trace.release();
+            }
+        };
+    }
+
+    /**
+     * Keeps the trace of a span open until {@link #release(Span)} is called, for work that
+     * continues elsewhere.
+     */
+    public void retain(final Span span) {
+        if (span != null && span.trace != null) {
+            span.trace.retain();
+        }
+    }
+
+    public void release(final Span span) {
+        if (span != null && span.trace != null) {
+            span.trace.release();
+        }
+    }
+
+    void completed(final ActiveTrace trace) {
+        if (!trace.isSampled() && trace.getDurationNanos() < slowNanos || traces.length == 0) {
+            return;
+        }
+
+        final var finished = trace.toTrace();
+        synchronized (traces) {
+            traces[next] = finished;
+            next = (next + 1) % traces.length;
+        }
+    }
+
+    /**
+     * Kept traces that took at least {@code minMillis} milliseconds, newest first.
+     */
+    public List<Trace> getTraces(final double minMillis, final int limit) {
+        final List<Trace> result = new ArrayList<>();
+        synchronized (traces) {
+            for (int i = 1; i <= traces.length && result.size() < limit; i++) {
+                final var trace = traces[(next - i + traces.length) % traces.length];
+                if (trace != null && trace.durationMillis >= minMillis) {
+                    result.add(trace);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Body of a span that returns a result.
+     */
+    public interface Call<T, E extends Exception> {
+
+        T call() throws E;
+    }
+
+    /**
+     * Body of a span without a result.
+     */
+    public interface Task<E extends Exception> {
+
+        void run() throws E;
+    }
+}
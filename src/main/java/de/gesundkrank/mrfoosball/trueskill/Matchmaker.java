@@ -0,0 +1,264 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.Tournament;
+import de.gesundkrank.mrfoosball.utils.Properties;
+
+/**
+ * Picks the four players of the next tournament from a queue of any size and splits them into the
+ * two teams with the best match quality.
+ *
+ * <p>Every lineup is scored by its weighted match quality plus a bonus per player: players gain
+ * with the time they waited in the queue (up to a cap) and lose if they played one of the last
+ * tournaments of the channel. Players are searched in order of their bonus, so a branch can be
+ * dropped as soon as even a perfect match quality could not beat the best lineup found so far.
+ * Large queues are searched in parallel.
+ */
+public class Matchmaker {
+
+    public static final int PLAYERS = 4;
+
+    private static final int PARALLEL_THRESHOLD = 12;
+    // the three ways to split players 0-3 into two teams
+    private static final int[][] SPLITS = {{0, 1, 2, 3}, {0, 2, 1, 3}, {0, 3, 1, 2}};
+
+    private final double qualityWeight;
+    private final double waitWeight;
+    private final long maxWait;
+    private final double recentPenalty;
+    private final int recentTournaments;
+
+    public Matchmaker() {
+        this(Properties.getInstance());
+    }
+
+    private Matchmaker(final Properties properties) {
+        this(properties.getMatchmakingQualityWeight(), properties.getMatchmakingWaitWeight(),
+             TimeUnit.MINUTES.toMillis(properties.getMatchmakingMaxWait()),
+             properties.getMatchmakingRecentPenalty(),
+             properties.getMatchmakingRecentTournaments());
+    }
+
+    /**
+     * Creates a matchmaker with the given policy.
+     *
+     * @param qualityWeight     weight of the match quality, which is between 0 and 1
+     * @param waitWeight        bonus per minute a player waited
+     * @param maxWait           wait time in milliseconds after which the bonus stops growing
+     * @param recentPenalty     penalty for playing the last tournament, halved for each
+     *                          tournament before
+     * @param recentTournaments number of recent tournaments that are penalized
+     */
+    Matchmaker(final double qualityWeight, final double waitWeight, final long maxWait,
+               final double recentPenalty, final int recentTournaments) {
+        this.qualityWeight = qualityWeight;
+        this.waitWeight = waitWeight;
+        this.maxWait = maxWait;
+        this.recentPenalty = recentPenalty;
+        this.recentTournaments = recentTournaments;
+    }
+
+    public int getRecentTournaments() {
+        return recentTournaments;
+    }
+
+    /**
+     * Returns the next four players as team A player 1 and 2 and team B player 1 and 2.
+     *
+     * @param queue  the waiting players
+     * @param joined when each player joined the queue, in milliseconds
+     * @param recent the last tournaments of the channel, newest first
+     * @param now    the current time in milliseconds
+     */
+    public List<Player> bestMatch(final List<Player> queue, final List<Long> joined,
+                                  final List<Tournament> recent, final long now) {
+        final var ratings = new double[queue.size() * 2];
+        final var bonus = new double[queue.size()];
+        for (int i = 0; i < queue.size(); i++) {
+            final var player = queue.get(i);
+            ratings[i * 2] = player.trueSkillMean;
+            ratings[i * 2 + 1] = player.trueSkillStandardDeviation;
+
+            final var waited = i < joined.size() ? Math.max(0, now - joined.get(i)) : 0;
+            bonus[i] = waitWeight * Math.min(waited, maxWait) / TimeUnit.MINUTES.toMillis(1);
+
+            var penalty = recentPenalty;
+            for (int t = 0; t < Math.min(recent.size(), recentTournaments); t++) {
+                if (played(recent.get(t), player)) {
+                    bonus[i] -= penalty;
+                }
+                penalty /= 2;
+            }
+        }
+
+        final List<Player> match = new ArrayList<>(PLAYERS);
+        for (final var index : bestMatch(ratings, bonus)) {
+            match.add(queue.get(index));
+        }
+        return match;
+    }
+
+    /**
+     * Returns the indices of the best lineup in team order.
+     *
+     * @param ratings (mean, standard deviation) of every player
+     * @param bonus   the wait and recent play bonus of every player
+     */
+    int[] bestMatch(final double[] ratings, final double[] bonus) {
+        final var players = bonus.length;
+        if (players < PLAYERS) {
+            throw new IllegalArgumentException("Need at least " + PLAYERS + " players");
+        }
+
+        // search in order of the bonus, so the bound of the remaining players is a prefix sum
+        final var order = IntStream.range(0, players).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -bonus[i])
+                                .thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        final var sortedRatings = new double[players * 2];
+        final var sortedBonus = new double[players];
+        for (int i = 0; i < players; i++) {
+            sortedRatings[i * 2] = ratings[order[i] * 2];
+            sortedRatings[i * 2 + 1] = ratings[order[i] * 2 + 1];
+            sortedBonus[i] = bonus[order[i]];
+        }
+
+        final var best = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+        var first = IntStream.range(0, players - PLAYERS + 1);
+        if (players >= PARALLEL_THRESHOLD) {
+            first = first.parallel();
+        }
+        final var lineup = first
+                .mapToObj(i -> new Search(sortedRatings, sortedBonus, best).from(i))
+                .filter(search -> search.lineup != null)
+                .max(Comparator.comparingDouble((Search search) -> search.score)
+                             .thenComparing(search -> search.lineup,
+                                            Comparator.comparing(Matchmaker::rank).reversed()))
+                .orElseThrow()
+                .lineup;
+
+        final var match = new int[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            match[i] = order[lineup[i]];
+        }
+        return match;
+    }
+
+    private static boolean played(final Tournament tournament, final Player player) {
+        return player.equals(tournament.teamA.player1) || player.equals(tournament.teamA.player2)
+               || player.equals(tournament.teamB.player1)
+               || player.equals(tournament.teamB.player2);
+    }
+
+    private static long rank(final int[] lineup) {
+        final var sorted = lineup.clone();
+        Arrays.sort(sorted);
+        var rank = 0L;
+        for (final var index : sorted) {
+            rank = rank * 64 + index;
+        }
+        return rank;
+    }
+
+    private class Search {
+
+        private final double[] ratings;
+        private final double[] bonus;
+        private final AtomicLong best;
+        private final int[] chosen;
+        private final double[] quality;
+
+        private double score;
+        private int[] lineup;
+
+        private Search(final double[] ratings, final double[] bonus, final AtomicLong best) {
+            this.ratings = ratings;
+            this.bonus = bonus;
+            this.best = best;
+            this.chosen = new int[PLAYERS];
+            this.quality = new double[8];
+            this.score = Double.NEGATIVE_INFINITY;
+        }
+
+        private Search from(final int first) {
+            chosen[0] = first;
+            search(1, first + 1, bonus[first]);
+            return this;
+        }
+
+        private void search(final int depth, final int start, final double bonusSum) {
+            final var players = bonus.length;
+            for (int i = start; i <= players - PLAYERS + depth; i++) {
+                // the best still possible: perfect quality and the next highest bonuses
+                var bound = qualityWeight + bonusSum;
+                for (int j = i; j < i + PLAYERS - depth; j++) {
+                    bound += bonus[j];
+                }
+                if (bound < Double.longBitsToDouble(best.get())) {
+                    return;
+                }
+
+                chosen[depth] = i;
+                if (depth + 1 < PLAYERS) {
+                    search(depth + 1, i + 1, bonusSum + bonus[i]);
+                } else {
+                    evaluate(bonusSum + bonus[i]);
+                }
+            }
+        }
+
+        private void evaluate(final double bonusSum) {
+            for (final var split : SPLITS) {
+                for (int p = 0; p < PLAYERS; p++) {
+                    quality[p * 2] = ratings[chosen[split[p]] * 2];
+                    quality[p * 2 + 1] = ratings[chosen[split[p]] * 2 + 1];
+                }
+                final var candidate = bonusSum + qualityWeight * TwoTeamTrueSkill.matchQuality(
+                        quality[0], quality[1], quality[2], quality[3],
+                        quality[4], quality[5], quality[6], quality[7]);
+                if (candidate > score) {
+                    score = candidate;
+                    lineup = new int[PLAYERS];
+                    for (int p = 0; p < PLAYERS; p++) {
+                        lineup[p] = chosen[split[p]];
+                    }
+                    raiseBest(candidate);
+                }
+            }
+        }
+
+        private void raiseBest(final double candidate) {
+            var current = best.get();
+            while (candidate > Double.longBitsToDouble(current)
+                   && !best.compareAndSet(current, Double.doubleToLongBits(candidate))) {
+                current = best.get();
+            }
+        }
+    }
+}
@@ -17,67 +17,57 @@
 
 package de.gesundkrank.mrfoosball.trueskill;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import de.gesundkrank.jskills.IPlayer;
-import de.gesundkrank.jskills.ITeam;
-import de.gesundkrank.jskills.Player;
-import de.gesundkrank.jskills.Rating;
-
+import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.RatingSnapshot;
 import de.gesundkrank.mrfoosball.models.Tournament;
 import de.gesundkrank.mrfoosball.store.hibernate.Store;
 
 public class PlayerTrueSkillCalculator extends TrueSkillCalculator {
 
-    public Tournament updateRatings(final Tournament tournament) {
+    public PlayerTrueSkillCalculator() {
+        super("player");
+    }
+
+    protected Tournament update(final Tournament tournament) {
         try (final Store store = new Store()) {
 
-            final var playerA1 = store.getPlayer(tournament.teamA.player1);
-            final var playerA2 = store.getPlayer(tournament.teamA.player2);
-            final var playerB1 = store.getPlayer(tournament.teamB.player1);
-            final var playerB2 = store.getPlayer(tournament.teamB.player2);
+            final var playerA1 = tournament.teamA.player1;
+            final var playerA2 = tournament.teamA.player2;
+            final var playerB1 = tournament.teamB.player1;
+            final var playerB2 = tournament.teamB.player2;
+            store.loadRatings(tournament.channel.id,
+                              List.of(playerA1, playerA2, playerB1, playerB2));
 
             final double skillA1 = playerSkill(playerA1);
             final double skillA2 = playerSkill(playerA2);
             final double skillB1 = playerSkill(playerB1);
             final double skillB2 = playerSkill(playerB2);
 
-            final List<ITeam> teams = new ArrayList<>();
-
-            final IPlayer iPlayerA1 = new Player<>(playerA1.id);
-            final IPlayer iPlayerA2 = new Player<>(playerA2.id);
-            teams.add(toTeam(iPlayerA1, playerA1, iPlayerA2, playerA2));
-
-            final IPlayer iPlayerB1 = new Player<>(playerB1.id);
-            final IPlayer iPlayerB2 = new Player<>(playerB2.id);
-            teams.add(toTeam(iPlayerB1, playerB1, iPlayerB2, playerB2));
-
-            final var newRatings = skillCalculator
-                    .calculateNewRatings(gameInfo, teams,
-                                         rankTeamA(tournament),
-                                         rankTeamB(tournament));
-
-            var rating = newRatings.get(iPlayerA1);
-            playerA1.updateRating(rating);
-            final var teamAPlayer1SkillChange = rating.getConservativeRating() - skillA1;
+            final double[] ratings = {
+                playerA1.trueSkillMean, playerA1.trueSkillStandardDeviation,
+                playerA2.trueSkillMean, playerA2.trueSkillStandardDeviation,
+                playerB1.trueSkillMean, playerB1.trueSkillStandardDeviation,
+                playerB2.trueSkillMean, playerB2.trueSkillStandardDeviation
+            };
+            if (tournament.ratingsBefore == null) {
+                tournament.ratingsBefore = new RatingSnapshot();
+            }
+            tournament.ratingsBefore.setPlayers(ratings);
+            TwoTeamTrueSkill.update2v2(ratings, 0, teamAWins(tournament));
 
-            rating = newRatings.get(iPlayerA2);
-            playerA2.updateRating(rating);
-            final var teamAPlayer2SkillChange = rating.getConservativeRating() - skillA2;
+            playerA1.updateRating(ratings[0], ratings[1]);
+            final var teamAPlayer1SkillChange = playerSkill(playerA1) - skillA1;
 
-            rating = newRatings.get(iPlayerB1);
-            playerB1.updateRating(rating);
-            final var teamBPlayer1SkillChange = rating.getConservativeRating() - skillB1;
+            playerA2.updateRating(ratings[2], ratings[3]);
+            final var teamAPlayer2SkillChange = playerSkill(playerA2) - skillA2;
 
-            rating = newRatings.get(iPlayerB2);
-            playerB2.updateRating(rating);
-            final var teamBPlayer2SkillChange = rating.getConservativeRating() - skillB2;
+            playerB1.updateRating(ratings[4], ratings[5]);
+            final var teamBPlayer1SkillChange = playerSkill(playerB1) - skillB1;
 
-            tournament.teamA.player1 = playerA1;
-            tournament.teamA.player2 = playerA2;
-            tournament.teamB.player1 = playerB1;
-            tournament.teamB.player2 = playerB2;
+            playerB2.updateRating(ratings[6], ratings[7]);
+            final var teamBPlayer2SkillChange = playerSkill(playerB2) - skillB2;
 
             tournament.teamAPlayer1SkillChange = teamAPlayer1SkillChange;
             tournament.teamAPlayer2SkillChange = teamAPlayer2SkillChange;
@@ -88,8 +78,8 @@ public class PlayerTrueSkillCalculator extends TrueSkillCalculator {
         }
     }
 
-    private double playerSkill(final de.gesundkrank.mrfoosball.models.Player player) {
-        final var rating = new Rating(player.trueSkillMean, player.trueSkillStandardDeviation);
-        return rating.getConservativeRating();
+    private double playerSkill(final Player player) {
+        return TwoTeamTrueSkill.conservativeRating(player.trueSkillMean,
+                                                   player.trueSkillStandardDeviation);
     }
 }
@@ -0,0 +1,193 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import de.gesundkrank.mrfoosball.models.Lineup;
+import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.Prediction;
+import de.gesundkrank.mrfoosball.models.Team;
+
+/**
+ * Predicts match quality and win probabilities of lineups from the players' channel ratings.
+ *
+ * <p>Predictions of recently scored lineups are kept until a rating of their channel changes, so a
+ * lineup picker asking for the same pairings again does not have to load any ratings. Lineups are
+ * cached regardless of the order of players within a team and of the order of the teams.
+ */
+public class Predictor {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Map<Key, Prediction> predictions;
+    private long generation;
+
+    public Predictor() {
+        this.predictions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Prediction> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    /**
+     * Predicts the outcome from the ratings the players of both teams carry.
+     */
+    public static Prediction predict(final Team teamA, final Team teamB) {
+        return predict(teamA.player1, teamA.player2, teamB.player1, teamB.player2);
+    }
+
+    /**
+     * Predicts the outcome of every lineup, in the given order. Ratings that are not cached are
+     * loaded with one call of {@code loadRatings}, which has to set the channel ratings of the
+     * given players.
+     */
+    public List<Prediction> predict(final String channelId, final List<Lineup> lineups,
+                                    final BiConsumer<String, Collection<Player>> loadRatings) {
+        final long generation;
+        final List<Key> keys = new ArrayList<>(lineups.size());
+        final List<Prediction> results = new ArrayList<>(lineups.size());
+        final Map<String, Player> players = new HashMap<>();
+        synchronized (this) {
+            generation = this.generation;
+            for (final var lineup : lineups) {
+                final var key = new Key(channelId, lineup);
+                final var prediction = predictions.get(key);
+                keys.add(key);
+                results.add(prediction == null ? null : key.orient(prediction));
+                if (prediction == null) {
+                    lineup.teamA.forEach(id -> players.computeIfAbsent(id, Player::new));
+                    lineup.teamB.forEach(id -> players.computeIfAbsent(id, Player::new));
+                }
+            }
+        }
+
+        if (players.isEmpty()) {
+            return results;
+        }
+
+        loadRatings.accept(channelId, players.values());
+        for (int i = 0; i < lineups.size(); i++) {
+            if (results.get(i) == null) {
+                final var lineup = lineups.get(i);
+                results.set(i, predict(players.get(lineup.teamA.get(0)),
+                                       players.get(lineup.teamA.get(1)),
+                                       players.get(lineup.teamB.get(0)),
+                                       players.get(lineup.teamB.get(1))));
+            }
+        }
+
+        synchronized (this) {
+            // ratings that changed while loading would make these predictions stale
+            if (generation == this.generation) {
+                for (int i = 0; i < keys.size(); i++) {
+                    final var key = keys.get(i);
+                    predictions.putIfAbsent(key, key.orient(results.get(i)));
+                }
+            }
+        }
+        return results;
+    }
+
+    private static Prediction predict(final Player playerA1, final Player playerA2,
+                                      final Player playerB1, final Player playerB2) {
+        final var quality = TwoTeamTrueSkill.matchQuality(
+                playerA1.trueSkillMean, playerA1.trueSkillStandardDeviation,
+                playerA2.trueSkillMean, playerA2.trueSkillStandardDeviation,
+                playerB1.trueSkillMean, playerB1.trueSkillStandardDeviation,
+                playerB2.trueSkillMean, playerB2.trueSkillStandardDeviation);
+        final var teamAWinProbability = TwoTeamTrueSkill.winProbability(
+                playerA1.trueSkillMean, playerA1.trueSkillStandardDeviation,
+                playerA2.trueSkillMean, playerA2.trueSkillStandardDeviation,
+                playerB1.trueSkillMean, playerB1.trueSkillStandardDeviation,
+                playerB2.trueSkillMean, playerB2.trueSkillStandardDeviation);
+        return new Prediction(quality, teamAWinProbability);
+    }
+
+    /**
+     * Drops the cached predictions of a channel after its ratings changed.
+     */
+    public synchronized void invalidate(final String channelId) {
+        generation++;
+        predictions.keySet().removeIf(key -> key.channelId.equals(channelId));
+    }
+
+    /**
+     * Drops all cached predictions after ratings of any channel changed.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        predictions.clear();
+    }
+
+    private static class Key {
+
+        private final String channelId;
+        private final String teamA;
+        private final String teamB;
+        // whether team A of the lineup is team B of the key
+        private final boolean swapped;
+
+        private Key(final String channelId, final Lineup lineup) {
+            this.channelId = channelId;
+            final var teamA = team(lineup.teamA);
+            final var teamB = team(lineup.teamB);
+            this.swapped = teamA.compareTo(teamB) > 0;
+            this.teamA = swapped ? teamB : teamA;
+            this.teamB = swapped ? teamA : teamB;
+        }
+
+        private static String team(final List<String> playerIds) {
+            final var player1 = playerIds.get(0);
+            final var player2 = playerIds.get(1);
+            return player1.compareTo(player2) > 0 ? player2 + ' ' + player1
+                                                  : player1 + ' ' + player2;
+        }
+
+        /**
+         * Turns a prediction of the lineup into one of the key and vice versa.
+         */
+        private Prediction orient(final Prediction prediction) {
+            return swapped ? prediction.swapTeams() : prediction;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.teamA.equals(teamA)
+                       && oKey.teamB.equals(teamB);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, teamA, teamB);
+        }
+    }
+}
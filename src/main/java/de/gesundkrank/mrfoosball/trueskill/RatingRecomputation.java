@@ -0,0 +1,528 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntUnaryOperator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Replays all finished tournaments from default ratings to recompute player and team ratings and
+ * the skill changes of every tournament.
+ *
+ * <p>Tournaments are added in chronological order and kept in flat primitive arrays. Ratings are
+ * kept per channel, so the channels are replayed independently and in parallel on a
+ * {@link ForkJoinPool}.
+ */
+public class RatingRecomputation {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    public enum Phase {
+        LOADING, RECOMPUTING, WRITING, DONE, FAILED
+    }
+
+    private final Logger logger;
+    private final Date started;
+
+    private final List<Map<String, Integer>> playerIndex;
+    private final List<String> playerIds;
+    private int[] playerChannels;
+    private final Map<String, Integer> channelIndex;
+    private final List<String> channelIds;
+    private final Map<Long, Integer> teamIndex;
+    private int[] teamPlayers;
+
+    private int tournaments;
+    private int[] tournamentIds;
+    private int[] tournamentChannels;
+    private int[] tournamentPlayers;
+    private int[] tournamentTeams;
+    private final BitSet teamAWins;
+
+    private double[] playerRatings;
+    private double[] teamRatings;
+    private double[] skillChanges;
+    private double[] snapshots;
+    private double[] playerRatingsAfter;
+
+    private int grouped;
+    private int[][] channelTournaments;
+    private int[][] channelPlayers;
+    private int[][] channelTeams;
+
+    private int replayed;
+    private int[] channelTotals;
+    private volatile AtomicIntegerArray channelProcessed;
+    private volatile Phase phase;
+    private volatile boolean stale;
+
+    public RatingRecomputation() {
+        this.logger = LogManager.getLogger();
+        this.started = new Date();
+        this.playerIndex = new ArrayList<>();
+        this.playerIds = new ArrayList<>();
+        this.playerChannels = new int[INITIAL_CAPACITY];
+        this.channelIndex = new HashMap<>();
+        this.channelIds = new ArrayList<>();
+        this.teamIndex = new HashMap<>();
+        this.teamPlayers = new int[INITIAL_CAPACITY * 2];
+        this.tournamentIds = new int[INITIAL_CAPACITY];
+        this.tournamentChannels = new int[INITIAL_CAPACITY];
+        this.tournamentPlayers = new int[INITIAL_CAPACITY * 4];
+        this.tournamentTeams = new int[INITIAL_CAPACITY * 2];
+        this.teamAWins = new BitSet();
+        this.phase = Phase.LOADING;
+    }
+
+    /**
+     * Adds the next finished tournament. Tournaments have to be added in the order they were
+     * played, and the players of each team in the order of the team's key.
+     */
+    public void add(final int tournamentId, final String channelId,
+                    final String teamAPlayer1, final String teamAPlayer2,
+                    final String teamBPlayer1, final String teamBPlayer2, final boolean teamAWon) {
+        if (tournaments == tournamentIds.length) {
+            final var capacity = tournaments * 2;
+            tournamentIds = Arrays.copyOf(tournamentIds, capacity);
+            tournamentChannels = Arrays.copyOf(tournamentChannels, capacity);
+            tournamentPlayers = Arrays.copyOf(tournamentPlayers, capacity * 4);
+            tournamentTeams = Arrays.copyOf(tournamentTeams, capacity * 2);
+        }
+
+        final var channel = index(channelIndex, channelIds, channelId);
+        if (channel == playerIndex.size()) {
+            playerIndex.add(new HashMap<>());
+        }
+        final var a1 = playerIndex(channel, teamAPlayer1);
+        final var a2 = playerIndex(channel, teamAPlayer2);
+        final var b1 = playerIndex(channel, teamBPlayer1);
+        final var b2 = playerIndex(channel, teamBPlayer2);
+
+        tournamentIds[tournaments] = tournamentId;
+        tournamentChannels[tournaments] = channel;
+        tournamentPlayers[tournaments * 4] = a1;
+        tournamentPlayers[tournaments * 4 + 1] = a2;
+        tournamentPlayers[tournaments * 4 + 2] = b1;
+        tournamentPlayers[tournaments * 4 + 3] = b2;
+        tournamentTeams[tournaments * 2] = teamIndex(a1, a2);
+        tournamentTeams[tournaments * 2 + 1] = teamIndex(b1, b2);
+        teamAWins.set(tournaments, teamAWon);
+        tournaments++;
+    }
+
+    private static int index(final Map<String, Integer> index, final List<String> ids,
+                             final String id) {
+        return index.computeIfAbsent(id, key -> {
+            ids.add(key);
+            return ids.size() - 1;
+        });
+    }
+
+    private int playerIndex(final int channel, final String id) {
+        return playerIndex.get(channel).computeIfAbsent(id, key -> {
+            final var player = playerIds.size();
+            if (player == playerChannels.length) {
+                playerChannels = Arrays.copyOf(playerChannels, player * 2);
+            }
+            playerIds.add(key);
+            playerChannels[player] = channel;
+            return player;
+        });
+    }
+
+    // player indices are unique per channel, so teams are too
+    private int teamIndex(final int player1, final int player2) {
+        final var key = (long) player1 << 32 | player2;
+        return teamIndex.computeIfAbsent(key, k -> {
+            final var team = teamIndex.size();
+            if (team * 2 == teamPlayers.length) {
+                teamPlayers = Arrays.copyOf(teamPlayers, teamPlayers.length * 2);
+            }
+            teamPlayers[team * 2] = player1;
+            teamPlayers[team * 2 + 1] = player2;
+            return team;
+        });
+    }
+
+    /**
+     * Replays all added tournaments on the given pool.
+     */
+    public void run(final ForkJoinPool pool) {
+        phase = Phase.RECOMPUTING;
+
+        final var players = playerIds.size();
+        playerRatings = defaultRatings(players);
+        teamRatings = defaultRatings(teamIndex.size());
+        skillChanges = new double[tournaments * 6];
+        snapshots = new double[tournaments * 12];
+        playerRatingsAfter = new double[tournaments * 8];
+
+        channelTotals = new int[channelIds.size()];
+        for (int t = 0; t < tournaments; t++) {
+            channelTotals[tournamentChannels[t]]++;
+        }
+        channelProcessed = new AtomicIntegerArray(channelIds.size());
+
+        // stable counting sort by channel keeps the tournaments of each channel in order
+        final var starts = new int[channelIds.size() + 1];
+        for (int c = 0; c < channelTotals.length; c++) {
+            starts[c + 1] = starts[c] + channelTotals[c];
+        }
+        final var positions = Arrays.copyOf(starts, channelTotals.length);
+        final var order = new int[tournaments];
+        for (int t = 0; t < tournaments; t++) {
+            order[positions[tournamentChannels[t]]++] = t;
+        }
+
+        final List<Replay> replays = new ArrayList<>();
+        for (int c = 0; c < channelTotals.length; c++) {
+            replays.add(new Replay(order, starts[c], starts[c + 1]));
+        }
+
+        logger.info("Recomputing {} tournaments of {} channels", tournaments, channelIds.size());
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(replays);
+            }
+        });
+        replayed = tournaments;
+        logger.info("Recomputed ratings of {} players and {} teams", players, teamIndex.size());
+    }
+
+    /**
+     * Replays the tournaments added since the last replay on top of the current ratings, as
+     * tournaments finished while the full replay ran.
+     */
+    public void replayAdded() {
+        if (replayed == tournaments) {
+            return;
+        }
+
+        playerRatings = withDefaultRatings(playerRatings, playerIds.size());
+        teamRatings = withDefaultRatings(teamRatings, teamIndex.size());
+        skillChanges = Arrays.copyOf(skillChanges, tournaments * 6);
+        snapshots = Arrays.copyOf(snapshots, tournaments * 12);
+        playerRatingsAfter = Arrays.copyOf(playerRatingsAfter, tournaments * 8);
+
+        channelTotals = Arrays.copyOf(channelTotals, channelIds.size());
+        final var processed = new AtomicIntegerArray(channelIds.size());
+        for (int c = 0; c < channelProcessed.length(); c++) {
+            processed.set(c, channelProcessed.get(c));
+        }
+        channelProcessed = processed;
+
+        final var scratch = new double[24];
+        for (int t = replayed; t < tournaments; t++) {
+            channelTotals[tournamentChannels[t]]++;
+            replay(t, scratch);
+        }
+        logger.info("Replayed {} tournaments finished during the recomputation",
+                    tournaments - replayed);
+        replayed = tournaments;
+    }
+
+    private static double[] defaultRatings(final int count) {
+        return withDefaultRatings(new double[0], count);
+    }
+
+    private static double[] withDefaultRatings(final double[] ratings, final int count) {
+        final var grown = Arrays.copyOf(ratings, count * 2);
+        for (int i = ratings.length; i < grown.length; i += 2) {
+            grown[i] = TrueSkillCalculator.DEFAULT_INITIAL_MEAN;
+            grown[i + 1] = TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION;
+        }
+        return grown;
+    }
+
+    private void replay(final int tournament, final double[] scratch) {
+        for (int i = 0; i < 4; i++) {
+            final var player = tournamentPlayers[tournament * 4 + i];
+            scratch[i * 2] = playerRatings[player * 2];
+            scratch[i * 2 + 1] = playerRatings[player * 2 + 1];
+        }
+        for (int i = 0; i < 2; i++) {
+            final var team = tournamentTeams[tournament * 2 + i];
+            scratch[8 + i * 2] = teamRatings[team * 2];
+            scratch[8 + i * 2 + 1] = teamRatings[team * 2 + 1];
+        }
+
+        final var teamAWon = teamAWins.get(tournament);
+        System.arraycopy(scratch, 0, snapshots, tournament * 12, 12);
+        System.arraycopy(scratch, 0, scratch, 12, 12);
+        TwoTeamTrueSkill.update2v2(scratch, 12, teamAWon);
+        TwoTeamTrueSkill.update1v1(scratch, 20, teamAWon);
+        System.arraycopy(scratch, 12, playerRatingsAfter, tournament * 8, 8);
+
+        for (int i = 0; i < 6; i++) {
+            skillChanges[tournament * 6 + i] =
+                    TwoTeamTrueSkill.conservativeRating(scratch[12 + i * 2], scratch[13 + i * 2])
+                    - TwoTeamTrueSkill.conservativeRating(scratch[i * 2], scratch[i * 2 + 1]);
+        }
+        for (int i = 0; i < 4; i++) {
+            final var player = tournamentPlayers[tournament * 4 + i];
+            playerRatings[player * 2] = scratch[12 + i * 2];
+            playerRatings[player * 2 + 1] = scratch[13 + i * 2];
+        }
+        for (int i = 0; i < 2; i++) {
+            final var team = tournamentTeams[tournament * 2 + i];
+            teamRatings[team * 2] = scratch[20 + i * 2];
+            teamRatings[team * 2 + 1] = scratch[21 + i * 2];
+        }
+
+        channelProcessed.incrementAndGet(tournamentChannels[tournament]);
+    }
+
+    private void group() {
+        if (channelTournaments != null && grouped == tournaments) {
+            return;
+        }
+        channelTournaments = group(tournaments, t -> tournamentChannels[t]);
+        channelPlayers = group(playerIds.size(), p -> playerChannels[p]);
+        channelTeams = group(teamIndex.size(), t -> playerChannels[teamPlayers[t * 2]]);
+        grouped = tournaments;
+    }
+
+    private int[][] group(final int count, final IntUnaryOperator channelOf) {
+        final var sizes = new int[channelIds.size()];
+        for (int i = 0; i < count; i++) {
+            sizes[channelOf.applyAsInt(i)]++;
+        }
+        final var groups = new int[sizes.length][];
+        for (int c = 0; c < sizes.length; c++) {
+            groups[c] = new int[sizes[c]];
+        }
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < count; i++) {
+            final var channel = channelOf.applyAsInt(i);
+            groups[channel][sizes[channel]++] = i;
+        }
+        return groups;
+    }
+
+    public boolean isRunning() {
+        return phase != Phase.DONE && phase != Phase.FAILED;
+    }
+
+    public void setPhase(final Phase phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Marks the loaded tournaments as outdated because a finished tournament was edited or
+     * deleted, so the recomputation has to start over instead of writing its ratings.
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Id of the last added tournament or {@code 0} if none was added.
+     */
+    public int getLastTournamentId() {
+        return tournaments == 0 ? 0 : tournamentIds[tournaments - 1];
+    }
+
+    public int getChannelCount() {
+        return channelIds.size();
+    }
+
+    public String getChannelId(final int channel) {
+        return channelIds.get(channel);
+    }
+
+    /**
+     * Indices of the tournaments of a channel in the order they were added.
+     */
+    public int[] getChannelTournaments(final int channel) {
+        group();
+        return channelTournaments[channel];
+    }
+
+    /**
+     * Indices of the players of a channel.
+     */
+    public int[] getChannelPlayers(final int channel) {
+        group();
+        return channelPlayers[channel];
+    }
+
+    /**
+     * Indices of the teams of a channel.
+     */
+    public int[] getChannelTeams(final int channel) {
+        group();
+        return channelTeams[channel];
+    }
+
+    public int getTournamentCount() {
+        return tournaments;
+    }
+
+    public int getTournamentId(final int tournament) {
+        return tournamentIds[tournament];
+    }
+
+    public String getTournamentPlayerId(final int tournament, final int index) {
+        return playerIds.get(tournamentPlayers[tournament * 4 + index]);
+    }
+
+    /**
+     * Skill changes of a tournament in the order of {@code teamAPlayer1}, {@code teamAPlayer2},
+     * {@code teamBPlayer1}, {@code teamBPlayer2}, {@code teamA} and {@code teamB}.
+     */
+    public double getSkillChange(final int tournament, final int slot) {
+        return skillChanges[tournament * 6 + slot];
+    }
+
+    /**
+     * Ratings before a tournament in the order of
+     * {@link de.gesundkrank.mrfoosball.models.RatingSnapshot#toArray()}.
+     */
+    public double getSnapshot(final int tournament, final int index) {
+        return snapshots[tournament * 12 + index];
+    }
+
+    /**
+     * Ratings of the four players after a tournament in the order of
+     * {@link TwoTeamTrueSkill#update2v2}.
+     */
+    public double getPlayerRatingAfter(final int tournament, final int index) {
+        return playerRatingsAfter[tournament * 8 + index];
+    }
+
+    public int getPlayerCount() {
+        return playerIds.size();
+    }
+
+    public String getPlayerId(final int player) {
+        return playerIds.get(player);
+    }
+
+    public String getPlayerChannelId(final int player) {
+        return channelIds.get(playerChannels[player]);
+    }
+
+    public double getPlayerMean(final int player) {
+        return playerRatings[player * 2];
+    }
+
+    public double getPlayerStandardDeviation(final int player) {
+        return playerRatings[player * 2 + 1];
+    }
+
+    public int getTeamCount() {
+        return teamIndex.size();
+    }
+
+    public String getTeamChannelId(final int team) {
+        return getPlayerChannelId(teamPlayers[team * 2]);
+    }
+
+    public String getTeamPlayer1Id(final int team) {
+        return playerIds.get(teamPlayers[team * 2]);
+    }
+
+    public String getTeamPlayer2Id(final int team) {
+        return playerIds.get(teamPlayers[team * 2 + 1]);
+    }
+
+    public double getTeamMean(final int team) {
+        return teamRatings[team * 2];
+    }
+
+    public double getTeamStandardDeviation(final int team) {
+        return teamRatings[team * 2 + 1];
+    }
+
+    /**
+     * Snapshot of the progress, per channel once the replay started.
+     */
+    public Progress getProgress() {
+        final var progress = new Progress();
+        progress.phase = phase;
+        progress.started = started;
+        progress.tournaments = tournaments;
+
+        final var processed = channelProcessed;
+        if (processed != null) {
+            for (int c = 0; c < channelTotals.length; c++) {
+                final var channel = new ChannelProgress();
+                channel.channelId = channelIds.get(c);
+                channel.processed = processed.get(c);
+                channel.tournaments = channelTotals[c];
+                progress.processed += channel.processed;
+                progress.channels.add(channel);
+            }
+        }
+        return progress;
+    }
+
+    private class Replay extends RecursiveAction {
+
+        private final int[] order;
+        private final int from;
+        private final int to;
+
+        private Replay(final int[] order, final int from, final int to) {
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            final var scratch = new double[24];
+            for (int i = from; i < to; i++) {
+                replay(order[i], scratch);
+            }
+        }
+    }
+
+    public static class Progress {
+
+        public Phase phase;
+        public Date started;
+        public int tournaments;
+        public int processed;
+        public List<ChannelProgress> channels = new ArrayList<>();
+    }
+
+    public static class ChannelProgress {
+
+        public String channelId;
+        public int processed;
+        public int tournaments;
+    }
+}
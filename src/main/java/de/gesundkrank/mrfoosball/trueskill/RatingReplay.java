@@ -0,0 +1,163 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays ratings from an edited or deleted tournament on, touching only the players and teams
+ * whose ratings depend on it.
+ *
+ * <p>The replay starts from the snapshot of the changed tournament. Every later tournament of the
+ * same channel is passed in order; one that involves an affected player or team is rated again
+ * from its own snapshot, with the affected ratings swapped in, and its players or teams become
+ * affected as well. All other tournaments are left untouched.
+ */
+public class RatingReplay {
+
+    private final Map<String, double[]> players;
+    private final Map<List<String>, double[]> teams;
+    private final double[] scratch;
+
+    /**
+     * Starts from the snapshot of the changed tournament.
+     *
+     * @param playerIds team A player 1 and 2, then team B player 1 and 2
+     * @param snapshot  the ratings as returned by
+     *                  {@link de.gesundkrank.mrfoosball.models.RatingSnapshot#toArray()}
+     */
+    public RatingReplay(final String[] playerIds, final double[] snapshot)
+            throws MissingSnapshotException {
+        this.players = new HashMap<>();
+        this.teams = new HashMap<>();
+        this.scratch = new double[8];
+
+        for (final var value : snapshot) {
+            if (Double.isNaN(value)) {
+                throw new MissingSnapshotException();
+            }
+        }
+
+        for (int i = 0; i < 4; i++) {
+            players.put(playerIds[i], new double[]{snapshot[i * 2], snapshot[i * 2 + 1]});
+        }
+        teams.put(teamA(playerIds), new double[]{snapshot[8], snapshot[9]});
+        teams.put(teamB(playerIds), new double[]{snapshot[10], snapshot[11]});
+    }
+
+    private static List<String> teamA(final String[] playerIds) {
+        return List.of(playerIds[0], playerIds[1]);
+    }
+
+    private static List<String> teamB(final String[] playerIds) {
+        return List.of(playerIds[2], playerIds[3]);
+    }
+
+    /**
+     * Rates a tournament again if it depends on an affected player or team. The stored snapshot
+     * and the six skill changes are updated in place.
+     *
+     * @return whether the snapshot or the skill changes were updated
+     */
+    public boolean replay(final String[] playerIds, final boolean teamAWins,
+                          final double[] snapshot, final double[] skillChanges)
+            throws MissingSnapshotException {
+        var playersAffected = false;
+        for (final var playerId : playerIds) {
+            playersAffected |= players.containsKey(playerId);
+        }
+        final var teamA = teamA(playerIds);
+        final var teamB = teamB(playerIds);
+        final var teamsAffected = teams.containsKey(teamA) || teams.containsKey(teamB);
+
+        if (playersAffected) {
+            final double[][] ratings = new double[4][];
+            for (int i = 0; i < 4; i++) {
+                ratings[i] = players.computeIfAbsent(playerIds[i], id -> new double[2]);
+            }
+            replay(ratings, snapshot, 0, skillChanges, 0, teamAWins);
+        }
+
+        if (teamsAffected) {
+            final double[][] ratings = {
+                teams.computeIfAbsent(teamA, id -> new double[2]),
+                teams.computeIfAbsent(teamB, id -> new double[2])
+            };
+            replay(ratings, snapshot, 8, skillChanges, 4, teamAWins);
+        }
+
+        return playersAffected || teamsAffected;
+    }
+
+    private void replay(final double[][] ratings, final double[] snapshot, final int offset,
+                        final double[] skillChanges, final int changeOffset,
+                        final boolean teamAWins) throws MissingSnapshotException {
+        // ratings that are not affected yet are new entries, they start from the snapshot
+        for (int i = 0; i < ratings.length; i++) {
+            if (ratings[i][1] == 0) {
+                if (Double.isNaN(snapshot[offset + i * 2])
+                    || Double.isNaN(snapshot[offset + i * 2 + 1])) {
+                    throw new MissingSnapshotException();
+                }
+                ratings[i][0] = snapshot[offset + i * 2];
+                ratings[i][1] = snapshot[offset + i * 2 + 1];
+            }
+            snapshot[offset + i * 2] = ratings[i][0];
+            snapshot[offset + i * 2 + 1] = ratings[i][1];
+            scratch[i * 2] = ratings[i][0];
+            scratch[i * 2 + 1] = ratings[i][1];
+        }
+
+        if (ratings.length == 4) {
+            TwoTeamTrueSkill.update2v2(scratch, 0, teamAWins);
+        } else {
+            TwoTeamTrueSkill.update1v1(scratch, 0, teamAWins);
+        }
+
+        for (int i = 0; i < ratings.length; i++) {
+            skillChanges[changeOffset + i] =
+                    TwoTeamTrueSkill.conservativeRating(scratch[i * 2], scratch[i * 2 + 1])
+                    - TwoTeamTrueSkill.conservativeRating(ratings[i][0], ratings[i][1]);
+            ratings[i][0] = scratch[i * 2];
+            ratings[i][1] = scratch[i * 2 + 1];
+        }
+    }
+
+    /**
+     * The replayed player ratings as (mean, standard deviation) by player id.
+     */
+    public Map<String, double[]> getPlayers() {
+        return players;
+    }
+
+    /**
+     * The replayed team ratings as (mean, standard deviation) by the ids of both players.
+     */
+    public Map<List<String>, double[]> getTeams() {
+        return teams;
+    }
+
+    public static class MissingSnapshotException extends Exception {
+
+        public MissingSnapshotException() {
+            super("Tournament was rated before rating snapshots were stored.");
+        }
+    }
+}
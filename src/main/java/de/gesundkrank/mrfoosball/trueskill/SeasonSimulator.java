@@ -0,0 +1,192 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates many seasons of a league of two-player teams to project the final standings.
+ *
+ * <p>Every fixture is decided by a coin flip weighted with the win probability of the current
+ * ratings, and the ratings are updated with the result as in a real tournament, so a team on a
+ * winning streak is favored for the rest of that season. A win is worth one point and teams with
+ * the same points are ranked randomly. Seasons are split into chunks that run in parallel on a
+ * {@link ForkJoinPool}, each with its own {@link SplittableRandom} split off in a fixed order, so
+ * the same seed always gives the same projection regardless of the parallelism.
+ */
+public class SeasonSimulator {
+
+    private static final int SEASONS_PER_TASK = 256;
+
+    private final double[] ratings;
+    private final int[] teamPlayers;
+    private final int[] fixtures;
+    private final int teams;
+
+    /**
+     * Creates a simulator for the given league.
+     *
+     * @param ratings     (mean, standard deviation) pairs of all players
+     * @param teamPlayers indices of player 1 and 2 of every team
+     * @param fixtures    indices of team A and team B of every game, in the order they are played
+     */
+    public SeasonSimulator(final double[] ratings, final int[] teamPlayers, final int[] fixtures) {
+        this.ratings = ratings;
+        this.teamPlayers = teamPlayers;
+        this.fixtures = fixtures;
+        this.teams = teamPlayers.length / 2;
+    }
+
+    /**
+     * Fixtures in which every team plays every other team {@code rounds} times, alternating home
+     * and away.
+     */
+    public static int[] roundRobin(final int teams, final int rounds) {
+        final var games = teams * (teams - 1) / 2;
+        final var fixtures = new int[games * rounds * 2];
+        var index = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int a = 0; a < teams; a++) {
+                for (int b = a + 1; b < teams; b++) {
+                    fixtures[index++] = round % 2 == 0 ? a : b;
+                    fixtures[index++] = round % 2 == 0 ? b : a;
+                }
+            }
+        }
+        return fixtures;
+    }
+
+    /**
+     * Simulates the given number of seasons.
+     *
+     * @return how often each team finished in each position, team {@code t} finishing in position
+     *         {@code p} (0 is first) at {@code t * teams + p}
+     */
+    public int[] run(final int seasons, final long seed, final ForkJoinPool pool) {
+        return pool.invoke(new Simulation(new SplittableRandom(seed), 0, seasons));
+    }
+
+    public int getTeamCount() {
+        return teams;
+    }
+
+    private void simulate(final SplittableRandom random, final int seasons,
+                          final int[] positions) {
+        final var season = new double[ratings.length];
+        final var game = new double[8];
+        final var points = new double[teams];
+        final var order = new int[teams];
+
+        for (int s = 0; s < seasons; s++) {
+            System.arraycopy(ratings, 0, season, 0, ratings.length);
+            for (int t = 0; t < teams; t++) {
+                // random tie breaker below the value of a win
+                points[t] = random.nextDouble();
+            }
+
+            for (int f = 0; f < fixtures.length; f += 2) {
+                final var teamA = fixtures[f];
+                final var teamB = fixtures[f + 1];
+                copy(season, teamA, game, 0);
+                copy(season, teamB, game, 4);
+
+                final var probability = TwoTeamTrueSkill.winProbability(
+                        game[0], game[1], game[2], game[3], game[4], game[5], game[6], game[7]);
+                final var teamAWins = random.nextDouble() < probability;
+                points[teamAWins ? teamA : teamB]++;
+
+                TwoTeamTrueSkill.update2v2(game, 0, teamAWins);
+                copyBack(game, 0, season, teamA);
+                copyBack(game, 4, season, teamB);
+            }
+
+            rank(points, order);
+            for (int p = 0; p < teams; p++) {
+                positions[order[p] * teams + p]++;
+            }
+        }
+    }
+
+    private void copy(final double[] season, final int team, final double[] game,
+                      final int offset) {
+        final var player1 = teamPlayers[team * 2] * 2;
+        final var player2 = teamPlayers[team * 2 + 1] * 2;
+        game[offset] = season[player1];
+        game[offset + 1] = season[player1 + 1];
+        game[offset + 2] = season[player2];
+        game[offset + 3] = season[player2 + 1];
+    }
+
+    private void copyBack(final double[] game, final int offset, final double[] season,
+                          final int team) {
+        final var player1 = teamPlayers[team * 2] * 2;
+        final var player2 = teamPlayers[team * 2 + 1] * 2;
+        season[player1] = game[offset];
+        season[player1 + 1] = game[offset + 1];
+        season[player2] = game[offset + 2];
+        season[player2 + 1] = game[offset + 3];
+    }
+
+    /**
+     * Sorts the teams by points, most first. Leagues are small, so insertion sort it is.
+     */
+    private static void rank(final double[] points, final int[] order) {
+        for (int i = 0; i < order.length; i++) {
+            var j = i;
+            while (j > 0 && points[order[j - 1]] < points[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+    }
+
+    private class Simulation extends RecursiveTask<int[]> {
+
+        private final SplittableRandom random;
+        private final int from;
+        private final int to;
+
+        private Simulation(final SplittableRandom random, final int from, final int to) {
+            this.random = random;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= SEASONS_PER_TASK) {
+                final var positions = new int[teams * teams];
+                simulate(random, to - from, positions);
+                return positions;
+            }
+
+            final var middle = (from + to) >>> 1;
+            final var right = new Simulation(random.split(), middle, to);
+            right.fork();
+            final var positions = new Simulation(random, from, middle).compute();
+            final var rightPositions = right.join();
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] += rightPositions[i];
+            }
+            return positions;
+        }
+    }
+}
@@ -17,52 +17,43 @@
 
 package de.gesundkrank.mrfoosball.trueskill;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import de.gesundkrank.jskills.IPlayer;
-import de.gesundkrank.jskills.ITeam;
-import de.gesundkrank.jskills.Player;
-import de.gesundkrank.jskills.Rating;
-import de.gesundkrank.jskills.Team;
-
+import de.gesundkrank.mrfoosball.models.RatingSnapshot;
+import de.gesundkrank.mrfoosball.models.Team;
 import de.gesundkrank.mrfoosball.models.Tournament;
 import de.gesundkrank.mrfoosball.store.hibernate.Store;
 
 public class TeamTrueSkillCalculator extends TrueSkillCalculator {
 
+    public TeamTrueSkillCalculator() {
+        super("team");
+    }
+
     @Override
-    public Tournament updateRatings(Tournament tournament) {
+    protected Tournament update(Tournament tournament) {
         try (final var store = new Store()) {
-            final var teamA = store.getTeam(tournament.teamA.player1, tournament.teamA.player2);
-            final var teamB = store.getTeam(tournament.teamB.player1, tournament.teamB.player2);
+            final var teamA = tournament.teamA;
+            final var teamB = tournament.teamB;
+            store.loadRating(tournament.channel.id, teamA);
+            store.loadRating(tournament.channel.id, teamB);
 
             final double teamSkillA = teamSkill(teamA);
             final double teamSkillB = teamSkill(teamB);
 
-            final List<ITeam> teams = new ArrayList<>();
-
-            final IPlayer iTeamA = new Player<>(teamA.toString());
-            final IPlayer iTeamB = new Player<>(teamB.toString());
-
-            teams.add(toTeam(iTeamA, teamA));
-            teams.add(toTeam(iTeamB, teamB));
+            final double[] ratings = {
+                teamA.trueSkillMean, teamA.trueSkillStandardDeviation,
+                teamB.trueSkillMean, teamB.trueSkillStandardDeviation
+            };
+            if (tournament.ratingsBefore == null) {
+                tournament.ratingsBefore = new RatingSnapshot();
+            }
+            tournament.ratingsBefore.setTeams(ratings);
+            TwoTeamTrueSkill.update1v1(ratings, 0, teamAWins(tournament));
 
-            final var newRatings = skillCalculator
-                    .calculateNewRatings(gameInfo, teams,
-                                         rankTeamA(tournament),
-                                         rankTeamB(tournament));
+            teamA.updateRating(ratings[0], ratings[1]);
+            final var teamASkillChange = teamSkill(teamA) - teamSkillA;
 
-            var rating = newRatings.get(iTeamA);
-            teamA.updateRating(rating);
-            final var teamASkillChange = rating.getConservativeRating() - teamSkillA;
-
-            rating = newRatings.get(iTeamB);
-            teamB.updateRating(rating);
-            final var teamBSkillChange = rating.getConservativeRating() - teamSkillB;
-
-            tournament.teamA = teamA;
-            tournament.teamB = teamB;
+            teamB.updateRating(ratings[2], ratings[3]);
+            final var teamBSkillChange = teamSkill(teamB) - teamSkillB;
 
             tournament.teamASkillChange = teamASkillChange;
             tournament.teamBSkillChange = teamBSkillChange;
@@ -72,21 +63,8 @@ public class TeamTrueSkillCalculator extends TrueSkillCalculator {
 
     }
 
-    private double teamSkill(final de.gesundkrank.mrfoosball.models.Team team) {
-        return getRating(team.trueSkillMean, team.trueSkillStandardDeviation);
-    }
-
-    private static double getRating(final Double trueSkillMean,
-                                    final Double trueSkillStandardDeviation) {
-        final var rating = new Rating(trueSkillMean, trueSkillStandardDeviation);
-        return rating.getConservativeRating();
-    }
-
-    private ITeam toTeam(final IPlayer trueSkillTeam,
-                         final de.gesundkrank.mrfoosball.models.Team team) {
-        final var team1 = new Team();
-        team1.addPlayer(trueSkillTeam,
-                        new Rating(team.trueSkillMean, team.trueSkillStandardDeviation));
-        return team1;
+    private double teamSkill(final Team team) {
+        return TwoTeamTrueSkill.conservativeRating(team.trueSkillMean,
+                                                   team.trueSkillStandardDeviation);
     }
 }
@@ -17,19 +17,10 @@
 
 package de.gesundkrank.mrfoosball.trueskill;
 
-import java.util.LinkedList;
-import java.util.List;
-
-import de.gesundkrank.jskills.GameInfo;
-import de.gesundkrank.jskills.IPlayer;
-import de.gesundkrank.jskills.ITeam;
-import de.gesundkrank.jskills.Player;
-import de.gesundkrank.jskills.Rating;
-import de.gesundkrank.jskills.SkillCalculator;
-import de.gesundkrank.jskills.Team;
-import de.gesundkrank.jskills.trueskill.TwoTeamTrueSkillCalculator;
-
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+import de.gesundkrank.mrfoosball.metrics.Timer;
 import de.gesundkrank.mrfoosball.models.Tournament;
+import de.gesundkrank.mrfoosball.tracing.Tracer;
 
 public abstract class TrueSkillCalculator {
 
@@ -39,31 +30,23 @@ public abstract class TrueSkillCalculator {
     public static final double DEFAULT_DYNAMICS_FACTOR = DEFAULT_INITIAL_MEAN / 300.0;
     public static final double DEFAULT_INITIAL_STANDARD_DEVIATION = DEFAULT_INITIAL_MEAN / 3.0;
 
-    static final SkillCalculator skillCalculator;
-    static final GameInfo gameInfo;
+    private final String model;
+    private final Tracer tracer;
+    private final Timer updateTimer;
 
-    static {
-        skillCalculator = new TwoTeamTrueSkillCalculator();
-        gameInfo = new GameInfo(DEFAULT_INITIAL_MEAN, DEFAULT_INITIAL_STANDARD_DEVIATION,
-                                DEFAULT_BETA, DEFAULT_DYNAMICS_FACTOR,
-                                DEFAULT_DRAW_PROBABILITY);
+    protected TrueSkillCalculator(final String model) {
+        this.model = model;
+        this.tracer = Tracer.getInstance();
+        this.updateTimer = Metrics.getInstance().timer("trueskill_update_seconds", "model", model);
     }
 
-    public abstract Tournament updateRatings(final Tournament tournament);
-
-    static ITeam toTeam(final IPlayer trueSkillPlayer1,
-                        final de.gesundkrank.mrfoosball.models.Player player1,
-                        final IPlayer trueSkillPlayer2,
-                        final de.gesundkrank.mrfoosball.models.Player player2) {
-        final var team = new Team();
-        team.addPlayer(trueSkillPlayer1, new Rating(player1.trueSkillMean,
-                                                    player1.trueSkillStandardDeviation));
-        team.addPlayer(trueSkillPlayer2, new Rating(player2.trueSkillMean,
-                                                    player2.trueSkillStandardDeviation));
-        return team;
+    public Tournament updateRatings(final Tournament tournament) {
+        return tracer.call("trueskill " + model, updateTimer, () -> update(tournament));
     }
 
-    private boolean teamAWins(final Tournament tournament) {
+    protected abstract Tournament update(final Tournament tournament);
+
+    public static boolean teamAWins(final Tournament tournament) {
         int winsTeamA = 0;
         for (final var match : tournament.matches) {
             if (match.teamA >= match.teamB) {
@@ -73,59 +56,4 @@ public abstract class TrueSkillCalculator {
 
         return winsTeamA > (tournament.bestOfN - 1) / 2;
     }
-
-    int rankTeamA(final Tournament tournament) {
-        return teamAWins(tournament) ? 1 : 2;
-    }
-
-    int rankTeamB(final Tournament tournament) {
-        return teamAWins(tournament) ? 2 : 1;
-    }
-
-    public static List<de.gesundkrank.mrfoosball.models.Player> getBestMatch(
-            final List<de.gesundkrank.mrfoosball.models.Player> playerList
-    ) {
-        final var player1 = playerList.get(0);
-        final var player2 = playerList.get(1);
-        final var player3 = playerList.get(2);
-        final var player4 = playerList.get(3);
-        final double quality1234 = calcMatchQuality(player1, player2, player3, player4);
-        final double quality1324 = calcMatchQuality(player1, player3, player2, player4);
-        final double quality1423 = calcMatchQuality(player1, player4, player2, player3);
-
-        final List<de.gesundkrank.mrfoosball.models.Player> bestMatch = new LinkedList<>();
-        if (quality1234 >= Math.max(quality1324, quality1423)) {
-            bestMatch.add(player1);
-            bestMatch.add(player2);
-            bestMatch.add(player3);
-            bestMatch.add(player4);
-        } else if (quality1324 >= Math.max(quality1234, quality1423)) {
-            bestMatch.add(player1);
-            bestMatch.add(player3);
-            bestMatch.add(player2);
-            bestMatch.add(player4);
-        } else {
-            bestMatch.add(player1);
-            bestMatch.add(player4);
-            bestMatch.add(player2);
-            bestMatch.add(player3);
-        }
-
-        return bestMatch;
-    }
-
-    private static double calcMatchQuality(final de.gesundkrank.mrfoosball.models.Player player1,
-                                           final de.gesundkrank.mrfoosball.models.Player player2,
-                                           final de.gesundkrank.mrfoosball.models.Player player3,
-                                           final de.gesundkrank.mrfoosball.models.Player player4) {
-        final IPlayer iPlayer1 = new Player<>(player1.id);
-        final IPlayer iPlayer2 = new Player<>(player2.id);
-        final IPlayer iPlayer3 = new Player<>(player3.id);
-        final IPlayer iPlayer4 = new Player<>(player4.id);
-
-        final List<ITeam> teams = new LinkedList<>();
-        teams.add(toTeam(iPlayer1, player1, iPlayer2, player2));
-        teams.add(toTeam(iPlayer3, player3, iPlayer4, player4));
-        return skillCalculator.calculateMatchQuality(gameInfo, teams);
-    }
 }
@@ -0,0 +1,208 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+/**
+ * TrueSkill for two teams of one or two players, working on primitive doubles only.
+ *
+ * <p>This follows the two-team calculator of jskills with our {@link TrueSkillCalculator} defaults
+ * (beta, dynamics factor, no draws), but nothing is allocated per call. Ratings are passed as
+ * (mean, standard deviation) pairs, team A first: {@code [meanA1, sdA1, meanA2, sdA2, meanB1, sdB1,
+ * meanB2, sdB2]} for 2v2 and {@code [meanA, sdA, meanB, sdB]} for 1v1.
+ */
+public final class TwoTeamTrueSkill {
+
+    public static final double CONSERVATIVE_STANDARD_DEVIATION_MULTIPLIER = 3;
+
+    private static final double BETA_SQUARED =
+            TrueSkillCalculator.DEFAULT_BETA * TrueSkillCalculator.DEFAULT_BETA;
+    private static final double TAU_SQUARED =
+            TrueSkillCalculator.DEFAULT_DYNAMICS_FACTOR
+            * TrueSkillCalculator.DEFAULT_DYNAMICS_FACTOR;
+    // a draw probability of zero results in a draw margin of zero
+    private static final double DRAW_MARGIN = 0;
+
+    private static final double INV_SQRT_2 = -0.707106781186547524400844362104;
+    private static final double INV_SQRT_2_PI = 1 / Math.sqrt(2 * Math.PI);
+    private static final double MIN_CUMULATIVE = 2.222758749e-162;
+    private static final double[] ERFC_COEFFICIENTS = {
+        -1.3026537197817094, 6.4196979235649026e-1, 1.9476473204185836e-2,
+        -9.561514786808631e-3, -9.46595344482036e-4, 3.66839497852761e-4, 4.2523324806907e-5,
+        -2.0278578112534e-5, -1.624290004647e-6, 1.303655835580e-6, 1.5626441722e-8,
+        -8.5238095915e-8, 6.529054439e-9, 5.059343495e-9, -9.91364156e-10, -2.27365122e-10,
+        9.6467911e-11, 2.394038e-12, -6.886027e-12, 8.94487e-13, 3.13092e-13, -1.12708e-13,
+        3.81e-16, 7.106e-15, -1.523e-15, -9.4e-17, 1.21e-16, -2.8e-17
+    };
+
+    private TwoTeamTrueSkill() {
+    }
+
+    /**
+     * Match quality of two teams of two players.
+     */
+    public static double matchQuality(final double meanA1, final double sdA1,
+                                      final double meanA2, final double sdA2,
+                                      final double meanB1, final double sdB1,
+                                      final double meanB2, final double sdB2) {
+        return matchQuality(4, meanA1 + meanA2 - meanB1 - meanB2,
+                            sdA1 * sdA1 + sdA2 * sdA2 + sdB1 * sdB1 + sdB2 * sdB2);
+    }
+
+    /**
+     * Match quality of two single players or teams rated as one.
+     */
+    public static double matchQuality(final double meanA, final double sdA,
+                                      final double meanB, final double sdB) {
+        return matchQuality(2, meanA - meanB, sdA * sdA + sdB * sdB);
+    }
+
+    private static double matchQuality(final int players, final double meanDelta,
+                                       final double varianceSum) {
+        final var betaSum = players * BETA_SQUARED;
+        final var denominator = betaSum + varianceSum;
+        return Math.exp(-meanDelta * meanDelta / (2 * denominator))
+               * Math.sqrt(betaSum / denominator);
+    }
+
+    /**
+     * Probability that team A beats team B, both of two players.
+     */
+    public static double winProbability(final double meanA1, final double sdA1,
+                                        final double meanA2, final double sdA2,
+                                        final double meanB1, final double sdB1,
+                                        final double meanB2, final double sdB2) {
+        return winProbability(4, meanA1 + meanA2 - meanB1 - meanB2,
+                              sdA1 * sdA1 + sdA2 * sdA2 + sdB1 * sdB1 + sdB2 * sdB2);
+    }
+
+    /**
+     * Probability that A beats B, both single players or teams rated as one.
+     */
+    public static double winProbability(final double meanA, final double sdA,
+                                        final double meanB, final double sdB) {
+        return winProbability(2, meanA - meanB, sdA * sdA + sdB * sdB);
+    }
+
+    private static double winProbability(final int players, final double meanDelta,
+                                         final double varianceSum) {
+        return cumulativeTo(meanDelta / Math.sqrt(players * BETA_SQUARED + varianceSum));
+    }
+
+    /**
+     * Updates the eight ratings of a 2v2 game in place, starting at {@code offset}.
+     */
+    public static void update2v2(final double[] ratings, final int offset,
+                                 final boolean teamAWins) {
+        update(ratings, offset, 2, teamAWins);
+    }
+
+    /**
+     * Updates the four ratings of a 1v1 game in place, starting at {@code offset}.
+     */
+    public static void update1v1(final double[] ratings, final int offset,
+                                 final boolean teamAWins) {
+        update(ratings, offset, 1, teamAWins);
+    }
+
+    private static void update(final double[] ratings, final int offset,
+                               final int playersPerTeam, final boolean teamAWins) {
+        final var teamB = offset + 2 * playersPerTeam;
+        final var end = teamB + 2 * playersPerTeam;
+
+        var meanA = 0.0;
+        var meanB = 0.0;
+        var varianceSum = 0.0;
+        for (int i = offset; i < end; i += 2) {
+            if (i < teamB) {
+                meanA += ratings[i];
+            } else {
+                meanB += ratings[i];
+            }
+            varianceSum += ratings[i + 1] * ratings[i + 1];
+        }
+
+        final var c = Math.sqrt(varianceSum + 2 * playersPerTeam * BETA_SQUARED);
+        final var meanDelta = teamAWins ? meanA - meanB : meanB - meanA;
+        final var t = meanDelta / c;
+        final var epsilon = DRAW_MARGIN / c;
+        final var v = meanCorrection(t, epsilon);
+        final var w = varianceCorrection(t, epsilon, v);
+
+        for (int i = offset; i < end; i += 2) {
+            final var rankMultiplier = (i < teamB) == teamAWins ? 1 : -1;
+            final var variance = ratings[i + 1] * ratings[i + 1] + TAU_SQUARED;
+            ratings[i] += rankMultiplier * variance / c * v;
+            ratings[i + 1] = Math.sqrt(variance * (1 - w * variance / (c * c)));
+        }
+    }
+
+    public static double conservativeRating(final double mean, final double standardDeviation) {
+        return mean - CONSERVATIVE_STANDARD_DEVIATION_MULTIPLIER * standardDeviation;
+    }
+
+    private static double meanCorrection(final double t, final double epsilon) {
+        final var denominator = cumulativeTo(t - epsilon);
+        if (denominator < MIN_CUMULATIVE) {
+            return -t + epsilon;
+        }
+        return density(t - epsilon) / denominator;
+    }
+
+    private static double varianceCorrection(final double t, final double epsilon, final double v) {
+        final var denominator = cumulativeTo(t - epsilon);
+        if (denominator < MIN_CUMULATIVE) {
+            return t < 0 ? 1 : 0;
+        }
+        return v * (v + t - epsilon);
+    }
+
+    /**
+     * Density of the standard normal distribution.
+     */
+    static double density(final double x) {
+        return INV_SQRT_2_PI * Math.exp(-x * x / 2);
+    }
+
+    /**
+     * Cumulative distribution function of the standard normal distribution.
+     */
+    static double cumulativeTo(final double x) {
+        return 0.5 * erfc(INV_SQRT_2 * x);
+    }
+
+    /**
+     * Complementary error function, Chebyshev approximation from Numerical Recipes as used by
+     * jskills.
+     */
+    private static double erfc(final double x) {
+        final var z = Math.abs(x);
+        final var t = 2.0 / (2.0 + z);
+        final var ty = 4 * t - 2;
+
+        var d = 0.0;
+        var dd = 0.0;
+        for (int j = ERFC_COEFFICIENTS.length - 1; j > 0; j--) {
+            final var tmp = d;
+            d = ty * d - dd + ERFC_COEFFICIENTS[j];
+            dd = tmp;
+        }
+
+        final var ans = t * Math.exp(-z * z + 0.5 * (ERFC_COEFFICIENTS[0] + ty * d) - dd);
+        return x >= 0.0 ? ans : 2.0 - ans;
+    }
+}
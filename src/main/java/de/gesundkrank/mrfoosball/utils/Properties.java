@@ -121,4 +121,112 @@ public class Properties {
     public String getSlackSigningSecret() {
         return properties.getProperty("slackSigningSecret");
     }
+
+    public String getSlackApiUrl() {
+        return properties.getProperty("slackApiUrl", "https://slack.com");
+    }
+
+    public int getSlackMaxConnections() {
+        return Integer.parseInt(properties.getProperty("slackMaxConnections", "20"));
+    }
+
+    public int getSlackMaxInFlight() {
+        return Integer.parseInt(properties.getProperty("slackMaxInFlight", "8"));
+    }
+
+    public int getSlackMaxAttempts() {
+        return Integer.parseInt(properties.getProperty("slackMaxAttempts", "5"));
+    }
+
+    public long getSlackUserCacheTtl() {
+        return Long.parseLong(properties.getProperty("slackUserCacheTtl", "3600"));
+    }
+
+    public boolean getSlackPrefetchUsers() {
+        return Boolean.parseBoolean(properties.getProperty("slackPrefetchUsers", "false"));
+    }
+
+    public long getSlackEventDedupWindow() {
+        return Long.parseLong(properties.getProperty("slackEventDedupWindow", "600"));
+    }
+
+    public int getSlackEventDedupMaxSize() {
+        return Integer.parseInt(properties.getProperty("slackEventDedupMaxSize", "10000"));
+    }
+
+    public boolean getSlackEventDedupZookeeper() {
+        return Boolean.parseBoolean(properties.getProperty("slackEventDedupZookeeper", "false"));
+    }
+
+    public boolean getSlackAnnounceRecords() {
+        return Boolean.parseBoolean(properties.getProperty("slackAnnounceRecords", "false"));
+    }
+
+    public long getScoreboardUpdateDelay() {
+        return Long.parseLong(properties.getProperty("scoreboardUpdateDelay", "1000"));
+    }
+
+    public String getAdminToken() {
+        return properties.getProperty("adminToken");
+    }
+
+    public int getRecomputeParallelism() {
+        return Integer.parseInt(properties.getProperty(
+                "recomputeParallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+    }
+
+    public int getSimulationParallelism() {
+        return Integer.parseInt(properties.getProperty(
+                "simulationParallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+    }
+
+    public int getWorkspaceParallelism() {
+        return Integer.parseInt(properties.getProperty("workspaceParallelism", "4"));
+    }
+
+    public boolean getTracing() {
+        return Boolean.parseBoolean(properties.getProperty("tracing", "true"));
+    }
+
+    public double getTraceSampleRate() {
+        return Double.parseDouble(properties.getProperty("traceSampleRate", "0.01"));
+    }
+
+    public long getTraceSlowThreshold() {
+        return Long.parseLong(properties.getProperty("traceSlowThreshold", "500"));
+    }
+
+    public int getTraceBufferSize() {
+        return Integer.parseInt(properties.getProperty("traceBufferSize", "200"));
+    }
+
+    public int getRecomputeBatchSize() {
+        return Integer.parseInt(properties.getProperty("recomputeBatchSize", "1000"));
+    }
+
+    public int getMaxQueueSize() {
+        return Integer.parseInt(properties.getProperty("maxQueueSize", "32"));
+    }
+
+    public double getMatchmakingQualityWeight() {
+        return Double.parseDouble(properties.getProperty("matchmakingQualityWeight", "1.0"));
+    }
+
+    public double getMatchmakingWaitWeight() {
+        return Double.parseDouble(properties.getProperty("matchmakingWaitWeight", "0.02"));
+    }
+
+    public long getMatchmakingMaxWait() {
+        return Long.parseLong(properties.getProperty("matchmakingMaxWait", "30"));
+    }
+
+    public double getMatchmakingRecentPenalty() {
+        return Double.parseDouble(properties.getProperty("matchmakingRecentPenalty", "0.3"));
+    }
+
+    public int getMatchmakingRecentTournaments() {
+        return Integer.parseInt(properties.getProperty("matchmakingRecentTournaments", "2"));
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.utils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.ws.rs.core.EntityTag;
+
+import com.google.zxing.WriterException;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Keeps the encoded QR codes of the channels in memory. The code of a channel never changes, so
+ * every (channel, size, format) combination only has to be rendered once.
+ */
+public class QRCodeCache {
+
+    public static final int MIN_SIZE = 64;
+    public static final int MAX_SIZE = 2048;
+    public static final String PNG = "image/png";
+    public static final String SVG = "image/svg+xml";
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private static volatile QRCodeCache INSTANCE;
+
+    public static QRCodeCache getInstance() {
+        if (INSTANCE == null) {
+            synchronized (QRCodeCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new QRCodeCache();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final QRCodeGenerator qrCodeGenerator;
+    private final int defaultSize;
+    private final Map<Key, QRCode> codes;
+
+    QRCodeCache() {
+        this.qrCodeGenerator = new QRCodeGenerator();
+        this.defaultSize = Properties.getInstance().getQRCodeSize();
+        this.codes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, QRCode> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        });
+    }
+
+    public int getDefaultSize() {
+        return defaultSize;
+    }
+
+    public QRCode get(final String channelId, final int size, final String mediaType)
+            throws IOException, WriterException {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("QR code size must be between %d and %d", MIN_SIZE, MAX_SIZE));
+        }
+
+        final var key = new Key(channelId, size, mediaType);
+        var code = codes.get(key);
+        if (code == null) {
+            // Rendering twice on a concurrent miss is cheaper than serializing all renders.
+            code = new QRCode(render(channelId, size, mediaType), mediaType);
+            codes.put(key, code);
+        }
+        return code;
+    }
+
+    private byte[] render(final String channelId, final int size, final String mediaType)
+            throws IOException, WriterException {
+        switch (mediaType) {
+            case PNG:
+                return qrCodeGenerator.generatePng(channelId, size);
+            case SVG:
+                return qrCodeGenerator.generateSvg(channelId, size);
+            default:
+                throw new IllegalArgumentException("Unsupported media type " + mediaType);
+        }
+    }
+
+    public static class QRCode {
+
+        public final byte[] content;
+        public final String mediaType;
+        public final EntityTag entityTag;
+
+        QRCode(final byte[] content, final String mediaType) {
+            this.content = content;
+            this.mediaType = mediaType;
+            this.entityTag = new EntityTag(DigestUtils.sha256Hex(content));
+        }
+    }
+
+    private static class Key {
+
+        private final String channelId;
+        private final int size;
+        private final String mediaType;
+
+        Key(final String channelId, final int size, final String mediaType) {
+            this.channelId = channelId;
+            this.size = size;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final var key = (Key) obj;
+            return size == key.size && channelId.equals(key.channelId)
+                   && mediaType.equals(key.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, size, mediaType);
+        }
+    }
+}
@@ -17,65 +17,102 @@
 
 package de.gesundkrank.mrfoosball.utils;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Hashtable;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
 import javax.imageio.ImageIO;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 
 public class QRCodeGenerator {
 
+    private static final Map<EncodeHintType, Object> HINTS = new EnumMap<>(EncodeHintType.class);
+
+    static {
+        HINTS.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.L);
+    }
+
     private final QRCodeWriter qrCodeWriter;
-    private final int size;
 
     public QRCodeGenerator() {
-        final Properties properties = Properties.getInstance();
         this.qrCodeWriter = new QRCodeWriter();
-        this.size = properties.getQRCodeSize();
     }
 
-    public byte[] generateChannelId(final String channelId) throws IOException, WriterException {
-        return generateQRCode(channelId);
+    public byte[] generatePng(final String text, final int size)
+            throws WriterException, IOException {
+        final BitMatrix bitMatrix =
+                qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, size, size, HINTS);
+        final int width = bitMatrix.getWidth();
+        final int height = bitMatrix.getHeight();
+
+        // In the default palette of a binary image index 0 is black and 1 is white. The raster
+        // starts out all black, so only the white modules have to be set.
+        final BufferedImage image =
+                new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        final byte[] raster = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        final int bytesPerRow = (width + 7) / 8;
+
+        BitArray row = new BitArray(width);
+        for (int y = 0; y < height; y++) {
+            row = bitMatrix.getRow(y, row);
+            final int offset = y * bytesPerRow;
+            for (int x = 0; x < width; x++) {
+                if (!row.get(x)) {
+                    raster[offset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
     }
 
-    private byte[] generateQRCode(final String text) throws WriterException, IOException {
-        // Create the ByteMatrix for the QR-Code that encodes the given String
-        Hashtable<EncodeHintType, ErrorCorrectionLevel> hintMap = new Hashtable<>();
-        hintMap.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.L);
-
-        BitMatrix byteMatrix =
-                qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, size, size, hintMap);
-        // Make the BufferedImage that are to hold the QRCode
-        int matrixSize = byteMatrix.getWidth();
-        BufferedImage image =
-                new BufferedImage(matrixSize, matrixSize, BufferedImage.TYPE_INT_RGB);
-        image.createGraphics();
-
-        Graphics2D graphics = (Graphics2D) image.getGraphics();
-        graphics.setColor(Color.WHITE);
-        graphics.fillRect(0, 0, matrixSize, matrixSize);
-        // Paint and save the image using the ByteMatrix
-        graphics.setColor(Color.BLACK);
-
-        for (int i = 0; i < matrixSize; i++) {
-            for (int j = 0; j < matrixSize; j++) {
-                if (byteMatrix.get(i, j)) {
-                    graphics.fillRect(i, j, 1, 1);
+    public byte[] generateSvg(final String text, final int size) throws WriterException {
+        // Encoding with a size of 0 returns one bit per module, the viewBox scales it up.
+        final BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, 0, 0, HINTS);
+        final int width = bitMatrix.getWidth();
+        final int height = bitMatrix.getHeight();
+
+        final StringBuilder svg = new StringBuilder(4096);
+        svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+                .append("<path fill=\"#000\" d=\"");
+
+        // Draw every horizontal run of black modules as one rectangle.
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!bitMatrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+
+                final int start = x;
+                while (x < width && bitMatrix.get(x, y)) {
+                    x++;
                 }
+                svg.append('M').append(start).append(' ').append(y)
+                        .append('h').append(x - start).append("v1h-").append(x - start)
+                        .append('z');
             }
         }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", baos);
-        return baos.toByteArray();
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
     }
 }
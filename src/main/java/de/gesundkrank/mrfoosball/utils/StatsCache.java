@@ -0,0 +1,166 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import de.gesundkrank.mrfoosball.metrics.Counter;
+import de.gesundkrank.mrfoosball.metrics.Metrics;
+
+/**
+ * Read-through cache for the stats of the channels, dropped per channel whenever its tournaments
+ * change.
+ *
+ * <p>Concurrent misses for the same stats share one computation: the first request computes them
+ * in its own thread and the others wait for its result. A computation that was started before
+ * its channel was invalidated still answers the requests waiting for it, but is not cached.
+ */
+public class StatsCache {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Map<Key, Object> values;
+    private final Map<Key, CompletableFuture<Object>> inFlight;
+    private final Map<String, AtomicLong> generations;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public StatsCache() {
+        this.values = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Object> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        });
+        this.inFlight = new ConcurrentHashMap<>();
+        this.generations = new ConcurrentHashMap<>();
+
+        final var metrics = Metrics.getInstance();
+        this.hits = metrics.counter("stats_cache_requests_total", "result", "hit");
+        this.misses = metrics.counter("stats_cache_requests_total", "result", "miss");
+        this.coalesced = metrics.counter("stats_cache_requests_total", "result", "coalesced");
+        metrics.gauge("stats_cache_hit_ratio", this::getHitRatio);
+        metrics.gauge("stats_cache_entries", values::size);
+    }
+
+    /**
+     * Returns the cached stats of a channel or computes them with the given loader.
+     *
+     * @param query identifies the stats within the channel, including all their parameters
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String channelId, final String query, final Supplier<T> loader) {
+        final var key = new Key(channelId, query);
+        final var value = values.get(key);
+        if (value != null) {
+            hits.increment();
+            return (T) value;
+        }
+
+        final var future = new CompletableFuture<Object>();
+        final var running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return (T) running.join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        misses.increment();
+        final var generation = generation(channelId).get();
+        try {
+            final var loaded = loader.get();
+            if (loaded != null && generation == generation(channelId).get()) {
+                values.put(key, loaded);
+            }
+            future.complete(loaded);
+            return loaded;
+        } catch (final RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public void invalidate(final String channelId) {
+        generation(channelId).incrementAndGet();
+        inFlight.keySet().removeIf(key -> key.channelId.equals(channelId));
+        synchronized (values) {
+            values.keySet().removeIf(key -> key.channelId.equals(channelId));
+        }
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        inFlight.clear();
+        values.clear();
+    }
+
+    /**
+     * Share of requests answered from the cache, counting coalesced requests as hits.
+     */
+    public double getHitRatio() {
+        final var served = hits.getCount() + coalesced.getCount();
+        final var total = served + misses.getCount();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    private AtomicLong generation(final String channelId) {
+        return generations.computeIfAbsent(channelId, id -> new AtomicLong());
+    }
+
+    private static class Key {
+
+        private final String channelId;
+        private final String query;
+
+        Key(final String channelId, final String query) {
+            this.channelId = channelId;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof Key) {
+                final Key oKey = (Key) obj;
+                return oKey.channelId.equals(channelId) && oKey.query.equals(query);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(channelId, query);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+WITH tournaments AS (
+  SELECT tournament.channel_id,
+         CAST(tournament.date AS DATE)                          AS day,
+         teama_player1_id,
+         teama_player2_id,
+         teamb_player1_id,
+         teamb_player2_id,
+         COUNT(match.id)                                        AS played,
+         COALESCE(SUM(CASE WHEN match.teama > match.teamb THEN 1 ELSE 0 END), 0) AS team_a_won,
+         COALESCE(SUM(CASE WHEN match.teama < match.teamb THEN 1 ELSE 0 END), 0) AS team_b_won,
+         COALESCE(SUM(match.teama), 0)                          AS team_a_goals,
+         COALESCE(SUM(match.teamb), 0)                          AS team_b_goals
+  FROM tournament
+         LEFT JOIN tournament_match ON tournament.id = tournament_match.tournament_id
+         LEFT JOIN match ON tournament_match.matches_id = match.id
+  WHERE tournament.state = 'FINISHED'
+  GROUP BY tournament.id
+),
+     sides AS (
+       SELECT channel_id,
+              day,
+              teama_player1_id AS player1_id,
+              teama_player2_id AS player2_id,
+              team_a_won       AS won,
+              team_b_won       AS lost,
+              team_a_goals     AS scored,
+              team_b_goals     AS received
+       FROM tournaments
+       UNION ALL
+       SELECT channel_id,
+              day,
+              teamb_player1_id,
+              teamb_player2_id,
+              team_b_won,
+              team_a_won,
+              team_b_goals,
+              team_a_goals
+       FROM tournaments
+     ),
+     channel_days AS (
+       INSERT INTO channel_daily_stat (channel_id, day, games, matches, goals)
+         SELECT channel_id, day, COUNT(*), SUM(played), SUM(team_a_goals + team_b_goals)
+         FROM tournaments
+         GROUP BY channel_id, day
+     ),
+     team_days AS (
+       INSERT INTO team_daily_stat (channel_id, player1_id, player2_id, day, games, wins, losses,
+                                    goalsScored, goalsReceived)
+         SELECT channel_id,
+                player1_id,
+                player2_id,
+                day,
+                COUNT(*),
+                SUM(CASE WHEN won > lost THEN 1 ELSE 0 END),
+                SUM(CASE WHEN won < lost THEN 1 ELSE 0 END),
+                SUM(scored),
+                SUM(received)
+         FROM sides
+         GROUP BY channel_id, player1_id, player2_id, day
+     )
+INSERT
+INTO player_daily_stat (channel_id, player_id, day, games, wins, losses, goalsScored,
+                        goalsReceived)
+SELECT channel_id,
+       player_id,
+       day,
+       COUNT(*),
+       SUM(CASE WHEN won > lost THEN 1 ELSE 0 END),
+       SUM(CASE WHEN won < lost THEN 1 ELSE 0 END),
+       SUM(scored),
+       SUM(received)
+FROM (
+  SELECT channel_id, player1_id AS player_id, day, won, lost, scored, received
+  FROM sides
+  UNION ALL
+  SELECT channel_id, player2_id, day, won, lost, scored, received
+  FROM sides
+) AS players
+GROUP BY channel_id, player_id, day;
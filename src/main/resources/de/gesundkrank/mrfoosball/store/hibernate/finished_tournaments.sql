@@ -0,0 +1,34 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+SELECT tournament.id,
+       tournament.channel_id,
+       teama_player1_id,
+       teama_player2_id,
+       teamb_player1_id,
+       teamb_player2_id,
+       COALESCE(SUM(CASE WHEN match.teama >= match.teamb THEN 1 ELSE 0 END), 0)
+         > (tournament.bestofn - 1) / 2 AS team_a_wins
+FROM tournament
+       LEFT JOIN tournament_match ON tournament.id = tournament_match.tournament_id
+       LEFT JOIN match ON tournament_match.matches_id = match.id
+WHERE tournament.state = 'FINISHED'
+  AND tournament.id > :afterId
+  AND (CAST(:channelId AS VARCHAR) IS NULL OR tournament.channel_id = :channelId)
+GROUP BY tournament.id
+ORDER BY tournament.id;
@@ -0,0 +1,35 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Ratings before each tournament, needed to replay ratings after editing or deleting a
+-- tournament. Older tournaments get their snapshot with the next full recomputation
+-- (POST /api/admin/ratings/recompute).
+
+ALTER TABLE tournament
+  ADD COLUMN teamAPlayer1Mean              DOUBLE PRECISION,
+  ADD COLUMN teamAPlayer1StandardDeviation DOUBLE PRECISION,
+  ADD COLUMN teamAPlayer2Mean              DOUBLE PRECISION,
+  ADD COLUMN teamAPlayer2StandardDeviation DOUBLE PRECISION,
+  ADD COLUMN teamBPlayer1Mean              DOUBLE PRECISION,
+  ADD COLUMN teamBPlayer1StandardDeviation DOUBLE PRECISION,
+  ADD COLUMN teamBPlayer2Mean              DOUBLE PRECISION,
+  ADD COLUMN teamBPlayer2StandardDeviation DOUBLE PRECISION,
+  ADD COLUMN teamAMean                     DOUBLE PRECISION,
+  ADD COLUMN teamAStandardDeviation        DOUBLE PRECISION,
+  ADD COLUMN teamBMean                     DOUBLE PRECISION,
+  ADD COLUMN teamBStandardDeviation        DOUBLE PRECISION;
@@ -0,0 +1,51 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Ratings per channel instead of one global rating per player and team. The rows are derived
+-- from the tournament history by replaying it, which the app does on its first start after this
+-- migration (same as POST /api/admin/ratings/recompute). The old trueSkillMean and
+-- trueSkillStandardDeviation columns of player and team are no longer read or written.
+--
+-- channel_id leads the primary keys and the leaderboard index, so the rows of a channel are read
+-- together and channels never touch each other's rows.
+
+CREATE TABLE player_rating
+(
+  channel_id                 VARCHAR(255) NOT NULL REFERENCES channel (id),
+  player_id                  VARCHAR(255) NOT NULL REFERENCES player (id),
+  trueSkillMean              DOUBLE PRECISION,
+  trueSkillStandardDeviation DOUBLE PRECISION,
+  PRIMARY KEY (channel_id, player_id)
+);
+
+CREATE INDEX player_rating_skill_idx
+  ON player_rating (channel_id, (trueSkillMean - 3 * trueSkillStandardDeviation) DESC);
+
+CREATE TABLE team_rating
+(
+  channel_id                 VARCHAR(255) NOT NULL REFERENCES channel (id),
+  player1_id                 VARCHAR(255) NOT NULL,
+  player2_id                 VARCHAR(255) NOT NULL,
+  trueSkillMean              DOUBLE PRECISION,
+  trueSkillStandardDeviation DOUBLE PRECISION,
+  PRIMARY KEY (channel_id, player1_id, player2_id),
+  FOREIGN KEY (player1_id, player2_id) REFERENCES team (player1_id, player2_id)
+);
+
+CREATE INDEX team_rating_skill_idx
+  ON team_rating (channel_id, (trueSkillMean - 3 * trueSkillStandardDeviation) DESC);
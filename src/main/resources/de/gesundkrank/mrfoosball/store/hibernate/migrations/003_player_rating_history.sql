@@ -0,0 +1,37 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Rating of every player after every tournament, per channel, so a rating chart is one range
+-- scan of player_rating_history_date_idx. The index carries the ratings as well, which allows
+-- index-only scans. The app fills the history on its first start after this migration by
+-- recomputing all ratings.
+
+CREATE TABLE player_rating_history
+(
+  channel_id                 VARCHAR(255) NOT NULL REFERENCES channel (id),
+  player_id                  VARCHAR(255) NOT NULL REFERENCES player (id),
+  tournament_id              INTEGER      NOT NULL REFERENCES tournament (id),
+  date                       TIMESTAMP,
+  trueSkillMean              DOUBLE PRECISION,
+  trueSkillStandardDeviation DOUBLE PRECISION,
+  PRIMARY KEY (channel_id, player_id, tournament_id)
+);
+
+CREATE INDEX player_rating_history_date_idx
+  ON player_rating_history (channel_id, player_id, date, trueSkillMean,
+                            trueSkillStandardDeviation);
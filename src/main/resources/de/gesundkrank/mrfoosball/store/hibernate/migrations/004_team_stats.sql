@@ -0,0 +1,37 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Running totals of every team per channel, so the team stats no longer have to be computed
+-- from all tournaments of a channel. The app fills the table on its first start after this
+-- migration.
+
+CREATE TABLE team_stat
+(
+  channel_id        VARCHAR(255) NOT NULL REFERENCES channel (id),
+  player1_id        VARCHAR(255) NOT NULL REFERENCES player (id),
+  player2_id        VARCHAR(255) NOT NULL REFERENCES player (id),
+  tournamentsWon    INTEGER      NOT NULL,
+  tournamentsLost   INTEGER      NOT NULL,
+  tournamentsPlayed INTEGER      NOT NULL,
+  matchesWon        INTEGER      NOT NULL,
+  matchesLost       INTEGER      NOT NULL,
+  matchesPlayed     INTEGER      NOT NULL,
+  goalsScored       INTEGER      NOT NULL,
+  goalsReceived     INTEGER      NOT NULL,
+  PRIMARY KEY (channel_id, player1_id, player2_id)
+);
@@ -0,0 +1,62 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Daily rollups of tournaments, wins and goals per channel, player and team, so stats for any
+-- date range sum a few rows per day instead of scanning tournaments. The app fills the tables
+-- on its first start after this migration.
+
+CREATE TABLE channel_daily_stat
+(
+  channel_id VARCHAR(255) NOT NULL REFERENCES channel (id),
+  day        DATE         NOT NULL,
+  games      INTEGER      NOT NULL,
+  matches    INTEGER      NOT NULL,
+  goals      INTEGER      NOT NULL,
+  PRIMARY KEY (channel_id, day)
+);
+
+CREATE TABLE player_daily_stat
+(
+  channel_id    VARCHAR(255) NOT NULL REFERENCES channel (id),
+  player_id     VARCHAR(255) NOT NULL REFERENCES player (id),
+  day           DATE         NOT NULL,
+  games         INTEGER      NOT NULL,
+  wins          INTEGER      NOT NULL,
+  losses        INTEGER      NOT NULL,
+  goalsScored   INTEGER      NOT NULL,
+  goalsReceived INTEGER      NOT NULL,
+  PRIMARY KEY (channel_id, player_id, day)
+);
+
+CREATE INDEX player_daily_stat_day_idx ON player_daily_stat (channel_id, day);
+
+CREATE TABLE team_daily_stat
+(
+  channel_id    VARCHAR(255) NOT NULL REFERENCES channel (id),
+  player1_id    VARCHAR(255) NOT NULL REFERENCES player (id),
+  player2_id    VARCHAR(255) NOT NULL REFERENCES player (id),
+  day           DATE         NOT NULL,
+  games         INTEGER      NOT NULL,
+  wins          INTEGER      NOT NULL,
+  losses        INTEGER      NOT NULL,
+  goalsScored   INTEGER      NOT NULL,
+  goalsReceived INTEGER      NOT NULL,
+  PRIMARY KEY (channel_id, player1_id, player2_id, day)
+);
+
+CREATE INDEX team_daily_stat_day_idx ON team_daily_stat (channel_id, day);
@@ -0,0 +1,34 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Partner and head-to-head records of every pair of players per channel, stored once per pair
+-- with the smaller player id first. The app fills the table on its first start after this
+-- migration.
+
+CREATE TABLE player_pair_stat
+(
+  channel_id    VARCHAR(255) NOT NULL REFERENCES channel (id),
+  player1_id    VARCHAR(255) NOT NULL REFERENCES player (id),
+  player2_id    VARCHAR(255) NOT NULL REFERENCES player (id),
+  gamesTogether INTEGER      NOT NULL,
+  winsTogether  INTEGER      NOT NULL,
+  gamesAgainst  INTEGER      NOT NULL,
+  player1Wins   INTEGER      NOT NULL,
+  player2Wins   INTEGER      NOT NULL,
+  PRIMARY KEY (channel_id, player1_id, player2_id)
+);
@@ -0,0 +1,47 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Streaks, biggest skill gains and game counts of every player and team per channel. The app
+-- fills the tables on its first start after this migration.
+
+CREATE TABLE player_record
+(
+  channel_id                   VARCHAR(255)     NOT NULL REFERENCES channel (id),
+  player_id                    VARCHAR(255)     NOT NULL REFERENCES player (id),
+  games                        INTEGER          NOT NULL,
+  currentStreak                INTEGER          NOT NULL,
+  longestWinStreak             INTEGER          NOT NULL,
+  longestLosingStreak          INTEGER          NOT NULL,
+  biggestSkillGain             DOUBLE PRECISION NOT NULL,
+  biggestSkillGainTournamentId INTEGER,
+  PRIMARY KEY (channel_id, player_id)
+);
+
+CREATE TABLE team_record
+(
+  channel_id                   VARCHAR(255)     NOT NULL REFERENCES channel (id),
+  player1_id                   VARCHAR(255)     NOT NULL REFERENCES player (id),
+  player2_id                   VARCHAR(255)     NOT NULL REFERENCES player (id),
+  games                        INTEGER          NOT NULL,
+  currentStreak                INTEGER          NOT NULL,
+  longestWinStreak             INTEGER          NOT NULL,
+  longestLosingStreak          INTEGER          NOT NULL,
+  biggestSkillGain             DOUBLE PRECISION NOT NULL,
+  biggestSkillGainTournamentId INTEGER,
+  PRIMARY KEY (channel_id, player1_id, player2_id)
+);
@@ -0,0 +1,83 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+WITH results AS (
+  SELECT tournament.channel_id,
+         teama_player1_id                                    AS a1,
+         teama_player2_id                                    AS a2,
+         teamb_player1_id                                    AS b1,
+         teamb_player2_id                                    AS b2,
+         CASE
+           WHEN SUM(CASE WHEN match.teama > match.teamb THEN 1 ELSE 0 END)
+             > SUM(CASE WHEN match.teama < match.teamb THEN 1 ELSE 0 END) THEN 1
+           ELSE 0 END                                        AS a_wins,
+         CASE
+           WHEN SUM(CASE WHEN match.teama < match.teamb THEN 1 ELSE 0 END)
+             > SUM(CASE WHEN match.teama > match.teamb THEN 1 ELSE 0 END) THEN 1
+           ELSE 0 END                                        AS b_wins
+  FROM tournament
+         LEFT JOIN tournament_match ON tournament.id = tournament_match.tournament_id
+         LEFT JOIN match ON tournament_match.matches_id = match.id
+  WHERE tournament.state = 'FINISHED'
+  GROUP BY tournament.id
+),
+     pairs AS (
+       SELECT channel_id, a1 AS x, a2 AS y, 1 AS together, a_wins AS together_wins,
+              0 AS against, 0 AS x_wins, 0 AS y_wins
+       FROM results
+       UNION ALL
+       SELECT channel_id, b1, b2, 1, b_wins, 0, 0, 0
+       FROM results
+       UNION ALL
+       SELECT channel_id, a1, b1, 0, 0, 1, a_wins, b_wins
+       FROM results
+       UNION ALL
+       SELECT channel_id, a1, b2, 0, 0, 1, a_wins, b_wins
+       FROM results
+       UNION ALL
+       SELECT channel_id, a2, b1, 0, 0, 1, a_wins, b_wins
+       FROM results
+       UNION ALL
+       SELECT channel_id, a2, b2, 0, 0, 1, a_wins, b_wins
+       FROM results
+     ),
+     ordered AS (
+       -- the app orders player ids like Java strings, which the "C" collation matches
+       SELECT channel_id,
+              CASE WHEN x < y COLLATE "C" THEN x ELSE y END              AS player1_id,
+              CASE WHEN x < y COLLATE "C" THEN y ELSE x END              AS player2_id,
+              together,
+              together_wins,
+              against,
+              CASE WHEN x < y COLLATE "C" THEN x_wins ELSE y_wins END    AS player1_wins,
+              CASE WHEN x < y COLLATE "C" THEN y_wins ELSE x_wins END    AS player2_wins
+       FROM pairs
+     )
+INSERT
+INTO player_pair_stat (channel_id, player1_id, player2_id, gamesTogether, winsTogether,
+                       gamesAgainst, player1Wins, player2Wins)
+SELECT channel_id,
+       player1_id,
+       player2_id,
+       SUM(together),
+       SUM(together_wins),
+       SUM(against),
+       SUM(player1_wins),
+       SUM(player2_wins)
+FROM ordered
+GROUP BY channel_id, player1_id, player2_id;
@@ -0,0 +1,73 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+WITH tournaments AS (
+  SELECT tournament.channel_id,
+         teama_player1_id,
+         teama_player2_id,
+         teamb_player1_id,
+         teamb_player2_id,
+         COUNT(match.id)                                        AS played,
+         COALESCE(SUM(CASE WHEN match.teama > match.teamb THEN 1 ELSE 0 END), 0) AS team_a_won,
+         COALESCE(SUM(CASE WHEN match.teama < match.teamb THEN 1 ELSE 0 END), 0) AS team_b_won,
+         COALESCE(SUM(match.teama), 0)                          AS team_a_goals,
+         COALESCE(SUM(match.teamb), 0)                          AS team_b_goals
+  FROM tournament
+         LEFT JOIN tournament_match ON tournament.id = tournament_match.tournament_id
+         LEFT JOIN match ON tournament_match.matches_id = match.id
+  WHERE tournament.state = 'FINISHED'
+  GROUP BY tournament.id
+),
+     sides AS (
+       SELECT channel_id,
+              teama_player1_id AS player1_id,
+              teama_player2_id AS player2_id,
+              team_a_won       AS won,
+              team_b_won       AS lost,
+              played,
+              team_a_goals     AS scored,
+              team_b_goals     AS received
+       FROM tournaments
+       UNION ALL
+       SELECT channel_id,
+              teamb_player1_id,
+              teamb_player2_id,
+              team_b_won,
+              team_a_won,
+              played,
+              team_b_goals,
+              team_a_goals
+       FROM tournaments
+     )
+INSERT
+INTO team_stat (channel_id, player1_id, player2_id, tournamentsWon, tournamentsLost,
+                tournamentsPlayed, matchesWon, matchesLost, matchesPlayed, goalsScored,
+                goalsReceived)
+SELECT channel_id,
+       player1_id,
+       player2_id,
+       SUM(CASE WHEN won > lost THEN 1 ELSE 0 END),
+       SUM(CASE WHEN won < lost THEN 1 ELSE 0 END),
+       COUNT(*),
+       SUM(won),
+       SUM(lost),
+       SUM(played),
+       SUM(scored),
+       SUM(received)
+FROM sides
+GROUP BY channel_id, player1_id, player2_id;
@@ -0,0 +1,40 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+SELECT tournament.id,
+       teama_player1_id,
+       teama_player2_id,
+       teamb_player1_id,
+       teamb_player2_id,
+       COALESCE(SUM(CASE
+                      WHEN match.teama > match.teamb THEN 1
+                      WHEN match.teama < match.teamb THEN -1
+                      ELSE 0 END), 0) AS match_balance,
+       teamAPlayer1SkillChange,
+       teamAPlayer2SkillChange,
+       teamBPlayer1SkillChange,
+       teamBPlayer2SkillChange,
+       teamASkillChange,
+       teamBSkillChange
+FROM tournament
+       LEFT JOIN tournament_match ON tournament.id = tournament_match.tournament_id
+       LEFT JOIN match ON tournament_match.matches_id = match.id
+WHERE tournament.state = 'FINISHED'
+  AND tournament.channel_id = :channelId
+GROUP BY tournament.id
+ORDER BY tournament.id;
@@ -0,0 +1,81 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.Match;
+
+public class ControllerTest {
+
+    @Test
+    public void testAcceptsCompleteResults() throws Exception {
+        Controller.checkResults(matches(new int[][]{{6, 3}}), 1);
+        Controller.checkResults(matches(new int[][]{{6, 3}, {6, 0}}), 3);
+        Controller.checkResults(matches(new int[][]{{6, 3}, {2, 6}, {5, 6}}), 3);
+        Controller.checkResults(matches(new int[][]{{0, 6}, {6, 5}, {6, 4}, {1, 6}, {6, 0}}), 5);
+    }
+
+    @Test
+    public void testRejectsInvalidResults() {
+        assertRejected((List<Match>) null, 3);
+        assertRejected(new int[][]{}, 3);
+        assertRejected(new int[][]{{6, -1}, {6, 0}}, 3);
+        assertRejected(new int[][]{{6, 6}, {6, 0}, {6, 0}}, 3);
+        // nobody reached two wins
+        assertRejected(new int[][]{{6, 3}, {3, 6}}, 3);
+        // the tournament was over before the last match
+        assertRejected(new int[][]{{6, 3}, {6, 4}, {3, 6}}, 3);
+        assertRejected(new int[][]{{6, 3}, {6, 4}}, 1);
+    }
+
+    @Test
+    public void testRejectsMissingMatch() {
+        final List<Match> matches = new ArrayList<>(matches(new int[][]{{6, 3}}));
+        matches.add(null);
+        assertRejected(matches, 3);
+    }
+
+    private static void assertRejected(final int[][] results, final int bestOfN) {
+        assertRejected(results == null ? null : matches(results), bestOfN);
+    }
+
+    private static void assertRejected(final List<Match> matches, final int bestOfN) {
+        try {
+            Controller.checkResults(matches, bestOfN);
+            Assert.fail("Expected the results to be rejected");
+        } catch (final Controller.InvalidTournamentStateException e) {
+            Assert.assertNotNull(e.getMessage());
+        }
+    }
+
+    private static List<Match> matches(final int[][] results) {
+        final List<Match> matches = new ArrayList<>();
+        for (final int[] result : results) {
+            final var match = new Match();
+            match.teamA = result[0];
+            match.teamB = result[1];
+            matches.add(match);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.Achievement;
+import de.gesundkrank.mrfoosball.models.PlayerRecord;
+import de.gesundkrank.mrfoosball.models.RecordColumns;
+
+public class RecordProcessorTest {
+
+    private static final String[] PLAYERS = {"a", "b", "c", "d"};
+    private static final double[] NO_SKILL_CHANGES = new double[6];
+
+    @Test
+    public void testStreaks() {
+        final var processor = new RecordProcessor("channel");
+        for (int i = 0; i < 2; i++) {
+            processor.process(i, PLAYERS, -1, NO_SKILL_CHANGES);
+        }
+        List<Achievement> achievements = List.of();
+        for (int i = 2; i < 5; i++) {
+            achievements = processor.process(i, PLAYERS, 1, NO_SKILL_CHANGES);
+        }
+        processor.process(5, PLAYERS, 0, NO_SKILL_CHANGES);
+        processor.process(6, PLAYERS, 1, NO_SKILL_CHANGES);
+
+        // the third win in a row is a new best for both players and the team of team A
+        Assert.assertEquals(achievements.size(), 3);
+        Assert.assertEquals(achievements.get(2).kind, Achievement.Kind.WIN_STREAK);
+        Assert.assertEquals(achievements.get(2).playerIds, List.of("a", "b"));
+        Assert.assertEquals(achievements.get(2).value, 3.0);
+
+        final var winner = record(processor, "a");
+        Assert.assertEquals(winner.games, 7);
+        Assert.assertEquals(winner.currentStreak, 1);
+        Assert.assertEquals(winner.longestWinStreak, 3);
+        Assert.assertEquals(winner.longestLosingStreak, 2);
+        final var loser = record(processor, "c");
+        Assert.assertEquals(loser.currentStreak, -1);
+        Assert.assertEquals(loser.longestWinStreak, 2);
+        Assert.assertEquals(loser.longestLosingStreak, 3);
+    }
+
+    @Test
+    public void testUpsetsAfterEnoughGames() {
+        final var processor = new RecordProcessor("channel");
+        final double[] skillChanges = {1, 1, -1, -1, 1, -1};
+        Assert.assertTrue(processor.process(0, PLAYERS, 1, skillChanges).isEmpty());
+        for (int i = 1; i < RecordColumns.MIN_GAMES_FOR_UPSETS; i++) {
+            processor.process(i, PLAYERS, 0, NO_SKILL_CHANGES);
+        }
+
+        final double[] upset = {0.5, 2, -2, -0.5, 1, -1};
+        final var achievements = processor.process(10, PLAYERS, 1, upset);
+        Assert.assertEquals(achievements.size(), 1);
+        Assert.assertEquals(achievements.get(0).kind, Achievement.Kind.UPSET);
+        Assert.assertEquals(achievements.get(0).playerIds, List.of("b"));
+        Assert.assertEquals(record(processor, "b").biggestSkillGainTournamentId, (Integer) 10);
+    }
+
+    @Test
+    public void testMilestonesContinueLoadedRecords() {
+        final var loaded = new PlayerRecord("channel", "a");
+        loaded.games = RecordColumns.MILESTONE_INTERVAL - 1;
+        final Function<String, PlayerRecord> players = id -> "a".equals(id) ? loaded : null;
+        final var processor = new RecordProcessor("channel", players, ids -> null);
+
+        final var achievements = processor.process(0, PLAYERS, 0, NO_SKILL_CHANGES);
+
+        Assert.assertEquals(achievements.size(), 1);
+        Assert.assertEquals(achievements.get(0).kind, Achievement.Kind.MILESTONE);
+        Assert.assertEquals(achievements.get(0).value, (double) RecordColumns.MILESTONE_INTERVAL);
+        Assert.assertSame(record(processor, "a"), loaded);
+        Assert.assertEquals(processor.getTeamRecords().size(), 2);
+    }
+
+    private static PlayerRecord record(final RecordProcessor processor, final String playerId) {
+        return processor.getPlayerRecords().stream()
+                .filter(record -> record.playerId.equals(playerId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.WorkspaceLeaderboards.Standings;
+import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.PlayerSkill;
+import de.gesundkrank.mrfoosball.models.Team;
+import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.WorkspaceLeaderboard;
+
+public class WorkspaceLeaderboardsTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testMergesChannels() {
+        final var standings = List.of(
+                new Standings(
+                        List.of(playerSkill("a", 10, 6, 20), playerSkill("b", 4, 1, 25)),
+                        List.of(teamStat("a", "b", 3, 4))),
+                new Standings(
+                        List.of(playerSkill("a", 5, 5, 30)),
+                        List.of(teamStat("a", "b", 1, 4), teamStat("a", "c", 2, 2))));
+
+        final var leaderboard = WorkspaceLeaderboards.merge("workspace", standings);
+
+        Assert.assertEquals(leaderboard.channels, 2);
+        Assert.assertEquals(leaderboard.players.size(), 2);
+        final var best = leaderboard.players.get(0);
+        Assert.assertEquals(best.id, "a");
+        Assert.assertEquals(best.games, 15);
+        Assert.assertEquals(best.wins, 11);
+        Assert.assertEquals(best.skill, 30.0);
+        Assert.assertEquals(best.channels, 2);
+
+        Assert.assertEquals(leaderboard.teams.size(), 2);
+        Assert.assertEquals(leaderboard.teams.get(0).team.player2.id, "c");
+        final var merged = leaderboard.teams.get(1);
+        Assert.assertEquals(merged.tournamentsWon, 4);
+        Assert.assertEquals(merged.tournamentsPlayed, 8);
+        // the standings of the channels are left untouched
+        Assert.assertEquals(standings.get(0).getTeams().get(0).tournamentsWon, 3);
+    }
+
+    @Test
+    public void testReloadsOnlyAfterInvalidation() {
+        final Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+        final var channels = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            channels.add("channel" + i);
+        }
+        final Function<String, List<String>> channelLoader = workspaceId -> channels;
+        final Function<String, Standings> standingsLoader = id -> standings(loads, id);
+        final var leaderboards =
+                new WorkspaceLeaderboards(channelLoader, standingsLoader, executor);
+
+        final var leaderboard = leaderboards.get("workspace", 1);
+        Assert.assertEquals(leaderboard.channels, 100);
+        Assert.assertEquals(leaderboard.players.size(), 1);
+        Assert.assertEquals(leaderboard.players.get(0).games, 100);
+        Assert.assertEquals(leaderboards.get("workspace", null).players.get(0).games, 100);
+        Assert.assertEquals(loads.get("channel7").get(), 1);
+
+        leaderboards.invalidate("channel7");
+        leaderboards.get("workspace", null);
+        Assert.assertEquals(loads.get("channel7").get(), 2);
+    }
+
+    @Test
+    public void testCoalescesConcurrentMisses() throws Exception {
+        final Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final Function<String, List<String>> channelLoader = workspaceId -> {
+            loads.computeIfAbsent(workspaceId, id -> new AtomicInteger()).incrementAndGet();
+            started.countDown();
+            await(release);
+            return List.of("channel");
+        };
+        final Function<String, Standings> standingsLoader = id -> standings(loads, id);
+        final var leaderboards =
+                new WorkspaceLeaderboards(channelLoader, standingsLoader, executor);
+
+        final var first = CompletableFuture.supplyAsync(() -> leaderboards.get("workspace", null));
+        started.await();
+        final var second = new CompletableFuture<WorkspaceLeaderboard>();
+        final var thread = new Thread(() -> second.complete(leaderboards.get("workspace", null)));
+        thread.start();
+        // waiting either for the first load or, without coalescing, in its own channel loader
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+        release.countDown();
+
+        Assert.assertSame(second.get(), first.get());
+        Assert.assertEquals(loads.get("workspace").get(), 1);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Standings standings(
+            final Map<String, AtomicInteger> loads, final String channelId) {
+        loads.computeIfAbsent(channelId, id -> new AtomicInteger()).incrementAndGet();
+        return new Standings(List.of(playerSkill("a", 1, 1, 20)),
+                                                   List.of());
+    }
+
+    private static PlayerSkill playerSkill(final String id, final int games, final int wins,
+                                           final double skill) {
+        final var playerSkill = new PlayerSkill();
+        playerSkill.id = id;
+        playerSkill.games = games;
+        playerSkill.wins = wins;
+        playerSkill.skill = skill;
+        return playerSkill;
+    }
+
+    private static TeamStat teamStat(final String player1, final String player2, final int won,
+                                     final int played) {
+        final var team = new Team();
+        team.player1 = new Player(player1);
+        team.player2 = new Player(player2);
+        final var teamStat = new TeamStat(team);
+        teamStat.tournamentsWon = won;
+        teamStat.tournamentsPlayed = played;
+        return teamStat;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.api;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Form;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.JerseyTestNg;
+import org.glassfish.jersey.test.TestProperties;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.slack.Bot;
+import de.gesundkrank.mrfoosball.slack.CommandResponder;
+import de.gesundkrank.mrfoosball.slack.models.CommandResponse;
+
+/**
+ * Runs the slash command endpoint with a bot that answers right away or when told to.
+ */
+public class SlackApiTest extends JerseyTestNg.ContainerPerClassTest {
+
+    private static final BlockingQueue<String> RESPONSE_URL_BODIES = new LinkedBlockingQueue<>();
+
+    private final SlowBot bot = new SlowBot();
+
+    @Override
+    protected Application configure() {
+        forceSet(TestProperties.CONTAINER_PORT, "0");
+        return new ResourceConfig(SlackApi.class, ResponseUrl.class)
+                .register(new AbstractBinder() {
+                    @Override
+                    protected void configure() {
+                        bind(bot).to(Bot.class);
+                    }
+                });
+    }
+
+    @BeforeMethod
+    public void reset() {
+        RESPONSE_URL_BODIES.clear();
+        bot.answer = null;
+        bot.calls.set(0);
+    }
+
+    @Test
+    public void testAnswersInline() throws InterruptedException {
+        final var response = command("queue");
+
+        Assert.assertEquals(response.getStatus(), 200);
+        final var body = response.readEntity(String.class);
+        Assert.assertTrue(body.contains("\"response_type\":\"in_channel\""), body);
+        Assert.assertTrue(body.contains("\"text\":\"answer to queue\""), body);
+        Assert.assertNull(RESPONSE_URL_BODIES.poll(200, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(bot.calls.get(), 1);
+    }
+
+    @Test
+    public void testFallsBackToResponseUrl() throws InterruptedException {
+        final var answer = new CountDownLatch(1);
+        bot.answer = answer;
+        final var response = command("play");
+
+        // the bot is still busy when the request times out
+        Assert.assertEquals(response.getStatus(), 200);
+        Assert.assertFalse(response.hasEntity());
+        answer.countDown();
+
+        final var body = RESPONSE_URL_BODIES.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(body);
+        Assert.assertTrue(body.contains("\"text\":\"answer to play\""), body);
+        Assert.assertNull(RESPONSE_URL_BODIES.poll(200, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(bot.calls.get(), 1);
+    }
+
+    private Response command(final String text) {
+        final var form = new Form()
+                .param("team_id", "T123")
+                .param("channel_id", "C123")
+                .param("user_id", "U123")
+                .param("command", "/kicker")
+                .param("text", text)
+                .param("response_url", getBaseUri() + "response");
+        return target("api/slack/command").request().post(Entity.form(form));
+    }
+
+    private static class SlowBot extends Bot {
+
+        // answers once this is counted down, or right away if it is null
+        private volatile CountDownLatch answer;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        SlowBot() {
+            super(null);
+        }
+
+        @Override
+        public CommandResponse onSlashCommand(final String teamId, final String slackChannelId,
+                                              final String sender, final String command,
+                                              final String text) {
+            calls.incrementAndGet();
+            final var answer = this.answer;
+            try {
+                if (answer != null) {
+                    answer.await(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            final var responder = new CommandResponder();
+            responder.inChannel("answer to " + text);
+            return responder.getResponse();
+        }
+    }
+
+    /**
+     * Stand-in for the response_url of a slash command.
+     */
+    @Path("response")
+    public static class ResponseUrl {
+
+        @POST
+        @Consumes(MediaType.APPLICATION_JSON)
+        public Response respond(final String body) {
+            RESPONSE_URL_BODIES.add(body);
+            return Response.ok().build();
+        }
+    }
+}
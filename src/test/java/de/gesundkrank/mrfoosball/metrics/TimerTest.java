@@ -0,0 +1,73 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TimerTest {
+
+    @Test
+    public void testBucketsCoverValuesWithoutGaps() {
+        for (long value = 0; value < 1_000_000; value++) {
+            final var bucket = Timer.bucket(value);
+            Assert.assertTrue(value <= Timer.highestValue(bucket));
+            Assert.assertTrue(bucket == 0 || value > Timer.highestValue(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testQuantilesWithinPrecision() {
+        final var timer = new Timer();
+        for (long millis = 1; millis <= 1000; millis++) {
+            timer.record(millis * 1_000_000);
+        }
+
+        Assert.assertEquals(timer.getCount(), 1000);
+        Assert.assertEquals(timer.getMaxNanos(), 1_000_000_000);
+        assertWithin(timer.getValueAtQuantile(0.5), 500_000_000);
+        assertWithin(timer.getValueAtQuantile(0.99), 990_000_000);
+        Assert.assertEquals(timer.getValueAtQuantile(1), 1_000_000_000);
+        Assert.assertEquals(timer.getCountAtOrBelow(100_000_000), 100, 2);
+    }
+
+    @Test
+    public void testScrapesHistogram() {
+        final var metrics = new Metrics();
+        final var timer = metrics.timer("request_seconds", "resource", "api");
+        timer.record(2_000_000);
+        timer.record(20_000_000_000L);
+
+        final var scrape = metrics.scrape();
+        Assert.assertTrue(scrape.contains("# TYPE request_seconds histogram\n"));
+        Assert.assertTrue(scrape.contains(bucket("0.001", 0)));
+        Assert.assertTrue(scrape.contains(bucket("0.0025", 1)));
+        Assert.assertTrue(scrape.contains(bucket("10.0", 1)));
+        Assert.assertTrue(scrape.contains(bucket("+Inf", 2)));
+        Assert.assertTrue(scrape.contains("request_seconds_count{resource=\"api\"} 2\n"));
+    }
+
+    private static String bucket(final String bound, final int count) {
+        return String.format("request_seconds_bucket{resource=\"api\",le=\"%s\"} %d\n", bound,
+                             count);
+    }
+
+    private static void assertWithin(final long actual, final long expected) {
+        Assert.assertEquals(actual, expected, expected / 64.0);
+    }
+}
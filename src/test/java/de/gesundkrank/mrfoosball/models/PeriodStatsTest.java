@@ -0,0 +1,55 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PeriodStatsTest {
+
+    @Test
+    public void testReadsSumsOfAnyNumberType() {
+        // the sums of integer columns come back as bigint, of bigint columns as numeric
+        final Object[] row = {
+            "player", 12L, BigInteger.valueOf(7), BigDecimal.valueOf(5), 80, BigDecimal.valueOf(64)
+        };
+
+        final var entry = new PeriodStats.PlayerEntry();
+        entry.set(row, 1);
+
+        Assert.assertEquals(entry.games, 12);
+        Assert.assertEquals(entry.wins, 7);
+        Assert.assertEquals(entry.losses, 5);
+        Assert.assertEquals(entry.goalsScored, 80);
+        Assert.assertEquals(entry.goalsReceived, 64);
+    }
+
+    @Test
+    public void testReadsNegativeSumsAfterEdits() {
+        // rows of a day are summed before they are dropped, so intermediate sums can be negative
+        final var entry = new PeriodStats.TeamEntry();
+        entry.set(new Object[]{"player1", "player2", 1L, 0L, 1L, -2L, 3L}, 2);
+
+        Assert.assertEquals(entry.games, 1);
+        Assert.assertEquals(entry.losses, 1);
+        Assert.assertEquals(entry.goalsScored, -2);
+    }
+}
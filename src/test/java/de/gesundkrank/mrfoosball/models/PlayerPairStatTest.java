@@ -0,0 +1,67 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PlayerPairStatTest {
+
+    @Test
+    public void testPartnersAndOpponents() {
+        final var tournament =
+                TestTournaments.tournament("b", "d", "a", "c", new int[][]{{6, 2}, {6, 4}});
+
+        final var pairs = PlayerPairStat.of(tournament, TeamStat.of(tournament));
+
+        Assert.assertEquals(pairs.length, 6);
+        assertPair(pairs[0], "b", "d", 1, 1, 0, 0, 0);
+        assertPair(pairs[1], "a", "c", 1, 0, 0, 0, 0);
+        // team A won, so in every pair the win goes to the player from team A
+        assertPair(pairs[2], "a", "b", 0, 0, 1, 0, 1);
+        assertPair(pairs[3], "b", "c", 0, 0, 1, 1, 0);
+        assertPair(pairs[4], "a", "d", 0, 0, 1, 0, 1);
+        assertPair(pairs[5], "c", "d", 0, 0, 1, 0, 1);
+    }
+
+    @Test
+    public void testDrawIsNoWin() {
+        final var tournament =
+                TestTournaments.tournament("a", "b", "c", "d", new int[][]{{6, 2}, {2, 6}});
+
+        for (final PlayerPairStat pair : PlayerPairStat.of(tournament, TeamStat.of(tournament))) {
+            Assert.assertEquals(pair.winsTogether, 0);
+            Assert.assertEquals(pair.player1Wins, 0);
+            Assert.assertEquals(pair.player2Wins, 0);
+        }
+    }
+
+    private static void assertPair(final PlayerPairStat pair, final String player1,
+                                   final String player2, final int gamesTogether,
+                                   final int winsTogether, final int gamesAgainst,
+                                   final int player1Wins, final int player2Wins) {
+        Assert.assertEquals(pair.channelId, "channel");
+        Assert.assertEquals(pair.player1Id, player1);
+        Assert.assertEquals(pair.player2Id, player2);
+        Assert.assertEquals(pair.gamesTogether, gamesTogether);
+        Assert.assertEquals(pair.winsTogether, winsTogether);
+        Assert.assertEquals(pair.gamesAgainst, gamesAgainst);
+        Assert.assertEquals(pair.player1Wins, player1Wins);
+        Assert.assertEquals(pair.player2Wins, player2Wins);
+    }
+}
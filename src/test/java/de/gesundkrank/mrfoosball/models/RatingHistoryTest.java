@@ -0,0 +1,51 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import java.util.Date;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RatingHistoryTest {
+
+    @Test
+    public void testKeepsEveryPointOfShortRanges() {
+        final var history = new RatingHistory("p", new Date(0), new Date(1000), 100);
+        history.add(new Date(0), 25, 8);
+        history.add(new Date(10), 27, 7);
+        history.add(new Date(990), 26, 6);
+
+        Assert.assertEquals(history.dates, List.of(0L, 10L, 990L));
+        Assert.assertEquals(history.means, List.of(25.0, 27.0, 26.0));
+        Assert.assertEquals((double) history.skills.get(2), 26.0 - 3 * 6.0);
+    }
+
+    @Test
+    public void testKeepsLastPointOfEachBucket() {
+        final var history = new RatingHistory("p", new Date(0), new Date(1000), 4);
+        for (int time = 0; time < 1000; time += 50) {
+            history.add(new Date(time), time, 1);
+        }
+
+        Assert.assertEquals(history.dates, List.of(200L, 450L, 700L, 950L));
+        Assert.assertEquals(history.means, List.of(200.0, 450.0, 700.0, 950.0));
+        Assert.assertEquals(history.standardDeviations.size(), 4);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TeamStatTest {
+
+    @Test
+    public void testCountsMatchesGoalsAndWinner() {
+        final var tournament =
+                TestTournaments.tournament(new int[][]{{6, 3}, {2, 6}, {4, 4}, {6, 5}});
+
+        final var stats = TeamStat.of(tournament);
+
+        Assert.assertEquals(stats[0].team, tournament.teamA);
+        Assert.assertEquals(stats[0].tournamentsWon, 1);
+        Assert.assertEquals(stats[0].tournamentsPlayed, 1);
+        Assert.assertEquals(stats[0].matchesWon, 2);
+        Assert.assertEquals(stats[0].matchesLost, 1);
+        Assert.assertEquals(stats[0].matchesPlayed, 4);
+        Assert.assertEquals(stats[0].goalsScored, 18);
+        Assert.assertEquals(stats[0].goalsReceived, 18);
+        Assert.assertEquals(stats[1].team, tournament.teamB);
+        Assert.assertEquals(stats[1].tournamentsLost, 1);
+        Assert.assertEquals(stats[1].matchesWon, 1);
+    }
+
+    @Test
+    public void testDrawCountsAsPlayedOnly() {
+        final var stats = TeamStat.of(TestTournaments.tournament(new int[][]{{6, 3}, {3, 6}}));
+
+        for (final TeamStat stat : stats) {
+            Assert.assertEquals(stat.tournamentsPlayed, 1);
+            Assert.assertEquals(stat.tournamentsWon, 0);
+            Assert.assertEquals(stat.tournamentsLost, 0);
+        }
+    }
+
+    @Test
+    public void testOrderFromName() {
+        Assert.assertEquals(TeamStatCounters.Order.fromName("winRate"),
+                            TeamStatCounters.Order.WIN_RATE);
+        Assert.assertEquals(TeamStatCounters.Order.fromName("goalDifference"),
+                            TeamStatCounters.Order.GOAL_DIFFERENCE);
+        Assert.assertNull(TeamStatCounters.Order.fromName("GOAL_DIFFERENCE"));
+    }
+}
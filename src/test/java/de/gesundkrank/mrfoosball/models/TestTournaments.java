@@ -0,0 +1,61 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.models;
+
+/**
+ * Tournaments for tests, played in the channel {@code channel}.
+ */
+public final class TestTournaments {
+
+    private TestTournaments() {
+    }
+
+    /**
+     * Tournament of a and b against c and d.
+     *
+     * @param results goals of team A and team B of each match
+     */
+    public static Tournament tournament(final int[][] results) {
+        return tournament("a", "b", "c", "d", results);
+    }
+
+    /**
+     * Tournament of the given players.
+     *
+     * @param results goals of team A and team B of each match
+     */
+    public static Tournament tournament(final String a1, final String a2, final String b1,
+                                        final String b2, final int[][] results) {
+        final var tournament = new Tournament(1, team(a1, a2), team(b1, b2),
+                                              new Channel("channel", "C1"));
+        for (final int[] result : results) {
+            final var match = new Match();
+            match.teamA = result[0];
+            match.teamB = result[1];
+            tournament.matches.add(match);
+        }
+        return tournament;
+    }
+
+    public static Team team(final String player1, final String player2) {
+        final var team = new Team();
+        team.player1 = new Player(player1);
+        team.player2 = new Player(player2);
+        return team;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.slack.models.CommandResponse;
+import de.gesundkrank.mrfoosball.slack.models.Message;
+
+public class CommandResponderTest {
+
+    @Test
+    public void testCollectsEphemeralAnswers() {
+        final var responder = new CommandResponder();
+        final var attachment = new Message.Attachment();
+        responder.ephemeral("first");
+        responder.ephemeral("second", attachment);
+
+        final var response = responder.getResponse();
+        Assert.assertEquals(response.responseType, CommandResponse.EPHEMERAL);
+        Assert.assertEquals(response.text, "first\nsecond");
+        Assert.assertEquals(response.attachments.size(), 1);
+        Assert.assertSame(response.attachments.get(0), attachment);
+    }
+
+    @Test
+    public void testShowsResponseInChannelIfAnyAnswerIs() {
+        final var responder = new CommandResponder();
+        responder.inChannel("everyone");
+        responder.ephemeral("only you");
+
+        final var response = responder.getResponse();
+        Assert.assertEquals(response.responseType, CommandResponse.IN_CHANNEL);
+        Assert.assertEquals(response.text, "everyone\nonly you");
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class EventDeduplicatorTest {
+
+    @Test
+    public void testDropsRedeliveries() {
+        final var now = new AtomicLong(1000);
+        final var deduplicator = new EventDeduplicator(60_000, 100, null, now::get);
+
+        Assert.assertTrue(deduplicator.firstDelivery("Ev1"));
+        Assert.assertTrue(deduplicator.firstDelivery("Ev2"));
+        Assert.assertTrue(deduplicator.firstDelivery(null));
+        Assert.assertTrue(deduplicator.firstDelivery(null));
+
+        now.addAndGet(59_000);
+        Assert.assertFalse(deduplicator.firstDelivery("Ev1"));
+        Assert.assertFalse(deduplicator.firstDelivery("Ev2"));
+
+        now.addAndGet(1_000);
+        Assert.assertTrue(deduplicator.firstDelivery("Ev1"));
+    }
+
+    @Test
+    public void testBounded() {
+        final var deduplicator = new EventDeduplicator(60_000, 2, null, () -> 0);
+
+        Assert.assertTrue(deduplicator.firstDelivery("Ev1"));
+        Assert.assertTrue(deduplicator.firstDelivery("Ev2"));
+        Assert.assertTrue(deduplicator.firstDelivery("Ev3"));
+        Assert.assertFalse(deduplicator.firstDelivery("Ev3"));
+        Assert.assertTrue(deduplicator.firstDelivery("Ev1"));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import javax.ws.rs.ProcessingException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.SlackWorkspace;
+import de.gesundkrank.mrfoosball.slack.models.Message;
+import de.gesundkrank.mrfoosball.slack.models.MessageResponse;
+
+public class MessageQueueTest {
+
+    private static final SlackWorkspace WORKSPACE =
+            new SlackWorkspace("T1", "token", null, "test", "U1");
+
+    @Test
+    public void testKeepsOrderPerChannel() throws Exception {
+        final Map<String, List<String>> sent = new ConcurrentHashMap<>();
+        final MessageQueue.Sender sender = (workspace, method, message) -> {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(2_000_000));
+            sent.computeIfAbsent(message.channel, c -> new CopyOnWriteArrayList<>())
+                    .add(message.text);
+            return ok();
+        };
+
+        final var messageQueue = new MessageQueue(sender, 4, 1, 1);
+        final List<CompletableFuture<MessageResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            for (final var channel : List.of("C1", "C2", "C3")) {
+                futures.add(messageQueue.enqueue(WORKSPACE, "chat.postMessage",
+                                                 new Message(channel, String.valueOf(i), "U1")));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+
+        for (final var channel : List.of("C1", "C2", "C3")) {
+            final var texts = sent.get(channel);
+            Assert.assertEquals(texts.size(), 50);
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(texts.get(i), String.valueOf(i));
+            }
+        }
+        Assert.assertEquals(messageQueue.getDepth(), 0);
+        messageQueue.close();
+    }
+
+    @Test
+    public void testHonorsRetryAfter() throws Exception {
+        final var calls = new AtomicInteger();
+        final List<Long> callTimes = new CopyOnWriteArrayList<>();
+        final MessageQueue.Sender sender = (workspace, method, message) -> {
+            callTimes.add(System.currentTimeMillis());
+            if (calls.incrementAndGet() == 1) {
+                throw new SlackClient.SlackApiException(method, 429, 1L);
+            }
+            return ok();
+        };
+
+        final var messageQueue = new MessageQueue(sender, 2, 3, 1);
+        final var first = messageQueue.enqueue(WORKSPACE, "chat.postMessage",
+                                               new Message("C1", "first", "U1"));
+        Assert.assertTrue(first.get().ok);
+
+        // The second message goes to another channel but is still held back by the pause.
+        final var second = messageQueue.enqueue(WORKSPACE, "chat.postMessage",
+                                                new Message("C2", "second", "U1"));
+        Assert.assertTrue(second.get().ok);
+
+        Assert.assertEquals(calls.get(), 3);
+        Assert.assertTrue(callTimes.get(1) - callTimes.get(0) >= 1000);
+        messageQueue.close();
+    }
+
+    @Test
+    public void testGivesUpOnPermanentErrors() throws Exception {
+        final var calls = new AtomicInteger();
+        final MessageQueue.Sender sender = (workspace, method, message) -> {
+            calls.incrementAndGet();
+            throw new SlackClient.SlackApiException(method, 400, null);
+        };
+
+        final var messageQueue = new MessageQueue(sender, 2, 5, 1);
+        final var future = messageQueue.enqueue(WORKSPACE, "chat.postMessage",
+                                                new Message("C1", "text", "U1"));
+        Assert.assertTrue(future.handle((r, e) -> e != null).get());
+        Assert.assertEquals(calls.get(), 1);
+        messageQueue.close();
+    }
+
+    @Test
+    public void testRetriesNetworkErrorsOnlyIfSafe() throws Exception {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final MessageQueue.Sender sender = (workspace, method, message) -> {
+            final var call = method + " " + message.text;
+            // the first attempt of every message fails
+            if (!calls.contains(call)) {
+                calls.add(call);
+                final var cause = "refused".equals(message.text)
+                                  ? new ConnectException("Connection refused")
+                                  : new SocketTimeoutException("Read timed out");
+                throw new SlackClient.SlackApiException(method, new ProcessingException(cause));
+            }
+            calls.add(call);
+            return ok();
+        };
+
+        final var messageQueue = new MessageQueue(sender, 1, 3, 1);
+        final var timedOut = messageQueue.enqueue(WORKSPACE, "chat.postMessage",
+                                                  new Message("C1", "timeout", "U1"));
+        Assert.assertTrue(timedOut.handle((r, e) -> e != null).get());
+        final var refused = messageQueue.enqueue(WORKSPACE, "chat.postMessage",
+                                                 new Message("C1", "refused", "U1"));
+        Assert.assertTrue(refused.get().ok);
+        final var update = messageQueue.enqueue(WORKSPACE, "chat.update",
+                                                new Message("C1", "timeout", "U1"));
+        Assert.assertTrue(update.get().ok);
+
+        Assert.assertEquals(calls, List.of("chat.postMessage timeout", "chat.postMessage refused",
+                                           "chat.postMessage refused", "chat.update timeout",
+                                           "chat.update timeout"));
+        messageQueue.close();
+    }
+
+    @Test
+    public void testDrainRejectsNewMessages() {
+        final var messageQueue = new MessageQueue((workspace, method, message) -> ok(), 1, 1, 1);
+        messageQueue.drain(1000);
+
+        final var future = messageQueue.enqueue(WORKSPACE, "chat.postMessage",
+                                                new Message("C1", "late", "U1"));
+        Assert.assertTrue(future.isCompletedExceptionally());
+    }
+
+    private static MessageResponse ok() {
+        final var apiResponse = new MessageResponse();
+        apiResponse.ok = true;
+        return apiResponse;
+    }
+}
@@ -17,13 +17,34 @@
 
 package de.gesundkrank.mrfoosball.slack;
 
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.logging.log4j.LogManager;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 public class RequestVerifierTest {
 
+    private static final String BODY =
+            ("token=xyzz0WbapA4vBCDEFasx0q6G&team_id=T1DC2JH3J&team_domain=testteamnow"
+             + "&channel_id=G8PSS9T3V&channel_name=foobar&user_id=U2CERLKJA&user_name="
+             + "roadrunner&command=%2Fwebhook-collect&text=&response_url=https%3A%2F%2"
+             + "Fhooks.slack.com%2Fcommands%2FT1DC2JH3J%2F397700885554%2F96rGlfmibIGlg"
+             + "cZRskXaIFfN&trigger_id=398738663015.47445629121.803a0bc887a14d10d2c447"
+             + "fce8b6703c");
+    private static final String TIMESTAMP = "1531420618";
+    private static final String SECRET = "8f742231b10e8888abcd99yyyzzz85a5";
+    private static final String SIGNATURE =
+            "v0=a2114d57b48eac39b9ad189dd8316235a7b4a8d21a10bd27519666489c69b503";
+
     @Test
     public void testVerify() throws GeneralSecurityException {
         final var body = ("token=xyzz0WbapA4vBCDEFasx0q6G&team_id=T1DC2JH3J&team_domain=testteamnow"
@@ -38,4 +59,62 @@ public class RequestVerifierTest {
         final var requestVerifier = new RequestVerifier(secret, Long.MAX_VALUE);
         Assert.assertTrue(requestVerifier.verify(expected, body, timestamp));
     }
+
+    @Test
+    public void testVerifyBytes() throws GeneralSecurityException {
+        final var requestVerifier = new RequestVerifier(SECRET, Long.MAX_VALUE);
+        final var body = (" " + BODY + "\n").getBytes(StandardCharsets.UTF_8);
+
+        Assert.assertTrue(requestVerifier.verify(SIGNATURE, body, TIMESTAMP));
+        Assert.assertFalse(requestVerifier.verify(SIGNATURE.replace('a', 'b'), body, TIMESTAMP));
+        Assert.assertFalse(requestVerifier.verify("v0=zz", body, TIMESTAMP));
+        Assert.assertFalse(requestVerifier.verify(null, body, TIMESTAMP));
+        Assert.assertFalse(requestVerifier.verify(SIGNATURE, body, null));
+    }
+
+    @Test
+    public void testConcurrentVerify() throws Exception {
+        final var threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final var iterations = 20_000;
+        final var requestVerifier = new RequestVerifier(SECRET, Long.MAX_VALUE);
+        final var body = BODY.getBytes(StandardCharsets.UTF_8);
+        // a second valid request, so mixed up state fails the check without a warning per call
+        final var other = BODY.replace("text=", "text=add").getBytes(StandardCharsets.UTF_8);
+        final var otherSignature = sign(other);
+        final var executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    var failures = 0;
+                    for (int i = 0; i < iterations; i++) {
+                        if (!requestVerifier.verify(SIGNATURE, body, TIMESTAMP)
+                            || !requestVerifier.verify(otherSignature, other, TIMESTAMP)) {
+                            failures++;
+                        }
+                    }
+                    return failures;
+                });
+            }
+
+            final var start = System.nanoTime();
+            for (final var result : executor.invokeAll(tasks)) {
+                Assert.assertEquals(result.get().intValue(), 0);
+            }
+            final var seconds = (System.nanoTime() - start) / 1e9;
+            LogManager.getLogger().info("Verified {} signatures on {} threads at {} per second",
+                                        2L * threads * iterations, threads,
+                                        (long) (2L * threads * iterations / seconds));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String sign(final byte[] body) throws GeneralSecurityException {
+        final var mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        mac.update(("v0:" + TIMESTAMP + ":").getBytes(StandardCharsets.UTF_8));
+        return "v0=" + Hex.encodeHexString(mac.doFinal(body));
+    }
 }
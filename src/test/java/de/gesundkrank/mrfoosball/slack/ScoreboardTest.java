@@ -0,0 +1,199 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.slack;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.Achievement;
+import de.gesundkrank.mrfoosball.models.Match;
+import de.gesundkrank.mrfoosball.models.Prediction;
+import de.gesundkrank.mrfoosball.models.SlackWorkspace;
+import de.gesundkrank.mrfoosball.models.State;
+import de.gesundkrank.mrfoosball.models.TestTournaments;
+import de.gesundkrank.mrfoosball.models.Tournament;
+import de.gesundkrank.mrfoosball.slack.models.Message;
+import de.gesundkrank.mrfoosball.slack.models.MessageResponse;
+import de.gesundkrank.mrfoosball.store.zookeeper.EmbeddedZookeeper;
+import de.gesundkrank.mrfoosball.store.zookeeper.Scoreboards;
+
+public class ScoreboardTest {
+
+    @Test
+    public void testCoalescesUpdates() throws Exception {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final List<Message> updates = new CopyOnWriteArrayList<>();
+        final MessageQueue.Sender sender = (workspace, method, message) -> {
+            calls.add(method);
+            if ("chat.update".equals(method)) {
+                updates.add(message);
+            }
+            final var response = new MessageResponse();
+            response.ok = true;
+            response.channel = message.channel;
+            response.ts = "1585000000.000100";
+            return response;
+        };
+        final var messageQueue = new MessageQueue(sender, 2, 1, 1);
+        final var scoreboard = new Scoreboard(null, messageQueue, 200);
+
+        final var tournament = tournament();
+        scoreboard.start(tournament);
+
+        final var match = new Match();
+        tournament.matches.add(match);
+        for (int goal = 0; goal < 6; goal++) {
+            match.teamA = goal;
+            scoreboard.update(tournament);
+        }
+
+        match.state = State.FINISHED;
+        tournament.state = State.FINISHED;
+        scoreboard.finish(tournament);
+
+        final var deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (updates.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        messageQueue.drain(TimeUnit.SECONDS.toMillis(5));
+        Assert.assertEquals(calls, List.of("chat.postMessage", "chat.update"));
+
+        final var update = updates.get(0);
+        Assert.assertEquals(update.ts, "1585000000.000100");
+        Assert.assertTrue(update.text.startsWith("The game is over. Congratulations to <@A1>"));
+        Assert.assertEquals(update.attachments.get(0).fields.get(0).value, "5 : 0");
+    }
+
+    @Test
+    public void testUpdatesScoreboardOfNextTournamentStartedElsewhere() throws Exception {
+        final List<Message> updates = new CopyOnWriteArrayList<>();
+        final var posts = new AtomicInteger();
+        final MessageQueue.Sender sender = (workspace, method, message) -> {
+            final var response = new MessageResponse();
+            response.ok = true;
+            response.channel = message.channel;
+            if ("chat.update".equals(method)) {
+                updates.add(message);
+                response.ts = message.ts;
+            } else {
+                response.ts = "ts" + posts.incrementAndGet();
+            }
+            return response;
+        };
+        final var messageQueue = new MessageQueue(sender, 2, 1, 1);
+        try (final var zookeeper = new EmbeddedZookeeper();
+             final var scoreboardsA = new Scoreboards(zookeeper.getHosts());
+             final var scoreboardsB = new Scoreboards(zookeeper.getHosts())) {
+            final var nodeA = new Scoreboard(scoreboardsA, messageQueue, 0);
+            final var nodeB = new Scoreboard(scoreboardsB, messageQueue, 0);
+            updateNextTournament(nodeA, nodeB, scoreboardsA, updates);
+        }
+
+        Assert.assertEquals(updates.get(0).ts, "ts1");
+        Assert.assertEquals(updates.get(1).ts, "ts1");
+        Assert.assertEquals(updates.get(2).ts, "ts2");
+        Assert.assertTrue(updates.get(2).text.startsWith("A new game started"));
+    }
+
+    private static void updateNextTournament(final Scoreboard nodeA, final Scoreboard nodeB,
+                                             final Scoreboards scoreboards,
+                                             final List<Message> updates) throws Exception {
+        final var first = tournament();
+        first.date = new Date(1000);
+        nodeB.start(first);
+        first.matches.add(new Match());
+        nodeB.update(first);
+        awaitUpdates(updates, 1);
+
+        // node A finishes the first tournament and starts the next one
+        first.matches.get(0).state = State.FINISHED;
+        first.matches.get(0).teamA = 5;
+        first.state = State.FINISHED;
+        nodeA.finish(first);
+        awaitUpdates(updates, 2);
+        final var second = tournament();
+        second.date = new Date(2000);
+        nodeA.start(second);
+        final var deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (scoreboards.get("channel", second.date) == null
+               && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        second.matches.add(new Match());
+        nodeB.update(second);
+        awaitUpdates(updates, 3);
+    }
+
+    @Test
+    public void testRendersPrediction() {
+        final var tournament = tournament();
+        Assert.assertEquals(Scoreboard.render(tournament, null).attachments.get(0).text,
+                            "Matches won: 0 : 0");
+
+        tournament.prediction = new Prediction(0.445, 0.625);
+        final var text = Scoreboard.render(tournament, null).attachments.get(0).text;
+        Assert.assertTrue(text.endsWith("Win probability: 63% : 38% (match quality 45%)"), text);
+    }
+
+    @Test
+    public void testRendersCrawl() {
+        final var tournament = tournament();
+        final var crawled = new Match();
+        crawled.teamA = 5;
+        crawled.state = State.FINISHED;
+        tournament.matches.add(crawled);
+        tournament.matches.add(new Match());
+
+        final var attachment = Scoreboard.render(tournament, null).attachments.get(0);
+        Assert.assertEquals(attachment.fields.get(0).title, "Match 1 (crawl)");
+        Assert.assertEquals(attachment.fields.get(1).title, "Match 2 (running)");
+        Assert.assertEquals(attachment.text, String.format(
+                "Matches won: 1 : 0%n<@B1> and <@B2> had to crawl in match 1. How embarrassing!!"));
+    }
+
+    @Test
+    public void testRendersAchievements() {
+        final var text = Scoreboard.render(List.of(
+                new Achievement(Achievement.Kind.WIN_STREAK, List.of("A1", "A2"), 4),
+                new Achievement(Achievement.Kind.MILESTONE, List.of("B1"), 200)));
+        Assert.assertEquals(text, String.format(
+                "<@A1> and <@A2> won 4 games in a row, longer than ever before!%n"
+                + "<@B1> just played game number 200!"));
+    }
+
+    private static void awaitUpdates(final List<Message> updates, final int count)
+            throws InterruptedException {
+        final var deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (updates.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Tournament tournament() {
+        final var tournament = TestTournaments.tournament("A1", "A2", "B1", "B2", new int[0][]);
+        tournament.channel.slackWorkspace = new SlackWorkspace("T1", "token", null, "test", "U1");
+        return tournament;
+    }
+}
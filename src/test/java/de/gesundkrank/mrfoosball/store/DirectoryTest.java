@@ -0,0 +1,191 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.Channel;
+import de.gesundkrank.mrfoosball.models.SlackWorkspace;
+import de.gesundkrank.mrfoosball.store.zookeeper.DirectoryVersion;
+import de.gesundkrank.mrfoosball.store.zookeeper.EmbeddedZookeeper;
+
+/**
+ * Runs directories of two nodes against an in-memory stand-in of the database.
+ */
+public class DirectoryTest {
+
+    private final Map<String, SlackWorkspace> storedWorkspaces = new ConcurrentHashMap<>();
+    private final Map<String, Channel> storedChannels = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private EmbeddedZookeeper zookeeper;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        zookeeper = new EmbeddedZookeeper();
+        storedWorkspaces.clear();
+        storedChannels.clear();
+        loads.set(0);
+
+        final var workspace = new SlackWorkspace("T1", "token", null, "team", "U1");
+        storedWorkspaces.put(workspace.teamId, workspace);
+        storedChannels.put("channel1", channel("channel1", "C1", workspace));
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        zookeeper.close();
+    }
+
+    @Test
+    public void testCachesEntries() throws Exception {
+        try (final var version = new DirectoryVersion(zookeeper.getHosts())) {
+            final var directory = directory(version);
+
+            final var channel = directory.getChannel("channel1");
+            Assert.assertSame(directory.getChannel("channel1"), channel);
+            final var bySlackId = directory.getChannelBySlackId("C1");
+            Assert.assertEquals(bySlackId.id, "channel1");
+            Assert.assertSame(directory.getChannelBySlackId("C1"), bySlackId);
+            Assert.assertSame(directory.getWorkspace("T1"), storedWorkspaces.get("T1"));
+            Assert.assertSame(directory.getWorkspace("T1"), storedWorkspaces.get("T1"));
+            Assert.assertEquals(loads.get(), 3);
+
+            // unknown entries are looked up again, they might be added by another node
+            Assert.assertNull(directory.getChannel("unknown"));
+            Assert.assertNull(directory.getChannel("unknown"));
+            Assert.assertEquals(loads.get(), 5);
+        }
+    }
+
+    @Test
+    public void testRefreshesAfterJoinChannel() throws Exception {
+        try (final var version = new DirectoryVersion(zookeeper.getHosts())) {
+            final var directory = directory(version);
+            Assert.assertNull(directory.getChannelBySlackId("C2"));
+
+            final var joined = channel("channel2", "C2", storedWorkspaces.get("T1"));
+            storedChannels.put(joined.id, joined);
+            directory.put(joined);
+
+            Assert.assertEquals(directory.getChannel("channel2").slackId, "C2");
+            Assert.assertEquals(directory.getChannelBySlackId("C2").id, "channel2");
+        }
+    }
+
+    @Test
+    public void testRefreshesAfterRegisterWorkspace() throws Exception {
+        try (final var version = new DirectoryVersion(zookeeper.getHosts())) {
+            final var directory = directory(version);
+            final var channel = directory.getChannel("channel1");
+            Assert.assertEquals(channel.slackWorkspace.accessToken, "token");
+
+            // registering a workspace again replaces its credentials
+            final var registered = new SlackWorkspace("T1", "new token", null, "team", "U1");
+            storedWorkspaces.put(registered.teamId, registered);
+            storedChannels.put("channel1", channel("channel1", "C1", registered));
+            directory.put(registered);
+
+            Assert.assertSame(directory.getWorkspace("T1"), registered);
+            Assert.assertEquals(directory.getChannel("channel1").slackWorkspace.accessToken,
+                                "new token");
+        }
+    }
+
+    @Test
+    public void testInvalidatesOnChangeOfOtherNode() throws Exception {
+        try (final var versionA = new DirectoryVersion(zookeeper.getHosts());
+             final var versionB = new DirectoryVersion(zookeeper.getHosts())) {
+            final var directoryA = directory(versionA);
+            final var directoryB = directory(versionB);
+            Assert.assertNull(directoryA.getChannelBySlackId("C2"));
+            final var cached = directoryA.getChannel("channel1");
+
+            final var joined = channel("channel2", "C2", storedWorkspaces.get("T1"));
+            storedChannels.put(joined.id, joined);
+            directoryB.put(joined);
+
+            await(() -> directoryA.getChannel("channel1") != cached);
+            Assert.assertEquals(directoryA.getChannelBySlackId("C2").id, "channel2");
+        }
+    }
+
+    @Test
+    public void testInvalidatesOnOwnChange() throws Exception {
+        try (final var version = new DirectoryVersion(zookeeper.getHosts())) {
+            final var directory = directory(version);
+            final var cached = directory.getChannel("channel1");
+
+            directory.put(channel("channel2", "C2", storedWorkspaces.get("T1")));
+
+            await(() -> directory.getChannel("channel1") != cached);
+        }
+    }
+
+    private Directory directory(final DirectoryVersion version) throws Exception {
+        return new Directory(version, load(storedWorkspaces::get), load(this::loadChannel),
+                             load(this::loadChannelBySlackId));
+    }
+
+    private <T> Function<String, T> load(final Function<String, T> load) {
+        return key -> {
+            loads.incrementAndGet();
+            return load.apply(key);
+        };
+    }
+
+    /**
+     * Returns a copy like a new database session would.
+     */
+    private Channel loadChannel(final String channelId) {
+        final var stored = storedChannels.get(channelId);
+        return stored == null ? null : channel(stored.id, stored.slackId, stored.slackWorkspace);
+    }
+
+    private Channel loadChannelBySlackId(final String slackChannelId) {
+        return storedChannels.values().stream()
+                .filter(channel -> channel.slackId.equals(slackChannelId))
+                .findFirst()
+                .map(channel -> loadChannel(channel.id))
+                .orElse(null);
+    }
+
+    private static Channel channel(final String id, final String slackId,
+                                   final SlackWorkspace workspace) {
+        final var channel = new Channel(id, slackId);
+        channel.slackWorkspace = workspace;
+        return channel;
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final var deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.hibernate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.TeamStat;
+import de.gesundkrank.mrfoosball.models.TestTournaments;
+import de.gesundkrank.mrfoosball.models.Tournament;
+
+public class DailyStatsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2020, 3, 10);
+
+    @Test
+    public void testAddsTournamentToItsDay() throws Exception {
+        final var tournament = tournament();
+        final var connection = new RecordingConnection();
+
+        DailyStats.add(connection.proxy(), tournament, TeamStat.of(tournament), 1);
+
+        final var executions = connection.executions;
+        Assert.assertEquals(executions.size(), 3);
+        Assert.assertTrue(executions.get(0).sql.startsWith("INSERT INTO channel_daily_stat"));
+        Assert.assertEquals(executions.get(0).rows,
+                            List.of(List.of("channel", Date.valueOf(DAY), 1, 3, 33)));
+
+        Assert.assertTrue(executions.get(1).sql.startsWith("INSERT INTO player_daily_stat"));
+        Assert.assertEquals(executions.get(1).rows, List.of(
+                List.of("channel", "a", Date.valueOf(DAY), 1, 1, 0, 18, 15),
+                List.of("channel", "b", Date.valueOf(DAY), 1, 1, 0, 18, 15),
+                List.of("channel", "c", Date.valueOf(DAY), 1, 0, 1, 15, 18),
+                List.of("channel", "d", Date.valueOf(DAY), 1, 0, 1, 15, 18)));
+
+        Assert.assertTrue(executions.get(2).sql.startsWith("INSERT INTO team_daily_stat"));
+        Assert.assertEquals(executions.get(2).rows, List.of(
+                List.of("channel", "a", "b", Date.valueOf(DAY), 1, 1, 0, 18, 15),
+                List.of("channel", "c", "d", Date.valueOf(DAY), 1, 0, 1, 15, 18)));
+    }
+
+    @Test
+    public void testSubtractsTournamentAndDropsEmptyDays() throws Exception {
+        final var tournament = tournament();
+        final var connection = new RecordingConnection();
+
+        DailyStats.add(connection.proxy(), tournament, TeamStat.of(tournament), -1);
+
+        final var executions = connection.executions;
+        Assert.assertEquals(executions.size(), 6);
+        Assert.assertEquals(executions.get(0).rows,
+                            List.of(List.of("channel", Date.valueOf(DAY), -1, -3, -33)));
+        Assert.assertEquals(executions.get(1).rows.get(0),
+                            List.of("channel", "a", Date.valueOf(DAY), -1, -1, 0, -18, -15));
+        Assert.assertEquals(executions.get(2).rows.get(1),
+                            List.of("channel", "c", "d", Date.valueOf(DAY), -1, 0, -1, -15, -18));
+
+        final var tables = List.of("channel_daily_stat", "player_daily_stat", "team_daily_stat");
+        for (int i = 0; i < tables.size(); i++) {
+            final var delete = executions.get(3 + i);
+            Assert.assertTrue(delete.sql.startsWith("DELETE FROM " + tables.get(i)), delete.sql);
+            Assert.assertTrue(delete.sql.endsWith("games <= 0"), delete.sql);
+            Assert.assertEquals(delete.rows, List.of(List.of("channel", Date.valueOf(DAY))));
+        }
+    }
+
+    @Test
+    public void testActiveSince() {
+        // players count as active if their last day is after the returned day
+        Assert.assertEquals(DailyStats.activeSince(DAY, 1), Date.valueOf(DAY.minusDays(1)));
+        Assert.assertEquals(DailyStats.activeSince(DAY, 60), Date.valueOf("2020-01-10"));
+    }
+
+    private static Tournament tournament() {
+        final var tournament =
+                TestTournaments.tournament(new int[][]{{6, 3}, {6, 6}, {6, 6}});
+        tournament.date = java.util.Date.from(
+                DAY.atTime(23, 30).atZone(ZoneId.systemDefault()).toInstant());
+        return tournament;
+    }
+
+    /**
+     * Connection that records the parameters of every executed statement instead of running it.
+     */
+    private static class RecordingConnection implements InvocationHandler {
+
+        private final List<Execution> executions = new ArrayList<>();
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                       new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            if (method.getName().equals("prepareStatement")) {
+                return new Execution((String) args[0]).proxy();
+            }
+            return defaultValue(method);
+        }
+
+        private class Execution implements InvocationHandler {
+
+            private final String sql;
+            private final List<List<Object>> rows = new ArrayList<>();
+            private final Map<Integer, Object> parameters = new HashMap<>();
+
+            Execution(final String sql) {
+                this.sql = sql;
+            }
+
+            PreparedStatement proxy() {
+                return (PreparedStatement) Proxy.newProxyInstance(
+                        getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+            }
+
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                final var name = method.getName();
+                if (name.startsWith("set")) {
+                    parameters.put((Integer) args[0], args[1]);
+                } else if (name.equals("addBatch")) {
+                    addRow();
+                } else if (name.equals("executeUpdate")) {
+                    addRow();
+                    executions.add(this);
+                } else if (name.equals("executeBatch")) {
+                    executions.add(this);
+                    return new int[rows.size()];
+                }
+                return defaultValue(method);
+            }
+
+            private void addRow() {
+                final List<Object> row = new ArrayList<>();
+                for (int i = 1; i <= parameters.size(); i++) {
+                    row.add(parameters.get(i));
+                }
+                rows.add(row);
+                parameters.clear();
+            }
+        }
+
+        private static Object defaultValue(final Method method) {
+            final var type = method.getReturnType();
+            if (type == boolean.class) {
+                return false;
+            }
+            if (type == int.class) {
+                return 0;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.hibernate;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class QueryTimerTest {
+
+    @Test
+    public void testStatement() {
+        assertStatement("select player0_.id as id1_3_0_ from Player player0_ where player0_.id=?",
+                        "select player");
+        assertStatement("insert into Tournament (bestOfN, date, id) values (?, ?, ?)",
+                        "insert tournament");
+        assertStatement("update team_stat set matchesWon = ?", "update team_stat");
+        assertStatement("DELETE FROM player_rating_history", "delete player_rating_history");
+        assertStatement("SELECT (NOT EXISTS (SELECT 1 FROM player_rating)) AND EXISTS (SELECT 1)",
+                        "select player_rating");
+        assertStatement("select count(*) from (select id from tournament) t",
+                        "select tournament");
+        assertStatement("SELECT 1", "select");
+    }
+
+    @Test
+    public void testNamedStatement() {
+        assertStatement("/* get_channel */ select channel0_.id as id1_0_ from Channel channel0_",
+                        "get_channel");
+        assertStatement("/* finished_tournaments */ /*\n * This file is part of MrFoosball\n */"
+                        + "\n\nSELECT tournament.id FROM tournament", "finished_tournaments");
+        // Hibernate comments generated statements with their HQL or the entity they load
+        assertStatement("/* FROM Player WHERE id IN (:ids) */ select player0_.id from Player "
+                        + "player0_", "select player");
+        assertStatement("/* load de.gesundkrank.mrfoosball.models.Channel */ select channel0_.id "
+                        + "from Channel channel0_", "select channel");
+        assertStatement("/* insert de.gesundkrank.mrfoosball.models.Tournament\n */ insert into "
+                        + "Tournament (bestOfN) values (?)", "insert tournament");
+    }
+
+    private static void assertStatement(final String sql, final String expected) {
+        Assert.assertEquals(QueryTimer.statement(sql), expected);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.zookeeper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ChannelChangesTest {
+
+    private EmbeddedZookeeper zookeeper;
+
+    @BeforeMethod
+    public void startZookeeper() throws Exception {
+        zookeeper = new EmbeddedZookeeper();
+    }
+
+    @AfterMethod
+    public void stopZookeeper() throws Exception {
+        zookeeper.close();
+    }
+
+    @Test
+    public void testNotifiesAllNodes() throws Exception {
+        try (final var nodeA = new ChannelChanges(zookeeper.getHosts());
+             final var nodeB = new ChannelChanges(zookeeper.getHosts())) {
+            final BlockingQueue<String> changesA = new LinkedBlockingQueue<>();
+            final BlockingQueue<String> changesB = new LinkedBlockingQueue<>();
+            nodeA.watch(changesA::add);
+            nodeB.watch(changesB::add);
+
+            // the first change creates the node
+            nodeA.publish("channel1");
+            Assert.assertEquals(changesA.poll(5, TimeUnit.SECONDS), "channel1");
+            Assert.assertEquals(changesB.poll(5, TimeUnit.SECONDS), "channel1");
+
+            nodeB.publish("channel2");
+            Assert.assertEquals(changesA.poll(5, TimeUnit.SECONDS), "channel2");
+            Assert.assertEquals(changesB.poll(5, TimeUnit.SECONDS), "channel2");
+        }
+    }
+
+    @Test
+    public void testNotifiesAllChannels() throws Exception {
+        try (final var nodeA = new ChannelChanges(zookeeper.getHosts());
+             final var nodeB = new ChannelChanges(zookeeper.getHosts())) {
+            nodeA.publish("channel1");
+
+            final List<String> changes = new ArrayList<>();
+            final var changed = new LinkedBlockingQueue<Boolean>();
+            nodeB.watch(channelId -> {
+                changes.add(channelId);
+                changed.add(true);
+            });
+            nodeA.publishAll();
+            Assert.assertNotNull(changed.poll(5, TimeUnit.SECONDS));
+            Assert.assertEquals(changes.size(), 1);
+            Assert.assertNull(changes.get(0));
+        }
+    }
+
+    @Test
+    public void testDropsAllChannelsAfterMissedChanges() throws Exception {
+        try (final var nodeA = new ChannelChanges(zookeeper.getHosts());
+             final var nodeB = new ChannelChanges(zookeeper.getHosts())) {
+            nodeA.publish("channel1");
+            final BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+            // a null marks a missed change and can't be put into the queue
+            nodeB.watch(channelId -> changes.add(channelId == null ? "all" : channelId));
+
+            for (int i = 2; i < 100; i++) {
+                nodeA.publish("channel" + i);
+            }
+
+            final List<String> seen = new ArrayList<>();
+            String channelId;
+            while ((channelId = changes.poll(1, TimeUnit.SECONDS)) != null) {
+                seen.add(channelId);
+                if ("channel99".equals(channelId) || seen.size() == 98) {
+                    break;
+                }
+            }
+            // either every change was seen or a missed one dropped all channels
+            Assert.assertTrue(seen.size() == 98 || seen.contains("all"), seen.toString());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.zookeeper;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DirectoryVersionTest {
+
+    private EmbeddedZookeeper zookeeper;
+
+    @BeforeMethod
+    public void startZookeeper() throws Exception {
+        zookeeper = new EmbeddedZookeeper();
+    }
+
+    @AfterMethod
+    public void stopZookeeper() throws Exception {
+        zookeeper.close();
+    }
+
+    @Test
+    public void testNotifiesAllNodesOfEveryIncrement() throws Exception {
+        try (final var nodeA = new DirectoryVersion(zookeeper.getHosts());
+             final var nodeB = new DirectoryVersion(zookeeper.getHosts())) {
+            final var changesA = new Semaphore(0);
+            final var changesB = new Semaphore(0);
+            nodeA.watch(changesA::release);
+            nodeB.watch(changesB::release);
+
+            // the first increment creates the node, later ones change it
+            for (int i = 0; i < 3; i++) {
+                nodeA.increment();
+                Assert.assertTrue(changesA.tryAcquire(5, TimeUnit.SECONDS));
+                Assert.assertTrue(changesB.tryAcquire(5, TimeUnit.SECONDS));
+            }
+
+            nodeB.increment();
+            Assert.assertTrue(changesA.tryAcquire(5, TimeUnit.SECONDS));
+            Assert.assertTrue(changesB.tryAcquire(5, TimeUnit.SECONDS));
+        }
+    }
+}
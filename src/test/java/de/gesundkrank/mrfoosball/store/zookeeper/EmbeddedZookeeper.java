@@ -0,0 +1,59 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.store.zookeeper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+
+/**
+ * Standalone ZooKeeper server on a random local port with its data in a temporary directory.
+ */
+public class EmbeddedZookeeper implements AutoCloseable {
+
+    private final File dataDir;
+    private final ZooKeeperServer server;
+    private final ServerCnxnFactory factory;
+
+    public EmbeddedZookeeper() throws IOException {
+        this.dataDir = Files.createTempDirectory("zookeeper").toFile();
+        this.server = new ZooKeeperServer(dataDir, dataDir, 2000);
+        this.factory = ServerCnxnFactory.createFactory(0, 100);
+        try {
+            factory.startup(server);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    public String getHosts() {
+        return "127.0.0.1:" + factory.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        factory.shutdown();
+        server.shutdown();
+        FileUtils.deleteDirectory(dataDir);
+    }
+}
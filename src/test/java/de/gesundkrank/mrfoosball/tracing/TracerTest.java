@@ -0,0 +1,137 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.tracing;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+public class TracerTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterClass
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testNestsSpansOnTheSameThread() {
+        final var tracer = new Tracer(true, 1, 0, 10);
+        try (final var root = tracer.start("root")) {
+            try (final var child = tracer.start("child")) {
+                Assert.assertSame(tracer.current(), child);
+                tracer.start("grandchild").close();
+            }
+            Assert.assertSame(tracer.current(), root);
+        }
+        Assert.assertNull(tracer.current());
+
+        final var traces = tracer.getTraces(0, 10);
+        Assert.assertEquals(traces.size(), 1);
+        final var trace = traces.get(0);
+        Assert.assertEquals(trace.name, "root");
+        Assert.assertEquals(trace.spans.size(), 3);
+        Assert.assertNull(trace.spans.get(0).parentId);
+        Assert.assertEquals(trace.spans.get(1).parentId, Integer.valueOf(1));
+        Assert.assertEquals(trace.spans.get(2).parentId, Integer.valueOf(2));
+    }
+
+    @Test
+    public void testKeepsTraceOpenForHandedOverWork() throws Exception {
+        final var tracer = new Tracer(true, 1, 0, 10);
+        final var started = new CompletableFuture<Void>();
+        final var proceed = new CompletableFuture<Void>();
+        final var root = tracer.start("request");
+        final CompletableFuture<?> done;
+        try {
+            done = CompletableFuture.runAsync(tracer.wrap(() -> {
+                started.complete(null);
+                proceed.join();
+                tracer.start("async").close();
+            }), executor);
+        } finally {
+            root.close();
+        }
+        started.get();
+        Assert.assertTrue(tracer.getTraces(0, 10).isEmpty());
+
+        proceed.complete(null);
+        done.get();
+        final var trace = tracer.getTraces(0, 10).get(0);
+        Assert.assertEquals(trace.spans.size(), 2);
+        Assert.assertEquals(trace.spans.get(1).name, "async");
+        Assert.assertEquals(trace.spans.get(1).parentId, Integer.valueOf(1));
+    }
+
+    @Test
+    public void testKeepsOnlySlowTracesWhenNotSampled() throws Exception {
+        final var tracer = new Tracer(true, 0, 20, 10);
+        tracer.start("fast").close();
+        tracer.run("slow", () -> Thread.sleep(30));
+
+        final var traces = tracer.getTraces(0, 10);
+        Assert.assertEquals(traces.size(), 1);
+        Assert.assertEquals(traces.get(0).name, "slow");
+        Assert.assertFalse(traces.get(0).sampled);
+    }
+
+    @Test
+    public void testKeepsLastTraces() {
+        final var tracer = new Tracer(true, 1, 0, 3);
+        for (int i = 0; i < 5; i++) {
+            tracer.start("trace" + i).close();
+        }
+
+        final var traces = tracer.getTraces(0, 10);
+        Assert.assertEquals(traces.size(), 3);
+        Assert.assertEquals(traces.get(0).name, "trace4");
+        Assert.assertEquals(traces.get(2).name, "trace2");
+        Assert.assertEquals(tracer.getTraces(0, 1).size(), 1);
+    }
+
+    @Test
+    public void testDisabledTracerOnlyTimes() {
+        final var tracer = new Tracer(false, 1, 0, 3);
+        tracer.run("span", () -> Assert.assertNull(tracer.current()));
+        Assert.assertTrue(tracer.getTraces(0, 10).isEmpty());
+    }
+
+    @Test
+    public void testClosesSpanOfFailedCall() {
+        final var tracer = new Tracer(true, 1, 0, 10);
+        try {
+            tracer.call("failing", () -> {
+                throw new IOException("failed");
+            });
+            Assert.fail();
+        } catch (final IOException e) {
+            Assert.assertNull(tracer.current());
+        }
+
+        final var traces = tracer.getTraces(0, 10);
+        Assert.assertEquals(traces.size(), 1);
+        Assert.assertEquals(traces.get(0).name, "failing");
+        Assert.assertEquals((int) tracer.call("answer", () -> 42), 42);
+    }
+}
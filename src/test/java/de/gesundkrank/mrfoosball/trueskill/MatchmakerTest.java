@@ -0,0 +1,129 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.Team;
+import de.gesundkrank.mrfoosball.models.Tournament;
+
+public class MatchmakerTest {
+
+    private static final double EPSILON = 1e-12;
+
+    private final Matchmaker matchmaker =
+            new Matchmaker(1.0, 0.02, TimeUnit.MINUTES.toMillis(30), 0.3, 2);
+
+    @Test
+    public void testMatchesExhaustiveSearch() {
+        final var random = new Random(7);
+        for (int players = 4; players <= 30; players++) {
+            for (int round = 0; round < 5; round++) {
+                final var ratings = new double[players * 2];
+                final var bonus = new double[players];
+                for (int i = 0; i < players; i++) {
+                    ratings[i * 2] = 10 + random.nextDouble() * 30;
+                    ratings[i * 2 + 1] = 1 + random.nextDouble() * 7;
+                    bonus[i] = random.nextDouble() * 0.6 - 0.3;
+                }
+
+                final var match = matchmaker.bestMatch(ratings, bonus);
+                Assert.assertEquals(score(ratings, bonus, match),
+                                    exhaustiveBest(ratings, bonus), EPSILON,
+                                    players + " players");
+            }
+        }
+    }
+
+    @Test
+    public void testPrefersWaitingAndRestedPlayers() {
+        final List<Player> queue = new ArrayList<>();
+        final List<Long> joined = new ArrayList<>();
+        final var now = TimeUnit.HOURS.toMillis(1);
+        for (int i = 0; i < 8; i++) {
+            final var player = new Player("p" + i);
+            queue.add(player);
+            // p0 to p3 joined just now, p4 to p7 waited 10 minutes
+            joined.add(i < 4 ? now : now - TimeUnit.MINUTES.toMillis(10));
+        }
+
+        var match = matchmaker.bestMatch(queue, joined, List.of(), now);
+        Assert.assertTrue(match.containsAll(queue.subList(4, 8)), match.toString());
+
+        // p4 and p5 just played, so the fresh p0 and p1 are picked instead
+        final var last = new Tournament(1, team(queue.get(4), queue.get(5)),
+                                        team(queue.get(2), queue.get(3)), null);
+        match = matchmaker.bestMatch(queue, joined, List.of(last), now);
+        Assert.assertFalse(match.contains(queue.get(4)));
+        Assert.assertFalse(match.contains(queue.get(5)));
+        Assert.assertTrue(match.containsAll(List.of(queue.get(6), queue.get(7))));
+    }
+
+    @Test
+    public void testSplitsIntoBalancedTeams() {
+        final double[] ratings = {40, 1, 10, 1, 38, 1, 12, 1};
+        final var match = matchmaker.bestMatch(ratings, new double[4]);
+
+        // the two strong players have to play against each other
+        final var teamA = match[0] + match[1];
+        Assert.assertTrue(teamA == 0 + 1 || teamA == 2 + 3, "got " + teamA);
+    }
+
+    private static Team team(final Player player1, final Player player2) {
+        final var team = new Team();
+        team.player1 = player1;
+        team.player2 = player2;
+        return team;
+    }
+
+    private static double score(final double[] ratings, final double[] bonus, final int[] match) {
+        var score = TwoTeamTrueSkill.matchQuality(
+                ratings[match[0] * 2], ratings[match[0] * 2 + 1],
+                ratings[match[1] * 2], ratings[match[1] * 2 + 1],
+                ratings[match[2] * 2], ratings[match[2] * 2 + 1],
+                ratings[match[3] * 2], ratings[match[3] * 2 + 1]);
+        for (final var player : match) {
+            score += bonus[player];
+        }
+        return score;
+    }
+
+    private static double exhaustiveBest(final double[] ratings, final double[] bonus) {
+        var best = Double.NEGATIVE_INFINITY;
+        final var players = bonus.length;
+        for (int a = 0; a < players; a++) {
+            for (int b = a + 1; b < players; b++) {
+                for (int c = b + 1; c < players; c++) {
+                    for (int d = c + 1; d < players; d++) {
+                        best = Math.max(best, score(ratings, bonus, new int[]{a, b, c, d}));
+                        best = Math.max(best, score(ratings, bonus, new int[]{a, c, b, d}));
+                        best = Math.max(best, score(ratings, bonus, new int[]{a, d, b, c}));
+                    }
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import de.gesundkrank.mrfoosball.models.Lineup;
+import de.gesundkrank.mrfoosball.models.Player;
+import de.gesundkrank.mrfoosball.models.Prediction;
+import de.gesundkrank.mrfoosball.models.Team;
+
+public class PredictorTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    public void testPredictsFromLoadedRatings() {
+        final var predictor = new Predictor();
+        final List<String> loaded = new ArrayList<>();
+        final var lineups = List.of(new Lineup(List.of("a", "b"), List.of("c", "d")),
+                                    new Lineup(List.of("a", "c"), List.of("b", "d")));
+
+        final var predictions = predictor.predict("c1", lineups, (channelId, players) -> {
+            Assert.assertEquals(channelId, "c1");
+            players.forEach(player -> {
+                loaded.add(player.id);
+                player.updateRating(player.id.equals("a") ? 30 : 20, 5);
+            });
+        });
+
+        Assert.assertEquals(loaded.size(), 4);
+        Assert.assertEquals(predictions.size(), 2);
+        final var expected = Predictor.predict(team("a", 30, "b", 20), team("c", 20, "d", 20));
+        Assert.assertEquals(predictions.get(0).matchQuality, expected.matchQuality, EPSILON);
+        Assert.assertEquals(predictions.get(0).teamAWinProbability,
+                            expected.teamAWinProbability, EPSILON);
+        Assert.assertTrue(predictions.get(0).teamAWinProbability > 0.5);
+        Assert.assertEquals(predictions.get(0).teamAWinProbability
+                            + predictions.get(0).teamBWinProbability, 1, EPSILON);
+    }
+
+    @Test
+    public void testCachesUntilInvalidated() {
+        final var predictor = new Predictor();
+        final var loads = new AtomicInteger();
+        final var first = predict(predictor, "c1", "a", "b", "c", "d", loads);
+        Assert.assertEquals(loads.get(), 1);
+
+        // same pairing with swapped teams and players comes from the cache
+        final var swapped = predict(predictor, "c1", "d", "c", "b", "a", loads);
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertEquals(swapped.teamAWinProbability, first.teamBWinProbability, EPSILON);
+        Assert.assertEquals(swapped.matchQuality, first.matchQuality, EPSILON);
+
+        // other channels have their own ratings
+        predict(predictor, "c2", "a", "b", "c", "d", loads);
+        Assert.assertEquals(loads.get(), 2);
+
+        predictor.invalidate("c1");
+        predict(predictor, "c1", "a", "b", "c", "d", loads);
+        Assert.assertEquals(loads.get(), 3);
+    }
+
+    private static Prediction predict(final Predictor predictor, final String channelId,
+                                      final String a1, final String a2, final String b1,
+                                      final String b2, final AtomicInteger loads) {
+        final var lineup = new Lineup(List.of(a1, a2), List.of(b1, b2));
+        final BiConsumer<String, Collection<Player>> loadRatings = (channel, players) -> {
+            loads.incrementAndGet();
+            players.forEach(player -> player.updateRating(player.id.equals("a") ? 30 : 20, 5));
+        };
+        return predictor.predict(channelId, List.of(lineup), loadRatings).get(0);
+    }
+
+    private static Team team(final String player1, final double mean1, final String player2,
+                             final double mean2) {
+        final var team = new Team();
+        team.player1 = new Player(player1);
+        team.player1.updateRating(mean1, 5);
+        team.player2 = new Player(player2);
+        team.player2.updateRating(mean2, 5);
+        return team;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RatingRecomputationTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    public void testReplaysInOrder() {
+        final var recomputation = new RatingRecomputation();
+        recomputation.add(1, "c1", "a", "b", "c", "d", true);
+        recomputation.add(2, "c2", "w", "x", "y", "z", false);
+        recomputation.add(3, "c1", "a", "c", "b", "d", false);
+        recomputation.add(4, "c3", "a", "w", "b", "x", true);
+        recomputation.add(5, "c1", "a", "b", "c", "d", true);
+        recomputation.add(6, "c4", "p", "q", "r", "s", true);
+
+        final var pool = new ForkJoinPool(4);
+        try {
+            recomputation.run(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        // replay sequentially: c1 and c3 share players, but each channel has its own ratings
+        final Map<String, double[]> ratings = new HashMap<>();
+        final String[] channels = {"c1", "c2", "c1", "c3", "c1", "c4"};
+        final String[][] games = {
+                {"a", "b", "c", "d"}, {"w", "x", "y", "z"}, {"a", "c", "b", "d"},
+                {"a", "w", "b", "x"}, {"a", "b", "c", "d"}, {"p", "q", "r", "s"}
+        };
+        final boolean[] teamAWins = {true, false, false, true, true, true};
+        final double[] expectedChanges = new double[games.length * 4];
+        final double[] game = new double[8];
+        for (int t = 0; t < games.length; t++) {
+            for (int p = 0; p < 4; p++) {
+                final var rating = ratings.computeIfAbsent(
+                        channels[t] + games[t][p], key -> new double[]{
+                            TrueSkillCalculator.DEFAULT_INITIAL_MEAN,
+                            TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION
+                        });
+                game[p * 2] = rating[0];
+                game[p * 2 + 1] = rating[1];
+            }
+            TwoTeamTrueSkill.update2v2(game, 0, teamAWins[t]);
+            for (int p = 0; p < 4; p++) {
+                final var rating = ratings.get(channels[t] + games[t][p]);
+                expectedChanges[t * 4 + p] =
+                        TwoTeamTrueSkill.conservativeRating(game[p * 2], game[p * 2 + 1])
+                        - TwoTeamTrueSkill.conservativeRating(rating[0], rating[1]);
+                rating[0] = game[p * 2];
+                rating[1] = game[p * 2 + 1];
+            }
+        }
+
+        Assert.assertEquals(recomputation.getPlayerCount(), 16);
+        for (int i = 0; i < recomputation.getPlayerCount(); i++) {
+            final var rating = ratings.get(recomputation.getPlayerChannelId(i)
+                                           + recomputation.getPlayerId(i));
+            Assert.assertEquals(recomputation.getPlayerMean(i), rating[0], EPSILON);
+            Assert.assertEquals(recomputation.getPlayerStandardDeviation(i), rating[1], EPSILON);
+        }
+        for (int t = 0; t < games.length; t++) {
+            Assert.assertEquals(recomputation.getTournamentId(t), t + 1);
+            for (int p = 0; p < 4; p++) {
+                Assert.assertEquals(recomputation.getSkillChange(t, p),
+                                    expectedChanges[t * 4 + p], EPSILON);
+            }
+        }
+
+        // p, q, r and s only played the last tournament
+        for (int p = 0; p < 4; p++) {
+            final var rating = ratings.get("c4" + games[5][p]);
+            Assert.assertEquals(recomputation.getTournamentPlayerId(5, p), games[5][p]);
+            Assert.assertEquals(recomputation.getPlayerRatingAfter(5, p * 2), rating[0], EPSILON);
+            Assert.assertEquals(recomputation.getPlayerRatingAfter(5, p * 2 + 1), rating[1],
+                                EPSILON);
+        }
+
+        // team a+b played twice in c1, so it is rated like a single player who played twice
+        Assert.assertEquals(recomputation.getTeamCount(), 10);
+        final double[] team = {
+            TrueSkillCalculator.DEFAULT_INITIAL_MEAN,
+            TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION,
+            TrueSkillCalculator.DEFAULT_INITIAL_MEAN,
+            TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION
+        };
+        TwoTeamTrueSkill.update1v1(team, 0, true);
+        TwoTeamTrueSkill.update1v1(team, 0, true);
+        Assert.assertEquals(recomputation.getTeamChannelId(0), "c1");
+        Assert.assertEquals(recomputation.getTeamPlayer1Id(0), "a");
+        Assert.assertEquals(recomputation.getTeamPlayer2Id(0), "b");
+        Assert.assertEquals(recomputation.getTeamMean(0), team[0], EPSILON);
+        Assert.assertEquals(recomputation.getTeamStandardDeviation(0), team[1], EPSILON);
+    }
+
+    @Test
+    public void testProgress() {
+        final var recomputation = new RatingRecomputation();
+        recomputation.add(1, "c1", "a", "b", "c", "d", true);
+        recomputation.add(2, "c2", "e", "f", "g", "h", true);
+        recomputation.add(3, "c1", "a", "b", "c", "d", false);
+
+        var progress = recomputation.getProgress();
+        Assert.assertEquals(progress.phase, RatingRecomputation.Phase.LOADING);
+        Assert.assertEquals(progress.tournaments, 3);
+        Assert.assertTrue(progress.channels.isEmpty());
+
+        recomputation.run(ForkJoinPool.commonPool());
+        progress = recomputation.getProgress();
+        Assert.assertEquals(progress.phase, RatingRecomputation.Phase.RECOMPUTING);
+        Assert.assertEquals(progress.processed, 3);
+        Assert.assertEquals(progress.channels.size(), 2);
+        Assert.assertEquals(progress.channels.get(0).channelId, "c1");
+        Assert.assertEquals(progress.channels.get(0).processed, 2);
+        Assert.assertEquals(progress.channels.get(0).tournaments, 2);
+        Assert.assertTrue(recomputation.isRunning());
+    }
+
+    @Test
+    public void testReplaysAddedTournamentsOnTop() {
+        final var full = new RatingRecomputation();
+        final var incremental = new RatingRecomputation();
+        for (final var recomputation : new RatingRecomputation[]{full, incremental}) {
+            recomputation.add(1, "c1", "a", "b", "c", "d", true);
+            recomputation.add(2, "c2", "e", "f", "g", "h", true);
+        }
+        incremental.run(ForkJoinPool.commonPool());
+        Assert.assertEquals(incremental.getLastTournamentId(), 2);
+
+        // finished while the first replay ran, with a new channel and a new team
+        for (final var recomputation : new RatingRecomputation[]{full, incremental}) {
+            recomputation.add(3, "c1", "a", "c", "b", "d", false);
+            recomputation.add(4, "c3", "a", "b", "c", "d", true);
+        }
+        full.run(ForkJoinPool.commonPool());
+        incremental.replayAdded();
+
+        Assert.assertEquals(incremental.getLastTournamentId(), 4);
+        Assert.assertEquals(incremental.getPlayerCount(), full.getPlayerCount());
+        for (int i = 0; i < full.getPlayerCount(); i++) {
+            Assert.assertEquals(incremental.getPlayerMean(i), full.getPlayerMean(i));
+            Assert.assertEquals(incremental.getPlayerStandardDeviation(i),
+                                full.getPlayerStandardDeviation(i));
+        }
+        Assert.assertEquals(incremental.getTeamCount(), full.getTeamCount());
+        for (int i = 0; i < full.getTeamCount(); i++) {
+            Assert.assertEquals(incremental.getTeamMean(i), full.getTeamMean(i));
+        }
+        for (int t = 0; t < 4; t++) {
+            for (int slot = 0; slot < 6; slot++) {
+                Assert.assertEquals(incremental.getSkillChange(t, slot),
+                                    full.getSkillChange(t, slot));
+            }
+        }
+
+        final var progress = incremental.getProgress();
+        Assert.assertEquals(progress.processed, 4);
+        Assert.assertEquals(progress.channels.size(), 3);
+        Assert.assertEquals(progress.channels.get(0).tournaments, 2);
+    }
+
+    @Test
+    public void testGroupsByChannel() {
+        final var recomputation = new RatingRecomputation();
+        recomputation.add(1, "c1", "a", "b", "c", "d", true);
+        recomputation.add(2, "c2", "a", "b", "c", "d", true);
+        recomputation.add(3, "c1", "a", "c", "b", "d", false);
+
+        Assert.assertEquals(recomputation.getChannelCount(), 2);
+        Assert.assertEquals(recomputation.getChannelId(1), "c2");
+        Assert.assertEquals(recomputation.getChannelTournaments(0), new int[]{0, 2});
+        Assert.assertEquals(recomputation.getChannelTournaments(1), new int[]{1});
+        Assert.assertEquals(recomputation.getChannelPlayers(1), new int[]{4, 5, 6, 7});
+        Assert.assertEquals(recomputation.getChannelTeams(0), new int[]{0, 1, 4, 5});
+
+        // added while writing an earlier channel
+        recomputation.add(4, "c2", "a", "b", "e", "f", false);
+        Assert.assertEquals(recomputation.getChannelTournaments(1), new int[]{1, 3});
+        Assert.assertEquals(recomputation.getChannelPlayers(1), new int[]{4, 5, 6, 7, 8, 9});
+        Assert.assertEquals(recomputation.getChannelTeams(1), new int[]{2, 3, 6});
+    }
+
+    @Test
+    public void testMarkStale() {
+        final var recomputation = new RatingRecomputation();
+        Assert.assertEquals(recomputation.getLastTournamentId(), 0);
+        Assert.assertFalse(recomputation.isStale());
+        recomputation.markStale();
+        Assert.assertTrue(recomputation.isStale());
+    }
+}
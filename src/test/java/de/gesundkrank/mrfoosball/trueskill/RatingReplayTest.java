@@ -0,0 +1,127 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RatingReplayTest {
+
+    private static final double EPSILON = 1e-12;
+
+    private static final String[][] GAMES = {
+        {"a", "b", "c", "d"}, {"e", "f", "g", "h"}, {"a", "c", "b", "d"}, {"e", "f", "g", "h"},
+        {"a", "e", "b", "f"}, {"i", "j", "k", "l"}, {"a", "b", "c", "d"}, {"c", "d", "g", "h"}
+    };
+    private static final boolean[] TEAM_A_WINS = {
+        true, false, true, true, false, true, true, false
+    };
+
+    @Test
+    public void testEditMatchesFullRecomputation() throws Exception {
+        final var flipped = TEAM_A_WINS.clone();
+        flipped[2] = !flipped[2];
+        assertReplay(2, flipped, false);
+    }
+
+    @Test
+    public void testDeleteMatchesFullRecomputation() throws Exception {
+        assertReplay(2, TEAM_A_WINS, true);
+    }
+
+    private static void assertReplay(final int changed, final boolean[] teamAWins,
+                                     final boolean delete) throws Exception {
+        final var before = recompute(TEAM_A_WINS, -1);
+        final var expected = recompute(teamAWins, delete ? changed : -1);
+
+        final var replay = new RatingReplay(GAMES[changed], snapshot(before, changed));
+        final var snapshot = new double[12];
+        final var skillChanges = new double[6];
+        for (int t = delete ? changed + 1 : changed; t < GAMES.length; t++) {
+            final double[] storedSnapshot = snapshot(before, t);
+            System.arraycopy(storedSnapshot, 0, snapshot, 0, 12);
+            for (int slot = 0; slot < 6; slot++) {
+                skillChanges[slot] = before.getSkillChange(t, slot);
+            }
+
+            final var replayed = replay.replay(GAMES[t], teamAWins[t], snapshot, skillChanges);
+            // the other channel never meets the changed players
+            Assert.assertEquals(replayed, t != 5 && t != 3, "tournament " + t);
+
+            final var e = delete && t > changed ? t - 1 : t;
+            Assert.assertEquals(snapshot, snapshot(expected, e), EPSILON);
+            for (int slot = 0; slot < 6; slot++) {
+                Assert.assertEquals(skillChanges[slot], expected.getSkillChange(e, slot), EPSILON);
+            }
+        }
+
+        for (int i = 0; i < expected.getPlayerCount(); i++) {
+            final var rating = replay.getPlayers().get(expected.getPlayerId(i));
+            if (rating != null) {
+                Assert.assertEquals(rating[0], expected.getPlayerMean(i), EPSILON);
+                Assert.assertEquals(rating[1], expected.getPlayerStandardDeviation(i), EPSILON);
+            }
+        }
+        Assert.assertFalse(replay.getPlayers().containsKey("i"));
+        Assert.assertTrue(replay.getPlayers().containsKey("g"));
+
+        for (int i = 0; i < expected.getTeamCount(); i++) {
+            final var rating = replay.getTeams().get(
+                    Arrays.asList(expected.getTeamPlayer1Id(i), expected.getTeamPlayer2Id(i)));
+            if (rating != null) {
+                Assert.assertEquals(rating[0], expected.getTeamMean(i), EPSILON);
+                Assert.assertEquals(rating[1], expected.getTeamStandardDeviation(i), EPSILON);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = RatingReplay.MissingSnapshotException.class)
+    public void testMissingSnapshot() throws Exception {
+        final var recomputation = recompute(TEAM_A_WINS, -1);
+        final var replay = new RatingReplay(GAMES[0], snapshot(recomputation, 0));
+
+        final var snapshot = new double[12];
+        Arrays.fill(snapshot, Double.NaN);
+        replay.replay(GAMES[4], true, snapshot, new double[6]);
+    }
+
+    private static RatingRecomputation recompute(final boolean[] teamAWins, final int skip) {
+        final var recomputation = new RatingRecomputation();
+        for (int t = 0; t < GAMES.length; t++) {
+            if (t != skip) {
+                final var game = GAMES[t];
+                recomputation.add(t, "channel", game[0], game[1], game[2], game[3],
+                                  teamAWins[t]);
+            }
+        }
+        recomputation.run(ForkJoinPool.commonPool());
+        return recomputation;
+    }
+
+    private static double[] snapshot(final RatingRecomputation recomputation,
+                                     final int tournament) {
+        final var snapshot = new double[12];
+        for (int i = 0; i < 12; i++) {
+            snapshot[i] = recomputation.getSnapshot(tournament, i);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SeasonSimulatorTest {
+
+    @Test
+    public void testRoundRobin() {
+        final var fixtures = SeasonSimulator.roundRobin(4, 2);
+        Assert.assertEquals(fixtures.length, 4 * 3 * 2);
+
+        final var games = new int[16];
+        for (int f = 0; f < fixtures.length; f += 2) {
+            Assert.assertNotEquals(fixtures[f], fixtures[f + 1]);
+            games[fixtures[f] * 4 + fixtures[f + 1]]++;
+        }
+        // every pairing once at home and once away
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                Assert.assertEquals(games[a * 4 + b], a == b ? 0 : 1);
+            }
+        }
+    }
+
+    @Test
+    public void testProjectsStandings() {
+        // team 0 is much stronger than the others, team 1 and 2 are equal
+        final double[] ratings = {
+            40, 2, 40, 2, 25, 2, 25, 2, 25, 2, 25, 2
+        };
+        final int[] teamPlayers = {0, 1, 2, 3, 4, 5};
+        final var simulator = new SeasonSimulator(ratings, teamPlayers,
+                                                  SeasonSimulator.roundRobin(3, 4));
+
+        final var seasons = 5000;
+        final var pool = new ForkJoinPool(4);
+        final int[] positions;
+        try {
+            positions = simulator.run(seasons, 7, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assert.assertEquals(simulator.getTeamCount(), 3);
+        for (int t = 0; t < 3; t++) {
+            var total = 0;
+            for (int p = 0; p < 3; p++) {
+                total += positions[t * 3 + p];
+            }
+            Assert.assertEquals(total, seasons);
+        }
+        for (int p = 0; p < 3; p++) {
+            Assert.assertEquals(positions[p] + positions[3 + p] + positions[6 + p], seasons);
+        }
+
+        Assert.assertTrue(positions[0] > seasons * 0.95);
+        Assert.assertEquals((double) positions[3 + 1] / seasons,
+                            (double) positions[6 + 1] / seasons, 0.05);
+    }
+
+    @Test
+    public void testSameSeedSameProjection() {
+        final double[] ratings = {
+            30, 5, 22, 4, 27, 6, 20, 3, 25, 8, 24, 2, 18, 7, 29, 5
+        };
+        final int[] teamPlayers = {0, 1, 2, 3, 4, 5, 6, 7};
+        final var simulator = new SeasonSimulator(ratings, teamPlayers,
+                                                  SeasonSimulator.roundRobin(4, 2));
+
+        final var single = new ForkJoinPool(1);
+        final var parallel = new ForkJoinPool(4);
+        try {
+            Assert.assertEquals(simulator.run(3000, 42, single),
+                                simulator.run(3000, 42, parallel));
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.trueskill;
+
+import static de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator.DEFAULT_BETA;
+import static de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator.DEFAULT_DRAW_PROBABILITY;
+import static de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator.DEFAULT_DYNAMICS_FACTOR;
+import static de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator.DEFAULT_INITIAL_MEAN;
+import static de.gesundkrank.mrfoosball.trueskill.TrueSkillCalculator.DEFAULT_INITIAL_STANDARD_DEVIATION;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.gesundkrank.jskills.GameInfo;
+import de.gesundkrank.jskills.IPlayer;
+import de.gesundkrank.jskills.ITeam;
+import de.gesundkrank.jskills.Player;
+import de.gesundkrank.jskills.Rating;
+import de.gesundkrank.jskills.Team;
+import de.gesundkrank.jskills.trueskill.TwoTeamTrueSkillCalculator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TwoTeamTrueSkillTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final int ROUNDS = 1000;
+
+    private final TwoTeamTrueSkillCalculator calculator = new TwoTeamTrueSkillCalculator();
+    private final GameInfo gameInfo = new GameInfo(DEFAULT_INITIAL_MEAN,
+                                                   DEFAULT_INITIAL_STANDARD_DEVIATION,
+                                                   DEFAULT_BETA, DEFAULT_DYNAMICS_FACTOR,
+                                                   DEFAULT_DRAW_PROBABILITY);
+
+    @Test
+    public void testMatchesJSkills2v2() {
+        final var random = new Random(42);
+        for (int i = 0; i < ROUNDS; i++) {
+            final double[] ratings = randomRatings(random, 4);
+            final var players = players(4);
+            final var teams = teams(players, ratings);
+            final boolean teamAWins = random.nextBoolean();
+
+            Assert.assertEquals(
+                    TwoTeamTrueSkill.matchQuality(ratings[0], ratings[1], ratings[2], ratings[3],
+                                                  ratings[4], ratings[5], ratings[6], ratings[7]),
+                    calculator.calculateMatchQuality(gameInfo, teams), EPSILON);
+
+            final var expected = calculator.calculateNewRatings(gameInfo, teams,
+                                                                teamAWins ? 1 : 2,
+                                                                teamAWins ? 2 : 1);
+            TwoTeamTrueSkill.update2v2(ratings, 0, teamAWins);
+            assertRatings(ratings, players, expected);
+        }
+    }
+
+    @Test
+    public void testMatchesJSkills1v1() {
+        final var random = new Random(23);
+        for (int i = 0; i < ROUNDS; i++) {
+            final double[] ratings = randomRatings(random, 2);
+            final var players = players(2);
+            final var teams = teams(players, ratings);
+            final boolean teamAWins = random.nextBoolean();
+
+            Assert.assertEquals(
+                    TwoTeamTrueSkill.matchQuality(ratings[0], ratings[1], ratings[2], ratings[3]),
+                    calculator.calculateMatchQuality(gameInfo, teams), EPSILON);
+
+            final var expected = calculator.calculateNewRatings(gameInfo, teams,
+                                                                teamAWins ? 1 : 2,
+                                                                teamAWins ? 2 : 1);
+            TwoTeamTrueSkill.update1v1(ratings, 0, teamAWins);
+            assertRatings(ratings, players, expected);
+        }
+    }
+
+    @Test
+    public void testUpdateAtOffset() {
+        final double[] ratings = new double[10];
+        ratings[0] = -1;
+        ratings[9] = -1;
+        for (int i = 1; i < 9; i += 2) {
+            ratings[i] = DEFAULT_INITIAL_MEAN;
+            ratings[i + 1] = DEFAULT_INITIAL_STANDARD_DEVIATION;
+        }
+
+        TwoTeamTrueSkill.update2v2(ratings, 1, true);
+
+        Assert.assertEquals(ratings[0], -1.0);
+        Assert.assertEquals(ratings[9], -1.0);
+        Assert.assertTrue(ratings[1] > DEFAULT_INITIAL_MEAN);
+        Assert.assertTrue(ratings[5] < DEFAULT_INITIAL_MEAN);
+        Assert.assertTrue(ratings[2] < DEFAULT_INITIAL_STANDARD_DEVIATION);
+    }
+
+    @Test
+    public void testWinProbability() {
+        Assert.assertEquals(TwoTeamTrueSkill.winProbability(25, 8, 25, 8), 0.5, EPSILON);
+
+        // the mean difference is exactly one standard deviation of the performance difference
+        Assert.assertEquals(TwoTeamTrueSkill.winProbability(25 + 2 * DEFAULT_BETA, DEFAULT_BETA,
+                                                            25, DEFAULT_BETA),
+                            0.8413447460685429, EPSILON);
+
+        final var random = new Random(7);
+        for (int i = 0; i < ROUNDS; i++) {
+            final double[] r = randomRatings(random, 4);
+            final var teamA = TwoTeamTrueSkill.winProbability(r[0], r[1], r[2], r[3],
+                                                              r[4], r[5], r[6], r[7]);
+            final var teamB = TwoTeamTrueSkill.winProbability(r[4], r[5], r[6], r[7],
+                                                              r[0], r[1], r[2], r[3]);
+            Assert.assertEquals(teamA + teamB, 1, EPSILON);
+            Assert.assertEquals(teamA > 0.5, r[0] + r[2] > r[4] + r[6]);
+        }
+    }
+
+    private static double[] randomRatings(final Random random, final int players) {
+        final double[] ratings = new double[players * 2];
+        for (int i = 0; i < ratings.length; i += 2) {
+            ratings[i] = 5 + random.nextDouble() * 40;
+            ratings[i + 1] = 0.5 + random.nextDouble() * DEFAULT_INITIAL_STANDARD_DEVIATION;
+        }
+        return ratings;
+    }
+
+    private static List<IPlayer> players(final int count) {
+        final List<IPlayer> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(new Player<>(i));
+        }
+        return players;
+    }
+
+    private static List<ITeam> teams(final List<IPlayer> players, final double[] ratings) {
+        final int teamSize = players.size() / 2;
+        final List<ITeam> teams = new ArrayList<>(2);
+        for (int t = 0; t < 2; t++) {
+            final var team = new Team();
+            for (int p = t * teamSize; p < (t + 1) * teamSize; p++) {
+                team.addPlayer(players.get(p), new Rating(ratings[2 * p], ratings[2 * p + 1]));
+            }
+            teams.add(team);
+        }
+        return teams;
+    }
+
+    private static void assertRatings(final double[] ratings, final List<IPlayer> players,
+                                      final Map<IPlayer, Rating> expected) {
+        for (int p = 0; p < players.size(); p++) {
+            final var rating = expected.get(players.get(p));
+            Assert.assertEquals(ratings[2 * p], rating.getMean(), EPSILON);
+            Assert.assertEquals(ratings[2 * p + 1], rating.getStandardDeviation(), EPSILON);
+        }
+    }
+}
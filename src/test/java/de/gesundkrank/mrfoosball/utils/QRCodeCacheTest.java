@@ -0,0 +1,93 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import javax.imageio.ImageIO;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.RGBLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class QRCodeCacheTest {
+
+    @Test
+    public void testCachesCodes() throws Exception {
+        final var cache = new QRCodeCache();
+        final var code = cache.get("channel", 128, QRCodeCache.PNG);
+
+        Assert.assertSame(cache.get("channel", 128, QRCodeCache.PNG), code);
+        Assert.assertNotSame(cache.get("channel", 256, QRCodeCache.PNG), code);
+        Assert.assertNotSame(cache.get("channel", 128, QRCodeCache.SVG), code);
+        Assert.assertNotSame(cache.get("other", 128, QRCodeCache.PNG), code);
+    }
+
+    @Test
+    public void testEntityTagIsContentHash() throws Exception {
+        final var code = new QRCodeCache().get("channel", 128, QRCodeCache.SVG);
+
+        Assert.assertEquals(code.entityTag.getValue(), DigestUtils.sha256Hex(code.content));
+        Assert.assertFalse(code.entityTag.isWeak());
+        Assert.assertEquals(new QRCodeCache().get("channel", 128, QRCodeCache.SVG).entityTag,
+                            code.entityTag);
+        Assert.assertNotEquals(new QRCodeCache().get("other", 128, QRCodeCache.SVG).entityTag,
+                               code.entityTag);
+    }
+
+    @Test
+    public void testRendersPng() throws Exception {
+        final var code = new QRCodeCache().get("channel", 200, QRCodeCache.PNG);
+        Assert.assertEquals(code.mediaType, QRCodeCache.PNG);
+
+        final var image = ImageIO.read(new ByteArrayInputStream(code.content));
+        Assert.assertEquals(image.getWidth(), 200);
+        Assert.assertEquals(image.getHeight(), 200);
+
+        final var pixels = image.getRGB(0, 0, 200, 200, null, 0, 200);
+        final var bitmap = new BinaryBitmap(
+                new HybridBinarizer(new RGBLuminanceSource(200, 200, pixels)));
+        Assert.assertEquals(new QRCodeReader().decode(bitmap).getText(), "channel");
+    }
+
+    @Test
+    public void testRendersSvg() throws Exception {
+        final var code = new QRCodeCache().get("channel", 200, QRCodeCache.SVG);
+        Assert.assertEquals(code.mediaType, QRCodeCache.SVG);
+
+        final var svg = new String(code.content, StandardCharsets.UTF_8);
+        Assert.assertTrue(svg.startsWith("<?xml"));
+        Assert.assertTrue(svg.contains("width=\"200\" height=\"200\" viewBox=\"0 0 "));
+        Assert.assertTrue(svg.contains("<path fill=\"#000\" d=\"M"));
+        Assert.assertTrue(svg.endsWith("\"/></svg>"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsTooLargeSize() throws Exception {
+        new QRCodeCache().get("channel", QRCodeCache.MAX_SIZE + 1, QRCodeCache.PNG);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsUnsupportedMediaType() throws Exception {
+        new QRCodeCache().get("channel", 128, "image/gif");
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of MrFoosball (https://github.com/gesundkrank/mrfoosball).
+ * Copyright (c) 2020 Jan Graßegger.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.gesundkrank.mrfoosball.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StatsCacheTest {
+
+    @Test
+    public void testCoalescesConcurrentMisses() throws Exception {
+        final var cache = new StatsCache();
+        final var loads = new AtomicInteger();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Integer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("c", "skills", () -> {
+                started.countDown();
+                await(release);
+                return loads.incrementAndGet();
+            })));
+            started.await();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get("c", "skills",
+                                                            loads::incrementAndGet)));
+            }
+            // give the other requests time to join the running computation
+            Thread.sleep(100);
+            release.countDown();
+
+            for (final Future<Integer> result : results) {
+                Assert.assertEquals(result.get(5, TimeUnit.SECONDS), (Integer) 1);
+            }
+            Assert.assertEquals(loads.get(), 1);
+            Assert.assertEquals((int) cache.get("c", "skills", loads::incrementAndGet), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidatesChannel() {
+        final var cache = new StatsCache();
+        final var loads = new AtomicInteger();
+        cache.get("c1", "teams", loads::incrementAndGet);
+        cache.get("c2", "teams", loads::incrementAndGet);
+
+        cache.invalidate("c1");
+
+        Assert.assertEquals((int) cache.get("c1", "teams", loads::incrementAndGet), 3);
+        Assert.assertEquals((int) cache.get("c2", "teams", loads::incrementAndGet), 2);
+    }
+
+    @Test
+    public void testDoesNotCacheStaleOrFailedLoads() {
+        final var cache = new StatsCache();
+        Assert.assertEquals(cache.get("c", "records", () -> {
+            cache.invalidate("c");
+            return "stale";
+        }), "stale");
+        Assert.assertEquals(cache.get("c", "records", () -> "fresh"), "fresh");
+
+        Assert.assertThrows(IllegalStateException.class, () -> cache.get("c", "pairs", () -> {
+            throw new IllegalStateException();
+        }));
+        Assert.assertEquals(cache.get("c", "pairs", () -> "loaded"), "loaded");
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}